@@ -6,7 +6,13 @@ public enum AttachmentType {
 
     IMAGE(".png"),
 
-    PDF(".pdf");
+    PDF(".pdf"),
+
+    CSV(".csv"),
+
+    CSV_GZIP(".csv.gz"),
+
+    PARQUET(".parquet");
 
     private String suffix;
 
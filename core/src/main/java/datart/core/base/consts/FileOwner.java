@@ -12,6 +12,8 @@ public enum FileOwner {
 
     DATA_SOURCE("resources/data/source/"),
 
+    FILE_SNAPSHOT("resources/data/snapshot/"),
+
     SCHEDULE("schedule/files/"),
 
     DOWNLOAD("download/"),
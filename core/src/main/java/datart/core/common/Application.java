@@ -72,6 +72,25 @@ public class Application implements ApplicationContextAware {
         return context.getEnvironment().getProperty(key, defaultVal);
     }
 
+    /**
+     * 读取整数配置，容器未启动或配置无法解析时返回默认值
+     */
+    public static int getIntProperty(String key, int defaultValue) {
+        try {
+            return Integer.parseInt(getProperty(key, String.valueOf(defaultValue)).trim());
+        } catch (Exception e) {
+            return defaultValue;
+        }
+    }
+
+    public static long getLongProperty(String key, long defaultValue) {
+        try {
+            return Long.parseLong(getProperty(key, String.valueOf(defaultValue)).trim());
+        } catch (Exception e) {
+            return defaultValue;
+        }
+    }
+
     public static String getFileBasePath() {
         String path = getProperty("datart.env.file-path");
         if (path.startsWith(".")) {
@@ -18,35 +18,67 @@
 package datart.core.common;
 
 import datart.core.base.consts.ValueType;
+import datart.core.base.exception.BaseException;
 import datart.core.base.exception.Exceptions;
+import datart.core.data.provider.Column;
+import datart.core.data.provider.Dataframe;
+import datart.core.data.provider.columnar.ColumnarRows;
 import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVRecord;
-import org.apache.commons.lang.math.NumberUtils;
-import org.springframework.util.CollectionUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.apache.commons.lang3.time.FastDateFormat;
 
-import java.io.File;
-import java.io.IOException;
+import java.io.*;
+import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
-import java.text.SimpleDateFormat;
-import java.util.Collections;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.stream.Collectors;
+import java.util.*;
+import java.util.concurrent.*;
 
+/**
+ * CSV 文件解析。按记录流式读取，每个单元格直接转换为对应类型写入列式存储，大文件按块并行转换。
+ * 未指定列时默认所有列为字符串，开启类型推断后用前若干行推断列类型，采样之外的值无法转换时该列改为字符串。
+ */
+@Slf4j
 public class CSVParse {
 
+    private static final int DEFAULT_SAMPLE_SIZE = 1000;
+
+    private static final int CHUNK_SIZE = 10000;
+
+    /**
+     * 文件超过该大小时，按块并行转换
+     */
+    private static final long PARALLEL_THRESHOLD = 32L * 1024 * 1024;
+
+    private static final int PARALLELISM = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+
+    private static final ThreadPoolExecutor PARSE_EXECUTOR;
+
+    static {
+        PARSE_EXECUTOR = ThreadPoolFactory.newFixedPool("csv-parse", PARALLELISM, 30
+                , new LinkedBlockingQueue<>(), new ThreadPoolExecutor.AbortPolicy());
+    }
+
     private String path;
 
-    private ValueType[] types;
+    private String dateFormat;
+
+    private int sampleSize = DEFAULT_SAMPLE_SIZE;
 
-    private SimpleDateFormat simpleDateFormat;
+    private boolean inferTypes;
 
     public static CSVParse create(String path, ParseConfig parseConfig) {
         CSVParse csvParse = new CSVParse();
         csvParse.path = path;
-        csvParse.simpleDateFormat = new SimpleDateFormat(parseConfig.getDateFormat());
+        csvParse.dateFormat = parseConfig.getDateFormat();
+        if (parseConfig.getSampleSize() > 0) {
+            csvParse.sampleSize = parseConfig.getSampleSize();
+        }
+        csvParse.inferTypes = parseConfig.isInferTypes();
         return csvParse;
     }
 
@@ -56,62 +88,378 @@ public class CSVParse {
         return csvParse;
     }
 
+    /**
+     * 按行读取全部内容，单元格均为字符串
+     */
     public List<List<Object>> parse() throws IOException {
-        File file = new File(path);
-        if (!file.exists()) {
-            Exceptions.notFound(path);
+        List<List<Object>> values = new ArrayList<>();
+        try (CSVParser parser = openParser()) {
+            for (CSVRecord record : parser) {
+                values.add(extractValues(record));
+            }
         }
-        List<CSVRecord> records = CSVParser.parse(file, StandardCharsets.UTF_8, CSVFormat.DEFAULT).getRecords();
-        if (CollectionUtils.isEmpty(records)) {
-            return Collections.emptyList();
+        if (!values.isEmpty() && !values.get(0).isEmpty()) {
+            values.get(0).set(0, removeBom(values.get(0).get(0).toString()));
         }
-        if (records.size() < 2) {
-            types = inferDataType(records.get(0));
-        } else {
-            types = inferDataType(records.get(1));
+        return values;
+    }
+
+    /**
+     * 解析为带类型的数据。第一行作为表头；columns 为空时使用表头作为列名，开启类型推断时根据采样行推断列类型。
+     * 指定了列类型时，无法转换的值为空；推断出的类型无法转换采样之外的值时，该列改为字符串后重新解析。
+     */
+    public Dataframe parseTyped(List<Column> columns) throws IOException {
+        Set<Integer> widened = new HashSet<>();
+        while (true) {
+            try {
+                return parseTyped(columns, widened);
+            } catch (TypeMismatchException e) {
+                log.warn("CSV value '{}' of column {} in {} does not match the inferred type, parse the column as string", e.value, e.column, path);
+                widened.add(e.column);
+            }
         }
-        List<List<Object>> values = records.parallelStream().map(this::extractValues)
-                .collect(Collectors.toList());
-        // remove utf-8-with-bom char
-        String start = values.get(0).get(0).toString();
-        if (start.length() > 0 && start.charAt(0) == '\uFEFF') {
-            values.get(0).set(0, start.substring(1));
+    }
+
+    private Dataframe parseTyped(List<Column> columns, Set<Integer> widened) throws IOException {
+        Dataframe dataframe = new Dataframe();
+        long fileSize = new File(path).length();
+        try (CSVParser parser = openParser()) {
+            Iterator<CSVRecord> iterator = parser.iterator();
+            if (!iterator.hasNext()) {
+                return dataframe;
+            }
+            CSVRecord header = iterator.next();
+            List<CSVRecord> sample = new ArrayList<>(Math.min(sampleSize, CHUNK_SIZE));
+            while (sample.size() < sampleSize && iterator.hasNext()) {
+                sample.add(iterator.next());
+            }
+            boolean inferred = columns == null;
+            if (inferred) {
+                columns = inferColumns(header, sample, widened);
+            } else if (header.size() != columns.size()) {
+                Exceptions.msg("message.provider.default.schema", header.size() + ":" + columns.size());
+            }
+            dataframe.setColumns(columns);
+
+            RecordConverter converter = new RecordConverter(columns, sample, inferred);
+            ColumnarRows rows = new ColumnarRows(columns.size());
+            for (CSVRecord record : sample) {
+                rows.addRow(converter.convert(record));
+            }
+            sample.clear();
+            if (fileSize > PARALLEL_THRESHOLD) {
+                convertParallel(iterator, converter, rows);
+            } else {
+                while (iterator.hasNext()) {
+                    rows.addRow(converter.convert(iterator.next()));
+                }
+            }
+            dataframe.setRows(rows.trim());
         }
-        return values;
+        return dataframe;
     }
 
-    private ValueType[] inferDataType(CSVRecord record) {
-        ValueType[] valueTypes = new ValueType[record.size()];
-        for (int i = 0; i < record.size(); i++) {
-            if (NumberUtils.isNumber(record.get(i))) {
-                valueTypes[i] = ValueType.NUMERIC;
-                continue;
+    /**
+     * 读取线程按块切分记录，工作线程并行完成类型转换，按提交顺序写回，同时在途的块数量有上限以控制内存
+     */
+    private void convertParallel(Iterator<CSVRecord> iterator, RecordConverter converter, ColumnarRows rows) {
+        Deque<Future<Object[][]>> pending = new ArrayDeque<>();
+        try {
+            while (iterator.hasNext()) {
+                List<CSVRecord> chunk = new ArrayList<>(CHUNK_SIZE);
+                while (chunk.size() < CHUNK_SIZE && iterator.hasNext()) {
+                    chunk.add(iterator.next());
+                }
+                pending.add(PARSE_EXECUTOR.submit(() -> converter.convert(chunk)));
+                if (pending.size() > PARALLELISM) {
+                    appendChunk(pending.poll(), rows);
+                }
+            }
+            while (!pending.isEmpty()) {
+                appendChunk(pending.poll(), rows);
+            }
+        } finally {
+            for (Future<Object[][]> future : pending) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    private void appendChunk(Future<Object[][]> future, ColumnarRows rows) {
+        Object[][] values;
+        try {
+            values = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BaseException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof TypeMismatchException) {
+                throw (TypeMismatchException) e.getCause();
+            }
+            throw new BaseException(e.getCause());
+        }
+        for (Object[] value : values) {
+            rows.addRow(value);
+        }
+    }
+
+    private List<Column> inferColumns(CSVRecord header, List<CSVRecord> sample, Set<Integer> widened) {
+        List<Column> columns = new ArrayList<>(header.size());
+        for (int i = 0; i < header.size(); i++) {
+            String name = i == 0 ? removeBom(header.get(i)) : header.get(i);
+            Column column = new Column();
+            column.setName(StringUtils.isBlank(name) ? "col" + i : name);
+            column.setType(ValueType.STRING);
+            if (inferTypes && !widened.contains(i)) {
+                inferColumnType(column, i, sample);
             }
+            columns.add(column);
+        }
+        return columns;
+    }
+
+    /**
+     * 指定为数值类型的列使用的判断。不接受 0x1F、1L、2e 等 Double.parseDouble 无法解析的写法
+     */
+    static boolean isNumber(String val) {
+        return NumberUtils.isParsable(val);
+    }
+
+    /**
+     * 推断数值列使用的判断，转换为 Long 或 Double 后不丢失信息：
+     * 不接受 00123 等带前导零的编号，超出 long 范围的整数，以及 double 无法精确表示的小数
+     */
+    static boolean isExactNumber(String val) {
+        if (!isNumber(val)) {
+            return false;
+        }
+        int start = val.charAt(0) == '-' || val.charAt(0) == '+' ? 1 : 0;
+        if (val.length() > start + 1 && val.charAt(start) == '0' && Character.isDigit(val.charAt(start + 1))) {
+            return false;
+        }
+        if (val.indexOf('.') < 0) {
             try {
-                simpleDateFormat.parse(record.get(i));
-                valueTypes[i] = ValueType.DATE;
+                Long.parseLong(val);
+                return true;
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+        return new BigDecimal(val).compareTo(new BigDecimal(Double.toString(Double.parseDouble(val)))) == 0;
+    }
+
+    /**
+     * 采样行中所有非空值都是数字时为数值列，都能按同一格式解析为日期时为日期列，否则为字符串列
+     */
+    private void inferColumnType(Column column, int index, List<CSVRecord> sample) {
+        boolean numeric = true;
+        String fmt = dateFormat;
+        FastDateFormat dateParser = null;
+        int nonBlank = 0;
+        for (CSVRecord record : sample) {
+            if (index >= record.size() || StringUtils.isBlank(record.get(index))) {
                 continue;
-            } catch (Exception ignore) {
             }
-            valueTypes[i] = ValueType.STRING;
+            String val = record.get(index).trim();
+            nonBlank++;
+            if (numeric && isExactNumber(val)) {
+                continue;
+            }
+            numeric = false;
+            if (dateParser == null) {
+                if (fmt == null) {
+                    fmt = DateUtils.inferDateFormat(val);
+                }
+                if (!fmt.contains("yyyy") || !fmt.contains("M") || !fmt.contains("d")) {
+                    return;
+                }
+                try {
+                    dateParser = FastDateFormat.getInstance(fmt);
+                } catch (IllegalArgumentException e) {
+                    return;
+                }
+            }
+            try {
+                dateParser.parse(val);
+            } catch (Exception e) {
+                return;
+            }
+        }
+        if (nonBlank == 0) {
+            return;
+        }
+        if (numeric) {
+            column.setType(ValueType.NUMERIC);
+        } else if (dateParser != null) {
+            column.setType(ValueType.DATE);
+            column.setFmt(fmt);
         }
-        return valueTypes;
+    }
+
+    private CSVParser openParser() throws IOException {
+        File file = new File(path);
+        if (!file.exists()) {
+            Exceptions.notFound(path);
+        }
+        Reader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8), 1 << 16);
+        return CSVFormat.DEFAULT.parse(reader);
+    }
+
+    private static String removeBom(String value) {
+        // remove utf-8-with-bom char
+        if (value != null && value.length() > 0 && value.charAt(0) == '\uFEFF') {
+            return value.substring(1);
+        }
+        return value;
     }
 
     private List<Object> extractValues(CSVRecord record) {
         if (record == null || record.size() == 0) {
-            return Collections.emptyList();
+            return new ArrayList<>();
         }
-        LinkedList<Object> values = new LinkedList<>();
+        List<Object> values = new ArrayList<>(record.size());
         for (int i = 0; i < record.size(); i++) {
             values.add(record.get(i));
         }
         return values;
     }
 
+    /**
+     * 按列类型将记录转换为对应的值，线程安全
+     */
+    private static class RecordConverter {
+
+        private final ValueType[] types;
+
+        private final FastDateFormat[] dateParsers;
+
+        /**
+         * 列类型为推断得出时，无法转换的值抛出 TypeMismatchException，不置为空
+         */
+        private final boolean strict;
+
+        private RecordConverter(List<Column> columns, List<CSVRecord> sample, boolean strict) {
+            this.strict = strict;
+            types = new ValueType[columns.size()];
+            dateParsers = new FastDateFormat[columns.size()];
+            for (int i = 0; i < columns.size(); i++) {
+                Column column = columns.get(i);
+                types[i] = column.getType() == null ? ValueType.STRING : column.getType();
+                if (types[i] != ValueType.DATE) {
+                    continue;
+                }
+                if (StringUtils.isBlank(column.getFmt())) {
+                    column.setFmt(inferFormat(i, sample));
+                }
+                if (StringUtils.isNotBlank(column.getFmt())) {
+                    try {
+                        dateParsers[i] = FastDateFormat.getInstance(column.getFmt());
+                    } catch (IllegalArgumentException e) {
+                        log.warn("Invalid date format {} of column {}", column.getFmt(), column.getName());
+                    }
+                }
+            }
+        }
+
+        private static String inferFormat(int index, List<CSVRecord> sample) {
+            for (CSVRecord record : sample) {
+                if (index < record.size() && StringUtils.isNotBlank(record.get(index))) {
+                    return DateUtils.inferDateFormat(record.get(index).trim());
+                }
+            }
+            return null;
+        }
+
+        private Object[][] convert(List<CSVRecord> records) {
+            Object[][] values = new Object[records.size()][];
+            for (int i = 0; i < records.size(); i++) {
+                values[i] = convert(records.get(i));
+            }
+            return values;
+        }
+
+        private Object[] convert(CSVRecord record) {
+            Object[] values = new Object[types.length];
+            int size = Math.min(types.length, record.size());
+            for (int i = 0; i < size; i++) {
+                String val = record.get(i);
+                switch (types[i]) {
+                    case NUMERIC:
+                        values[i] = parseNumber(val);
+                        break;
+                    case DATE:
+                        values[i] = parseDate(val, dateParsers[i]);
+                        break;
+                    default:
+                        values[i] = val;
+                }
+                if (strict && values[i] == null && StringUtils.isNotBlank(val)) {
+                    throw new TypeMismatchException(i, val);
+                }
+            }
+            return values;
+        }
+
+        private Number parseNumber(String val) {
+            if (StringUtils.isBlank(val)) {
+                return null;
+            }
+            val = val.trim();
+            if (strict ? !isExactNumber(val) : !isNumber(val)) {
+                return null;
+            }
+            if (val.indexOf('.') < 0) {
+                try {
+                    return Long.parseLong(val);
+                } catch (NumberFormatException ignored) {
+                    // 超出 long 范围，按浮点数处理
+                }
+            }
+            return Double.parseDouble(val);
+        }
+
+        private static Date parseDate(String val, FastDateFormat parser) {
+            if (parser == null || StringUtils.isBlank(val)) {
+                return null;
+            }
+            try {
+                return parser.parse(val.trim());
+            } catch (Exception e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * 推断的列类型无法转换采样之外的值
+     */
+    private static class TypeMismatchException extends RuntimeException {
+
+        private final int column;
+
+        private final String value;
+
+        private TypeMismatchException(int column, String value) {
+            super(null, null, false, false);
+            this.column = column;
+            this.value = value;
+        }
+    }
+
     @Data
     public static class ParseConfig {
+
         private String dateFormat;
+
+        /**
+         * 用于推断列类型的采样行数
+         */
+        private int sampleSize;
+
+        /**
+         * 未指定列时是否推断列类型，不推断时所有列均为字符串
+         */
+        private boolean inferTypes;
     }
 
 }
@@ -0,0 +1,279 @@
+/*
+ * Datart
+ * <p>
+ * Copyright 2021
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package datart.core.common;
+
+import datart.core.base.exception.Exceptions;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.BuiltinFormats;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 基于 SAX 事件模型的 XLSX 读取，不构建整个工作簿的对象模型，按批次回调已转换类型的行数据。
+ * 单元格值的类型与 POIUtils.loadExcel 一致：数值为 Double，日期格式的数值为 Date，布尔值为 Boolean，其余为 String。
+ */
+public class ExcelStreamReader {
+
+    public static final int DEFAULT_BATCH_SIZE = 5000;
+
+    /**
+     * 读取指定 sheet，sheetName 为空时读取第一个 sheet
+     */
+    public static void read(String path, String sheetName, int batchSize, RowBatchHandler handler) throws IOException {
+        File file = new File(path);
+        if (!file.exists()) {
+            Exceptions.notFound(path);
+        }
+        try (OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+            StylesTable styles = reader.getStylesTable();
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            while (sheets.hasNext()) {
+                try (InputStream sheet = sheets.next()) {
+                    if (StringUtils.isBlank(sheetName) || sheetName.equals(sheets.getSheetName())) {
+                        XMLReader parser = XMLHelper.newXMLReader();
+                        parser.setContentHandler(new SheetHandler(strings, styles, batchSize, handler));
+                        parser.parse(new InputSource(sheet));
+                        return;
+                    }
+                }
+            }
+            Exceptions.msg("sheet not found :" + sheetName);
+        } catch (SAXException e) {
+            if (e.getException() instanceof IOException) {
+                throw (IOException) e.getException();
+            }
+            throw new IOException(e);
+        } catch (OpenXML4JException | ParserConfigurationException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * 读取全部行，仅用于数据量较小的场景
+     */
+    public static List<List<Object>> readAll(String path, String sheetName) throws IOException {
+        List<List<Object>> rows = new ArrayList<>();
+        read(path, sheetName, DEFAULT_BATCH_SIZE, rows::addAll);
+        return rows;
+    }
+
+    @FunctionalInterface
+    public interface RowBatchHandler {
+        void handle(List<List<Object>> rows) throws IOException;
+    }
+
+    private static class SheetHandler extends DefaultHandler {
+
+        private final ReadOnlySharedStringsTable strings;
+
+        private final StylesTable styles;
+
+        private final int batchSize;
+
+        private final RowBatchHandler handler;
+
+        private final Map<Integer, Boolean> dateStyles = new HashMap<>();
+
+        private final StringBuilder text = new StringBuilder();
+
+        private List<List<Object>> batch;
+
+        private List<Object> row;
+
+        /**
+         * 第一行的列数作为整张表的列数
+         */
+        private int columns = -1;
+
+        private int column;
+
+        private String cellType;
+
+        private String cellStyle;
+
+        private boolean collecting;
+
+        private SheetHandler(ReadOnlySharedStringsTable strings, StylesTable styles, int batchSize, RowBatchHandler handler) {
+            this.strings = strings;
+            this.styles = styles;
+            this.batchSize = batchSize;
+            this.handler = handler;
+            this.batch = new ArrayList<>(batchSize);
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            String name = StringUtils.isEmpty(localName) ? qName : localName;
+            switch (name) {
+                case "row":
+                    row = new ArrayList<>(Math.max(columns, 16));
+                    column = -1;
+                    break;
+                case "c":
+                    column = columnIndex(attributes.getValue("r"), column + 1);
+                    cellType = attributes.getValue("t");
+                    cellStyle = attributes.getValue("s");
+                    text.setLength(0);
+                    break;
+                case "v":
+                case "t":
+                    collecting = true;
+                    break;
+                default:
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (collecting) {
+                text.append(ch, start, length);
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            String name = StringUtils.isEmpty(localName) ? qName : localName;
+            switch (name) {
+                case "v":
+                case "t":
+                    collecting = false;
+                    break;
+                case "c":
+                    if (columns >= 0 && column >= columns) {
+                        break;
+                    }
+                    while (row.size() < column) {
+                        row.add(null);
+                    }
+                    row.add(cellValue());
+                    break;
+                case "row":
+                    if (columns < 0) {
+                        columns = row.size();
+                    }
+                    while (row.size() < columns) {
+                        row.add(null);
+                    }
+                    batch.add(row);
+                    if (batch.size() >= batchSize) {
+                        flush();
+                    }
+                    break;
+                case "sheetData":
+                    flush();
+                    break;
+                default:
+            }
+        }
+
+        private void flush() throws SAXException {
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                handler.handle(batch);
+            } catch (IOException e) {
+                throw new SAXException(e);
+            }
+            batch = new ArrayList<>(batchSize);
+        }
+
+        private Object cellValue() {
+            String value = text.toString();
+            if (cellType == null || "n".equals(cellType)) {
+                if (value.isEmpty()) {
+                    return null;
+                }
+                double number = Double.parseDouble(value);
+                if (isDateStyle() && DateUtil.isValidExcelDate(number)) {
+                    return DateUtil.getJavaDate(number);
+                }
+                return number;
+            }
+            switch (cellType) {
+                case "s":
+                    return strings.getItemAt(Integer.parseInt(value)).getString();
+                case "b":
+                    return "1".equals(value);
+                case "e":
+                    return null;
+                default:
+                    // inlineStr, str
+                    return value;
+            }
+        }
+
+        private boolean isDateStyle() {
+            if (cellStyle == null || styles == null) {
+                return false;
+            }
+            int styleIndex = Integer.parseInt(cellStyle);
+            return dateStyles.computeIfAbsent(styleIndex, idx -> {
+                XSSFCellStyle style = styles.getStyleAt(idx);
+                if (style == null) {
+                    return false;
+                }
+                short formatIndex = style.getDataFormat();
+                String format = style.getDataFormatString();
+                if (format == null) {
+                    format = BuiltinFormats.getBuiltinFormat(formatIndex);
+                }
+                return DateUtil.isADateFormat(formatIndex, format);
+            });
+        }
+
+        private static int columnIndex(String reference, int defaultIndex) {
+            if (reference == null) {
+                return defaultIndex;
+            }
+            int index = 0;
+            for (int i = 0; i < reference.length(); i++) {
+                char c = reference.charAt(i);
+                if (c < 'A' || c > 'Z') {
+                    break;
+                }
+                index = index * 26 + (c - 'A' + 1);
+            }
+            return index - 1;
+        }
+    }
+
+}
@@ -18,9 +18,9 @@
 package datart.core.common;
 
 import datart.core.base.consts.FileFormat;
-import datart.core.base.consts.JavaType;
 import datart.core.base.exception.Exceptions;
 import datart.core.data.provider.Column;
+import datart.core.data.provider.DataCursor;
 import datart.core.data.provider.Dataframe;
 import datart.core.entity.poi.ColumnSetting;
 import datart.core.entity.poi.POISettings;
@@ -42,6 +42,11 @@ public class POIUtils {
 
     private static IndexedColorMap indexedColorMap = new DefaultIndexedColorMap();
 
+    /**
+     * 流式写入时用于估算列宽的采样行数
+     */
+    private static final int WIDTH_SAMPLE_ROWS = 1000;
+
     public static void save(Workbook workbook, String path, boolean cover) throws IOException {
         if (workbook == null || path == null) {
             return;
@@ -69,7 +74,19 @@ public class POIUtils {
     }
 
     public static Workbook createEmpty() {
-        return new SXSSFWorkbook();
+        SXSSFWorkbook workbook = new SXSSFWorkbook();
+        // 超出内存窗口的行写入临时文件，压缩后可显著减少大数据量导出时的磁盘占用
+        workbook.setCompressTempFiles(true);
+        return workbook;
+    }
+
+    /**
+     * 释放工作簿写入过程中产生的临时文件
+     */
+    public static void dispose(Workbook workbook) {
+        if (workbook instanceof SXSSFWorkbook) {
+            ((SXSSFWorkbook) workbook).dispose();
+        }
     }
 
     public static void withSheet(Workbook workbook, String sheetName, Dataframe sheetData, POISettings poiSettings) {
@@ -80,6 +97,61 @@ public class POIUtils {
         setColumnWidth(sheet, poiSettings.getColumnSetting());
     }
 
+    /**
+     * 从游标按批次读取数据写入 sheet，不在内存中保留完整结果集。
+     * 单元格样式按格式缓存复用，列宽根据前 WIDTH_SAMPLE_ROWS 行估算
+     *
+     * @param rowLimit 最多写入的行数，小于等于0时不限制
+     * @return 写入的数据行数
+     */
+    public static long withSheet(Workbook workbook, String sheetName, DataCursor cursor, POISettings poiSettings, long rowLimit) throws Exception {
+        Sheet sheet = workbook.createSheet(sheetName);
+        int rowIndex = writeHeaderRows(sheet, poiSettings.getHeaderRows()) + 1;
+        Map<Integer, ColumnSetting> columnSetting = poiSettings.getColumnSetting();
+        int columnCount = cursor.getColumns().size();
+        ColumnSetting[] settings = new ColumnSetting[columnCount];
+        CellStyle[] styles = new CellStyle[columnCount];
+        Map<String, CellStyle> styleCache = new HashMap<>();
+        for (int i = 0; i < columnCount; i++) {
+            ColumnSetting setting = columnSetting.get(i);
+            if (setting == null) {
+                setting = new ColumnSetting();
+                setting.setIndex(i);
+                setting.setNumFormat(new PoiNumFormat());
+                setting.setLength(0);
+                columnSetting.put(i, setting);
+            }
+            settings[i] = setting;
+            String fmt = StringUtils.defaultString(setting.getNumFormat().getFormat());
+            styles[i] = styleCache.computeIfAbsent(fmt, f -> getCellStyle(sheet, null, f));
+        }
+        long written = 0;
+        List<List<Object>> batch;
+        while ((rowLimit <= 0 || written < rowLimit) && !(batch = cursor.nextBatch()).isEmpty()) {
+            for (List<Object> dataRow : batch) {
+                if (rowLimit > 0 && written >= rowLimit) {
+                    break;
+                }
+                boolean sample = written < WIDTH_SAMPLE_ROWS;
+                Row row = sheet.createRow(rowIndex++);
+                for (int i = 0; i < Math.min(dataRow.size(), columnCount); i++) {
+                    ColumnSetting setting = settings[i];
+                    Object val = dataRow.get(i);
+                    if (sample && val != null) {
+                        setting.setLength(Math.max(val.toString().length(), setting.getLength()));
+                    }
+                    Cell cell = row.createCell(setting.getIndex());
+                    cell.setCellStyle(styles[i]);
+                    setCellValue(cell, setting.getNumFormat().parseValue(val));
+                }
+                written++;
+            }
+        }
+        mergeSheetCell(sheet, poiSettings.getMergeCells());
+        setColumnWidth(sheet, columnSetting);
+        return written;
+    }
+
     private static void setColumnWidth(Sheet sheet, Map<Integer, ColumnSetting> columnSetting) {
         for (Integer num : columnSetting.keySet()) {
             ColumnSetting setting = columnSetting.get(num);
@@ -157,13 +229,25 @@ public class POIUtils {
     }
 
     public static List<List<Object>> loadExcel(String path) throws IOException {
+        return loadExcel(path, null);
+    }
+
+    /**
+     * 读取指定 sheet 的全部数据，sheetName 为空时读取第一个 sheet。XLSX 使用事件模型读取，避免构建整个工作簿
+     */
+    public static List<List<Object>> loadExcel(String path, String sheetName) throws IOException {
+        if (path.toLowerCase().endsWith(FileFormat.XLSX.getFormat())) {
+            List<List<Object>> rows = ExcelStreamReader.readAll(path, sheetName);
+            if (rows.isEmpty()) {
+                Exceptions.msg("empty excel :" + path);
+            }
+            return rows;
+        }
         LinkedList<List<Object>> rows = new LinkedList<>();
         try (InputStream inputStream = new FileInputStream(path)) {
             Workbook workbook;
             if (path.toLowerCase().endsWith(FileFormat.XLS.getFormat())) {
                 workbook = new HSSFWorkbook(inputStream);
-            } else if (path.toLowerCase().endsWith(FileFormat.XLSX.getFormat())) {
-                workbook = new XSSFWorkbook(inputStream);
             } else {
                 Exceptions.msg("message.unsupported.format", path);
                 return null;
@@ -172,8 +256,10 @@ public class POIUtils {
             if (workbook.getNumberOfSheets() < 1) {
                 Exceptions.msg("empty excel :" + path);
             }
-            // 只处理第一个sheet
-            Sheet sheet = workbook.getSheetAt(0);
+            Sheet sheet = StringUtils.isBlank(sheetName) ? workbook.getSheetAt(0) : workbook.getSheet(sheetName);
+            if (sheet == null) {
+                Exceptions.msg("sheet not found :" + sheetName);
+            }
             Iterator<Row> rowIterator = sheet.rowIterator();
             Row row0 = sheet.getRow(0);
             if (row0 == null) {
@@ -244,29 +330,26 @@ public class POIUtils {
             cell.setCellValue("");
             return;
         }
-        try {
-            JavaType javaType = JavaType.valueOf(val.getClass().getSimpleName().toUpperCase());
-            switch (javaType) {
-                case BIGDECIMAL:
-                case BYTE:
-                case SHORT:
-                case INTEGER:
-                case LONG:
-                case FLOAT:
-                case DOUBLE:
-                    cell.setCellValue(new BigDecimal(val.toString()).doubleValue());
-                    break;
-                case BOOLEAN:
-                    cell.setCellValue((Boolean) val);
-                    break;
-                case DATE:
-                default:
-                    cell.setCellValue(val.toString());
-                    break;
-            }
-        } catch (IllegalArgumentException e) {
-            cell.setCellValue(val.toString());
+        // 常见类型直接判断，避免每个单元格都通过类名解析类型
+        if (val instanceof Integer || val instanceof Long || val instanceof Double
+                || val instanceof Short || val instanceof Byte) {
+            cell.setCellValue(((Number) val).doubleValue());
+            return;
+        }
+        if (val instanceof BigDecimal) {
+            cell.setCellValue(((BigDecimal) val).doubleValue());
+            return;
+        }
+        if (val instanceof Float) {
+            // 按十进制字符串转换，避免 float 直接转 double 产生的精度尾数
+            cell.setCellValue(new BigDecimal(val.toString()).doubleValue());
+            return;
+        }
+        if (val instanceof Boolean) {
+            cell.setCellValue((Boolean) val);
+            return;
         }
+        cell.setCellValue(val.toString());
     }
 
 }
@@ -0,0 +1,87 @@
+/*
+ * Datart
+ * <p>
+ * Copyright 2021
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package datart.core.common;
+
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 统一创建后台线程池：线程按用途命名，便于在线程栈中定位；线程为守护线程，应用关闭时统一关闭所有线程池
+ */
+public class ThreadPoolFactory {
+
+    private static final List<ExecutorService> EXECUTORS = new CopyOnWriteArrayList<>();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(ThreadPoolFactory::shutdown, "datart-pool-shutdown"));
+    }
+
+    /**
+     * 创建固定大小的线程池，空闲线程超时后回收
+     *
+     * @param name             线程名称前缀，线程命名为 datart-{name}-{序号}
+     * @param threads          线程数
+     * @param keepAliveSeconds 空闲线程存活时间
+     * @param queue            任务队列
+     * @param handler          队列已满时的拒绝策略
+     */
+    public static ThreadPoolExecutor newFixedPool(String name, int threads, long keepAliveSeconds, BlockingQueue<Runnable> queue, RejectedExecutionHandler handler) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, keepAliveSeconds
+                , TimeUnit.SECONDS
+                , queue
+                , namedThreadFactory(name), handler);
+        executor.allowCoreThreadTimeOut(true);
+        EXECUTORS.add(executor);
+        return executor;
+    }
+
+    /**
+     * 创建单线程的定时任务线程池
+     */
+    public static ScheduledExecutorService newScheduledPool(String name) {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(namedThreadFactory(name));
+        EXECUTORS.add(executor);
+        return executor;
+    }
+
+    public static ThreadFactory namedThreadFactory(String name) {
+        AtomicInteger index = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "datart-" + name + "-" + index.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * 关闭线程池，不再接收新任务，已提交的任务继续执行
+     */
+    public static void shutdown(ExecutorService executor) {
+        EXECUTORS.remove(executor);
+        executor.shutdown();
+    }
+
+    private static void shutdown() {
+        for (ExecutorService executor : EXECUTORS) {
+            executor.shutdownNow();
+        }
+        EXECUTORS.clear();
+    }
+
+}
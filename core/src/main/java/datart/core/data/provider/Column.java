@@ -22,6 +22,7 @@ import datart.core.base.consts.ValueType;
 import lombok.Data;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.List;
 
 @Data
@@ -47,6 +48,13 @@ public class Column implements Serializable {
         return new Column(names, type);
     }
 
+    public Column copy() {
+        Column column = new Column(name == null ? null : name.clone(), type);
+        column.setFmt(fmt);
+        column.setForeignKeys(foreignKeys == null ? null : new ArrayList<>(foreignKeys));
+        return column;
+    }
+
     public String columnName() {
         return name[name.length - 1];
     }
@@ -0,0 +1,44 @@
+/*
+ * Datart
+ * <p>
+ * Copyright 2021
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package datart.core.data.provider;
+
+import java.io.Closeable;
+import java.util.List;
+
+/**
+ * 按批次拉取查询结果的游标。调用方每次读取一批数据，处理完成后再读取下一批，
+ * 数据源侧只缓存当前批次，关闭游标时释放连接等资源。
+ */
+public interface DataCursor extends Closeable {
+
+    List<Column> getColumns();
+
+    /**
+     * 读取下一批数据
+     *
+     * @return 下一批数据，没有更多数据时返回空列表
+     */
+    List<List<Object>> nextBatch() throws Exception;
+
+    /**
+     * 已读取的行数
+     */
+    long getRowCount();
+
+}
@@ -26,6 +26,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.sql.SQLException;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 
 public abstract class DataProvider extends AutoCloseBean {
@@ -60,6 +62,22 @@ public abstract class DataProvider extends AutoCloseBean {
 
     public abstract Set<Column> readTableColumns(DataProviderSource source, String schema, String table) throws SQLException;
 
+    /**
+     * 读取库中所有表的列，用于元数据同步。默认逐表读取，数据源可以覆盖为一次批量读取。
+     *
+     * @return 表名到列的映射，返回 null 表示不支持批量读取，由调用方逐表读取
+     */
+    public Map<String, Set<Column>> readAllTableColumns(DataProviderSource source, String database) throws SQLException {
+        Map<String, Set<Column>> tableColumns = new HashMap<>();
+        Set<String> tables = readTables(source, database);
+        if (tables != null) {
+            for (String table : tables) {
+                tableColumns.put(table, readTableColumns(source, database, table));
+            }
+        }
+        return tableColumns;
+    }
+
     /**
      * 读取DataProvider的配置模板，配置模板的信息是创建这个DataProvider实例时所需的信息。
      * <p>
@@ -83,6 +101,16 @@ public abstract class DataProvider extends AutoCloseBean {
 
     public abstract Dataframe execute(DataProviderSource config, QueryScript script, ExecuteParam executeParam) throws Exception;
 
+    /**
+     * 以游标方式执行查询，调用方按批次拉取数据，使用完成后需要关闭游标。
+     * 默认先加载全部数据，支持流式读取的数据源应重写该方法。
+     *
+     * @param fetchSize 每批次读取的行数
+     */
+    public DataCursor executeCursor(DataProviderSource config, QueryScript script, ExecuteParam executeParam, int fetchSize) throws Exception {
+        return new DataframeCursor(execute(config, script, executeParam), fetchSize);
+    }
+
     /**
      * 返回DataProvider的type，type的值由实现者定义。
      * 这个type值作为DataProvider的唯一标识，必须是全局唯一的。
@@ -21,6 +21,7 @@ package datart.core.data.provider;
 import java.io.IOException;
 import java.sql.SQLException;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 public interface DataProviderManager {
@@ -37,8 +38,20 @@ public interface DataProviderManager {
 
     Set<Column> readTableColumns(DataProviderSource source, String schema, String table) throws SQLException;
 
+    /**
+     * 读取库中所有表的列，不经过元数据缓存，读取结果会写入缓存。返回 null 表示数据源不支持批量读取
+     */
+    Map<String, Set<Column>> readAllTableColumns(DataProviderSource source, String database) throws SQLException;
+
+    /**
+     * 清除数据源的元数据缓存
+     */
+    void evictMetadata(String sourceId);
+
     Dataframe execute(DataProviderSource source, QueryScript queryScript, ExecuteParam param) throws Exception;
 
+    DataCursor executeCursor(DataProviderSource source, QueryScript queryScript, ExecuteParam param, int fetchSize) throws Exception;
+
     Set<StdSqlOperator> supportedStdFunctions(DataProviderSource source);
 
     boolean validateFunction(DataProviderSource source, String snippet);
@@ -20,6 +20,7 @@ package datart.core.data.provider;
 
 import datart.core.base.PageInfo;
 import datart.core.common.UUIDGenerator;
+import datart.core.data.provider.columnar.ColumnarRows;
 import lombok.Data;
 
 import java.io.Serializable;
@@ -62,6 +63,52 @@ public class Dataframe implements Serializable {
         return dataframe;
     }
 
+    /**
+     * 复制数据集，columns 列表和 pageInfo 为新对象，行数据与原数据集共享
+     */
+    public Dataframe copy() {
+        Dataframe dataframe = new Dataframe(id);
+        dataframe.setName(name);
+        dataframe.setVizType(vizType);
+        dataframe.setVizId(vizId);
+        dataframe.setColumns(columns == null ? null : new ArrayList<>(columns));
+        dataframe.setRows(rows);
+        if (pageInfo != null) {
+            dataframe.setPageInfo(PageInfo.builder()
+                    .pageNo(pageInfo.getPageNo())
+                    .pageSize(pageInfo.getPageSize())
+                    .total(pageInfo.getTotal())
+                    .countTotal(pageInfo.isCountTotal())
+                    .build());
+        }
+        dataframe.setScript(script);
+        return dataframe;
+    }
+
+    /**
+     * 复制数据集、列定义和行数据，修改任一方的列或行数据都不会影响另一方
+     */
+    public Dataframe deepCopy() {
+        Dataframe dataframe = copy();
+        if (columns != null) {
+            List<Column> copiedColumns = new ArrayList<>(columns.size());
+            for (Column column : columns) {
+                copiedColumns.add(column == null ? null : column.copy());
+            }
+            dataframe.setColumns(copiedColumns);
+        }
+        if (rows instanceof ColumnarRows) {
+            dataframe.setRows(((ColumnarRows) rows).copy());
+        } else if (rows != null) {
+            List<List<Object>> copied = new ArrayList<>(rows.size());
+            for (List<Object> row : rows) {
+                copied.add(row == null ? null : new ArrayList<>(row));
+            }
+            dataframe.setRows(copied);
+        }
+        return dataframe;
+    }
+
     // 按照指定的列定义，将数据集按照表名称进行分割，以还原原始表结构
     public Dataframes splitByTable(Map<String, Column> newSchema) {
         Map<Integer, String> tableColumnIndex = new HashMap<>();
@@ -70,23 +117,11 @@ public class Dataframe implements Serializable {
             Column schemaColumn = newSchema.get(column.columnKey());
             tableColumnIndex.put(i, schemaColumn.tableName());
         }
-        Map<String, List<List<Object>>> tableRows = newSchema
-                .values()
-                .stream()
-                .map(Column::tableName)
-                .distinct()
-                .collect(Collectors.toMap(k -> k, v -> new ArrayList()));
-        for (List<Object> row : rows) {
-            int i = 0;
-            Map<String, List<Object>> tableRowMap = new HashMap<>();
-            for (Object item : row) {
-                String tableName = tableColumnIndex.get(i);
-                tableRowMap.computeIfAbsent(tableName, v -> new ArrayList<>()).add(item);
-                i++;
-            }
-            for (String key : tableRowMap.keySet()) {
-                tableRows.get(key).add(tableRowMap.get(key));
-            }
+        Map<String, List<List<Object>>> tableRows;
+        if (rows instanceof ColumnarRows) {
+            tableRows = splitColumnarRows(tableColumnIndex);
+        } else {
+            tableRows = splitRows(newSchema, tableColumnIndex);
         }
         Map<String, List<Column>> tableColumns = new HashMap<>();
         for (int i = 0; i < columns.size(); i++) {
@@ -108,5 +143,40 @@ public class Dataframe implements Serializable {
         return Dataframes.of(id, dataframes);
     }
 
+    private Map<String, List<List<Object>>> splitRows(Map<String, Column> newSchema, Map<Integer, String> tableColumnIndex) {
+        Map<String, List<List<Object>>> tableRows = newSchema
+                .values()
+                .stream()
+                .map(Column::tableName)
+                .distinct()
+                .collect(Collectors.toMap(k -> k, v -> new ArrayList()));
+        for (List<Object> row : rows) {
+            int i = 0;
+            Map<String, List<Object>> tableRowMap = new HashMap<>();
+            for (Object item : row) {
+                String tableName = tableColumnIndex.get(i);
+                tableRowMap.computeIfAbsent(tableName, v -> new ArrayList<>()).add(item);
+                i++;
+            }
+            for (String key : tableRowMap.keySet()) {
+                tableRows.get(key).add(tableRowMap.get(key));
+            }
+        }
+        return tableRows;
+    }
+
+    // 列式存储时按列选取，各表共享原有的列数据，不复制行
+    private Map<String, List<List<Object>>> splitColumnarRows(Map<Integer, String> tableColumnIndex) {
+        Map<String, List<Integer>> tableIndexes = new HashMap<>();
+        for (int i = 0; i < columns.size(); i++) {
+            tableIndexes.computeIfAbsent(tableColumnIndex.get(i), v -> new ArrayList<>()).add(i);
+        }
+        Map<String, List<List<Object>>> tableRows = new HashMap<>();
+        for (Map.Entry<String, List<Integer>> entry : tableIndexes.entrySet()) {
+            int[] indexes = entry.getValue().stream().mapToInt(Integer::intValue).toArray();
+            tableRows.put(entry.getKey(), ((ColumnarRows) rows).select(indexes));
+        }
+        return tableRows;
+    }
 
-}
\ No newline at end of file
+}
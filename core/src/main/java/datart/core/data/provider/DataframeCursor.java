@@ -0,0 +1,70 @@
+/*
+ * Datart
+ * <p>
+ * Copyright 2021
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package datart.core.data.provider;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 基于已加载 Dataframe 的游标，用于不支持流式读取的数据源
+ */
+public class DataframeCursor implements DataCursor {
+
+    private final Dataframe dataframe;
+
+    private final int batchSize;
+
+    private int position;
+
+    public DataframeCursor(Dataframe dataframe, int batchSize) {
+        this.dataframe = dataframe;
+        this.batchSize = Math.max(batchSize, 1);
+    }
+
+    public Dataframe getDataframe() {
+        return dataframe;
+    }
+
+    @Override
+    public List<Column> getColumns() {
+        return dataframe.getColumns() == null ? Collections.emptyList() : dataframe.getColumns();
+    }
+
+    @Override
+    public List<List<Object>> nextBatch() {
+        List<List<Object>> rows = dataframe.getRows();
+        if (rows == null || position >= rows.size()) {
+            return Collections.emptyList();
+        }
+        int end = Math.min(rows.size(), position + batchSize);
+        List<List<Object>> batch = new ArrayList<>(rows.subList(position, end));
+        position = end;
+        return batch;
+    }
+
+    @Override
+    public long getRowCount() {
+        return position;
+    }
+
+    @Override
+    public void close() {
+    }
+}
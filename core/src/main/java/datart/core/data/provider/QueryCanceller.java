@@ -0,0 +1,151 @@
+/*
+ * Datart
+ * <p>
+ * Copyright 2021
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package datart.core.data.provider;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 一次查询中的多个 Statement 共享的取消信号。绑定到线程后，适配器创建的 Statement 会自动登记，
+ * 任一方调用 cancel 时，所有已登记的 Statement 都会被取消。
+ * 通过 fork 创建的子信号会随父信号一同取消，子信号取消不影响父信号。
+ */
+@Slf4j
+public class QueryCanceller {
+
+    private static final ThreadLocal<QueryCanceller> CURRENT = new ThreadLocal<>();
+
+    private final List<Statement> statements = new CopyOnWriteArrayList<>();
+
+    private final List<QueryCanceller> children = new CopyOnWriteArrayList<>();
+
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * 请求的查询超时时间(秒)，0 表示使用数据源默认值
+     */
+    private final int queryTimeout;
+
+    private volatile boolean cancelled;
+
+    public QueryCanceller() {
+        this(0);
+    }
+
+    public QueryCanceller(int queryTimeout) {
+        this.queryTimeout = Math.max(queryTimeout, 0);
+    }
+
+    public static QueryCanceller current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 绑定到当前线程，返回之前绑定的取消信号，执行结束后通过 restore 恢复
+     */
+    public QueryCanceller bind() {
+        QueryCanceller previous = CURRENT.get();
+        CURRENT.set(this);
+        return previous;
+    }
+
+    public static void restore(QueryCanceller previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    public QueryCanceller fork() {
+        return fork(queryTimeout);
+    }
+
+    /**
+     * 派生使用指定查询超时的子信号
+     */
+    public QueryCanceller fork(int queryTimeout) {
+        QueryCanceller child = new QueryCanceller(queryTimeout);
+        children.add(child);
+        if (cancelled) {
+            child.cancel();
+        }
+        return child;
+    }
+
+    /**
+     * 添加取消时的回调，已经取消时立即执行
+     */
+    public void addListener(Runnable listener) {
+        listeners.add(listener);
+        if (cancelled) {
+            listener.run();
+        }
+    }
+
+    public void removeListener(Runnable listener) {
+        listeners.remove(listener);
+    }
+
+    public void register(Statement statement) throws SQLException {
+        statements.add(statement);
+        if (cancelled) {
+            statement.cancel();
+            throw new SQLException("The query has been cancelled");
+        }
+    }
+
+    public void cancel() {
+        if (cancelled) {
+            return;
+        }
+        cancelled = true;
+        for (Statement statement : statements) {
+            try {
+                if (!statement.isClosed()) {
+                    statement.cancel();
+                }
+            } catch (Exception e) {
+                log.warn("statement cancel error", e);
+            }
+        }
+        for (QueryCanceller child : children) {
+            child.cancel();
+        }
+        for (Runnable listener : listeners) {
+            try {
+                listener.run();
+            } catch (Exception e) {
+                log.warn("cancel listener error", e);
+            }
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public int getQueryTimeout() {
+        return queryTimeout;
+    }
+}
@@ -0,0 +1,811 @@
+/*
+ * Datart
+ * <p>
+ * Copyright 2021
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package datart.core.data.provider.codec;
+
+import datart.core.base.PageInfo;
+import datart.core.base.consts.ValueType;
+import datart.core.data.provider.Column;
+import datart.core.data.provider.Dataframe;
+import datart.core.data.provider.ForeignKey;
+import datart.core.data.provider.columnar.ColumnarRows;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.*;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * 按列存储的 Dataframe 二进制编码。
+ * 每一列根据值类型写入定长的数组块，字符串列使用字典编码，空值使用位图标记。
+ */
+public class ColumnarDataframeCodec implements DataframeCodec {
+
+    private static final int MAGIC = 0x44464331; // DFC1
+
+    private static final byte VERSION = 1;
+
+    private static final byte ENC_NULL = 0;
+
+    private static final byte ENC_LONG = 1;
+
+    private static final byte ENC_INT = 2;
+
+    private static final byte ENC_DOUBLE = 3;
+
+    private static final byte ENC_FLOAT = 4;
+
+    private static final byte ENC_BOOLEAN = 5;
+
+    private static final byte ENC_STRING_DICT = 6;
+
+    private static final byte ENC_STRING = 7;
+
+    private static final byte ENC_DATE = 8;
+
+    private static final byte ENC_SQL_DATE = 9;
+
+    private static final byte ENC_TIMESTAMP = 10;
+
+    private static final byte ENC_DECIMAL = 11;
+
+    private static final byte ENC_OBJECT = 99;
+
+    private final Compression compression;
+
+    public ColumnarDataframeCodec() {
+        this(Compression.DEFLATE);
+    }
+
+    public ColumnarDataframeCodec(Compression compression) {
+        this.compression = compression;
+    }
+
+    @Override
+    public boolean accept(byte[] bytes) {
+        if (bytes == null || bytes.length < 6) {
+            return false;
+        }
+        int magic = ((bytes[0] & 0xFF) << 24) | ((bytes[1] & 0xFF) << 16) | ((bytes[2] & 0xFF) << 8) | (bytes[3] & 0xFF);
+        return magic == MAGIC;
+    }
+
+    @Override
+    public byte[] encode(Dataframe dataframe) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        encode(dataframe, bos);
+        return bos.toByteArray();
+    }
+
+    /**
+     * 编码并写入输出流，数据量较大时避免在内存中生成完整的字节数组
+     */
+    public void encode(Dataframe dataframe, OutputStream os) throws IOException {
+        DataOutputStream header = new DataOutputStream(os);
+        header.writeInt(MAGIC);
+        header.writeByte(VERSION);
+        header.writeByte(compression.code);
+        header.flush();
+
+        OutputStream body = new FilterOutputStream(os) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                // 由调用方关闭原始输出流
+                flush();
+            }
+        };
+        Deflater deflater = null;
+        if (compression == Compression.DEFLATE) {
+            deflater = new Deflater(Deflater.BEST_SPEED);
+            body = new DeflaterOutputStream(body, deflater, 8192);
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(body, 8192))) {
+            writeFrame(out, dataframe);
+        } finally {
+            if (deflater != null) {
+                deflater.end();
+            }
+        }
+    }
+
+    @Override
+    public Dataframe decode(byte[] bytes) throws IOException {
+        if (!accept(bytes)) {
+            throw new IOException("Unrecognized dataframe format");
+        }
+        if (bytes[4] != VERSION) {
+            throw new IOException("Unsupported dataframe format version " + bytes[4]);
+        }
+        return decodeBody(new ByteArrayInputStream(bytes, 6, bytes.length - 6), bytes[5], false);
+    }
+
+    /**
+     * 从 ByteBuffer（如内存映射的文件）解码，行数据直接存放为 ColumnarRows
+     */
+    public Dataframe decode(ByteBuffer buffer) throws IOException {
+        ByteBuffer data = buffer.slice();
+        if (data.remaining() < 6 || data.getInt() != MAGIC) {
+            throw new IOException("Unrecognized dataframe format");
+        }
+        byte version = data.get();
+        if (version != VERSION) {
+            throw new IOException("Unsupported dataframe format version " + version);
+        }
+        byte compressionCode = data.get();
+        return decodeBody(new ByteBufferInputStream(data), compressionCode, true);
+    }
+
+    private Dataframe decodeBody(InputStream body, byte compressionCode, boolean columnar) throws IOException {
+        Inflater inflater = null;
+        if (Compression.of(compressionCode) == Compression.DEFLATE) {
+            inflater = new Inflater();
+            body = new InflaterInputStream(body, inflater, 8192);
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(body, 8192))) {
+            return readFrame(in, columnar);
+        } finally {
+            // 外部传入的 Inflater 不会随流关闭，需要手动释放本地内存
+            if (inflater != null) {
+                inflater.end();
+            }
+        }
+    }
+
+    private void writeFrame(DataOutputStream out, Dataframe dataframe) throws IOException {
+        writeString(out, dataframe.getId());
+        writeString(out, dataframe.getName());
+        writeString(out, dataframe.getVizType());
+        writeString(out, dataframe.getVizId());
+        writeString(out, dataframe.getScript());
+        PageInfo pageInfo = dataframe.getPageInfo();
+        out.writeBoolean(pageInfo != null);
+        if (pageInfo != null) {
+            out.writeLong(pageInfo.getPageSize());
+            out.writeLong(pageInfo.getPageNo());
+            out.writeLong(pageInfo.getTotal());
+            out.writeBoolean(pageInfo.isCountTotal());
+        }
+
+        List<Column> columns = dataframe.getColumns();
+        out.writeInt(columns == null ? -1 : columns.size());
+        if (columns != null) {
+            for (Column column : columns) {
+                writeColumn(out, column);
+            }
+        }
+
+        List<List<Object>> rows = dataframe.getRows();
+        out.writeInt(rows == null ? -1 : rows.size());
+        if (rows == null) {
+            return;
+        }
+        if (rows instanceof ColumnarRows) {
+            writeColumnarRows(out, (ColumnarRows) rows, columns);
+            return;
+        }
+        // 行宽度通常一致，不一致时记录每一行的宽度
+        int width = 0;
+        boolean uniform = true;
+        for (int i = 0; i < rows.size(); i++) {
+            int size = rows.get(i) == null ? 0 : rows.get(i).size();
+            if (i == 0) {
+                width = size;
+            } else if (size != width) {
+                uniform = false;
+                width = Math.max(width, size);
+            }
+        }
+        out.writeInt(width);
+        out.writeBoolean(uniform);
+        if (!uniform) {
+            for (List<Object> row : rows) {
+                out.writeInt(row == null ? 0 : row.size());
+            }
+        }
+        for (int c = 0; c < width; c++) {
+            Object[] values = new Object[rows.size()];
+            for (int r = 0; r < rows.size(); r++) {
+                List<Object> row = rows.get(r);
+                values[r] = row != null && c < row.size() ? row.get(c) : null;
+            }
+            ValueType type = columns != null && c < columns.size() ? columns.get(c).getType() : null;
+            writeBlock(out, type, values);
+        }
+    }
+
+    /**
+     * 列式行集合的每一行宽度相同，直接按列读取，不为每个单元格创建行视图
+     */
+    private void writeColumnarRows(DataOutputStream out, ColumnarRows rows, List<Column> columns) throws IOException {
+        int rowCount = rows.size();
+        int width = rowCount == 0 ? 0 : rows.getColumnCount();
+        out.writeInt(width);
+        out.writeBoolean(true);
+        for (int c = 0; c < width; c++) {
+            Object[] values = new Object[rowCount];
+            for (int r = 0; r < rowCount; r++) {
+                values[r] = rows.getValue(r, c);
+            }
+            ValueType type = columns != null && c < columns.size() ? columns.get(c).getType() : null;
+            writeBlock(out, type, values);
+        }
+    }
+
+    private Dataframe readFrame(DataInputStream in, boolean columnar) throws IOException {
+        Dataframe dataframe = new Dataframe(readString(in));
+        dataframe.setName(readString(in));
+        dataframe.setVizType(readString(in));
+        dataframe.setVizId(readString(in));
+        dataframe.setScript(readString(in));
+        if (in.readBoolean()) {
+            PageInfo pageInfo = new PageInfo();
+            pageInfo.setPageSize(in.readLong());
+            pageInfo.setPageNo(in.readLong());
+            pageInfo.setTotal(in.readLong());
+            pageInfo.setCountTotal(in.readBoolean());
+            dataframe.setPageInfo(pageInfo);
+        }
+
+        int columnCount = in.readInt();
+        if (columnCount >= 0) {
+            List<Column> columns = new ArrayList<>(columnCount);
+            for (int i = 0; i < columnCount; i++) {
+                columns.add(readColumn(in));
+            }
+            dataframe.setColumns(columns);
+        }
+
+        int rowCount = in.readInt();
+        if (rowCount < 0) {
+            return dataframe;
+        }
+        int width = in.readInt();
+        boolean uniform = in.readBoolean();
+        int[] rowWidths = null;
+        if (!uniform) {
+            rowWidths = new int[rowCount];
+            for (int r = 0; r < rowCount; r++) {
+                rowWidths[r] = in.readInt();
+            }
+        }
+        Object[][] blocks = new Object[width][];
+        for (int c = 0; c < width; c++) {
+            blocks[c] = readBlock(in, rowCount);
+        }
+        if (columnar && uniform) {
+            ColumnarRows rows = new ColumnarRows(width);
+            Object[] row = new Object[width];
+            for (int r = 0; r < rowCount; r++) {
+                for (int c = 0; c < width; c++) {
+                    row[c] = blocks[c][r];
+                }
+                rows.addRow(row);
+            }
+            dataframe.setRows(rows.trim());
+            return dataframe;
+        }
+        List<List<Object>> rows = new ArrayList<>(rowCount);
+        for (int r = 0; r < rowCount; r++) {
+            int size = uniform ? width : rowWidths[r];
+            List<Object> row = new ArrayList<>(size);
+            for (int c = 0; c < size; c++) {
+                row.add(blocks[c][r]);
+            }
+            rows.add(row);
+        }
+        dataframe.setRows(rows);
+        return dataframe;
+    }
+
+    private void writeColumn(DataOutputStream out, Column column) throws IOException {
+        String[] names = column.getName();
+        out.writeInt(names == null ? -1 : names.length);
+        if (names != null) {
+            for (String name : names) {
+                writeString(out, name);
+            }
+        }
+        out.writeByte(valueTypeCode(column.getType()));
+        writeString(out, column.getFmt());
+        List<ForeignKey> foreignKeys = column.getForeignKeys();
+        out.writeInt(foreignKeys == null ? -1 : foreignKeys.size());
+        if (foreignKeys != null) {
+            for (ForeignKey foreignKey : foreignKeys) {
+                writeString(out, foreignKey.getDatabase());
+                writeString(out, foreignKey.getTable());
+                writeString(out, foreignKey.getColumn());
+            }
+        }
+    }
+
+    private Column readColumn(DataInputStream in) throws IOException {
+        Column column = new Column();
+        int nameCount = in.readInt();
+        if (nameCount >= 0) {
+            String[] names = new String[nameCount];
+            for (int i = 0; i < nameCount; i++) {
+                names[i] = readString(in);
+            }
+            column.setName(names);
+        }
+        column.setType(valueTypeOf(in.readByte()));
+        column.setFmt(readString(in));
+        int fkCount = in.readInt();
+        if (fkCount >= 0) {
+            List<ForeignKey> foreignKeys = new ArrayList<>(fkCount);
+            for (int i = 0; i < fkCount; i++) {
+                ForeignKey foreignKey = new ForeignKey();
+                foreignKey.setDatabase(readString(in));
+                foreignKey.setTable(readString(in));
+                foreignKey.setColumn(readString(in));
+                foreignKeys.add(foreignKey);
+            }
+            column.setForeignKeys(foreignKeys);
+        }
+        return column;
+    }
+
+    private void writeBlock(DataOutputStream out, ValueType type, Object[] values) throws IOException {
+        byte encoding = chooseEncoding(type, values);
+        out.writeByte(encoding);
+        if (encoding == ENC_NULL) {
+            return;
+        }
+        if (encoding == ENC_OBJECT) {
+            // 无法按类型编码的列，整列使用 java 序列化
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+                oos.writeObject(values);
+            }
+            out.writeInt(bos.size());
+            bos.writeTo(out);
+            return;
+        }
+        writeNullBitmap(out, values);
+        switch (encoding) {
+            case ENC_LONG:
+                for (Object value : values) {
+                    if (value != null) {
+                        out.writeLong((Long) value);
+                    }
+                }
+                break;
+            case ENC_INT:
+                for (Object value : values) {
+                    if (value != null) {
+                        out.writeInt((Integer) value);
+                    }
+                }
+                break;
+            case ENC_DOUBLE:
+                for (Object value : values) {
+                    if (value != null) {
+                        out.writeDouble((Double) value);
+                    }
+                }
+                break;
+            case ENC_FLOAT:
+                for (Object value : values) {
+                    if (value != null) {
+                        out.writeFloat((Float) value);
+                    }
+                }
+                break;
+            case ENC_BOOLEAN:
+                for (Object value : values) {
+                    if (value != null) {
+                        out.writeBoolean((Boolean) value);
+                    }
+                }
+                break;
+            case ENC_DATE:
+            case ENC_SQL_DATE:
+                for (Object value : values) {
+                    if (value != null) {
+                        out.writeLong(((Date) value).getTime());
+                    }
+                }
+                break;
+            case ENC_TIMESTAMP:
+                for (Object value : values) {
+                    if (value != null) {
+                        out.writeLong(((Timestamp) value).getTime());
+                        out.writeInt(((Timestamp) value).getNanos());
+                    }
+                }
+                break;
+            case ENC_DECIMAL:
+                for (Object value : values) {
+                    if (value != null) {
+                        BigDecimal decimal = (BigDecimal) value;
+                        byte[] unscaled = decimal.unscaledValue().toByteArray();
+                        out.writeInt(decimal.scale());
+                        out.writeInt(unscaled.length);
+                        out.write(unscaled);
+                    }
+                }
+                break;
+            case ENC_STRING:
+                for (Object value : values) {
+                    if (value != null) {
+                        writeString(out, (String) value);
+                    }
+                }
+                break;
+            case ENC_STRING_DICT:
+                writeDictionary(out, values);
+                break;
+            default:
+                throw new IOException("Unknown column encoding " + encoding);
+        }
+    }
+
+    private Object[] readBlock(DataInputStream in, int rowCount) throws IOException {
+        Object[] values = new Object[rowCount];
+        byte encoding = in.readByte();
+        if (encoding == ENC_NULL) {
+            return values;
+        }
+        if (encoding == ENC_OBJECT) {
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+                return (Object[]) ois.readObject();
+            } catch (ClassNotFoundException e) {
+                throw new IOException(e);
+            }
+        }
+        BitSet nulls = readNullBitmap(in);
+        if (encoding == ENC_STRING_DICT) {
+            readDictionary(in, values, nulls);
+            return values;
+        }
+        for (int r = 0; r < rowCount; r++) {
+            if (nulls != null && nulls.get(r)) {
+                continue;
+            }
+            switch (encoding) {
+                case ENC_LONG:
+                    values[r] = in.readLong();
+                    break;
+                case ENC_INT:
+                    values[r] = in.readInt();
+                    break;
+                case ENC_DOUBLE:
+                    values[r] = in.readDouble();
+                    break;
+                case ENC_FLOAT:
+                    values[r] = in.readFloat();
+                    break;
+                case ENC_BOOLEAN:
+                    values[r] = in.readBoolean();
+                    break;
+                case ENC_DATE:
+                    values[r] = new Date(in.readLong());
+                    break;
+                case ENC_SQL_DATE:
+                    values[r] = new java.sql.Date(in.readLong());
+                    break;
+                case ENC_TIMESTAMP:
+                    Timestamp timestamp = new Timestamp(in.readLong());
+                    timestamp.setNanos(in.readInt());
+                    values[r] = timestamp;
+                    break;
+                case ENC_DECIMAL:
+                    int scale = in.readInt();
+                    byte[] unscaled = new byte[in.readInt()];
+                    in.readFully(unscaled);
+                    values[r] = new BigDecimal(new BigInteger(unscaled), scale);
+                    break;
+                case ENC_STRING:
+                    values[r] = readString(in);
+                    break;
+                default:
+                    throw new IOException("Unknown column encoding " + encoding);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * 根据列类型和实际值选择编码方式，只有整列的值类型一致时才使用定长编码
+     */
+    private byte chooseEncoding(ValueType type, Object[] values) {
+        Class<?> valueClass = null;
+        int nonNull = 0;
+        for (Object value : values) {
+            if (value == null) {
+                continue;
+            }
+            nonNull++;
+            if (valueClass == null) {
+                valueClass = value.getClass();
+            } else if (valueClass != value.getClass()) {
+                return ENC_OBJECT;
+            }
+        }
+        if (valueClass == null) {
+            return ENC_NULL;
+        }
+        if (valueClass == String.class) {
+            // 数值、日期列不做字典编码，字符串列在重复值较多时使用字典
+            if (type != ValueType.NUMERIC && type != ValueType.DATE && distinctRatioLow(values, nonNull)) {
+                return ENC_STRING_DICT;
+            }
+            return ENC_STRING;
+        } else if (valueClass == Long.class) {
+            return ENC_LONG;
+        } else if (valueClass == Integer.class) {
+            return ENC_INT;
+        } else if (valueClass == Double.class) {
+            return ENC_DOUBLE;
+        } else if (valueClass == Float.class) {
+            return ENC_FLOAT;
+        } else if (valueClass == Boolean.class) {
+            return ENC_BOOLEAN;
+        } else if (valueClass == Date.class) {
+            return ENC_DATE;
+        } else if (valueClass == java.sql.Date.class) {
+            return ENC_SQL_DATE;
+        } else if (valueClass == Timestamp.class) {
+            return ENC_TIMESTAMP;
+        } else if (valueClass == BigDecimal.class) {
+            return ENC_DECIMAL;
+        }
+        return ENC_OBJECT;
+    }
+
+    private boolean distinctRatioLow(Object[] values, int nonNull) {
+        Set<Object> distinct = new HashSet<>();
+        int limit = nonNull / 2;
+        for (Object value : values) {
+            if (value != null && distinct.add(value) && distinct.size() > limit) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void writeDictionary(DataOutputStream out, Object[] values) throws IOException {
+        Map<String, Integer> dictionary = new LinkedHashMap<>();
+        int[] indexes = new int[values.length];
+        for (int r = 0; r < values.length; r++) {
+            if (values[r] != null) {
+                Integer index = dictionary.get(values[r]);
+                if (index == null) {
+                    index = dictionary.size();
+                    dictionary.put((String) values[r], index);
+                }
+                indexes[r] = index;
+            }
+        }
+        out.writeInt(dictionary.size());
+        for (String value : dictionary.keySet()) {
+            writeString(out, value);
+        }
+        int indexWidth = indexWidth(dictionary.size());
+        for (int r = 0; r < values.length; r++) {
+            if (values[r] == null) {
+                continue;
+            }
+            if (indexWidth == 1) {
+                out.writeByte(indexes[r]);
+            } else if (indexWidth == 2) {
+                out.writeShort(indexes[r]);
+            } else {
+                out.writeInt(indexes[r]);
+            }
+        }
+    }
+
+    private void readDictionary(DataInputStream in, Object[] values, BitSet nulls) throws IOException {
+        String[] dictionary = new String[in.readInt()];
+        for (int i = 0; i < dictionary.length; i++) {
+            dictionary[i] = readString(in);
+        }
+        int indexWidth = indexWidth(dictionary.length);
+        for (int r = 0; r < values.length; r++) {
+            if (nulls != null && nulls.get(r)) {
+                continue;
+            }
+            int index;
+            if (indexWidth == 1) {
+                index = in.readUnsignedByte();
+            } else if (indexWidth == 2) {
+                index = in.readUnsignedShort();
+            } else {
+                index = in.readInt();
+            }
+            values[r] = dictionary[index];
+        }
+    }
+
+    private int indexWidth(int dictionarySize) {
+        if (dictionarySize <= 0xFF) {
+            return 1;
+        } else if (dictionarySize <= 0xFFFF) {
+            return 2;
+        }
+        return 4;
+    }
+
+    private void writeNullBitmap(DataOutputStream out, Object[] values) throws IOException {
+        BitSet nulls = new BitSet(values.length);
+        for (int r = 0; r < values.length; r++) {
+            if (values[r] == null) {
+                nulls.set(r);
+            }
+        }
+        if (nulls.isEmpty()) {
+            out.writeInt(0);
+            return;
+        }
+        byte[] bitmap = nulls.toByteArray();
+        out.writeInt(bitmap.length);
+        out.write(bitmap);
+    }
+
+    private BitSet readNullBitmap(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length == 0) {
+            return null;
+        }
+        byte[] bitmap = new byte[length];
+        in.readFully(bitmap);
+        return BitSet.valueOf(bitmap);
+    }
+
+    private void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            len = Math.min(len, buffer.remaining());
+            buffer.get(b, off, len);
+            return len;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+
+    /**
+     * 值类型写入固定编码，ValueType 调整顺序或新增类型时不影响已写入的数据
+     */
+    private static byte valueTypeCode(ValueType type) {
+        if (type == null) {
+            return -1;
+        }
+        switch (type) {
+            case STRING:
+                return 0;
+            case NUMERIC:
+                return 1;
+            case DATE:
+                return 2;
+            case BOOLEAN:
+                return 3;
+            case IDENTIFIER:
+                return 4;
+            case FRAGMENT:
+                return 5;
+            case SNIPPET:
+                return 6;
+            case KEYWORD:
+                return 7;
+            default:
+                throw new IllegalArgumentException("Unsupported value type " + type);
+        }
+    }
+
+    private static ValueType valueTypeOf(byte code) throws IOException {
+        switch (code) {
+            case -1:
+                return null;
+            case 0:
+                return ValueType.STRING;
+            case 1:
+                return ValueType.NUMERIC;
+            case 2:
+                return ValueType.DATE;
+            case 3:
+                return ValueType.BOOLEAN;
+            case 4:
+                return ValueType.IDENTIFIER;
+            case 5:
+                return ValueType.FRAGMENT;
+            case 6:
+                return ValueType.SNIPPET;
+            case 7:
+                return ValueType.KEYWORD;
+            default:
+                throw new IOException("Unrecognized value type code " + code);
+        }
+    }
+
+    /**
+     * 压缩方式，code 写入数据头，不能修改已有的值
+     */
+    public enum Compression {
+        NONE(0),
+        DEFLATE(1);
+
+        private final byte code;
+
+        Compression(int code) {
+            this.code = (byte) code;
+        }
+
+        static Compression of(byte code) throws IOException {
+            for (Compression compression : values()) {
+                if (compression.code == code) {
+                    return compression;
+                }
+            }
+            throw new IOException("Unrecognized compression code " + code);
+        }
+    }
+
+}
@@ -0,0 +1,39 @@
+/*
+ * Datart
+ * <p>
+ * Copyright 2021
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package datart.core.data.provider.codec;
+
+import datart.core.data.provider.Dataframe;
+
+import java.io.IOException;
+
+/**
+ * Dataframe 编解码器，用于缓存等需要将结果集序列化为字节的场景
+ */
+public interface DataframeCodec {
+
+    byte[] encode(Dataframe dataframe) throws IOException;
+
+    Dataframe decode(byte[] bytes) throws IOException;
+
+    /**
+     * 判断字节数组是否由当前编解码器写入，用于兼容旧格式的缓存数据
+     */
+    boolean accept(byte[] bytes);
+
+}
@@ -0,0 +1,49 @@
+/*
+ * Datart
+ * <p>
+ * Copyright 2021
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package datart.core.data.provider.columnar;
+
+import java.util.BitSet;
+
+public class BooleanVector extends ColumnVector {
+
+    private final BitSet values = new BitSet();
+
+    @Override
+    public boolean accept(Object value) {
+        return value instanceof Boolean;
+    }
+
+    @Override
+    protected Object getValue(int index) {
+        return values.get(index);
+    }
+
+    @Override
+    protected void setValue(int index, Object value) {
+        values.set(index, (Boolean) value);
+    }
+
+    @Override
+    protected void ensureCapacity(int capacity) {
+    }
+
+    @Override
+    public void trim() {
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Datart
+ * <p>
+ * Copyright 2021
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package datart.core.data.provider.columnar;
+
+import java.io.Serializable;
+import java.util.BitSet;
+
+/**
+ * 列式存储的单列数据，空值使用位图标记
+ */
+public abstract class ColumnVector implements Serializable {
+
+    protected static final int DEFAULT_CAPACITY = 16;
+
+    protected final BitSet nulls = new BitSet();
+
+    protected int size;
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isNull(int index) {
+        return nulls.get(index);
+    }
+
+    public Object get(int index) {
+        if (nulls.get(index)) {
+            return null;
+        }
+        return getValue(index);
+    }
+
+    public void append(Object value) {
+        ensureCapacity(size + 1);
+        if (value == null) {
+            nulls.set(size);
+        } else {
+            setValue(size, value);
+        }
+        size++;
+    }
+
+    public void appendNulls(int count) {
+        ensureCapacity(size + count);
+        nulls.set(size, size + count);
+        size += count;
+    }
+
+    public synchronized void set(int index, Object value) {
+        if (value == null) {
+            nulls.set(index);
+        } else {
+            setValue(index, value);
+            nulls.clear(index);
+        }
+    }
+
+    /**
+     * 当前列是否可以直接存储该值，不能存储时需要转换为更通用的列类型
+     */
+    public abstract boolean accept(Object value);
+
+    protected abstract Object getValue(int index);
+
+    protected abstract void setValue(int index, Object value);
+
+    protected abstract void ensureCapacity(int capacity);
+
+    /**
+     * 数据写入完成后释放多余的容量
+     */
+    public abstract void trim();
+
+    protected int grow(int current, int capacity) {
+        return Math.max(capacity, Math.max(DEFAULT_CAPACITY, current + (current >> 1)));
+    }
+
+    public static ColumnVector of(Object value) {
+        if (LongVector.isIntegral(value)) {
+            return new LongVector(value.getClass());
+        } else if (value instanceof Double || value instanceof Float) {
+            return new DoubleVector(value.getClass());
+        } else if (value instanceof String) {
+            return new StringVector();
+        } else if (DateVector.supports(value)) {
+            return new DateVector(value.getClass());
+        } else if (value instanceof Boolean) {
+            return new BooleanVector();
+        }
+        // BigDecimal、BigInteger 等需要保留精度的值按原对象存储
+        return new ObjectVector();
+    }
+
+    /**
+     * 将当前列转换为可以存储 value 的列。混合类型的列按原对象存储，读取时各值保持写入时的类型
+     */
+    public ColumnVector promote(Object value) {
+        ColumnVector target = new ObjectVector();
+        target.ensureCapacity(size);
+        for (int i = 0; i < size; i++) {
+            target.append(get(i));
+        }
+        return target;
+    }
+
+}
@@ -0,0 +1,171 @@
+/*
+ * Datart
+ * <p>
+ * Copyright 2021
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package datart.core.data.provider.columnar;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * 列式存储的行集合，数值、日期使用基本类型数组，字符串使用字典编码。
+ * 对外仍然表现为 List&lt;List&lt;Object&gt;&gt;，原有按行访问的代码无需修改。
+ */
+public class ColumnarRows extends AbstractList<List<Object>> implements RandomAccess, Serializable {
+
+    private final ColumnVector[] vectors;
+
+    private int rowCount;
+
+    public ColumnarRows(int columnCount) {
+        this.vectors = new ColumnVector[columnCount];
+    }
+
+    private ColumnarRows(ColumnVector[] vectors, int rowCount) {
+        this.vectors = vectors;
+        this.rowCount = rowCount;
+    }
+
+    public int getColumnCount() {
+        return vectors.length;
+    }
+
+    public ColumnVector getVector(int column) {
+        ColumnVector vector = vectors[column];
+        if (vector == null) {
+            // 整列都是空值
+            vector = new ObjectVector();
+            vector.appendNulls(rowCount);
+            vectors[column] = vector;
+        }
+        return vector;
+    }
+
+    public Object getValue(int row, int column) {
+        ColumnVector vector = vectors[column];
+        return vector == null ? null : vector.get(row);
+    }
+
+    public synchronized void setValue(int row, int column, Object value) {
+        ColumnVector vector = getVector(column);
+        if (value != null && !vector.accept(value)) {
+            vector = vector.promote(value);
+            vectors[column] = vector;
+        }
+        vector.set(row, value);
+    }
+
+    public void addRow(Object... values) {
+        for (int i = 0; i < vectors.length; i++) {
+            Object value = i < values.length ? values[i] : null;
+            ColumnVector vector = vectors[i];
+            if (vector == null) {
+                if (value == null) {
+                    continue;
+                }
+                vector = ColumnVector.of(value);
+                vector.appendNulls(rowCount);
+                vectors[i] = vector;
+            } else if (value != null && !vector.accept(value)) {
+                vector = vector.promote(value);
+                vectors[i] = vector;
+            }
+            vector.append(value);
+        }
+        rowCount++;
+    }
+
+    @Override
+    public boolean add(List<Object> row) {
+        addRow(row.toArray());
+        return true;
+    }
+
+    /**
+     * 数据写入完成后调用，释放各列多余的容量
+     */
+    public ColumnarRows trim() {
+        for (int i = 0; i < vectors.length; i++) {
+            getVector(i).trim();
+        }
+        return this;
+    }
+
+    /**
+     * 复制行集合，新集合与原集合不共享列数据
+     */
+    public ColumnarRows copy() {
+        ColumnarRows copied = new ColumnarRows(vectors.length);
+        for (List<Object> row : this) {
+            copied.add(row);
+        }
+        return copied.trim();
+    }
+
+    /**
+     * 选取部分列组成新的行集合，与原集合共享列数据
+     */
+    public ColumnarRows select(int... columns) {
+        ColumnVector[] selected = new ColumnVector[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            selected[i] = getVector(columns[i]);
+        }
+        return new ColumnarRows(selected, rowCount);
+    }
+
+    @Override
+    public List<Object> get(int index) {
+        if (index < 0 || index >= rowCount) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + rowCount);
+        }
+        return new RowView(index);
+    }
+
+    @Override
+    public int size() {
+        return rowCount;
+    }
+
+    private class RowView extends AbstractList<Object> implements RandomAccess {
+
+        private final int row;
+
+        private RowView(int row) {
+            this.row = row;
+        }
+
+        @Override
+        public Object get(int index) {
+            return getValue(row, index);
+        }
+
+        @Override
+        public Object set(int index, Object element) {
+            Object old = getValue(row, index);
+            setValue(row, index, element);
+            return old;
+        }
+
+        @Override
+        public int size() {
+            return vectors.length;
+        }
+    }
+
+}
@@ -0,0 +1,103 @@
+/*
+ * Datart
+ * <p>
+ * Copyright 2021
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package datart.core.data.provider.columnar;
+
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Date;
+
+/**
+ * 日期列，按毫秒数存储，同一列只存储同一种日期类型，Timestamp 额外保存纳秒
+ */
+public class DateVector extends ColumnVector {
+
+    private final Class<?> type;
+
+    private long[] values = new long[0];
+
+    private int[] nanos;
+
+    public DateVector(Class<?> type) {
+        this.type = type;
+        if (type == Timestamp.class) {
+            nanos = new int[0];
+        }
+    }
+
+    /**
+     * 是否为可以按毫秒数还原的日期类型，其它 Date 子类使用 ObjectVector 存储
+     */
+    public static boolean supports(Object value) {
+        if (value == null) {
+            return false;
+        }
+        Class<?> clazz = value.getClass();
+        return clazz == Date.class || clazz == java.sql.Date.class || clazz == Timestamp.class || clazz == Time.class;
+    }
+
+    @Override
+    public boolean accept(Object value) {
+        return value != null && value.getClass() == type;
+    }
+
+    @Override
+    protected Object getValue(int index) {
+        long time = values[index];
+        if (type == Timestamp.class) {
+            Timestamp timestamp = new Timestamp(time);
+            timestamp.setNanos(nanos[index]);
+            return timestamp;
+        } else if (type == java.sql.Date.class) {
+            return new java.sql.Date(time);
+        } else if (type == Time.class) {
+            return new Time(time);
+        }
+        return new Date(time);
+    }
+
+    @Override
+    protected void setValue(int index, Object value) {
+        values[index] = ((Date) value).getTime();
+        if (nanos != null) {
+            nanos[index] = ((Timestamp) value).getNanos();
+        }
+    }
+
+    @Override
+    protected void ensureCapacity(int capacity) {
+        if (capacity > values.length) {
+            int length = grow(values.length, capacity);
+            values = Arrays.copyOf(values, length);
+            if (nanos != null) {
+                nanos = Arrays.copyOf(nanos, length);
+            }
+        }
+    }
+
+    @Override
+    public void trim() {
+        if (values.length > size) {
+            values = Arrays.copyOf(values, size);
+            if (nanos != null) {
+                nanos = Arrays.copyOf(nanos, size);
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Datart
+ * <p>
+ * Copyright 2021
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package datart.core.data.provider.columnar;
+
+import java.util.Arrays;
+
+/**
+ * 浮点数列，同一列只存储 Double 或 Float 中的一种，BigDecimal 等高精度数值使用 ObjectVector 存储
+ */
+public class DoubleVector extends ColumnVector {
+
+    private final Class<?> type;
+
+    private double[] values = new double[0];
+
+    public DoubleVector(Class<?> type) {
+        this.type = type;
+    }
+
+    @Override
+    public boolean accept(Object value) {
+        return value != null && value.getClass() == type;
+    }
+
+    public double getDouble(int index) {
+        return values[index];
+    }
+
+    @Override
+    protected Object getValue(int index) {
+        double value = values[index];
+        return type == Float.class ? (Object) (float) value : (Object) value;
+    }
+
+    @Override
+    protected void setValue(int index, Object value) {
+        values[index] = ((Number) value).doubleValue();
+    }
+
+    @Override
+    protected void ensureCapacity(int capacity) {
+        if (capacity > values.length) {
+            values = Arrays.copyOf(values, grow(values.length, capacity));
+        }
+    }
+
+    @Override
+    public void trim() {
+        if (values.length > size) {
+            values = Arrays.copyOf(values, size);
+        }
+    }
+}
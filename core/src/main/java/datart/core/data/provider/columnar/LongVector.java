@@ -0,0 +1,80 @@
+/*
+ * Datart
+ * <p>
+ * Copyright 2021
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package datart.core.data.provider.columnar;
+
+import java.util.Arrays;
+
+/**
+ * 整数列，按 long 存储，同一列只存储同一种整数类型，读取时还原为原类型
+ */
+public class LongVector extends ColumnVector {
+
+    private final Class<?> type;
+
+    private long[] values = new long[0];
+
+    public LongVector(Class<?> type) {
+        this.type = type;
+    }
+
+    @Override
+    public boolean accept(Object value) {
+        return value != null && value.getClass() == type;
+    }
+
+    static boolean isIntegral(Object value) {
+        return value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte;
+    }
+
+    public long getLong(int index) {
+        return values[index];
+    }
+
+    @Override
+    protected Object getValue(int index) {
+        long value = values[index];
+        if (type == Integer.class) {
+            return (int) value;
+        } else if (type == Short.class) {
+            return (short) value;
+        } else if (type == Byte.class) {
+            return (byte) value;
+        }
+        return value;
+    }
+
+    @Override
+    protected void setValue(int index, Object value) {
+        values[index] = ((Number) value).longValue();
+    }
+
+    @Override
+    protected void ensureCapacity(int capacity) {
+        if (capacity > values.length) {
+            values = Arrays.copyOf(values, grow(values.length, capacity));
+        }
+    }
+
+    @Override
+    public void trim() {
+        if (values.length > size) {
+            values = Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Datart
+ * <p>
+ * Copyright 2021
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package datart.core.data.provider.columnar;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 字典编码的字符串列，相同的字符串只保存一份
+ */
+public class StringVector extends ColumnVector {
+
+    private int[] codes = new int[0];
+
+    private final List<String> dictionary = new ArrayList<>();
+
+    private transient Map<String, Integer> lookup = new HashMap<>();
+
+    @Override
+    public boolean accept(Object value) {
+        return value instanceof String;
+    }
+
+    public int getCode(int index) {
+        return codes[index];
+    }
+
+    public List<String> getDictionary() {
+        return dictionary;
+    }
+
+    @Override
+    protected Object getValue(int index) {
+        return dictionary.get(codes[index]);
+    }
+
+    @Override
+    protected void setValue(int index, Object value) {
+        if (lookup == null) {
+            lookup = new HashMap<>();
+            for (int i = 0; i < dictionary.size(); i++) {
+                lookup.put(dictionary.get(i), i);
+            }
+        }
+        Integer code = lookup.get(value);
+        if (code == null) {
+            code = dictionary.size();
+            dictionary.add((String) value);
+            lookup.put((String) value, code);
+        }
+        codes[index] = code;
+    }
+
+    @Override
+    protected void ensureCapacity(int capacity) {
+        if (capacity > codes.length) {
+            codes = Arrays.copyOf(codes, grow(codes.length, capacity));
+        }
+    }
+
+    @Override
+    public void trim() {
+        if (codes.length > size) {
+            codes = Arrays.copyOf(codes, size);
+        }
+        // 写入完成后不再需要反向索引
+        lookup = null;
+    }
+}
@@ -14,4 +14,13 @@ public class Download extends BaseEntity {
     private Date lastDownloadTime;
 
     private Byte status;
+
+    private Long rowCount;
+
+    private Long fileSize;
+
+    /**
+     * 排队中的任务在下载队列中的位置，不持久化
+     */
+    private Integer queuePosition;
 }
\ No newline at end of file
@@ -23,11 +23,13 @@ public interface DownloadMapper extends CRUDMapper {
         "insert into download (id, `name`, ",
         "`path`, last_download_time, ",
         "create_time, create_by, ",
-        "`status`)",
+        "`status`, row_count, ",
+        "file_size)",
         "values (#{id,jdbcType=VARCHAR}, #{name,jdbcType=VARCHAR}, ",
         "#{path,jdbcType=VARCHAR}, #{lastDownloadTime,jdbcType=TIMESTAMP}, ",
         "#{createTime,jdbcType=TIMESTAMP}, #{createBy,jdbcType=VARCHAR}, ",
-        "#{status,jdbcType=TINYINT})"
+        "#{status,jdbcType=TINYINT}, #{rowCount,jdbcType=BIGINT}, ",
+        "#{fileSize,jdbcType=BIGINT})"
     })
     int insert(Download record);
 
@@ -36,7 +38,8 @@ public interface DownloadMapper extends CRUDMapper {
 
     @Select({
         "select",
-        "id, `name`, `path`, last_download_time, create_time, create_by, `status`",
+        "id, `name`, `path`, last_download_time, create_time, create_by, `status`, row_count, ",
+        "file_size",
         "from download",
         "where id = #{id,jdbcType=VARCHAR}"
     })
@@ -47,7 +50,9 @@ public interface DownloadMapper extends CRUDMapper {
         @Result(column="last_download_time", property="lastDownloadTime", jdbcType=JdbcType.TIMESTAMP),
         @Result(column="create_time", property="createTime", jdbcType=JdbcType.TIMESTAMP),
         @Result(column="create_by", property="createBy", jdbcType=JdbcType.VARCHAR),
-        @Result(column="status", property="status", jdbcType=JdbcType.TINYINT)
+        @Result(column="status", property="status", jdbcType=JdbcType.TINYINT),
+        @Result(column="row_count", property="rowCount", jdbcType=JdbcType.BIGINT),
+        @Result(column="file_size", property="fileSize", jdbcType=JdbcType.BIGINT)
     })
     Download selectByPrimaryKey(String id);
 
@@ -61,7 +66,9 @@ public interface DownloadMapper extends CRUDMapper {
           "last_download_time = #{lastDownloadTime,jdbcType=TIMESTAMP},",
           "create_time = #{createTime,jdbcType=TIMESTAMP},",
           "create_by = #{createBy,jdbcType=VARCHAR},",
-          "`status` = #{status,jdbcType=TINYINT}",
+          "`status` = #{status,jdbcType=TINYINT},",
+          "row_count = #{rowCount,jdbcType=BIGINT},",
+          "file_size = #{fileSize,jdbcType=BIGINT}",
         "where id = #{id,jdbcType=VARCHAR}"
     })
     int updateByPrimaryKey(Download record);
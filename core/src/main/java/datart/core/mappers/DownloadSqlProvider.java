@@ -36,6 +36,14 @@ public class DownloadSqlProvider {
             sql.VALUES("`status`", "#{status,jdbcType=TINYINT}");
         }
         
+        if (record.getRowCount() != null) {
+            sql.VALUES("row_count", "#{rowCount,jdbcType=BIGINT}");
+        }
+        
+        if (record.getFileSize() != null) {
+            sql.VALUES("file_size", "#{fileSize,jdbcType=BIGINT}");
+        }
+        
         return sql.toString();
     }
 
@@ -67,6 +75,14 @@ public class DownloadSqlProvider {
             sql.SET("`status` = #{status,jdbcType=TINYINT}");
         }
         
+        if (record.getRowCount() != null) {
+            sql.SET("row_count = #{rowCount,jdbcType=BIGINT}");
+        }
+        
+        if (record.getFileSize() != null) {
+            sql.SET("file_size = #{fileSize,jdbcType=BIGINT}");
+        }
+        
         sql.WHERE("id = #{id,jdbcType=VARCHAR}");
         
         return sql.toString();
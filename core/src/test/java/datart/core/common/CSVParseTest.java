@@ -0,0 +1,214 @@
+/*
+ * Datart
+ * <p>
+ * Copyright 2021
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package datart.core.common;
+
+import datart.core.base.consts.ValueType;
+import datart.core.base.exception.BaseException;
+import datart.core.data.provider.Column;
+import datart.core.data.provider.Dataframe;
+import org.apache.commons.lang3.time.FastDateFormat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CSVParseTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testIsNumber() {
+        assertTrue(CSVParse.isNumber("1"));
+        assertTrue(CSVParse.isNumber("-2.5"));
+        assertTrue(CSVParse.isNumber("12345678901234567890"));
+        assertFalse(CSVParse.isNumber("0x1F"));
+        assertFalse(CSVParse.isNumber("1L"));
+        assertFalse(CSVParse.isNumber("2e"));
+        assertFalse(CSVParse.isNumber("abc"));
+        assertFalse(CSVParse.isNumber(""));
+    }
+
+    @Test
+    public void testParseRemovesBom() throws IOException {
+        String path = write("bom.csv", "\uFEFFid,name", "1,a");
+        List<List<Object>> values = CSVParse.create(path).parse();
+        assertEquals(Arrays.asList("id", "name"), values.get(0));
+        assertEquals(Arrays.asList("1", "a"), values.get(1));
+    }
+
+    @Test
+    public void testIsExactNumber() {
+        assertTrue(CSVParse.isExactNumber("0"));
+        assertTrue(CSVParse.isExactNumber("-2.5"));
+        assertTrue(CSVParse.isExactNumber("0.1"));
+        assertTrue(CSVParse.isExactNumber("9223372036854775807"));
+        assertFalse(CSVParse.isExactNumber("00123"));
+        assertFalse(CSVParse.isExactNumber("-01"));
+        assertFalse(CSVParse.isExactNumber("12345678901234567890"));
+        assertFalse(CSVParse.isExactNumber("3.14159265358979323846"));
+        assertFalse(CSVParse.isExactNumber("abc"));
+    }
+
+    @Test
+    public void testDefaultAllStrings() throws Exception {
+        String path = write("plain.csv", "id,day", "00123,2021-01-01", "2,2021-01-02");
+        Dataframe dataframe = CSVParse.create(path).parseTyped(null);
+
+        assertEquals(ValueType.STRING, dataframe.getColumns().get(0).getType());
+        assertEquals(ValueType.STRING, dataframe.getColumns().get(1).getType());
+        assertEquals(Arrays.asList("00123", "2021-01-01"), dataframe.getRows().get(0));
+    }
+
+    @Test
+    public void testInferAndConvert() throws Exception {
+        String path = write("typed.csv",
+                "\uFEFFid,name,price,day,mixed,blank,big,code",
+                "1,a,2.5,2021-01-01,1,,12345678901234567890,00123",
+                "2,b,3,2021-01-02,x,,1,00124",
+                "3,,,2021-01-03,2,,2,7");
+        Dataframe dataframe = CSVParse.create(path, inferConfig(0)).parseTyped(null);
+
+        List<Column> columns = dataframe.getColumns();
+        assertEquals("id", columns.get(0).columnName());
+        assertEquals(ValueType.NUMERIC, columns.get(0).getType());
+        assertEquals(ValueType.STRING, columns.get(1).getType());
+        assertEquals(ValueType.NUMERIC, columns.get(2).getType());
+        assertEquals(ValueType.DATE, columns.get(3).getType());
+        assertEquals("yyyy-MM-dd", columns.get(3).getFmt());
+        assertEquals(ValueType.STRING, columns.get(4).getType());
+        assertEquals(ValueType.STRING, columns.get(5).getType());
+        // 超出 long 范围的整数和带前导零的编号保留为字符串
+        assertEquals(ValueType.STRING, columns.get(6).getType());
+        assertEquals(ValueType.STRING, columns.get(7).getType());
+
+        List<List<Object>> rows = dataframe.getRows();
+        assertEquals(3, rows.size());
+        assertEquals(1L, rows.get(0).get(0));
+        assertEquals("a", rows.get(0).get(1));
+        assertEquals(2.5D, ((Number) rows.get(0).get(2)).doubleValue());
+        assertEquals(3D, ((Number) rows.get(1).get(2)).doubleValue());
+        assertNull(rows.get(2).get(2));
+        assertEquals(date("2021-01-02"), rows.get(1).get(3));
+        assertEquals("x", rows.get(1).get(4));
+        assertEquals("12345678901234567890", rows.get(0).get(6));
+        assertEquals("00123", rows.get(0).get(7));
+    }
+
+    @Test
+    public void testWidenOutsideSample() throws IOException {
+        String path = write("sample.csv", "num,day,other", "1,2021-01-01,1", "2,2021-01-02,2", "x,bad,3", "0x1F,2021-01-04,4");
+        Dataframe dataframe = CSVParse.create(path, inferConfig(2)).parseTyped(null);
+
+        // 采样之外无法转换的值不会被置为空，该列改为字符串
+        assertEquals(ValueType.STRING, dataframe.getColumns().get(0).getType());
+        assertEquals(ValueType.STRING, dataframe.getColumns().get(1).getType());
+        assertNull(dataframe.getColumns().get(1).getFmt());
+        assertEquals(ValueType.NUMERIC, dataframe.getColumns().get(2).getType());
+        List<List<Object>> rows = dataframe.getRows();
+        assertEquals(4, rows.size());
+        assertEquals(Arrays.asList("x", "bad", 3L), rows.get(2));
+        assertEquals(Arrays.asList("0x1F", "2021-01-04", 4L), rows.get(3));
+    }
+
+    @Test
+    public void testGivenColumns() throws IOException {
+        String path = write("columns.csv", "a,b", "1,2", "3");
+        List<Column> columns = Arrays.asList(Column.of(ValueType.STRING, "a"), Column.of(ValueType.NUMERIC, "b"));
+        Dataframe dataframe = CSVParse.create(path).parseTyped(columns);
+        assertEquals("1", dataframe.getRows().get(0).get(0));
+        assertEquals(2L, dataframe.getRows().get(0).get(1));
+        assertEquals("3", dataframe.getRows().get(1).get(0));
+        assertNull(dataframe.getRows().get(1).get(1));
+
+        List<Column> mismatch = Arrays.asList(Column.of(ValueType.STRING, "a"));
+        assertThrows(BaseException.class, () -> CSVParse.create(path).parseTyped(mismatch));
+    }
+
+    @Test
+    public void testMissingFile() {
+        String path = tempDir.resolve("missing.csv").toString();
+        assertThrows(BaseException.class, () -> CSVParse.create(path).parseTyped(null));
+    }
+
+    @Test
+    public void testParallelConvert() throws Exception {
+        // 超过 32MB 的文件走并行转换，最后一行的 price 无法转换为数值
+        Path file = tempDir.resolve("large.csv");
+        int rowCount = 0;
+        long size = 0;
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("id,name,price,day\n");
+            // 最后一块不足 CHUNK_SIZE 行
+            while (size <= 33L * 1024 * 1024 || rowCount % 10000 != 1234) {
+                String line = rowCount + ",name-" + rowCount + "," + (rowCount % 100) + ".5,2021-01-" + (10 + rowCount % 20) + "\n";
+                writer.write(line);
+                size += line.length();
+                rowCount++;
+            }
+            writer.write(rowCount + ",name-" + rowCount + ",n/a,2021-01-10\n");
+            rowCount++;
+        }
+        Dataframe dataframe = CSVParse.create(file.toString(), inferConfig(0)).parseTyped(null);
+
+        assertEquals(ValueType.NUMERIC, dataframe.getColumns().get(0).getType());
+        assertEquals(ValueType.STRING, dataframe.getColumns().get(2).getType());
+        assertEquals(ValueType.DATE, dataframe.getColumns().get(3).getType());
+        List<List<Object>> rows = dataframe.getRows();
+        assertEquals(rowCount, rows.size());
+        for (int i = 0; i < rowCount - 1; i += 9973) {
+            assertRow(rows.get(i), i);
+        }
+        assertRow(rows.get(rowCount - 2), rowCount - 2);
+        assertEquals("n/a", rows.get(rowCount - 1).get(2));
+    }
+
+    private void assertRow(List<Object> row, int i) throws Exception {
+        assertEquals((long) i, row.get(0));
+        assertEquals("name-" + i, row.get(1));
+        assertEquals(i % 100 + ".5", row.get(2));
+        assertEquals(date("2021-01-" + (10 + i % 20)), row.get(3));
+    }
+
+    private CSVParse.ParseConfig inferConfig(int sampleSize) {
+        CSVParse.ParseConfig config = new CSVParse.ParseConfig();
+        config.setInferTypes(true);
+        config.setSampleSize(sampleSize);
+        return config;
+    }
+
+    private Date date(String value) throws Exception {
+        return FastDateFormat.getInstance("yyyy-MM-dd").parse(value);
+    }
+
+    private String write(String name, String... lines) throws IOException {
+        Path file = tempDir.resolve(name);
+        Files.write(file, Arrays.asList(lines), StandardCharsets.UTF_8);
+        return file.toString();
+    }
+
+}
@@ -0,0 +1,124 @@
+/*
+ * Datart
+ * <p>
+ * Copyright 2021
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package datart.core.common;
+
+import datart.core.base.exception.BaseException;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExcelStreamReaderTest {
+
+    private static final Date DATE = new Date(1_600_000_000_000L / 1000 * 1000);
+
+    @TempDir
+    Path tempDir;
+
+    private String path;
+
+    @BeforeEach
+    public void createWorkbook() throws IOException {
+        Path file = tempDir.resolve("test.xlsx");
+        try (XSSFWorkbook workbook = new XSSFWorkbook(); OutputStream os = Files.newOutputStream(file)) {
+            CellStyle dateStyle = workbook.createCellStyle();
+            dateStyle.setDataFormat(workbook.createDataFormat().getFormat("yyyy-mm-dd hh:mm:ss"));
+
+            Sheet first = workbook.createSheet("first");
+            Row header = first.createRow(0);
+            header.createCell(0).setCellValue("name");
+            header.createCell(1).setCellValue("value");
+            header.createCell(2).setCellValue("time");
+            header.createCell(3).setCellValue("flag");
+
+            Row full = first.createRow(1);
+            full.createCell(0).setCellValue("a");
+            full.createCell(1).setCellValue(1.5D);
+            full.createCell(2).setCellValue(DATE);
+            full.getCell(2).setCellStyle(dateStyle);
+            full.createCell(3).setCellValue(true);
+
+            // 只有第三列有值
+            Row sparse = first.createRow(2);
+            sparse.createCell(2).setCellValue("only c");
+
+            // 中间列为空，且超出表头的列被忽略
+            Row gap = first.createRow(3);
+            gap.createCell(0).setCellValue("b");
+            gap.createCell(3).setCellValue(false);
+            gap.createCell(5).setCellValue("extra");
+
+            Sheet second = workbook.createSheet("second");
+            for (int i = 0; i < 5; i++) {
+                second.createRow(i).createCell(0).setCellValue(i);
+            }
+            workbook.write(os);
+        }
+        path = file.toString();
+    }
+
+    @Test
+    public void testSparseRows() throws IOException {
+        List<List<Object>> rows = ExcelStreamReader.readAll(path, null);
+        assertEquals(4, rows.size());
+        assertEquals(Arrays.asList("name", "value", "time", "flag"), rows.get(0));
+        assertEquals(Arrays.asList("a", 1.5D, DATE, true), rows.get(1));
+        assertEquals(Arrays.asList(null, null, "only c", null), rows.get(2));
+        assertEquals(Arrays.asList("b", null, null, false), rows.get(3));
+    }
+
+    @Test
+    public void testSheetSelection() throws IOException {
+        List<List<Object>> rows = ExcelStreamReader.readAll(path, "second");
+        assertEquals(5, rows.size());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(Arrays.asList((Object) (double) i), rows.get(i));
+        }
+        assertEquals("name", ExcelStreamReader.readAll(path, "first").get(0).get(0));
+        assertEquals("name", ExcelStreamReader.readAll(path, "").get(0).get(0));
+        assertThrows(BaseException.class, () -> ExcelStreamReader.readAll(path, "missing"));
+    }
+
+    @Test
+    public void testBatches() throws IOException {
+        List<Integer> batchSizes = new ArrayList<>();
+        ExcelStreamReader.read(path, "second", 2, rows -> batchSizes.add(rows.size()));
+        assertEquals(Arrays.asList(2, 2, 1), batchSizes);
+    }
+
+    @Test
+    public void testMissingFile() {
+        String missing = tempDir.resolve("missing.xlsx").toString();
+        assertThrows(BaseException.class, () -> ExcelStreamReader.readAll(missing, null));
+    }
+
+}
@@ -0,0 +1,210 @@
+/*
+ * Datart
+ * <p>
+ * Copyright 2021
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package datart.core.data.provider.codec;
+
+import datart.core.base.PageInfo;
+import datart.core.base.consts.ValueType;
+import datart.core.data.provider.Column;
+import datart.core.data.provider.Dataframe;
+import datart.core.data.provider.columnar.ColumnarRows;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ColumnarDataframeCodecTest {
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        Dataframe dataframe = createDataframe();
+        for (ColumnarDataframeCodec.Compression compression : ColumnarDataframeCodec.Compression.values()) {
+            ColumnarDataframeCodec codec = new ColumnarDataframeCodec(compression);
+            byte[] bytes = codec.encode(dataframe);
+            assertTrue(codec.accept(bytes));
+            // 压缩方式编码固定，不随枚举顺序变化
+            assertEquals(compression == ColumnarDataframeCodec.Compression.NONE ? 0 : 1, bytes[5]);
+
+            Dataframe decoded = codec.decode(bytes);
+            assertFrameEquals(dataframe, decoded);
+
+            Dataframe mapped = codec.decode(ByteBuffer.wrap(bytes));
+            assertTrue(mapped.getRows() instanceof ColumnarRows);
+            assertFrameEquals(dataframe, mapped);
+        }
+    }
+
+    @Test
+    public void testDecodeWithOtherCompression() throws IOException {
+        Dataframe dataframe = createDataframe();
+        byte[] bytes = new ColumnarDataframeCodec(ColumnarDataframeCodec.Compression.NONE).encode(dataframe);
+        // 压缩方式记录在数据头中，与解码方的配置无关
+        Dataframe decoded = new ColumnarDataframeCodec(ColumnarDataframeCodec.Compression.DEFLATE).decode(bytes);
+        assertFrameEquals(dataframe, decoded);
+    }
+
+    @Test
+    public void testAllValueTypes() throws IOException {
+        List<Column> columns = new ArrayList<>();
+        for (ValueType type : ValueType.values()) {
+            columns.add(Column.of(type, type.name()));
+        }
+        columns.add(Column.of(null, "untyped"));
+        Dataframe dataframe = new Dataframe("types");
+        dataframe.setColumns(columns);
+        dataframe.setRows(new ArrayList<>());
+
+        ColumnarDataframeCodec codec = new ColumnarDataframeCodec();
+        Dataframe decoded = codec.decode(codec.encode(dataframe));
+        assertEquals(columns, decoded.getColumns());
+        assertTrue(decoded.getRows().isEmpty());
+    }
+
+    @Test
+    public void testRaggedRowsAndNulls() throws IOException {
+        Dataframe dataframe = new Dataframe("ragged");
+        List<List<Object>> rows = new ArrayList<>();
+        rows.add(Arrays.asList(1L, "a", 2.5D));
+        rows.add(Arrays.asList(2L));
+        rows.add(new ArrayList<>());
+        rows.add(Arrays.asList(null, null, null, "d"));
+        dataframe.setRows(rows);
+
+        ColumnarDataframeCodec codec = new ColumnarDataframeCodec();
+        byte[] bytes = codec.encode(dataframe);
+        assertEquals(rows, codec.decode(bytes).getRows());
+        assertEquals(rows, codec.decode(ByteBuffer.wrap(bytes)).getRows());
+        assertNull(codec.decode(bytes).getColumns());
+        assertNull(codec.decode(bytes).getPageInfo());
+    }
+
+    @Test
+    public void testEncodeColumnarRows() throws IOException {
+        Dataframe dataframe = createDataframe();
+        ColumnarRows columnarRows = new ColumnarRows(dataframe.getColumns().size());
+        for (List<Object> row : dataframe.getRows()) {
+            columnarRows.add(row);
+        }
+        Dataframe columnar = dataframe.copy();
+        columnar.setRows(columnarRows.trim());
+
+        ColumnarDataframeCodec codec = new ColumnarDataframeCodec();
+        // 列式行集合按列直接读取，编码结果与普通行集合一致
+        byte[] bytes = codec.encode(columnar);
+        assertArrayEquals(codec.encode(dataframe), bytes);
+        assertFrameEquals(dataframe, codec.decode(bytes));
+
+        columnar.setRows(new ColumnarRows(3));
+        dataframe.setRows(new ArrayList<>());
+        assertArrayEquals(codec.encode(dataframe), codec.encode(columnar));
+    }
+
+    @Test
+    public void testNullRows() throws IOException {
+        Dataframe dataframe = new Dataframe("empty");
+        ColumnarDataframeCodec codec = new ColumnarDataframeCodec();
+        Dataframe decoded = codec.decode(codec.encode(dataframe));
+        assertEquals("empty", decoded.getId());
+        assertNull(decoded.getRows());
+    }
+
+    @Test
+    public void testRejectUnknownFormat() {
+        ColumnarDataframeCodec codec = new ColumnarDataframeCodec();
+        assertFalse(codec.accept(null));
+        assertFalse(codec.accept(new byte[]{1, 2, 3}));
+        assertThrows(IOException.class, () -> codec.decode(new byte[]{1, 2, 3, 4, 5, 6, 7}));
+    }
+
+    @Test
+    public void testRejectUnknownVersionAndCompression() throws IOException {
+        ColumnarDataframeCodec codec = new ColumnarDataframeCodec();
+        byte[] bytes = codec.encode(createDataframe());
+
+        byte[] version = bytes.clone();
+        version[4] = 99;
+        assertThrows(IOException.class, () -> codec.decode(version));
+
+        byte[] compression = bytes.clone();
+        compression[5] = 99;
+        assertThrows(IOException.class, () -> codec.decode(compression));
+        assertThrows(IOException.class, () -> codec.decode(ByteBuffer.wrap(compression)));
+    }
+
+    private Dataframe createDataframe() {
+        Dataframe dataframe = new Dataframe("df-1");
+        dataframe.setName("test");
+        dataframe.setVizType("DATAVIEW");
+        dataframe.setVizId("view-1");
+        dataframe.setScript("select * from t");
+        dataframe.setPageInfo(PageInfo.builder().pageNo(2).pageSize(100).total(1000).countTotal(true).build());
+        dataframe.setColumns(Arrays.asList(
+                Column.of(ValueType.NUMERIC, "id"),
+                Column.of(ValueType.STRING, "t", "name"),
+                Column.of(ValueType.STRING, "city"),
+                Column.of(ValueType.NUMERIC, "price"),
+                Column.of(ValueType.NUMERIC, "amount"),
+                Column.of(ValueType.DATE, "created"),
+                Column.of(ValueType.DATE, "updated"),
+                Column.of(ValueType.BOOLEAN, "enabled"),
+                Column.of(ValueType.STRING, "mixed"),
+                Column.of(ValueType.STRING, "empty")));
+
+        List<List<Object>> rows = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            Timestamp timestamp = new Timestamp(1_600_000_000_000L + i * 1000L);
+            timestamp.setNanos(i * 1000 + 7);
+            rows.add(Arrays.asList(
+                    (long) i,
+                    i % 7 == 0 ? null : "name-" + i,
+                    "city-" + (i % 3),
+                    i * 0.5D,
+                    new BigDecimal("12345678901234567890.1234").add(BigDecimal.valueOf(i)),
+                    timestamp,
+                    new Date(1_600_000_000_000L + i),
+                    i % 2 == 0,
+                    i % 2 == 0 ? (Object) (long) i : "v" + i,
+                    null));
+        }
+        dataframe.setRows(rows);
+        return dataframe;
+    }
+
+    private void assertFrameEquals(Dataframe expected, Dataframe actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(expected.getVizType(), actual.getVizType());
+        assertEquals(expected.getVizId(), actual.getVizId());
+        assertEquals(expected.getScript(), actual.getScript());
+        assertEquals(expected.getPageInfo(), actual.getPageInfo());
+        assertEquals(expected.getColumns(), actual.getColumns());
+        assertEquals(expected.getRows().size(), actual.getRows().size());
+        for (int i = 0; i < expected.getRows().size(); i++) {
+            assertEquals(expected.getRows().get(i), actual.getRows().get(i), "row " + i);
+        }
+    }
+
+}
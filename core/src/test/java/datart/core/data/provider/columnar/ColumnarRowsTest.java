@@ -0,0 +1,160 @@
+/*
+ * Datart
+ * <p>
+ * Copyright 2021
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package datart.core.data.provider.columnar;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ColumnarRowsTest {
+
+    @Test
+    public void testVectorOfValueType() {
+        assertTrue(ColumnVector.of(1) instanceof LongVector);
+        assertTrue(ColumnVector.of(1L) instanceof LongVector);
+        assertTrue(ColumnVector.of(1.5D) instanceof DoubleVector);
+        assertTrue(ColumnVector.of(1.5F) instanceof DoubleVector);
+        assertTrue(ColumnVector.of("a") instanceof StringVector);
+        assertTrue(ColumnVector.of(true) instanceof BooleanVector);
+        assertTrue(ColumnVector.of(new Date()) instanceof DateVector);
+        assertTrue(ColumnVector.of(new BigDecimal("1.10")) instanceof ObjectVector);
+        assertTrue(ColumnVector.of(BigInteger.TEN) instanceof ObjectVector);
+    }
+
+    @Test
+    public void testNumberTypesPreserved() {
+        ColumnarRows rows = new ColumnarRows(6);
+        rows.addRow(1, 2L, (short) 3, (byte) 4, 1.5D, 2.5F);
+        rows.addRow(null, Long.MAX_VALUE, null, null, null, null);
+        assertEquals(Arrays.asList(1, 2L, (short) 3, (byte) 4, 1.5D, 2.5F), rows.get(0));
+        assertEquals(Integer.class, rows.getValue(0, 0).getClass());
+        assertEquals(Short.class, rows.getValue(0, 2).getClass());
+        assertEquals(Byte.class, rows.getValue(0, 3).getClass());
+        assertEquals(Float.class, rows.getValue(0, 5).getClass());
+        assertTrue(rows.getVector(0) instanceof LongVector);
+        assertTrue(rows.getVector(5) instanceof DoubleVector);
+        assertNull(rows.getValue(1, 0));
+        assertEquals(Long.MAX_VALUE, rows.getValue(1, 1));
+    }
+
+    @Test
+    public void testMixedNumberTypesPromoteToObject() {
+        long large = (1L << 53) + 1;
+        ColumnarRows rows = new ColumnarRows(1);
+        rows.addRow(1);
+        rows.addRow(large);
+        rows.addRow(0.5D);
+        assertTrue(rows.getVector(0) instanceof ObjectVector);
+        assertEquals(1, rows.getValue(0, 0));
+        assertEquals(large, rows.getValue(1, 0));
+        assertEquals(0.5D, rows.getValue(2, 0));
+    }
+
+    @Test
+    public void testDoubleColumnRejectsLong() {
+        ColumnarRows rows = new ColumnarRows(1);
+        rows.addRow(1.5D);
+        rows.addRow(3L);
+        assertTrue(rows.getVector(0) instanceof ObjectVector);
+        assertEquals(1.5D, rows.getValue(0, 0));
+        assertEquals(3L, rows.getValue(1, 0));
+    }
+
+    @Test
+    public void testBigDecimalKeepsScale() {
+        ColumnarRows rows = new ColumnarRows(1);
+        rows.addRow(new BigDecimal("0.10"));
+        rows.addRow(new BigDecimal("12345678901234567890.123456789"));
+        assertEquals(new BigDecimal("0.10"), rows.getValue(0, 0));
+        assertEquals(new BigDecimal("12345678901234567890.123456789"), rows.getValue(1, 0));
+    }
+
+    @Test
+    public void testMixedTypePromoteToObject() {
+        ColumnarRows rows = new ColumnarRows(1);
+        rows.addRow(1L);
+        rows.addRow("a");
+        assertTrue(rows.getVector(0) instanceof ObjectVector);
+        assertEquals(1L, rows.getValue(0, 0));
+        assertEquals("a", rows.getValue(1, 0));
+    }
+
+    @Test
+    public void testDateTypesPreserved() {
+        Timestamp timestamp = new Timestamp(1_600_000_000_123L);
+        timestamp.setNanos(123_456_789);
+        Time time = new Time(3_600_000L);
+        java.sql.Date date = new java.sql.Date(1_600_000_000_000L);
+
+        ColumnarRows rows = new ColumnarRows(3);
+        rows.addRow(timestamp, time, date);
+        assertEquals(Timestamp.class, rows.getValue(0, 0).getClass());
+        assertEquals(123_456_789, ((Timestamp) rows.getValue(0, 0)).getNanos());
+        assertEquals(timestamp, rows.getValue(0, 0));
+        assertEquals(time, rows.getValue(0, 1));
+        assertEquals(java.sql.Date.class, rows.getValue(0, 2).getClass());
+        assertEquals(date, rows.getValue(0, 2));
+    }
+
+    @Test
+    public void testDifferentDateTypesPromoteToObject() {
+        Timestamp timestamp = new Timestamp(1_600_000_000_000L);
+        timestamp.setNanos(1);
+        Date date = new Date(1_600_000_000_000L);
+        ColumnarRows rows = new ColumnarRows(1);
+        rows.addRow(date);
+        rows.addRow(timestamp);
+        assertTrue(rows.getVector(0) instanceof ObjectVector);
+        assertEquals(Date.class, rows.getValue(0, 0).getClass());
+        assertEquals(timestamp, rows.getValue(1, 0));
+    }
+
+    @Test
+    public void testSetValuePromotes() {
+        ColumnarRows rows = new ColumnarRows(2);
+        rows.addRow(1, "a");
+        rows.addRow(2, null);
+        rows.get(0).set(0, "x");
+        rows.get(1).set(1, "b");
+        assertEquals(Arrays.asList("x", "a"), rows.get(0));
+        assertEquals(Arrays.asList(2, "b"), rows.get(1));
+    }
+
+    @Test
+    public void testNullColumnAndCopy() {
+        ColumnarRows rows = new ColumnarRows(2);
+        rows.addRow(1, null);
+        rows.addRow(2, null);
+        assertNull(rows.getValue(1, 1));
+
+        ColumnarRows copied = rows.copy();
+        rows.get(0).set(0, 10);
+        assertEquals(2, copied.size());
+        assertEquals(1, copied.getValue(0, 0));
+        assertNull(copied.getValue(0, 1));
+    }
+
+}
@@ -120,7 +120,13 @@ public abstract class DefaultDataProvider extends DataProvider {
 
         Dataframes dataframes = loadDataFromSource(config);
 
-        boolean persistent = isCacheEnabled(config);
+        return executeInLocalDB(config, queryScript, executeParam, dataframes, isCacheEnabled(config));
+    }
+
+    /**
+     * 将加载的数据注册到本地库后执行查询，persistent 为 false 时数据只在本次查询中使用
+     */
+    protected Dataframe executeInLocalDB(DataProviderSource config, QueryScript queryScript, ExecuteParam executeParam, Dataframes dataframes, boolean persistent) throws Exception {
         Date expire = null;
         if (persistent) {
             expire = getExpireTime(config);
@@ -0,0 +1,107 @@
+/*
+ * Datart
+ * <p>
+ * Copyright 2021
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package datart.data.provider;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import datart.core.base.exception.BaseException;
+import datart.core.common.Application;
+import org.apache.commons.lang3.StringUtils;
+
+import java.sql.SQLException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 数据源元数据（库、表、列）缓存。元数据接口每次调用都要获取连接并执行 DatabaseMetaData 查询，表较多时开销很大。
+ * 数据源配置更新或同步元数据时按数据源整体清除。
+ */
+public class MetadataCache {
+
+    private static final char SEPARATOR = '\u0000';
+
+    private static final long TTL_MINUTES = Application.getLongProperty("datart.metadata-cache.ttl-minutes", 30);
+
+    private static final Cache<String, Object> CACHE = CacheBuilder.newBuilder()
+            .maximumSize(Application.getLongProperty("datart.metadata-cache.max-size", 20000))
+            .expireAfterWrite(Math.max(TTL_MINUTES, 1), TimeUnit.MINUTES)
+            .recordStats()
+            .build();
+
+    /**
+     * 读取缓存，不存在时调用 loader 加载。path 依次为库名、表名，加载结果为 null 时不缓存
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T get(String sourceId, Callable<T> loader, String... path) throws SQLException {
+        if (!isEnabled(sourceId)) {
+            return load(loader);
+        }
+        String key = key(sourceId, path);
+        Object value = CACHE.getIfPresent(key);
+        if (value == null) {
+            value = load(loader);
+            if (value != null) {
+                CACHE.put(key, value);
+            }
+        }
+        return (T) value;
+    }
+
+    public static void put(String sourceId, Object value, String... path) {
+        if (isEnabled(sourceId) && value != null) {
+            CACHE.put(key(sourceId, path), value);
+        }
+    }
+
+    public static void invalidate(String sourceId) {
+        if (StringUtils.isEmpty(sourceId)) {
+            return;
+        }
+        String prefix = sourceId + SEPARATOR;
+        CACHE.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    public static CacheStats getStats() {
+        return CACHE.stats();
+    }
+
+    private static <T> T load(Callable<T> loader) throws SQLException {
+        try {
+            return loader.call();
+        } catch (SQLException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new BaseException(e);
+        }
+    }
+
+    private static boolean isEnabled(String sourceId) {
+        return TTL_MINUTES > 0 && StringUtils.isNotEmpty(sourceId);
+    }
+
+    private static String key(String sourceId, String... path) {
+        StringBuilder key = new StringBuilder(sourceId).append(SEPARATOR);
+        for (String name : path) {
+            key.append(name).append(SEPARATOR);
+        }
+        return key.toString();
+    }
+
+}
@@ -101,17 +101,43 @@ public class ProviderManager extends DataProviderExecuteOptimizer implements Dat
 
     @Override
     public Set<String> readAllDatabases(DataProviderSource source) throws SQLException {
-        return getDataProviderService(source.getType()).readAllDatabases(source);
+        Set<String> databases = MetadataCache.get(source.getSourceId()
+                , () -> getDataProviderService(source.getType()).readAllDatabases(source));
+        return databases == null ? null : new HashSet<>(databases);
     }
 
     @Override
     public Set<String> readTables(DataProviderSource source, String database) throws SQLException {
-        return getDataProviderService(source.getType()).readTables(source, database);
+        Set<String> tables = MetadataCache.get(source.getSourceId()
+                , () -> getDataProviderService(source.getType()).readTables(source, database)
+                , database);
+        return tables == null ? null : new HashSet<>(tables);
     }
 
     @Override
     public Set<Column> readTableColumns(DataProviderSource source, String database, String table) throws SQLException {
-        return getDataProviderService(source.getType()).readTableColumns(source, database, table);
+        Set<Column> columns = MetadataCache.get(source.getSourceId()
+                , () -> getDataProviderService(source.getType()).readTableColumns(source, database, table)
+                , database, table);
+        return columns == null ? null : new HashSet<>(columns);
+    }
+
+    @Override
+    public Map<String, Set<Column>> readAllTableColumns(DataProviderSource source, String database) throws SQLException {
+        Map<String, Set<Column>> tableColumns = getDataProviderService(source.getType()).readAllTableColumns(source, database);
+        if (tableColumns != null) {
+            tableColumns.forEach((table, columns) -> {
+                if (columns != null) {
+                    MetadataCache.put(source.getSourceId(), new HashSet<>(columns), database, table);
+                }
+            });
+        }
+        return tableColumns;
+    }
+
+    @Override
+    public void evictMetadata(String sourceId) {
+        MetadataCache.invalidate(sourceId);
     }
 
     @Override
@@ -152,6 +178,31 @@ public class ProviderManager extends DataProviderExecuteOptimizer implements Dat
 
     }
 
+    /**
+     * 以游标方式执行查询，不经过缓存和并发优化。注册了后置处理器时，每批数据都会经过后置处理器
+     */
+    @Override
+    public DataCursor executeCursor(DataProviderSource source, QueryScript queryScript, ExecuteParam param, int fetchSize) throws Exception {
+        ProcessorResponse preProcessorRes = this.preProcessorQuery(source, queryScript, param);
+        if (!preProcessorRes.isSuccess()) {
+            return new DataframeCursor(Dataframe.empty(), fetchSize);
+        }
+        DataCursor cursor = getDataProviderService(source.getType()).executeCursor(source, queryScript, param, fetchSize);
+        List<Integer> excludeIndex = getExcludeIndex(cursor.getColumns(), param.getIncludeColumns());
+        if (!excludeIndex.isEmpty()) {
+            cursor = new ExcludeColumnsCursor(cursor, excludeIndex);
+        }
+        if (hasPostProcessor()) {
+            cursor = new PostProcessCursor(cursor, source, queryScript, param);
+        }
+        return cursor;
+    }
+
+    private boolean hasPostProcessor() {
+        return !CollectionUtils.isEmpty(extendProcessors)
+                && extendProcessors.stream().anyMatch(processor -> processor instanceof DataProviderPostProcessor);
+    }
+
     private ProcessorResponse preProcessorQuery(DataProviderSource source, QueryScript queryScript, ExecuteParam param) {
         if (!CollectionUtils.isEmpty(extendProcessors)) {
             for (ExtendProcessor processor : extendProcessors) {
@@ -195,20 +246,33 @@ public class ProviderManager extends DataProviderExecuteOptimizer implements Dat
     public void updateSource(DataProviderSource source) {
         DataProvider providerService = getDataProviderService(source.getType());
         providerService.resetSource(source);
+        MetadataCache.invalidate(source.getSourceId());
     }
 
     private void excludeColumns(Dataframe data, Set<SelectColumn> include) {
-        if (data == null
-                || CollectionUtils.isEmpty(data.getColumns())
-                || include == null
-                || include.size() == 0
-                || include.stream().anyMatch(selectColumn -> selectColumn.getColumnKey().contains("*"))) {
+        if (data == null) {
             return;
         }
+        List<Integer> excludeIndex = getExcludeIndex(data.getColumns(), include);
+        if (excludeIndex.size() > 0) {
+            data.getRows().parallelStream().forEach(row -> {
+                for (Integer index : excludeIndex) {
+                    row.set(index, null);
+                }
+            });
+        }
+    }
 
+    private List<Integer> getExcludeIndex(List<Column> columns, Set<SelectColumn> include) {
         List<Integer> excludeIndex = new LinkedList<>();
-        for (int i = 0; i < data.getColumns().size(); i++) {
-            Column column = data.getColumns().get(i);
+        if (CollectionUtils.isEmpty(columns)
+                || include == null
+                || include.size() == 0
+                || include.stream().anyMatch(selectColumn -> selectColumn.getColumnKey().contains("*"))) {
+            return excludeIndex;
+        }
+        for (int i = 0; i < columns.size(); i++) {
+            Column column = columns.get(i);
             if (include
                     .stream()
                     .noneMatch(selectColumn ->
@@ -218,16 +282,9 @@ public class ProviderManager extends DataProviderExecuteOptimizer implements Dat
                 excludeIndex.add(i);
             }
         }
-        if (excludeIndex.size() > 0) {
-            data.getRows().parallelStream().forEach(row -> {
-                for (Integer index : excludeIndex) {
-                    row.set(index, null);
-                }
-            });
-        }
+        return excludeIndex;
     }
 
-
     private DataProvider getDataProviderService(String type) {
         DataProvider dataProvider = getDataProviders().get(type);
         if (dataProvider == null) {
@@ -244,4 +301,102 @@ public class ProviderManager extends DataProviderExecuteOptimizer implements Dat
         return dataframe;
     }
 
+    private static class ExcludeColumnsCursor implements DataCursor {
+
+        private final DataCursor cursor;
+
+        private final List<Integer> excludeIndex;
+
+        private ExcludeColumnsCursor(DataCursor cursor, List<Integer> excludeIndex) {
+            this.cursor = cursor;
+            this.excludeIndex = excludeIndex;
+        }
+
+        @Override
+        public List<Column> getColumns() {
+            return cursor.getColumns();
+        }
+
+        @Override
+        public List<List<Object>> nextBatch() throws Exception {
+            List<List<Object>> rows = cursor.nextBatch();
+            for (List<Object> row : rows) {
+                for (Integer index : excludeIndex) {
+                    row.set(index, null);
+                }
+            }
+            return rows;
+        }
+
+        @Override
+        public long getRowCount() {
+            return cursor.getRowCount();
+        }
+
+        @Override
+        public void close() throws IOException {
+            cursor.close();
+        }
+    }
+
+    /**
+     * 每批数据包装为 Dataframe 后执行后置处理器，处理失败时与 execute 一致，不再返回数据
+     */
+    private class PostProcessCursor implements DataCursor {
+
+        private final DataCursor cursor;
+
+        private final DataProviderSource source;
+
+        private final QueryScript queryScript;
+
+        private final ExecuteParam param;
+
+        private boolean rejected;
+
+        private PostProcessCursor(DataCursor cursor, DataProviderSource source, QueryScript queryScript, ExecuteParam param) {
+            this.cursor = cursor;
+            this.source = source;
+            this.queryScript = queryScript;
+            this.param = param;
+        }
+
+        @Override
+        public List<Column> getColumns() {
+            return cursor.getColumns();
+        }
+
+        @Override
+        public List<List<Object>> nextBatch() throws Exception {
+            if (rejected) {
+                return Collections.emptyList();
+            }
+            List<List<Object>> rows;
+            while (!(rows = cursor.nextBatch()).isEmpty()) {
+                Dataframe dataframe = new Dataframe();
+                dataframe.setColumns(cursor.getColumns());
+                dataframe.setRows(rows);
+                if (!postProcessorQuery(dataframe, source, queryScript, param).isSuccess()) {
+                    rejected = true;
+                    return Collections.emptyList();
+                }
+                // 空列表表示游标结束，整批被过滤时继续读取下一批
+                if (!CollectionUtils.isEmpty(dataframe.getRows())) {
+                    return dataframe.getRows();
+                }
+            }
+            return rows;
+        }
+
+        @Override
+        public long getRowCount() {
+            return cursor.getRowCount();
+        }
+
+        @Override
+        public void close() throws IOException {
+            cursor.close();
+        }
+    }
+
 }
@@ -0,0 +1,134 @@
+/*
+ * Datart
+ * <p>
+ * Copyright 2021
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package datart.data.provider.calcite;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import datart.core.base.exception.BaseException;
+import datart.core.data.provider.QueryScript;
+import datart.core.data.provider.ScriptVariable;
+import org.apache.calcite.sql.SqlDialect;
+import org.apache.calcite.sql.SqlNode;
+import org.apache.calcite.sql.parser.SqlParseException;
+import org.apache.commons.collections4.CollectionUtils;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 脚本处理结果与SQL解析结果的缓存。同一视图重复渲染时（查询键、数据查询、总数查询）复用已解析的语法树，
+ * 避免重复执行 Freemarker 和 Calcite 解析。
+ * <p>
+ * 缓存的 SqlNode 在多个查询之间共享，使用方不能修改。
+ */
+public class SqlParseCache {
+
+    private static final int MAX_ENTRIES = 2048;
+
+    private static final Cache<String, QueryScriptProcessResult> PROCESS_RESULTS = CacheBuilder.newBuilder()
+            .maximumSize(MAX_ENTRIES)
+            .expireAfterAccess(30, TimeUnit.MINUTES)
+            .recordStats()
+            .build();
+
+    private static final Cache<String, Object> PARSED_SQL = CacheBuilder.newBuilder()
+            .maximumSize(MAX_ENTRIES)
+            .expireAfterAccess(30, TimeUnit.MINUTES)
+            .recordStats()
+            .build();
+
+    public static QueryScriptProcessResult getProcessResult(QueryScript queryScript, SqlDialect sqlDialect, boolean enableSpecialSQL, Callable<QueryScriptProcessResult> loader) {
+        String key = dialectKey(sqlDialect) + ":" + enableSpecialSQL + ":" + scriptKey(queryScript);
+        QueryScriptProcessResult result;
+        try {
+            result = PROCESS_RESULTS.get(key, loader);
+        } catch (UncheckedExecutionException e) {
+            // 加载时抛出的业务异常原样抛出
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        } catch (ExecutionException e) {
+            throw new BaseException(e.getCause());
+        }
+        // 返回副本，避免调用方修改缓存中的对象
+        QueryScriptProcessResult copy = new QueryScriptProcessResult();
+        copy.setFrom(result.getFrom());
+        copy.setTablePrefix(result.getTablePrefix());
+        copy.setWithDefaultPrefix(result.isWithDefaultPrefix());
+        return copy;
+    }
+
+    /**
+     * 解析查询语句，解析失败的结果同样会被缓存
+     */
+    public static SqlNode parseQuery(String sql, SqlDialect sqlDialect) throws SqlParseException {
+        String key = dialectKey(sqlDialect) + ":" + DigestUtils.md5DigestAsHex(sql.getBytes(StandardCharsets.UTF_8));
+        Object parsed;
+        try {
+            parsed = PARSED_SQL.get(key, () -> {
+                try {
+                    return SqlParserUtils.createParser(sql, sqlDialect).parseQuery();
+                } catch (SqlParseException e) {
+                    return e;
+                }
+            });
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            throw new BaseException(e.getCause());
+        }
+        if (parsed instanceof SqlParseException) {
+            throw (SqlParseException) parsed;
+        }
+        return (SqlNode) parsed;
+    }
+
+    public static CacheStats getProcessResultStats() {
+        return PROCESS_RESULTS.stats();
+    }
+
+    public static CacheStats getParsedSqlStats() {
+        return PARSED_SQL.stats();
+    }
+
+    private static String dialectKey(SqlDialect sqlDialect) {
+        return sqlDialect.getClass().getName()
+                + ":" + sqlDialect.quoteIdentifier("")
+                + ":" + sqlDialect.getUnquotedCasing()
+                + ":" + sqlDialect.getQuotedCasing();
+    }
+
+    /**
+     * 脚本处理结果由脚本内容和变量取值共同决定
+     */
+    private static String scriptKey(QueryScript queryScript) {
+        StringBuilder key = new StringBuilder(String.valueOf(queryScript.getScript()));
+        if (CollectionUtils.isNotEmpty(queryScript.getVariables())) {
+            for (ScriptVariable variable : queryScript.getVariables()) {
+                key.append('\u0001')
+                        .append(variable.getName())
+                        .append('\u0002')
+                        .append(variable.getValueType())
+                        .append('\u0002')
+                        .append(variable.getValues());
+            }
+        }
+        return DigestUtils.md5DigestAsHex(key.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
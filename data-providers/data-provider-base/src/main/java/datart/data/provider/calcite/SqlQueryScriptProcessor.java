@@ -53,6 +53,10 @@ public class SqlQueryScriptProcessor implements QueryScriptProcessor {
 
     @Override
     public QueryScriptProcessResult process(QueryScript queryScript) {
+        return SqlParseCache.getProcessResult(queryScript, sqlDialect, enableSpecialSQL, () -> doProcess(queryScript));
+    }
+
+    private QueryScriptProcessResult doProcess(QueryScript queryScript) {
 
         String script;
 
@@ -109,7 +113,7 @@ public class SqlQueryScriptProcessor implements QueryScriptProcessor {
         for (String sql : sqls) {
             SqlNode sqlNode;
             try {
-                sqlNode = SqlParserUtils.createParser(sql, sqlDialect).parseQuery();
+                sqlNode = SqlParseCache.parseQuery(sql, sqlDialect);
             } catch (Exception e) {
                 if (SqlValidateUtils.validateQuery(sql, enableSpecialSQL)) {
                     if (selectSql != null) {
@@ -26,6 +26,30 @@ import java.util.Properties;
 @Data
 public class JdbcProperties {
 
+    /**
+     * 游标方式读取数据时，默认每批次读取的行数
+     */
+    public static final int DEFAULT_FETCH_SIZE = 5000;
+
+    /**
+     * 总记录数缓存默认有效期（秒）
+     */
+    public static final int DEFAULT_COUNT_CACHE_TIMEOUT = 300;
+
+    public static final int DEFAULT_MAX_ACTIVE = 10;
+
+    public static final int DEFAULT_MIN_IDLE = 0;
+
+    /**
+     * 空闲连接默认保留时间（秒）
+     */
+    public static final int DEFAULT_IDLE_TIMEOUT = 600;
+
+    /**
+     * 获取连接时默认最大等待时间（毫秒）
+     */
+    public static final int DEFAULT_MAX_WAIT = 5000;
+
     @NotBlank
     private String dbType;
     @NotBlank
@@ -41,6 +65,47 @@ public class JdbcProperties {
 
     private boolean enableSpecialSql;
 
+    private int fetchSize = DEFAULT_FETCH_SIZE;
+
+    /**
+     * 总记录数获取策略：EXACT-精确计数，APPROXIMATE-执行计划预估，CACHED-缓存精确计数
+     */
+    private String countStrategy = "EXACT";
+
+    private int countCacheTimeout = DEFAULT_COUNT_CACHE_TIMEOUT;
+
+    /**
+     * 连接池最大连接数
+     */
+    private int maxActive = DEFAULT_MAX_ACTIVE;
+
+    /**
+     * 连接池保持的最小空闲连接数
+     */
+    private int minIdle = DEFAULT_MIN_IDLE;
+
+    /**
+     * 空闲连接超过该时间（秒）后被回收，直到剩余 minIdle 个
+     */
+    private int idleTimeout = DEFAULT_IDLE_TIMEOUT;
+
+    private int maxWait = DEFAULT_MAX_WAIT;
+
+    /**
+     * 校验连接是否可用的SQL，为空时使用驱动的 isValid 方法
+     */
+    private String validationQuery;
+
+    /**
+     * 查询默认超时时间（秒），0 表示不限制
+     */
+    private int queryTimeout;
+
+    /**
+     * 查询允许的最大超时时间（秒），请求指定的超时不能超过该值，0 表示不限制
+     */
+    private int maxQueryTimeout;
+
     @Override
     public String toString() {
         return "JdbcConnectionProperties{" +
@@ -20,7 +20,7 @@ package datart.data.provider.jdbc;
 
 import datart.core.base.consts.Const;
 import datart.core.data.provider.ScriptVariable;
-import datart.data.provider.calcite.SqlParserUtils;
+import datart.data.provider.calcite.SqlParseCache;
 import datart.data.provider.calcite.SqlVariableVisitor;
 import datart.data.provider.script.VariablePlaceholder;
 import lombok.extern.slf4j.Slf4j;
@@ -41,7 +41,7 @@ public class SqlParserVariableResolver {
         if (StringUtils.isBlank(srcSql) || CollectionUtils.isEmpty(variableMap)) {
             return Collections.emptyList();
         }
-        SqlNode sqlNode = SqlParserUtils.createParser(srcSql, sqlDialect).parseQuery();
+        SqlNode sqlNode = SqlParseCache.parseQuery(srcSql, sqlDialect);
         SqlVariableVisitor visitor = new SqlVariableVisitor(sqlDialect, srcSql, Const.DEFAULT_VARIABLE_QUOTE, variableMap);
         sqlNode.accept(visitor);
         return visitor.getVariablePlaceholders();
@@ -24,22 +24,22 @@ import datart.core.common.Application;
 import datart.core.common.UUIDGenerator;
 import datart.core.data.provider.*;
 import datart.data.provider.calcite.dialect.H2Dialect;
-import datart.data.provider.jdbc.DataTypeUtils;
 import datart.data.provider.jdbc.ResultSetMapper;
 import datart.data.provider.jdbc.SqlScriptRender;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.calcite.sql.SqlDialect;
 import org.apache.commons.collections4.CollectionUtils;
-import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.time.DateFormatUtils;
-import org.h2.jdbc.JdbcSQLNonTransientException;
+import org.h2.jdbcx.JdbcConnectionPool;
 import org.h2.tools.DeleteDbFiles;
-import org.h2.tools.SimpleResultSet;
 
 import java.sql.*;
 import java.util.Date;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 @Slf4j
 public class LocalDB {
@@ -53,7 +53,7 @@ public class LocalDB {
 
     private static final String SELECT_START_SQL = "SELECT * FROM `%s` ";
 
-    private static final String CREATE_TEMP_TABLE = "CREATE TABLE IF NOT EXISTS `%s` AS (SELECT * FROM FUNCTION_TABLE('%s'))";
+    private static final String COUNT_SQL = "SELECT COUNT(*) FROM (%s) V_T";
 
     private static final String CACHE_EXPIRE_TABLE_SQL = "CREATE TABLE IF NOT EXISTS `cache_expire` ( `source_id` VARCHAR(128),`expire_time` DATETIME )";
 
@@ -61,7 +61,18 @@ public class LocalDB {
 
     private static final String DELETE_EXPIRE_SQL = "DELETE FROM `cache_expire` WHERE `source_id`='%s' ";
 
-    private static final Map<String, Dataframe> TEMP_RS_CACHE = new ConcurrentHashMap<>();
+    private static final String SELECT_EXPIRED_SQL = "SELECT `source_id` FROM `cache_expire` WHERE `expire_time` <= LOCALTIMESTAMP";
+
+    // 过期缓存的清理间隔
+    private static final long SWEEP_INTERVAL_MILLIS = 60_000;
+
+    private static volatile long lastSweep;
+
+    private static final String DEFAULT_MAX_CONNECTIONS = "16";
+
+    private static final Map<String, JdbcConnectionPool> POOLS = new ConcurrentHashMap<>();
+
+    private static final Map<String, ReadWriteLock> LOCKS = new ConcurrentHashMap<>();
 
     static {
         init();
@@ -79,36 +90,6 @@ public class LocalDB {
         }
     }
 
-    /**
-     * 函数表对应函数，直接从Dataframe 返回一个 ResultSet.
-     *
-     * @param conn   ResultSet 对应连接
-     * @param dataId ResultSet 对应 Dataframe
-     */
-    public static ResultSet dataframeTable(Connection conn, String dataId) throws SQLException {
-        Dataframe dataframe = TEMP_RS_CACHE.get(dataId);
-        if (dataframe == null) {
-            Exceptions.msg("The dataframe " + dataId + " does not exist");
-        }
-        SimpleResultSet rs = new SimpleResultSet();
-        if (!CollectionUtils.isEmpty(dataframe.getColumns())) {
-            // add columns
-            for (Column column : dataframe.getColumns()) {
-                rs.addColumn(column.columnName(), DataTypeUtils.valueType2SqlTypes(column.getType()), -1, -1);
-            }
-        }
-        if (conn.getMetaData().getURL().equals("jdbc:columnlist:connection")) {
-            return rs;
-        }
-        // add rows
-        if (!CollectionUtils.isEmpty(dataframe.getRows())) {
-            for (List<Object> row : dataframe.getRows()) {
-                rs.addRow(row.toArray());
-            }
-        }
-        return rs;
-    }
-
     /**
      * 把数据注册注册为临时表，用于SQL查询
      *
@@ -119,42 +100,15 @@ public class LocalDB {
             Exceptions.msg("Empty data cannot be registered as a temporary table");
         }
 
-        // 处理脏数据
-        dataframe.getRows().parallelStream().forEach(row -> {
-            for (int i = 0; i < row.size(); i++) {
-                Object val = row.get(i);
-                if (val instanceof String && StringUtils.isBlank(val.toString())) {
-                    row.set(i, null);
-                }
+        List<Column> columns = CollectionUtils.isEmpty(dataframe.getColumns()) ? Collections.emptyList() : dataframe.getColumns();
+        List<List<Object>> rows = CollectionUtils.isEmpty(dataframe.getRows()) ? Collections.emptyList() : dataframe.getRows();
+        try (TableIngester ingester = TableIngester.create(connection, dataframe.getName(), columns)) {
+            // 表已存在时直接使用已有数据
+            if (ingester == null) {
+                return;
             }
-        });
-
-        createFunctionTableIfNotExists(connection);
-
-        TEMP_RS_CACHE.put(dataframe.getId(), dataframe);
-        // register temporary table
-        String sql = String.format(CREATE_TEMP_TABLE, dataframe.getName(), dataframe.getId());
-        try {
-            connection.prepareStatement(sql).execute();
-        } catch (JdbcSQLNonTransientException e) {
-            //忽略重复创建表导致的异常
-        }
-    }
-
-    /**
-     * 清除临时数据
-     *
-     * @param dataId data id
-     */
-    private static void unregisterData(String dataId) {
-        TEMP_RS_CACHE.remove(dataId);
-    }
-
-    private static void createFunctionTableIfNotExists(Connection connection) {
-        try {
-            Statement statement = connection.createStatement();
-            statement.execute("CREATE ALIAS FUNCTION_TABLE  FOR \"datart.data.provider.local.LocalDB.dataframeTable\"");
-        } catch (SQLException ignored) {
+            ingester.write(rows);
+            ingester.finish();
         }
     }
 
@@ -174,27 +128,63 @@ public class LocalDB {
     public static Dataframe executeLocalQuery(QueryScript queryScript, ExecuteParam executeParam, Dataframes dataframes, boolean persistent, Date expire) throws Exception {
         if (queryScript == null || (dataframes.size() == 1 && dataframes.getDataframes().get(0).getName() == null)) {
             // 直接以指定数据源为表进行查询，生成一个默认的SQL查询全部数据
-            queryScript = new QueryScript();
             if (dataframes.getDataframes().get(0).getName() == null) {
                 dataframes.getDataframes().get(0).setName("Q" + UUIDGenerator.generate());
             }
-            queryScript.setScript(String.format(SELECT_START_SQL, dataframes.getDataframes().get(0).getName()));
-            queryScript.setVariables(Collections.emptyList());
-            queryScript.setSourceId(dataframes.getKey());
-            queryScript.setScriptType(ScriptType.SQL);
+            queryScript = selectAllScript(dataframes.getDataframes().get(0).getName(), dataframes.getKey());
         }
 
-        String url = getConnectionUrl(persistent, dataframes.getKey());
-        synchronized (url.intern()) {
-            return persistent ? executeInLocalDB(queryScript, executeParam, dataframes, expire) : executeInMemDB(queryScript, executeParam, dataframes);
+        return persistent ? executeInLocalDB(queryScript, executeParam, dataframes, expire) : executeInMemDB(queryScript, executeParam, dataframes);
+    }
+
+    /**
+     * 对游标中的数据进行本地聚合：从游标按批次读取数据写入内存数据库，不在内存中保存全量结果集。
+     * 执行完成后关闭游标。
+     *
+     * @param queryScript  查询脚本
+     * @param executeParam 执行参数
+     * @param tableName    数据注册的表名
+     * @param cursor       原始数据游标
+     * @return 查询脚本+执行参数 执行后结果
+     */
+    public static Dataframe executeLocalQuery(QueryScript queryScript, ExecuteParam executeParam, String tableName, DataCursor cursor) throws Exception {
+        String dataId = "DF" + UUIDGenerator.generate();
+        if (queryScript == null || tableName == null) {
+            if (tableName == null) {
+                tableName = "Q" + UUIDGenerator.generate();
+            }
+            queryScript = selectAllScript(tableName, dataId);
         }
+        try (Connection connection = getConnection(false, dataId)) {
+            try (TableIngester ingester = TableIngester.create(connection, tableName, cursor.getColumns())) {
+                if (ingester != null) {
+                    List<List<Object>> batch;
+                    while (!(batch = cursor.nextBatch()).isEmpty()) {
+                        ingester.write(batch);
+                    }
+                    ingester.finish();
+                }
+            }
+            return execute(connection, queryScript, executeParam);
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private static QueryScript selectAllScript(String tableName, String sourceId) {
+        QueryScript queryScript = new QueryScript();
+        queryScript.setScript(String.format(SELECT_START_SQL, tableName));
+        queryScript.setVariables(Collections.emptyList());
+        queryScript.setSourceId(sourceId);
+        queryScript.setScriptType(ScriptType.SQL);
+        return queryScript;
     }
 
     /**
-     * 非持久化查询，通过函数表注册数据为临时表，执行一次后丢弃表数据。
+     * 非持久化查询，每次查询使用独立的内存数据库，执行一次后丢弃表数据，查询之间互不阻塞。
      */
     private static Dataframe executeInMemDB(QueryScript queryScript, ExecuteParam executeParam, Dataframes dataframes) throws Exception {
-        Connection connection = getConnection(false, dataframes.getKey());
+        Connection connection = getConnection(false, dataframes.getKey() + UUIDGenerator.generate());
         try {
             for (Dataframe dataframe : dataframes.getDataframes()) {
                 registerDataAsTable(dataframe, connection);
@@ -206,36 +196,36 @@ public class LocalDB {
             } catch (Exception e) {
                 log.error("connection close error ", e);
             }
-            for (Dataframe df : dataframes.getDataframes()) {
-                unregisterData(df.getId());
-            }
         }
 
     }
 
     /**
-     * 持久化查询，将数据插入到H2表中，再进行查询
+     * 持久化查询，将数据插入到H2表中，再进行查询。
+     * 写入数据时持有写锁，写入完成后降级为读锁执行查询；已写入的数据可以被多个查询并发读取。
      */
     private static Dataframe executeInLocalDB(QueryScript queryScript, ExecuteParam executeParam, Dataframes dataframes, Date expire) throws Exception {
-        try (Connection connection = getConnection(true, dataframes.getKey())) {
-            if (!dataframes.isEmpty()) {
-
+        ReadWriteLock lock = getLock(dataframes.getKey());
+        if (dataframes.isEmpty()) {
+            lock.readLock().lock();
+        } else {
+            lock.writeLock().lock();
+            try (Connection connection = getConnection(true, dataframes.getKey())) {
                 for (Dataframe dataframe : dataframes.getDataframes()) {
                     registerDataAsTable(dataframe, connection);
                 }
-
                 if (expire != null) {
                     setCacheExpire(dataframes.getKey(), expire);
                 }
-
+                lock.readLock().lock();
+            } finally {
+                lock.writeLock().unlock();
             }
+        }
+        try (Connection connection = getConnection(true, dataframes.getKey())) {
             return execute(connection, queryScript, executeParam);
         } finally {
-            if (!dataframes.isEmpty()) {
-                for (Dataframe dataframe : dataframes.getDataframes()) {
-                    unregisterData(dataframe.getId());
-                }
-            }
+            lock.readLock().unlock();
         }
     }
 
@@ -245,6 +235,7 @@ public class LocalDB {
      * @param cacheKey source 唯一标识
      */
     public static boolean checkCacheExpired(String cacheKey) throws SQLException {
+        sweepExpiredCaches();
         try (Connection connection = getConnection(true, null)) {
             Statement statement = connection.createStatement();
             ResultSet resultSet = statement.executeQuery("SELECT * FROM `cache_expire` WHERE `source_id`='" + cacheKey + "'");
@@ -263,7 +254,7 @@ public class LocalDB {
         try (Connection connection = getConnection(true, null)) {
             Statement statement = connection.createStatement();
             // delete first
-            statement.execute(String.format(DELETE_EXPIRE_SQL, statement));
+            statement.execute(String.format(DELETE_EXPIRE_SQL, sourceId));
             // insert expire
             String sql = String.format(SET_EXPIRE_SQL, sourceId, DateFormatUtils.format(date, Const.DEFAULT_DATE_FORMAT), Const.DEFAULT_DATE_FORMAT);
             statement.execute(sql);
@@ -271,9 +262,65 @@ public class LocalDB {
     }
 
     public static void clearCache(String cacheKey) throws SQLException {
+        Lock lock = getLock(cacheKey).writeLock();
+        lock.lock();
+        try {
+            doClearCache(cacheKey);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static void doClearCache(String cacheKey) throws SQLException {
         try (Connection connection = getConnection(true, null)) {
             connection.createStatement().execute(String.format(DELETE_EXPIRE_SQL, cacheKey));
-            DeleteDbFiles.execute(getDbFileBasePath(), cacheKey, false);
+        }
+        // 关闭连接池中的连接后数据库才会关闭，之后才能删除数据库文件
+        JdbcConnectionPool pool = POOLS.remove(getConnectionUrl(true, cacheKey));
+        if (pool != null) {
+            pool.dispose();
+        }
+        DeleteDbFiles.execute(getDbFileBasePath(), cacheKey, false);
+    }
+
+    /**
+     * 清理所有已过期的缓存并释放其连接池。缓存标识变化后（如 HTTP 请求参数修改）旧的标识不会再被检查，
+     * 需要在此统一清理。正在被查询使用的缓存留到下次清理。
+     */
+    private static void sweepExpiredCaches() {
+        long now = System.currentTimeMillis();
+        if (now - lastSweep < SWEEP_INTERVAL_MILLIS) {
+            return;
+        }
+        synchronized (LocalDB.class) {
+            if (now - lastSweep < SWEEP_INTERVAL_MILLIS) {
+                return;
+            }
+            lastSweep = now;
+        }
+        List<String> expired = new ArrayList<>();
+        try (Connection connection = getConnection(true, null);
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(SELECT_EXPIRED_SQL)) {
+            while (resultSet.next()) {
+                expired.add(resultSet.getString(1));
+            }
+        } catch (SQLException e) {
+            log.warn("Local cache sweep error", e);
+            return;
+        }
+        for (String cacheKey : expired) {
+            Lock lock = getLock(cacheKey).writeLock();
+            if (!lock.tryLock()) {
+                continue;
+            }
+            try {
+                doClearCache(cacheKey);
+            } catch (Exception e) {
+                log.warn("Local cache {} clear error", cacheKey, e);
+            } finally {
+                lock.unlock();
+            }
         }
     }
 
@@ -283,26 +330,46 @@ public class LocalDB {
                 , executeParam
                 , SQL_DIALECT);
 
-        String sql = render.render(true, false, false);
+        String sql = render.render(true, true, false);
 
         log.debug(sql);
 
-        ResultSet resultSet = connection.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY).executeQuery(sql);
         PageInfo pageInfo = executeParam.getPageInfo();
-        resultSet.last();
-        pageInfo.setTotal(resultSet.getRow());
-        resultSet.first();
-
-        resultSet.absolute((int) Math.min(pageInfo.getTotal(), (pageInfo.getPageNo() - 1) * pageInfo.getPageSize()));
-        Dataframe dataframe = ResultSetMapper.mapToTableData(resultSet, pageInfo.getPageSize());
+        Dataframe dataframe;
+        try (Statement statement = connection.createStatement()) {
+            dataframe = ResultSetMapper.mapToTableData(statement.executeQuery(sql), pageInfo.getPageSize());
+        }
+        // 需要总数时单独执行一次 COUNT 查询，不再遍历全部结果
+        if (pageInfo.isCountTotal()) {
+            try (Statement statement = connection.createStatement()) {
+                ResultSet resultSet = statement.executeQuery(String.format(COUNT_SQL, render.render(true, false, true)));
+                resultSet.next();
+                pageInfo.setTotal(resultSet.getLong(1));
+            }
+        }
         dataframe.setPageInfo(pageInfo);
         dataframe.setScript(sql);
         return dataframe;
 
     }
 
+    /**
+     * 持久化数据库从连接池获取连接；内存数据库在最后一个连接关闭时即被删除，不使用连接池
+     */
     private static Connection getConnection(boolean persistent, String database) throws SQLException {
-        return DriverManager.getConnection(getConnectionUrl(persistent, database));
+        String url = getConnectionUrl(persistent, database);
+        if (!persistent) {
+            return DriverManager.getConnection(url);
+        }
+        return POOLS.computeIfAbsent(url, key -> {
+            JdbcConnectionPool pool = JdbcConnectionPool.create(key, "", "");
+            pool.setMaxConnections(Integer.parseInt(Application.getProperty("datart.local-db.max-connections", DEFAULT_MAX_CONNECTIONS)));
+            return pool;
+        }).getConnection();
+    }
+
+    private static ReadWriteLock getLock(String database) {
+        return LOCKS.computeIfAbsent(database, key -> new ReentrantReadWriteLock());
     }
 
 
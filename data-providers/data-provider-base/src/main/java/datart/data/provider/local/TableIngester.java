@@ -0,0 +1,224 @@
+/*
+ * Datart
+ * <p>
+ * Copyright 2021
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package datart.data.provider.local;
+
+import datart.core.data.provider.Column;
+import datart.data.provider.jdbc.DataTypeUtils;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.h2.api.ErrorCode;
+
+import java.sql.*;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 将数据批量写入H2表：按列类型建表后使用批量 INSERT 写入，数据不经过中间结果集复制。
+ */
+@Slf4j
+public class TableIngester implements AutoCloseable {
+
+    private static final int BATCH_SIZE = 2000;
+
+    private static final String CREATE_TABLE = "CREATE TABLE `%s` (%s)";
+
+    private static final String DROP_TABLE = "DROP TABLE IF EXISTS `%s`";
+
+    private static final String INSERT_SQL = "INSERT INTO `%s` VALUES (%s)";
+
+    private static final LongAdder TOTAL_ROWS = new LongAdder();
+
+    private static final LongAdder TOTAL_NANOS = new LongAdder();
+
+    private static final LongAdder TOTAL_TABLES = new LongAdder();
+
+    private final Connection connection;
+
+    private final String tableName;
+
+    private final int[] sqlTypes;
+
+    private final boolean autoCommit;
+
+    private PreparedStatement statement;
+
+    private int pending;
+
+    private long rows;
+
+    private long nanos;
+
+    private boolean finished;
+
+    private TableIngester(Connection connection, String tableName, List<Column> columns) throws SQLException {
+        this.connection = connection;
+        this.autoCommit = connection.getAutoCommit();
+        this.tableName = tableName;
+        this.sqlTypes = new int[columns.size()];
+        for (int i = 0; i < columns.size(); i++) {
+            sqlTypes[i] = DataTypeUtils.valueType2SqlTypes(columns.get(i).getType());
+        }
+    }
+
+    /**
+     * 创建表并准备写入。表已存在时返回null，调用方直接使用已有数据
+     */
+    static TableIngester create(Connection connection, String tableName, List<Column> columns) throws SQLException {
+        long start = System.nanoTime();
+        StringBuilder definition = new StringBuilder();
+        StringBuilder placeholders = new StringBuilder();
+        for (Column column : columns) {
+            if (definition.length() > 0) {
+                definition.append(',');
+                placeholders.append(',');
+            }
+            definition.append('`')
+                    .append(column.columnName())
+                    .append("` ")
+                    .append(JDBCType.valueOf(DataTypeUtils.valueType2SqlTypes(column.getType())).getName());
+            placeholders.append('?');
+        }
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute(String.format(CREATE_TABLE, tableName, definition));
+        } catch (SQLException e) {
+            if (e.getErrorCode() == ErrorCode.TABLE_OR_VIEW_ALREADY_EXISTS_1) {
+                return null;
+            }
+            throw e;
+        }
+        TableIngester ingester = new TableIngester(connection, tableName, columns);
+        try {
+            // 写入期间关闭自动提交，避免每个批次单独提交
+            connection.setAutoCommit(false);
+            if (columns.size() > 0) {
+                ingester.statement = connection.prepareStatement(String.format(INSERT_SQL, tableName, placeholders));
+            }
+        } catch (SQLException e) {
+            ingester.close();
+            throw e;
+        }
+        ingester.nanos = System.nanoTime() - start;
+        return ingester;
+    }
+
+    void write(List<? extends List<Object>> batch) throws SQLException {
+        if (statement == null || batch.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        for (List<Object> row : batch) {
+            for (int i = 0; i < sqlTypes.length; i++) {
+                Object val = i < row.size() ? row.get(i) : null;
+                // 处理脏数据
+                if (val == null || (val instanceof String && StringUtils.isBlank(val.toString()))) {
+                    statement.setNull(i + 1, sqlTypes[i]);
+                } else {
+                    statement.setObject(i + 1, val, sqlTypes[i]);
+                }
+            }
+            statement.addBatch();
+            if (++pending >= BATCH_SIZE) {
+                flush();
+            }
+        }
+        rows += batch.size();
+        nanos += System.nanoTime() - start;
+    }
+
+    void finish() throws SQLException {
+        long start = System.nanoTime();
+        flush();
+        connection.commit();
+        finished = true;
+        nanos += System.nanoTime() - start;
+        TOTAL_ROWS.add(rows);
+        TOTAL_NANOS.add(nanos);
+        TOTAL_TABLES.increment();
+        log.debug("Ingest {} rows into table {} in {}ms, {} rows/s", rows, tableName, TimeUnit.NANOSECONDS.toMillis(nanos), rowsPerSecond(rows, nanos));
+    }
+
+    /**
+     * 写入成功时恢复自动提交；写入未完成时回滚并删除表，避免持久化缓存继续使用不完整的数据。
+     * 失败时不恢复自动提交，防止提交未回滚的数据
+     */
+    @Override
+    public void close() throws SQLException {
+        try {
+            if (statement != null) {
+                statement.close();
+            }
+        } finally {
+            if (finished) {
+                connection.setAutoCommit(autoCommit);
+            } else {
+                abort();
+            }
+        }
+    }
+
+    private void abort() {
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            log.warn("Ingest rollback error, table {}", tableName, e);
+        }
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute(String.format(DROP_TABLE, tableName));
+        } catch (SQLException e) {
+            log.warn("Drop incomplete table {} error", tableName, e);
+        }
+    }
+
+    private void flush() throws SQLException {
+        if (pending > 0) {
+            statement.executeBatch();
+            pending = 0;
+        }
+    }
+
+    private static long rowsPerSecond(long rows, long nanos) {
+        return nanos <= 0 ? rows : rows * TimeUnit.SECONDS.toNanos(1) / nanos;
+    }
+
+    /**
+     * 累计写入指标，用于观察本地表注册的吞吐
+     */
+    public static IngestStats getStats() {
+        IngestStats stats = new IngestStats();
+        stats.setTables(TOTAL_TABLES.sum());
+        stats.setRows(TOTAL_ROWS.sum());
+        stats.setMillis(TimeUnit.NANOSECONDS.toMillis(TOTAL_NANOS.sum()));
+        stats.setRowsPerSecond(rowsPerSecond(TOTAL_ROWS.sum(), TOTAL_NANOS.sum()));
+        return stats;
+    }
+
+    @Data
+    public static class IngestStats {
+
+        private long tables;
+
+        private long rows;
+
+        private long millis;
+
+        private long rowsPerSecond;
+    }
+
+}
@@ -21,36 +21,123 @@ package datart.data.provider.optimize;
 import datart.core.common.Cache;
 import datart.core.common.CacheFactory;
 import datart.core.data.provider.*;
-import org.apache.commons.collections4.map.LRUMap;
 
+import java.sql.SQLException;
 import java.util.Map;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
 
 public abstract class DataProviderExecuteOptimizer {
 
-    private final Map<String, Dataframe> TEMP_RESULT = new LRUMap<>(100);
+    /**
+     * 正在执行的查询。相同 queryKey 和查询超时的并发请求共享同一次执行的结果，执行结束后立即移除
+     */
+    private final Map<String, Flight> IN_FLIGHT = new ConcurrentHashMap<>();
 
-    public Dataframe runOptimize(String queryKey, DataProviderSource source, QueryScript queryScript, ExecuteParam param) throws Exception {
+    private final LongAdder executed = new LongAdder();
 
-        ReentrantLock lock = DefaultLockFactory.getLock(queryKey);
+    private final LongAdder coalesced = new LongAdder();
 
-        Dataframe dataframe;
-        try {
-            lock.lock();
-            if (TEMP_RESULT.containsKey(queryKey)) {
-                if (lock.getQueueLength() == 0) {
-                    return TEMP_RESULT.remove(queryKey);
-                } else {
-                    return TEMP_RESULT.get(queryKey);
-                }
+    /**
+     * 共享的查询使用独立的取消信号，只有所有等待结果的请求都取消后才会取消查询。
+     * 单个请求取消时只结束自己的等待，其它请求不受影响。
+     */
+    public Dataframe runOptimize(String queryKey, DataProviderSource source, QueryScript queryScript, ExecuteParam param) throws Exception {
+        QueryCanceller own = QueryCanceller.current();
+        String flightKey = own == null ? queryKey : queryKey + ":" + own.getQueryTimeout();
+        Flight flight = new Flight(new QueryCanceller(own == null ? 0 : own.getQueryTimeout()));
+        Flight inFlight = IN_FLIGHT.putIfAbsent(flightKey, flight);
+        if (inFlight != null) {
+            if (inFlight.attach()) {
+                coalesced.increment();
+                Dataframe dataframe = awaitShared(inFlight, own);
+                // 等待者拿到的是副本，修改 script、pageInfo 等属性时不会互相影响，行数据仍然共享
+                return dataframe == null ? null : dataframe.copy();
             }
-            dataframe = run(source, queryScript, param);
-            if (lock.getQueueLength() > 0) {
-                TEMP_RESULT.put(queryKey, dataframe);
+            // 共享的查询已经被取消，单独执行
+            executed.increment();
+            return run(source, queryScript, param);
+        }
+        executed.increment();
+        flight.attach();
+        Runnable onCancel = flight::detach;
+        if (own != null) {
+            own.addListener(onCancel);
+        }
+        QueryCanceller previous = flight.canceller.bind();
+        try {
+            Dataframe dataframe = run(source, queryScript, param);
+            flight.future.complete(dataframe);
+            if (own != null && own.isCancelled()) {
+                // 其它请求仍在等待，查询继续执行完成，但发起方已经取消
+                throw new SQLException("The query has been cancelled");
             }
             return dataframe;
+        } catch (Throwable e) {
+            flight.future.completeExceptionally(e);
+            throw e;
+        } finally {
+            QueryCanceller.restore(previous);
+            IN_FLIGHT.remove(flightKey, flight);
+            if (own != null) {
+                own.removeListener(onCancel);
+            }
+        }
+    }
+
+    /**
+     * 实际执行的查询数
+     */
+    public long getExecutedCount() {
+        return executed.sum();
+    }
+
+    /**
+     * 合并到其它请求、没有重复执行的查询数
+     */
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    /**
+     * 等待共享查询的结果，自己的取消信号触发时立即结束等待，并从共享查询中退出
+     */
+    private Dataframe awaitShared(Flight flight, QueryCanceller own) throws Exception {
+        if (own == null) {
+            return await(flight.future);
+        }
+        CompletableFuture<Dataframe> result = new CompletableFuture<>();
+        flight.future.whenComplete((dataframe, e) -> {
+            if (e != null) {
+                result.completeExceptionally(e);
+            } else {
+                result.complete(dataframe);
+            }
+        });
+        Runnable onCancel = () -> {
+            if (result.completeExceptionally(new SQLException("The query has been cancelled"))) {
+                flight.detach();
+            }
+        };
+        own.addListener(onCancel);
+        try {
+            return await(result);
         } finally {
-            lock.unlock();
+            own.removeListener(onCancel);
+        }
+    }
+
+    private Dataframe await(CompletableFuture<Dataframe> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw e;
         }
     }
 
@@ -76,6 +163,36 @@ public abstract class DataProviderExecuteOptimizer {
     }
 
 
+    private static class Flight {
+
+        private final CompletableFuture<Dataframe> future = new CompletableFuture<>();
+
+        private final QueryCanceller canceller;
+
+        private int attached;
+
+        private Flight(QueryCanceller canceller) {
+            this.canceller = canceller;
+        }
+
+        /**
+         * 加入共享查询，查询已经被取消时返回 false
+         */
+        private synchronized boolean attach() {
+            if (canceller.isCancelled()) {
+                return false;
+            }
+            attached++;
+            return true;
+        }
+
+        private synchronized void detach() {
+            if (--attached == 0) {
+                canceller.cancel();
+            }
+        }
+    }
+
     public abstract Dataframe run(DataProviderSource source, QueryScript queryScript, ExecuteParam param) throws Exception;
 
 
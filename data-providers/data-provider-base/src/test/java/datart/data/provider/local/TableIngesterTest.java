@@ -0,0 +1,130 @@
+/*
+ * Datart
+ * <p>
+ * Copyright 2021
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package datart.data.provider.local;
+
+import datart.core.base.consts.ValueType;
+import datart.core.data.provider.Column;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TableIngesterTest {
+
+    private static final List<Column> COLUMNS = Arrays.asList(Column.of(ValueType.NUMERIC, "id"), Column.of(ValueType.STRING, "name"));
+
+    private Connection connection;
+
+    @BeforeEach
+    public void connect() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:" + UUID.randomUUID() + ";DATABASE_TO_UPPER=false;MODE=MySQL");
+    }
+
+    @AfterEach
+    public void disconnect() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    public void testIngest() throws SQLException {
+        try (TableIngester ingester = TableIngester.create(connection, "t_ok", COLUMNS)) {
+            assertNotNull(ingester);
+            ingester.write(rows(0, 4999));
+            ingester.write(Arrays.asList(Arrays.<Object>asList(4999, " ")));
+            ingester.finish();
+        }
+        assertTrue(connection.getAutoCommit());
+        assertEquals(5000, count("t_ok"));
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT `name` FROM `t_ok` WHERE `id` = 4999")) {
+            assertTrue(rs.next());
+            assertNull(rs.getString(1));
+        }
+    }
+
+    @Test
+    public void testExistingTable() throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("CREATE TABLE `t_exists` (`id` DOUBLE)");
+        }
+        assertNull(TableIngester.create(connection, "t_exists", COLUMNS));
+        assertTrue(tableExists("t_exists"));
+    }
+
+    @Test
+    public void testDropWhenNotFinished() throws SQLException {
+        try (TableIngester ingester = TableIngester.create(connection, "t_unfinished", COLUMNS)) {
+            assertNotNull(ingester);
+            ingester.write(rows(0, 2500));
+        }
+        assertFalse(tableExists("t_unfinished"));
+    }
+
+    @Test
+    public void testDropWhenWriteFailed() throws SQLException {
+        List<List<Object>> rows = rows(0, 2500);
+        rows.add(Arrays.asList("not a number", "bad"));
+        assertThrows(SQLException.class, () -> {
+            try (TableIngester ingester = TableIngester.create(connection, "t_failed", COLUMNS)) {
+                assertNotNull(ingester);
+                ingester.write(rows);
+                ingester.finish();
+            }
+        });
+        assertFalse(tableExists("t_failed"));
+
+        // 失败后同名表可以重新写入
+        try (TableIngester ingester = TableIngester.create(connection, "t_failed", COLUMNS)) {
+            assertNotNull(ingester);
+            ingester.write(rows(0, 10));
+            ingester.finish();
+        }
+        assertEquals(10, count("t_failed"));
+    }
+
+    private List<List<Object>> rows(int from, int to) {
+        List<List<Object>> rows = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            rows.add(Arrays.asList(i, "name-" + i));
+        }
+        return rows;
+    }
+
+    private long count(String table) throws SQLException {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM `" + table + "`")) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    private boolean tableExists(String table) throws SQLException {
+        try (ResultSet rs = connection.getMetaData().getTables(null, null, table, null)) {
+            return rs.next();
+        }
+    }
+
+}
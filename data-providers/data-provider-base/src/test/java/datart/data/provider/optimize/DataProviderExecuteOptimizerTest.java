@@ -0,0 +1,215 @@
+/*
+ * Datart
+ * <p>
+ * Copyright 2021
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package datart.data.provider.optimize;
+
+import datart.core.data.provider.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DataProviderExecuteOptimizerTest {
+
+    private static final String KEY = "query-key";
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private final BlockingOptimizer optimizer = new BlockingOptimizer();
+
+    @AfterEach
+    public void shutdown() {
+        optimizer.release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testWaitersShareOneExecution() throws Exception {
+        Future<Dataframe> leader = submit(null);
+        awaitTrue(() -> optimizer.runs.get() == 1);
+        List<Future<Dataframe>> waiters = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            waiters.add(submit(null));
+        }
+        awaitTrue(() -> optimizer.getCoalescedCount() == 3);
+        optimizer.release.countDown();
+
+        Dataframe result = leader.get(10, TimeUnit.SECONDS);
+        assertSame(optimizer.results.get(0), result);
+        for (Future<Dataframe> waiter : waiters) {
+            Dataframe copy = waiter.get(10, TimeUnit.SECONDS);
+            // 等待者拿到副本，行数据共享
+            assertNotSame(result, copy);
+            assertSame(result.getRows(), copy.getRows());
+            copy.setScript("changed");
+        }
+        assertEquals("select 1", result.getScript());
+        assertEquals(1, optimizer.runs.get());
+        assertEquals(1, optimizer.getExecutedCount());
+    }
+
+    @Test
+    public void testWaitersReceiveException() throws Exception {
+        optimizer.failure = new SQLException("boom");
+        Future<Dataframe> leader = submit(null);
+        awaitTrue(() -> optimizer.runs.get() == 1);
+        Future<Dataframe> waiter = submit(null);
+        awaitTrue(() -> optimizer.getCoalescedCount() == 1);
+        optimizer.release.countDown();
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> leader.get(10, TimeUnit.SECONDS));
+        assertSame(optimizer.failure, e.getCause());
+        e = assertThrows(ExecutionException.class, () -> waiter.get(10, TimeUnit.SECONDS));
+        assertSame(optimizer.failure, e.getCause());
+
+        // 失败的查询不会留在共享列表中
+        optimizer.failure = null;
+        assertNotNull(optimizer.runOptimize(KEY, null, null, null));
+        assertEquals(2, optimizer.runs.get());
+    }
+
+    @Test
+    public void testSequentialCallsExecuteAgain() throws Exception {
+        optimizer.release.countDown();
+        optimizer.runOptimize(KEY, null, null, null);
+        optimizer.runOptimize(KEY, null, null, null);
+        assertEquals(2, optimizer.runs.get());
+        assertEquals(0, optimizer.getCoalescedCount());
+    }
+
+    @Test
+    public void testDifferentTimeoutNotShared() throws Exception {
+        Future<Dataframe> first = submit(new QueryCanceller(10));
+        Future<Dataframe> second = submit(new QueryCanceller(20));
+        awaitTrue(() -> optimizer.runs.get() == 2);
+        optimizer.release.countDown();
+        assertNotNull(first.get(10, TimeUnit.SECONDS));
+        assertNotNull(second.get(10, TimeUnit.SECONDS));
+        assertEquals(0, optimizer.getCoalescedCount());
+    }
+
+    @Test
+    public void testWaiterCancelDoesNotCancelQuery() throws Exception {
+        Future<Dataframe> leader = submit(new QueryCanceller());
+        awaitTrue(() -> optimizer.runs.get() == 1);
+        QueryCanceller waiterCanceller = new QueryCanceller();
+        Future<Dataframe> waiter = submit(waiterCanceller);
+        awaitTrue(() -> optimizer.getCoalescedCount() == 1);
+
+        waiterCanceller.cancel();
+        ExecutionException e = assertThrows(ExecutionException.class, () -> waiter.get(10, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof SQLException);
+        assertFalse(optimizer.shared.get(0).isCancelled());
+
+        optimizer.release.countDown();
+        assertNotNull(leader.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testQueryCancelledWhenAllCancelled() throws Exception {
+        QueryCanceller leaderCanceller = new QueryCanceller();
+        Future<Dataframe> leader = submit(leaderCanceller);
+        awaitTrue(() -> optimizer.runs.get() == 1);
+        QueryCanceller waiterCanceller = new QueryCanceller();
+        Future<Dataframe> waiter = submit(waiterCanceller);
+        awaitTrue(() -> optimizer.getCoalescedCount() == 1);
+
+        QueryCanceller shared = optimizer.shared.get(0);
+        leaderCanceller.cancel();
+        assertFalse(shared.isCancelled());
+        waiterCanceller.cancel();
+        assertTrue(shared.isCancelled());
+        assertThrows(ExecutionException.class, () -> waiter.get(10, TimeUnit.SECONDS));
+
+        // 共享查询已经取消，新的请求单独执行
+        Future<Dataframe> late = submit(new QueryCanceller());
+        awaitTrue(() -> optimizer.runs.get() == 2);
+        assertEquals(1, optimizer.getCoalescedCount());
+        assertFalse(optimizer.shared.get(1).isCancelled());
+
+        optimizer.release.countDown();
+        ExecutionException e = assertThrows(ExecutionException.class, () -> leader.get(10, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof SQLException);
+        assertNotNull(late.get(10, TimeUnit.SECONDS));
+    }
+
+    private Future<Dataframe> submit(QueryCanceller canceller) {
+        return executor.submit(() -> {
+            QueryCanceller previous = canceller == null ? null : canceller.bind();
+            try {
+                return optimizer.runOptimize(KEY, null, null, null);
+            } finally {
+                if (canceller != null) {
+                    QueryCanceller.restore(previous);
+                }
+            }
+        });
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("condition not met in time");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    private static class BlockingOptimizer extends DataProviderExecuteOptimizer {
+
+        private final AtomicInteger runs = new AtomicInteger();
+
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        private final List<Dataframe> results = new CopyOnWriteArrayList<>();
+
+        /**
+         * 每次执行时绑定在线程上的取消信号
+         */
+        private final List<QueryCanceller> shared = new CopyOnWriteArrayList<>();
+
+        private volatile Exception failure;
+
+        @Override
+        public Dataframe run(DataProviderSource source, QueryScript queryScript, ExecuteParam param) throws Exception {
+            shared.add(QueryCanceller.current());
+            runs.incrementAndGet();
+            if (!release.await(10, TimeUnit.SECONDS)) {
+                throw new TimeoutException();
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            Dataframe dataframe = new Dataframe();
+            dataframe.setScript("select 1");
+            dataframe.setRows(Arrays.asList(Arrays.<Object>asList(1, "a"), Arrays.<Object>asList(2, "b")));
+            results.add(dataframe);
+            return dataframe;
+        }
+    }
+
+}
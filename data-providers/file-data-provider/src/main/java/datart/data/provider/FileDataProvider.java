@@ -23,6 +23,7 @@ import datart.core.base.exception.BaseException;
 import datart.core.base.exception.Exceptions;
 import datart.core.common.*;
 import datart.core.data.provider.*;
+import datart.core.data.provider.columnar.ColumnarRows;
 import datart.data.provider.jdbc.DataTypeUtils;
 import datart.data.provider.jdbc.SqlScriptRender;
 import datart.data.provider.local.LocalDB;
@@ -44,6 +45,8 @@ public class FileDataProvider extends DefaultDataProvider {
 
     public static final String FILE_PATH = "path";
 
+    public static final String SHEET = "sheet";
+
     private static final String I18N_PREFIX = "config.template.file.";
 
     @Override
@@ -80,6 +83,8 @@ public class FileDataProvider extends DefaultDataProvider {
         } else {
             schemas = Collections.singletonList(properties);
         }
+        FileSnapshotCache snapshots = FileSnapshotCache.of(config.getSourceId());
+        Set<String> snapshotNames = new HashSet<>();
         for (Map<String, Object> schema : schemas) {
             if (schema.get(FILE_PATH) == null || StringUtils.isEmpty(schema.get(FILE_PATH).toString())) {
                 Exceptions.msg("message.file.notfound", schema.getOrDefault(TABLE, "").toString());
@@ -87,53 +92,121 @@ public class FileDataProvider extends DefaultDataProvider {
             String path = schema.get(FILE_PATH).toString();
             FileFormat fileFormat = FileFormat.valueOf(schema.get(FILE_FORMAT).toString().toUpperCase());
             List<Column> columns = parseColumns(schema);
-            Dataframe dataframe = loadFromPath(FileUtils.withBasePath(path), fileFormat, columns);
+            String sheet = schema.get(SHEET) == null ? null : schema.get(SHEET).toString();
+            Dataframe dataframe = loadFromPath(FileUtils.withBasePath(path), fileFormat, columns, sheet, snapshots, snapshotNames);
             if (dataframe != null) {
                 dataframe.setName(StringUtils.isNoneBlank(schema.getOrDefault(TABLE, "").toString()) ? schema.get(TABLE).toString() : "TEST" + UUIDGenerator.generate());
                 dataframes.add(dataframe);
             }
         }
+        if (snapshots != null) {
+            snapshots.retain(snapshotNames);
+        }
         return dataframes;
     }
 
-    private Dataframe loadFromPath(String path, FileFormat format, List<Column> columns) throws IOException {
+    /**
+     * 目录下的每个文件单独解析，未变化的文件直接读取快照。多个文件使用第一个文件的列信息。
+     */
+    private Dataframe loadFromPath(String path, FileFormat format, List<Column> columns, String sheet,
+                                   FileSnapshotCache snapshots, Set<String> snapshotNames) throws IOException {
 
         File file = new File(path);
 
         if (!file.exists()) {
             Exceptions.tr(BaseException.class, "message.file.notfound", file.getPath());
         }
-        List<List<Object>> values = new LinkedList<>();
+        List<String> paths = listPaths(file);
+        if (paths == null) {
+            return null;
+        }
+
+        List<Column> configColumns = columns;
+        Dataframe dataframe = null;
+        for (String p : paths) {
+            Dataframe part = null;
+            String snapshotName = null;
+            if (snapshots != null) {
+                String key = FileSnapshotCache.snapshotKey(p, snapshotOptions(format), sheet, configColumns);
+                snapshotName = FileSnapshotCache.snapshotName(key, configColumns, columns);
+                snapshotNames.add(snapshotName);
+                part = snapshots.load(p, snapshotName);
+            }
+            if (part == null) {
+                part = loadSingleFile(p, format, columns, sheet);
+                if (snapshots != null && part.getColumns() != null) {
+                    snapshots.save(p, snapshotName, part);
+                }
+            }
+            if (part.getColumns() == null) {
+                continue;
+            }
+            if (dataframe == null) {
+                dataframe = part;
+                columns = part.getColumns();
+            } else {
+                dataframe.getRows().addAll(part.getRows());
+            }
+        }
+        return dataframe == null ? new Dataframe() : dataframe;
+    }
+
+    /**
+     * 目录下的所有文件，目录无法读取时返回null
+     */
+    private static List<String> listPaths(File file) {
+        List<String> paths = new ArrayList<>();
         if (file.isFile()) {
-            values.addAll(loadSingleFile(path, format));
+            paths.add(file.getPath());
         } else {
             File[] files = file.listFiles();
             if (files == null) {
                 return null;
             }
             for (File f : files) {
-                values.addAll(loadSingleFile(f.getPath(), format));
+                paths.add(f.getPath());
             }
         }
+        return paths;
+    }
 
-        Dataframe dataframe = new Dataframe();
-        if (values.size() == 0) {
-            return dataframe;
-        }
+    /**
+     * 推断开关变化后解析结果不同，不能复用原有快照
+     */
+    private static String snapshotOptions(FileFormat format) {
+        return format == FileFormat.CSV && csvInferTypes() ? format.name() + ":infer" : format.name();
+    }
 
-        if (columns == null) {
-            columns = inferHeader(values);
-        } else {
-            removeHeader(values);
+    /**
+     * CSV 在解析时已按列类型完成转换，无需再经过 parseValues。
+     * Excel 按批次读取，每批完成类型转换后写入列式存储，不在内存中保留整个文件的原始行。
+     */
+    private Dataframe loadSingleFile(String path, FileFormat format, List<Column> columns, String sheet) throws IOException {
+        switch (format) {
+            case CSV:
+                CSVParse.ParseConfig parseConfig = new CSVParse.ParseConfig();
+                parseConfig.setInferTypes(csvInferTypes());
+                return CSVParse.create(path, parseConfig).parseTyped(columns);
+            case XLS:
+            case XLSX:
+                ExcelRowCollector collector = new ExcelRowCollector(columns);
+                if (path.toLowerCase().endsWith(FileFormat.XLSX.getFormat())) {
+                    ExcelStreamReader.read(path, sheet, ExcelStreamReader.DEFAULT_BATCH_SIZE, collector);
+                } else {
+                    collector.handle(POIUtils.loadExcel(path, sheet));
+                }
+                return collector.toDataframe();
+            default:
+                Exceptions.tr(BaseException.class, "message.unsupported.format", format.getFormat());
+                return null;
         }
+    }
 
-        dataframe.setColumns(columns);
-
-        values = parseValues(values, columns);
-
-        dataframe.setRows(values);
-
-        return dataframe;
+    /**
+     * CSV 文件未指定列时是否推断列类型，默认所有列为字符串
+     */
+    private static boolean csvInferTypes() {
+        return Boolean.parseBoolean(Application.getProperty("datart.csv.infer-types", "false"));
     }
 
     @Override
@@ -166,6 +239,43 @@ public class FileDataProvider extends DefaultDataProvider {
                 }
             }
         }
+        retainSnapshots(config, schemas);
+    }
+
+    /**
+     * 删除当前配置不再引用的快照；没有引用任何文件时删除整个快照目录
+     */
+    private void retainSnapshots(DataProviderSource config, List<Map<String, Object>> schemas) {
+        FileSnapshotCache snapshots = FileSnapshotCache.of(config.getSourceId());
+        if (snapshots == null) {
+            return;
+        }
+        Set<String> keys = new HashSet<>();
+        try {
+            for (Map<String, Object> schema : schemas) {
+                if (schema.get(FILE_PATH) == null || schema.get(FILE_FORMAT) == null) {
+                    continue;
+                }
+                List<String> paths = listPaths(new File(FileUtils.withBasePath(schema.get(FILE_PATH).toString())));
+                if (paths == null) {
+                    continue;
+                }
+                FileFormat format = FileFormat.valueOf(schema.get(FILE_FORMAT).toString().toUpperCase());
+                List<Column> columns = parseColumns(schema);
+                String sheet = schema.get(SHEET) == null ? null : schema.get(SHEET).toString();
+                for (String path : paths) {
+                    keys.add(FileSnapshotCache.snapshotKey(path, snapshotOptions(format), sheet, columns));
+                }
+            }
+        } catch (Exception e) {
+            log.warn("File snapshot clean error of source {}", config.getSourceId(), e);
+            return;
+        }
+        if (keys.isEmpty()) {
+            snapshots.clear();
+        } else {
+            snapshots.retainKeys(keys);
+        }
     }
 
     private List<Column> inferHeader(List<List<Object>> values) {
@@ -196,18 +306,51 @@ public class FileDataProvider extends DefaultDataProvider {
         return columns;
     }
 
-    private List<List<Object>> loadSingleFile(String path, FileFormat format) throws IOException {
-        switch (format) {
-            case XLS:
-            case XLSX:
-                return POIUtils.loadExcel(path);
-            case CSV:
-                return CSVParse.create(path).parse();
-            default:
-                Exceptions.tr(BaseException.class, "message.unsupported.format", format.getFormat());
-                return null;
+    private class ExcelRowCollector implements ExcelStreamReader.RowBatchHandler {
+
+        private List<Column> columns;
+
+        private ColumnarRows rows;
+
+        private boolean firstBatch = true;
+
+        private ExcelRowCollector(List<Column> columns) {
+            this.columns = columns;
         }
 
+        @Override
+        public void handle(List<List<Object>> batch) {
+            if (CollectionUtils.isEmpty(batch)) {
+                return;
+            }
+            // 文件的第一行可能是表头
+            if (firstBatch) {
+                firstBatch = false;
+                if (columns == null) {
+                    columns = inferHeader(batch);
+                } else {
+                    removeHeader(batch);
+                }
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            parseValues(batch, columns);
+            if (rows == null) {
+                rows = new ColumnarRows(columns.size());
+            }
+            rows.addAll(batch);
+        }
+
+        private Dataframe toDataframe() {
+            Dataframe dataframe = new Dataframe();
+            if (columns == null) {
+                return dataframe;
+            }
+            dataframe.setColumns(columns);
+            dataframe.setRows(rows == null ? new ArrayList<>() : rows.trim());
+            return dataframe;
+        }
     }
 
     @Override
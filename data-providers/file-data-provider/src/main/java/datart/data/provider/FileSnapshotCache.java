@@ -0,0 +1,246 @@
+/*
+ * Datart
+ * <p>
+ * Copyright 2021
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package datart.data.provider;
+
+import datart.core.base.consts.FileOwner;
+import datart.core.common.Application;
+import datart.core.common.FileUtils;
+import datart.core.data.provider.Column;
+import datart.core.data.provider.Dataframe;
+import datart.core.data.provider.codec.ColumnarDataframeCodec;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 文件数据源解析结果的本地快照。每个源文件对应一个快照文件，通过文件大小、修改时间和内容摘要判断是否可用，
+ * 快照以列式格式存储，读取时使用内存映射，避免重复解析未变化的文件。
+ */
+@Slf4j
+public class FileSnapshotCache {
+
+    private static final int SNAPSHOT_MAGIC = 0x44465331; // DFS1
+
+    private static final String SUFFIX = ".snap";
+
+    private static final char KEY_SEPARATOR = '-';
+
+    private static final ColumnarDataframeCodec CODEC = new ColumnarDataframeCodec(ColumnarDataframeCodec.Compression.NONE);
+
+    private final File dir;
+
+    private FileSnapshotCache(File dir) {
+        this.dir = dir;
+    }
+
+    /**
+     * 快照未开启时返回null
+     */
+    public static FileSnapshotCache of(String sourceId) {
+        if (!Boolean.parseBoolean(Application.getProperty("datart.file-snapshot.enable", "false"))) {
+            return null;
+        }
+        return new FileSnapshotCache(new File(FileUtils.concatPath(Application.getFileBasePath(), FileOwner.FILE_SNAPSHOT.getPath(), sourceId)));
+    }
+
+    /**
+     * 快照的配置标识，由源文件路径和数据源中配置的解析参数决定
+     */
+    public static String snapshotKey(String path, String format, String sheet, List<Column> columns) {
+        StringBuilder options = new StringBuilder(new File(path).getAbsolutePath())
+                .append('|').append(format)
+                .append('|').append(sheet);
+        appendColumns(options, columns);
+        return DigestUtils.md5Hex(options.toString());
+    }
+
+    /**
+     * 快照文件名。目录中的后续文件按第一个文件推断出的列解析，此时文件名中追加实际使用的列
+     */
+    public static String snapshotName(String key, List<Column> configColumns, List<Column> parseColumns) {
+        if (parseColumns == configColumns) {
+            return key + SUFFIX;
+        }
+        StringBuilder options = new StringBuilder();
+        appendColumns(options, parseColumns);
+        return key + KEY_SEPARATOR + DigestUtils.md5Hex(options.toString()) + SUFFIX;
+    }
+
+    private static void appendColumns(StringBuilder options, List<Column> columns) {
+        if (columns != null) {
+            for (Column column : columns) {
+                options.append('|').append(Arrays.toString(column.getName()))
+                        .append(':').append(column.getType())
+                        .append(':').append(column.getFmt());
+            }
+        }
+    }
+
+    /**
+     * 读取快照，源文件发生变化或快照不可用时返回null
+     */
+    public Dataframe load(String path, String name) {
+        File source = new File(path);
+        File snapshot = new File(dir, name);
+        if (!snapshot.isFile()) {
+            return null;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(snapshot, "r");
+             FileChannel channel = raf.getChannel()) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != SNAPSHOT_MAGIC) {
+                return null;
+            }
+            long size = buffer.getLong();
+            int mtimePosition = buffer.position();
+            long mtime = buffer.getLong();
+            byte[] hash = new byte[buffer.getShort()];
+            buffer.get(hash);
+            if (size != source.length()) {
+                return null;
+            }
+            boolean refresh = false;
+            if (mtime != source.lastModified()) {
+                // 修改时间变化但内容未变（如重新拷贝），更新快照中记录的修改时间
+                if (!new String(hash).equals(contentHash(source))) {
+                    return null;
+                }
+                refresh = true;
+            }
+            Dataframe dataframe = CODEC.decode((ByteBuffer) buffer);
+            if (refresh) {
+                refreshMtime(snapshot, mtimePosition, source.lastModified());
+            }
+            return dataframe;
+        } catch (Exception e) {
+            log.warn("File snapshot {} load error", snapshot.getPath(), e);
+            return null;
+        }
+    }
+
+    /**
+     * 写入快照，先写临时文件再替换，避免读到不完整的快照
+     */
+    public void save(String path, String name, Dataframe dataframe) {
+        File source = new File(path);
+        File snapshot = new File(dir, name);
+        File tmp = null;
+        try {
+            if (!dir.exists() && !dir.mkdirs()) {
+                return;
+            }
+            tmp = File.createTempFile(name, ".tmp", dir);
+            String hash = contentHash(source);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp), 1 << 16))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeLong(source.length());
+                out.writeLong(source.lastModified());
+                out.writeShort(hash.length());
+                out.writeBytes(hash);
+                CODEC.encode(dataframe, out);
+            }
+            if (tmp.length() > Integer.MAX_VALUE) {
+                // 超过单次内存映射的上限，不保留快照
+                FileUtils.delete(tmp);
+                return;
+            }
+            Files.move(tmp.toPath(), snapshot.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (Exception e) {
+            log.warn("File snapshot {} save error", snapshot.getPath(), e);
+            if (tmp != null) {
+                FileUtils.delete(tmp);
+            }
+        }
+    }
+
+    /**
+     * 快照可能正被其它线程内存映射读取，不在原文件上修改，复制到临时文件修改后再替换
+     */
+    private void refreshMtime(File snapshot, int position, long mtime) {
+        File tmp = null;
+        try {
+            tmp = File.createTempFile(snapshot.getName(), ".tmp", dir);
+            Files.copy(snapshot.toPath(), tmp.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            try (RandomAccessFile raf = new RandomAccessFile(tmp, "rw")) {
+                raf.seek(position);
+                raf.writeLong(mtime);
+            }
+            Files.move(tmp.toPath(), snapshot.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (Exception e) {
+            log.warn("File snapshot {} refresh error", snapshot.getPath(), e);
+            if (tmp != null) {
+                FileUtils.delete(tmp);
+            }
+        }
+    }
+
+    /**
+     * 删除本次加载未使用的快照，对应的源文件已被删除或解析参数已变化
+     */
+    public void retain(Set<String> names) {
+        File[] files = dir.listFiles((d, n) -> n.endsWith(SUFFIX) && !names.contains(n));
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            FileUtils.delete(file);
+        }
+    }
+
+    /**
+     * 删除配置标识不在 keys 中的快照，用于数据源配置变化后清理不再引用的文件、sheet 或列定义
+     */
+    public void retainKeys(Set<String> keys) {
+        File[] files = dir.listFiles((d, n) -> n.endsWith(SUFFIX) && !keys.contains(keyOf(n)));
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            FileUtils.delete(file);
+        }
+    }
+
+    /**
+     * 删除数据源的快照目录
+     */
+    public void clear() {
+        FileSystemUtils.deleteRecursively(dir);
+    }
+
+    private static String keyOf(String name) {
+        int end = name.indexOf(KEY_SEPARATOR);
+        return name.substring(0, end < 0 ? name.length() - SUFFIX.length() : end);
+    }
+
+    private static String contentHash(File file) throws IOException {
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file), 1 << 16)) {
+            return DigestUtils.md5Hex(in);
+        }
+    }
+
+}
@@ -17,51 +17,101 @@
  */
 package datart.data.provider;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import datart.core.common.Application;
+import datart.core.data.provider.Column;
 import datart.core.data.provider.Dataframe;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.codec.binary.Base64;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.http.Header;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpHeaders;
-import org.apache.http.HttpResponse;
-import org.apache.http.client.HttpClient;
+import org.apache.http.HttpStatus;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.*;
 import org.apache.http.client.utils.URIBuilder;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
 import org.apache.http.conn.ssl.NoopHostnameVerifier;
 import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
 import org.apache.http.conn.ssl.TrustSelfSignedStrategy;
 import org.apache.http.entity.ContentType;
 import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.ssl.SSLContexts;
+import org.apache.http.util.EntityUtils;
+import org.springframework.http.HttpMethod;
 import org.springframework.util.CollectionUtils;
 
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 @Slf4j
 public class HttpDataFetcher {
 
-    private static final HttpClient httpClient;
+    private static final int DEFAULT_MAX_CONNECTIONS = 200;
+
+    private static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 20;
+
+    private static final int DEFAULT_TIMEOUT = 30 * 1_000;
+
+    /**
+     * 超过该行数的结果不保留，避免条件请求缓存占用过多内存
+     */
+    private static final int MAX_CACHED_ROWS = 100_000;
+
+    private static final String LINK = "Link";
+
+    private static final Pattern NEXT_LINK = Pattern.compile("<([^>]*)>[^,]*;\\s*rel=\"?next\"?");
+
+    private static final CloseableHttpClient httpClient;
+
+    /**
+     * 响应带有 ETag 或 Last-Modified 时保留解析结果，下次请求携带条件头，服务端返回 304 时直接复用
+     */
+    private static final Cache<String, ConditionalEntry> CONDITIONAL_CACHE = CacheBuilder.newBuilder()
+            .maximumWeight(MAX_CACHED_ROWS * 10L)
+            .weigher((String key, ConditionalEntry entry) -> Math.max(1, entry.dataframe.getRows().size()))
+            .expireAfterAccess(1, TimeUnit.HOURS)
+            .build();
 
     private final HttpRequestParam param;
 
     static {
-        HttpClientBuilder httpClientBuilder = HttpClientBuilder.create();
+        RegistryBuilder<ConnectionSocketFactory> registry = RegistryBuilder.<ConnectionSocketFactory>create()
+                .register("http", PlainConnectionSocketFactory.getSocketFactory());
         try {
             // trust self-signed certificate and ignore hostname verification
             SSLConnectionSocketFactory scsf = new SSLConnectionSocketFactory(
                     SSLContexts.custom().loadTrustMaterial(null, new TrustSelfSignedStrategy()).build(),
                     NoopHostnameVerifier.INSTANCE);
-            httpClientBuilder.setSSLSocketFactory(scsf);
+            registry.register("https", scsf);
         } catch (Exception e) {
             log.warn("HttpClient config ssl failed, and used default config.");
+            registry.register("https", SSLConnectionSocketFactory.getSocketFactory());
         }
-        httpClient = httpClientBuilder.build();
+        Registry<ConnectionSocketFactory> socketFactoryRegistry = registry.build();
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(socketFactoryRegistry);
+        connectionManager.setMaxTotal(Application.getIntProperty("datart.http-provider.max-connections", DEFAULT_MAX_CONNECTIONS));
+        connectionManager.setDefaultMaxPerRoute(Application.getIntProperty("datart.http-provider.max-connections-per-route", DEFAULT_MAX_CONNECTIONS_PER_ROUTE));
+        connectionManager.setValidateAfterInactivity(10_000);
+        httpClient = HttpClientBuilder.create()
+                .setConnectionManager(connectionManager)
+                .evictExpiredConnections()
+                .evictIdleConnections(60, TimeUnit.SECONDS)
+                .build();
     }
 
     public HttpDataFetcher(HttpRequestParam param) {
@@ -72,16 +122,121 @@ public class HttpDataFetcher {
 
         HttpRequestBase httpRequest = createHttpRequest(param);
 
-        HttpResponse response = httpClient.execute(httpRequest);
+        String conditionalKey = conditionalKey(param);
+        ConditionalEntry cached = conditionalKey == null ? null : CONDITIONAL_CACHE.getIfPresent(conditionalKey);
+        if (cached != null) {
+            if (cached.etag != null) {
+                httpRequest.addHeader(HttpHeaders.IF_NONE_MATCH, cached.etag);
+            }
+            if (cached.lastModified != null) {
+                httpRequest.addHeader(HttpHeaders.IF_MODIFIED_SINCE, cached.lastModified);
+            }
+        }
+
+        try (CloseableHttpResponse response = httpClient.execute(httpRequest)) {
+            if (cached != null && response.getStatusLine().getStatusCode() == HttpStatus.SC_NOT_MODIFIED) {
+                EntityUtils.consumeQuietly(response.getEntity());
+                log.debug("Http data not modified, reuse parsed data of {}", param.getUrl());
+                return copyOf(cached.dataframe);
+            }
+            Dataframe dataframe = createParser().parseResponse(param.getTargetPropertyName(), response, param.getColumns());
+            EntityUtils.consumeQuietly(response.getEntity());
+            if (conditionalKey != null) {
+                cacheIfValidatable(conditionalKey, response, dataframe);
+            }
+            return dataframe;
+        }
+    }
+
+    /**
+     * 请求分页数据中的一页，同时读取响应中指定的属性和 Link 头中下一页的地址。分页请求不使用条件请求缓存
+     */
+    public Page fetchPage(Set<String> attributeNames) throws IOException, URISyntaxException {
+        HttpRequestBase httpRequest = createHttpRequest(param);
+        try (CloseableHttpResponse response = httpClient.execute(httpRequest)) {
+            Page page = new Page();
+            page.attributes = new HashMap<>();
+            if (attributeNames != null) {
+                for (String name : attributeNames) {
+                    page.attributes.put(name, null);
+                }
+            }
+            page.dataframe = createParser().parseResponse(param.getTargetPropertyName(), response, param.getColumns(), page.attributes);
+            EntityUtils.consumeQuietly(response.getEntity());
+            for (Header link : response.getHeaders(LINK)) {
+                Matcher matcher = NEXT_LINK.matcher(link.getValue());
+                if (matcher.find()) {
+                    page.nextLink = matcher.group(1).trim();
+                    break;
+                }
+            }
+            return page;
+        }
+    }
 
-        HttpResponseParser parser;
+    private HttpResponseParser createParser() {
         try {
-            parser = param.getResponseParser().newInstance();
+            return param.getResponseParser().newInstance();
         } catch (Exception e) {
-            parser = new ResponseJsonParser();
+            return new ResponseJsonStreamParser();
+        }
+    }
+
+    private void cacheIfValidatable(String key, CloseableHttpResponse response, Dataframe dataframe) {
+        if (response.getStatusLine().getStatusCode() != HttpStatus.SC_OK
+                || dataframe.getRows() == null
+                || dataframe.getRows().size() > MAX_CACHED_ROWS) {
+            CONDITIONAL_CACHE.invalidate(key);
+            return;
+        }
+        Header etag = response.getFirstHeader(HttpHeaders.ETAG);
+        Header lastModified = response.getFirstHeader(HttpHeaders.LAST_MODIFIED);
+        if (etag == null && lastModified == null) {
+            CONDITIONAL_CACHE.invalidate(key);
+            return;
         }
-        return parser.parseResponse(param.getTargetPropertyName(), response, param.getColumns());
+        ConditionalEntry entry = new ConditionalEntry();
+        entry.etag = etag == null ? null : etag.getValue();
+        entry.lastModified = lastModified == null ? null : lastModified.getValue();
+        entry.dataframe = copyOf(dataframe);
+        CONDITIONAL_CACHE.put(key, entry);
+    }
 
+    /**
+     * 只有 GET 请求使用条件请求
+     */
+    private String conditionalKey(HttpRequestParam param) {
+        if (param.getMethod() != null && param.getMethod() != HttpMethod.GET) {
+            return null;
+        }
+        return param.toCacheKey() + ":" + param.getUsername() + ":" + param.getTargetPropertyName()
+                + ":" + param.getResponseParser() + ":" + param.getColumns();
+    }
+
+    /**
+     * 结果在后续处理中会被修改（列类型、值转换），缓存与返回值之间互不共享行和列对象
+     */
+    private static Dataframe copyOf(Dataframe origin) {
+        Dataframe dataframe = new Dataframe();
+        dataframe.setName(origin.getName());
+        if (origin.getColumns() != null) {
+            List<Column> columns = new ArrayList<>(origin.getColumns().size());
+            for (Column column : origin.getColumns()) {
+                Column copy = Column.of(column.getType(), column.getName());
+                copy.setFmt(column.getFmt());
+                copy.setForeignKeys(column.getForeignKeys());
+                columns.add(copy);
+            }
+            dataframe.setColumns(columns);
+        }
+        if (origin.getRows() != null) {
+            List<List<Object>> rows = new ArrayList<>(origin.getRows().size());
+            for (List<Object> row : origin.getRows()) {
+                rows.add(new ArrayList<>(row));
+            }
+            dataframe.setRows(rows);
+        }
+        return dataframe;
     }
 
     private HttpRequestBase createHttpRequest(HttpRequestParam param) throws URISyntaxException {
@@ -105,8 +260,12 @@ public class HttpDataFetcher {
                 httpRequest = new HttpGet();
                 break;
         }
+        // timeout 为 0 时使用默认超时，避免请求无限期阻塞
+        int timeout = param.getTimeout() > 0 ? param.getTimeout() : DEFAULT_TIMEOUT;
         RequestConfig config = RequestConfig.custom()
-                .setConnectTimeout(param.getTimeout())
+                .setConnectTimeout(timeout)
+                .setSocketTimeout(timeout)
+                .setConnectionRequestTimeout(timeout)
                 .build();
 
         httpRequest.setConfig(config);
@@ -150,5 +309,38 @@ public class HttpDataFetcher {
         }
     }
 
+    public static class Page {
+
+        private Dataframe dataframe;
+
+        private Map<String, Object> attributes;
+
+        private String nextLink;
+
+        public Dataframe getDataframe() {
+            return dataframe;
+        }
+
+        public Object getAttribute(String name) {
+            return attributes.get(name);
+        }
+
+        public String getNextLink() {
+            return nextLink;
+        }
+
+        public int getRowCount() {
+            return dataframe == null || dataframe.getRows() == null ? 0 : dataframe.getRows().size();
+        }
+    }
+
+    private static class ConditionalEntry {
+
+        private String etag;
+
+        private String lastModified;
+
+        private Dataframe dataframe;
+    }
 
-}
\ No newline at end of file
+}
@@ -20,13 +20,19 @@ package datart.data.provider;
 
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import datart.core.base.PageInfo;
+import datart.core.base.exception.BaseException;
+import datart.core.base.exception.Exceptions;
 import datart.core.common.MessageResolver;
+import datart.core.common.ThreadPoolFactory;
 import datart.core.common.UUIDGenerator;
 import datart.core.data.provider.*;
+import datart.data.provider.calcite.SqlParseCache;
 import datart.data.provider.jdbc.SqlScriptRender;
 import datart.data.provider.local.LocalDB;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.calcite.sql.*;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.http.HttpMethod;
 import org.springframework.util.CollectionUtils;
@@ -37,6 +43,8 @@ import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.sql.SQLException;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -58,7 +66,7 @@ public class HttpDataProvider extends DefaultDataProvider {
 
     private static final String RESPONSE_PARSER = "responseParser";
 
-    private static final String DEFAULT_PARSER = "datart.data.provider.ResponseJsonParser";
+    private static final String DEFAULT_PARSER = "datart.data.provider.ResponseJsonStreamParser";
 
     private static final String QUERY_PARAM = "queryParam";
 
@@ -70,11 +78,37 @@ public class HttpDataProvider extends DefaultDataProvider {
 
     private static final String I18N_PREFIX = "config.template.http.";
 
+    private static final String CONCURRENCY = "concurrency";
+
+    private static final String PAGINATION_TYPE = "paginationType";
+
+    private static final String PAGE_PARAM = "pageParam";
+
+    private static final String PAGE_SIZE_PARAM = "pageSizeParam";
+
+    private static final String PAGE_SIZE = "pageSize";
+
+    private static final String PAGE_START = "pageStart";
+
+    private static final String TOTAL_PROPERTY = "totalProperty";
+
+    private static final String CURSOR_PROPERTY = "cursorProperty";
+
+    private static final String MAX_PAGES = "maxPages";
+
+    private static final int DEFAULT_CONCURRENCY = 4;
+
+    private static final ThreadPoolExecutor FETCH_EXECUTOR;
+
     private final static ObjectMapper MAPPER;
 
     static {
         MAPPER = new ObjectMapper();
         MAPPER.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+        int max = Runtime.getRuntime().availableProcessors() * 4;
+        FETCH_EXECUTOR = ThreadPoolFactory.newFixedPool("http-fetch", max, 60
+                , new ArrayBlockingQueue<>(max * 4), new ThreadPoolExecutor.CallerRunsPolicy());
     }
 
     public HttpDataProvider() {
@@ -82,32 +116,201 @@ public class HttpDataProvider extends DefaultDataProvider {
 
     @Override
     public Dataframes loadDataFromSource(DataProviderSource config) throws IOException, ClassNotFoundException, URISyntaxException, SQLException {
+        return loadDataFromSource(config, 0, null);
+    }
+
+    /**
+     * 只需要前若干行的查询（如预览），分页数据源拉取到足够的行数后即停止，不完整的数据不写入本地缓存
+     */
+    @Override
+    public Dataframe execute(DataProviderSource config, QueryScript queryScript, ExecuteParam executeParam) throws Exception {
+        long rowLimit = previewRowLimit(queryScript, executeParam);
+        if (rowLimit <= 0) {
+            return super.execute(config, queryScript, executeParam);
+        }
+        List<HttpRequestParam> requestParams = convertRequestParams(config);
+        if (requestParams.stream().noneMatch(param -> param.getPagination() != null)
+                || isCacheValid(config, Dataframes.of(dataKey(requestParams)).getKey())) {
+            return super.execute(config, queryScript, executeParam);
+        }
+        AtomicBoolean truncated = new AtomicBoolean();
+        Dataframes dataframes = loadDataFromSource(config, rowLimit, truncated);
+        return executeInLocalDB(config, queryScript, executeParam, dataframes, isCacheEnabled(config) && !truncated.get());
+    }
+
+    private Dataframes loadDataFromSource(DataProviderSource config, long rowLimit, AtomicBoolean truncated) throws IOException, ClassNotFoundException, URISyntaxException, SQLException {
 
         List<HttpRequestParam> requestParams = convertRequestParams(config);
         if (CollectionUtils.isEmpty(requestParams)) {
             return Dataframes.of(config.getSourceId());
         }
-        String dataKey = DigestUtils.md5Hex(requestParams.stream()
+        Dataframes dataframes = Dataframes.of(dataKey(requestParams));
+
+        // check cache
+        if (rowLimit <= 0 && isCacheValid(config, dataframes.getKey())) {
+            return dataframes;
+        }
+
+        int concurrency = getConcurrency(config);
+        if (requestParams.size() == 1 || concurrency <= 1) {
+            for (HttpRequestParam requestParam : requestParams) {
+                dataframes.add(fetch(requestParam, concurrency, rowLimit, truncated));
+            }
+        } else {
+            fetchConcurrently(requestParams, concurrency, rowLimit, truncated).forEach(dataframes::add);
+        }
+
+        return dataframes;
+    }
+
+    private String dataKey(List<HttpRequestParam> requestParams) {
+        return DigestUtils.md5Hex(requestParams.stream()
                 .map(HttpRequestParam::toCacheKey)
                 .collect(Collectors.joining(",")));
+    }
 
-        Dataframes dataframes = Dataframes.of(dataKey);
-
-        // check cache
+    private boolean isCacheValid(DataProviderSource config, String cacheKey) throws SQLException {
         Object cacheEnable = config.getProperties().get("cacheEnable");
-        if (cacheEnable != null && Boolean.parseBoolean(cacheEnable.toString())) {
-            if (!LocalDB.checkCacheExpired(dataframes.getKey())) {
-                return dataframes;
+        if (cacheEnable == null || !Boolean.parseBoolean(cacheEnable.toString())) {
+            return false;
+        }
+        return !LocalDB.checkCacheExpired(cacheKey);
+    }
+
+    private Dataframe fetch(HttpRequestParam requestParam, int concurrency, long rowLimit, AtomicBoolean truncated) throws IOException, URISyntaxException {
+        Dataframe dataframe;
+        if (requestParam.getPagination() != null) {
+            HttpPageFetcher pageFetcher = new HttpPageFetcher(requestParam, concurrency, rowLimit);
+            dataframe = pageFetcher.fetch();
+            if (pageFetcher.isTruncated() && truncated != null) {
+                truncated.set(true);
+            }
+        } else {
+            dataframe = new HttpDataFetcher(requestParam).fetchAndParse();
+        }
+        dataframe.setName(requestParam.getName());
+        return dataframe;
+    }
+
+    /**
+     * 查询结果只取决于前 N 行时返回 N，否则返回0。
+     * 要求没有聚合、过滤、排序等操作，不统计总数，且视图脚本是对单表的简单查询。
+     */
+    private long previewRowLimit(QueryScript queryScript, ExecuteParam executeParam) {
+        if (queryScript == null || executeParam == null) {
+            return 0;
+        }
+        PageInfo pageInfo = executeParam.getPageInfo();
+        if (pageInfo == null || pageInfo.isCountTotal() || pageInfo.getPageSize() <= 0 || pageInfo.getPageSize() >= Integer.MAX_VALUE) {
+            return 0;
+        }
+        if (!CollectionUtils.isEmpty(executeParam.getAggregators())
+                || !CollectionUtils.isEmpty(executeParam.getFilters())
+                || !CollectionUtils.isEmpty(executeParam.getGroups())
+                || !CollectionUtils.isEmpty(executeParam.getOrders())
+                || !CollectionUtils.isEmpty(executeParam.getKeywords())
+                || !CollectionUtils.isEmpty(executeParam.getFunctionColumns())) {
+            return 0;
+        }
+        if (!isPlainSelect(queryScript.getScript())) {
+            return 0;
+        }
+        return Math.max(pageInfo.getPageNo(), 1) * pageInfo.getPageSize();
+    }
+
+    private boolean isPlainSelect(String script) {
+        if (StringUtils.isBlank(script)) {
+            return false;
+        }
+        try {
+            SqlNode sqlNode = SqlParseCache.parseQuery(script, LocalDB.SQL_DIALECT);
+            if (!(sqlNode instanceof SqlSelect)) {
+                return false;
             }
+            SqlSelect select = (SqlSelect) sqlNode;
+            if (!(select.getFrom() instanceof SqlIdentifier)
+                    || select.isDistinct()
+                    || select.getWhere() != null
+                    || select.getGroup() != null
+                    || select.getHaving() != null
+                    || (select.getOrderList() != null && select.getOrderList().size() > 0)
+                    || select.getFetch() != null
+                    || select.getOffset() != null) {
+                return false;
+            }
+            for (SqlNode item : select.getSelectList()) {
+                if (item.getKind() == SqlKind.AS) {
+                    item = ((SqlBasicCall) item).operand(0);
+                }
+                if (!(item instanceof SqlIdentifier)) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (Exception e) {
+            return false;
         }
+    }
 
-        for (HttpRequestParam requestParam : requestParams) {
-            Dataframe dataframe = new HttpDataFetcher(requestParam).fetchAndParse();
-            dataframe.setName(requestParam.getName());
-            dataframes.add(dataframe);
+    /**
+     * 多个请求并行执行，同一数据源同时进行的请求数不超过 concurrency，结果顺序与配置顺序一致
+     */
+    private List<Dataframe> fetchConcurrently(List<HttpRequestParam> requestParams, int concurrency, long rowLimit, AtomicBoolean truncated) throws IOException, URISyntaxException {
+        Semaphore permits = new Semaphore(concurrency);
+        List<Future<Dataframe>> futures = new ArrayList<>(requestParams.size());
+        try {
+            for (HttpRequestParam requestParam : requestParams) {
+                permits.acquire();
+                try {
+                    futures.add(FETCH_EXECUTOR.submit(() -> {
+                        try {
+                            return fetch(requestParam, concurrency, rowLimit, truncated);
+                        } finally {
+                            permits.release();
+                        }
+                    }));
+                } catch (RejectedExecutionException e) {
+                    permits.release();
+                    throw e;
+                }
+            }
+            List<Dataframe> results = new ArrayList<>(futures.size());
+            for (Future<Dataframe> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BaseException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof URISyntaxException) {
+                throw (URISyntaxException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new BaseException(cause);
+        } finally {
+            for (Future<Dataframe> future : futures) {
+                future.cancel(true);
+            }
         }
+    }
 
-        return dataframes;
+    private int getConcurrency(DataProviderSource config) {
+        Object concurrency = config.getProperties().get(CONCURRENCY);
+        if (concurrency == null || StringUtils.isBlank(concurrency.toString())) {
+            return DEFAULT_CONCURRENCY;
+        }
+        try {
+            return Integer.parseInt(concurrency.toString());
+        } catch (NumberFormatException e) {
+            return DEFAULT_CONCURRENCY;
+        }
     }
 
     @Override
@@ -202,9 +405,48 @@ public class HttpDataProvider extends DefaultDataProvider {
 
         httpRequestParam.setColumns(parseColumns(schema));
 
+        httpRequestParam.setPagination(parsePagination(schema));
+
         return httpRequestParam;
     }
 
+    private HttpPagination parsePagination(Map<String, Object> schema) {
+        String type = getString(schema, PAGINATION_TYPE);
+        if (type == null) {
+            return null;
+        }
+        HttpPagination pagination = new HttpPagination();
+        pagination.setType(HttpPagination.Type.valueOf(type.toUpperCase()));
+        pagination.setPageParam(getString(schema, PAGE_PARAM));
+        pagination.setPageSizeParam(getString(schema, PAGE_SIZE_PARAM));
+        pagination.setTotalProperty(getString(schema, TOTAL_PROPERTY));
+        pagination.setCursorProperty(getString(schema, CURSOR_PROPERTY));
+        String pageSize = getString(schema, PAGE_SIZE);
+        if (pageSize != null) {
+            pagination.setPageSize(Integer.parseInt(pageSize));
+        }
+        String start = getString(schema, PAGE_START);
+        if (start != null) {
+            pagination.setStart(Long.parseLong(start));
+        }
+        String maxPages = getString(schema, MAX_PAGES);
+        if (maxPages != null) {
+            pagination.setMaxPages(Integer.parseInt(maxPages));
+        }
+        if (pagination.getType() != HttpPagination.Type.LINK && pagination.getPageParam() == null) {
+            Exceptions.msg("message.provider.http.pagination.param", PAGE_PARAM);
+        }
+        if (pagination.getType() == HttpPagination.Type.CURSOR && pagination.getCursorProperty() == null) {
+            Exceptions.msg("message.provider.http.pagination.param", CURSOR_PROPERTY);
+        }
+        return pagination;
+    }
+
+    private String getString(Map<String, Object> schema, String key) {
+        Object value = schema.get(key);
+        return value == null ? null : StringUtils.trimToNull(value.toString());
+    }
+
     private void replaceVariables(DataProviderSource config, Map<String, Object> schema) {
         try {
             if (CollectionUtils.isEmpty(config.getVariables())) {
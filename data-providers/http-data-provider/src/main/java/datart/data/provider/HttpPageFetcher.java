@@ -0,0 +1,319 @@
+/*
+ * Datart
+ * <p>
+ * Copyright 2021
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package datart.data.provider;
+
+import datart.core.base.exception.BaseException;
+import datart.core.common.ThreadPoolFactory;
+import datart.core.data.provider.Column;
+import datart.core.data.provider.Dataframe;
+import datart.core.data.provider.columnar.ColumnarRows;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * 分页数据的拉取。偏移量和页码分页可以预先确定每一页的请求参数，按窗口并行请求多页；
+ * 游标和 Link 分页依赖上一页的响应，只能顺序请求。所有页合并为一个 Dataframe，达到行数上限后停止请求。
+ */
+@Slf4j
+public class HttpPageFetcher {
+
+    private static final int DEFAULT_PAGE_SIZE = 100;
+
+    private static final int DEFAULT_MAX_PAGES = 1000;
+
+    /**
+     * 与数据源级别的并行请求使用不同的线程池，避免嵌套提交时线程池被占满
+     */
+    private static final ThreadPoolExecutor PAGE_EXECUTOR;
+
+    static {
+        int max = Runtime.getRuntime().availableProcessors() * 4;
+        PAGE_EXECUTOR = ThreadPoolFactory.newFixedPool("http-page", max, 60
+                , new ArrayBlockingQueue<>(max * 4), new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    private final HttpRequestParam param;
+
+    private final HttpPagination pagination;
+
+    private final int concurrency;
+
+    private final long rowLimit;
+
+    private final int pageSize;
+
+    private final int maxPages;
+
+    private List<Column> columns;
+
+    private ColumnarRows rows;
+
+    private boolean truncated;
+
+    /**
+     * @param rowLimit 需要的最大行数，小于等于0时拉取全部数据
+     */
+    public HttpPageFetcher(HttpRequestParam param, int concurrency, long rowLimit) {
+        this.param = param;
+        this.pagination = param.getPagination();
+        this.concurrency = Math.max(1, concurrency);
+        this.rowLimit = rowLimit;
+        this.pageSize = pagination.getPageSize() > 0 ? pagination.getPageSize() : DEFAULT_PAGE_SIZE;
+        this.maxPages = pagination.getMaxPages() > 0 ? pagination.getMaxPages() : DEFAULT_MAX_PAGES;
+        this.columns = param.getColumns();
+    }
+
+    public Dataframe fetch() throws IOException, URISyntaxException {
+        switch (pagination.getType()) {
+            case OFFSET:
+            case PAGE:
+                fetchIndexed();
+                break;
+            case CURSOR:
+                fetchByCursor();
+                break;
+            case LINK:
+                fetchByLink();
+                break;
+            default:
+        }
+        Dataframe dataframe = new Dataframe();
+        if (columns != null) {
+            dataframe.setColumns(columns);
+            dataframe.setRows(rows == null ? new ArrayList<>() : rows.trim());
+        }
+        return dataframe;
+    }
+
+    /**
+     * 是否因为达到行数上限而没有拉取全部数据
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    private void fetchIndexed() throws IOException, URISyntaxException {
+        String totalProperty = StringUtils.trimToNull(pagination.getTotalProperty());
+        HttpDataFetcher.Page first = fetchPage(indexedParam(0), totalProperty);
+        boolean more = append(first) && first.getRowCount() >= pageSize;
+        if (!more) {
+            return;
+        }
+        int lastPage = maxPages - 1;
+        Long total = totalProperty == null ? null : toLong(first.getAttribute(totalProperty));
+        if (total != null) {
+            lastPage = (int) Math.min(lastPage, (total + pageSize - 1) / pageSize - 1);
+        }
+        if (rowLimit > 0) {
+            lastPage = (int) Math.min(lastPage, (rowLimit + pageSize - 1) / pageSize - 1);
+        }
+        // 总数未知时按窗口预取后续页，遇到不满一页的结果即停止
+        int next = 1;
+        while (more && next <= lastPage) {
+            int end = Math.min(lastPage, next + concurrency - 1);
+            List<Future<HttpDataFetcher.Page>> futures = new ArrayList<>(end - next + 1);
+            try {
+                for (int i = next; i <= end; i++) {
+                    HttpRequestParam pageParam = indexedParam(i);
+                    futures.add(PAGE_EXECUTOR.submit(() -> fetchPage(pageParam, null)));
+                }
+                for (Future<HttpDataFetcher.Page> future : futures) {
+                    HttpDataFetcher.Page page = await(future);
+                    more = append(page) && page.getRowCount() >= pageSize;
+                    if (!more) {
+                        break;
+                    }
+                }
+            } finally {
+                for (Future<HttpDataFetcher.Page> future : futures) {
+                    future.cancel(true);
+                }
+            }
+            next = end + 1;
+        }
+        if (more && next >= maxPages) {
+            log.warn("Http pagination of {} stopped at max pages {}", param.getUrl(), maxPages);
+        }
+    }
+
+    private void fetchByCursor() throws IOException, URISyntaxException {
+        String cursorProperty = pagination.getCursorProperty();
+        String cursor = null;
+        for (int i = 0; i < maxPages; i++) {
+            HttpRequestParam pageParam = pageSizeParam();
+            if (cursor != null) {
+                pageParam.getQueryParam().put(pagination.getPageParam(), cursor);
+            }
+            HttpDataFetcher.Page page = fetchPage(pageParam, cursorProperty);
+            if (!append(page)) {
+                return;
+            }
+            Object next = page.getAttribute(cursorProperty);
+            if (next == null || StringUtils.isBlank(next.toString())) {
+                return;
+            }
+            cursor = next.toString();
+        }
+        log.warn("Http pagination of {} stopped at max pages {}", param.getUrl(), maxPages);
+    }
+
+    private void fetchByLink() throws IOException, URISyntaxException {
+        URI origin = new URI(param.getUrl());
+        HttpRequestParam pageParam = pageSizeParam();
+        for (int i = 0; i < maxPages; i++) {
+            HttpDataFetcher.Page page = fetchPage(pageParam, null);
+            if (!append(page) || StringUtils.isBlank(page.getNextLink())) {
+                return;
+            }
+            // 下一页地址中已经包含完整的查询参数，相对地址按当前页地址解析
+            URI next = new URI(pageParam.getUrl()).resolve(page.getNextLink().trim());
+            pageParam = withColumns(param.copy());
+            pageParam.setUrl(next.toString());
+            pageParam.getQueryParam().clear();
+            if (!sameOrigin(origin, next)) {
+                // Link 由服务端返回，指向其他站点时不携带认证信息和自定义请求头
+                log.warn("Http pagination link {} is not on the origin of {}, credentials and headers dropped", next, param.getUrl());
+                pageParam.setUsername(null);
+                pageParam.setPassword(null);
+                pageParam.setHeaders(new TreeMap<>());
+            }
+        }
+        log.warn("Http pagination of {} stopped at max pages {}", param.getUrl(), maxPages);
+    }
+
+    private HttpDataFetcher.Page fetchPage(HttpRequestParam pageParam, String attribute) throws IOException, URISyntaxException {
+        Set<String> attributes = attribute == null ? null : Collections.singleton(attribute);
+        return new HttpDataFetcher(pageParam).fetchPage(attributes);
+    }
+
+    /**
+     * 第 index 页（从0开始）的请求参数
+     */
+    private HttpRequestParam indexedParam(int index) {
+        HttpRequestParam pageParam = pageSizeParam();
+        long value;
+        if (pagination.getType() == HttpPagination.Type.OFFSET) {
+            long start = pagination.getStart() == null ? 0 : pagination.getStart();
+            value = start + (long) index * pageSize;
+        } else {
+            long start = pagination.getStart() == null ? 1 : pagination.getStart();
+            value = start + index;
+        }
+        pageParam.getQueryParam().put(pagination.getPageParam(), String.valueOf(value));
+        return pageParam;
+    }
+
+    private HttpRequestParam pageSizeParam() {
+        HttpRequestParam pageParam = withColumns(param.copy());
+        if (StringUtils.isNotBlank(pagination.getPageSizeParam())) {
+            pageParam.getQueryParam().put(pagination.getPageSizeParam(), String.valueOf(pageSize));
+        }
+        return pageParam;
+    }
+
+    /**
+     * 未配置列时，后续页使用第一页推断出的列，保证各页的值顺序一致
+     */
+    private HttpRequestParam withColumns(HttpRequestParam pageParam) {
+        pageParam.setColumns(columns);
+        return pageParam;
+    }
+
+    /**
+     * 合并一页数据，没有数据或达到行数上限时返回false
+     */
+    private boolean append(HttpDataFetcher.Page page) {
+        Dataframe dataframe = page.getDataframe();
+        if (dataframe == null || dataframe.getColumns() == null || page.getRowCount() == 0) {
+            return false;
+        }
+        if (rows == null) {
+            columns = dataframe.getColumns();
+            rows = new ColumnarRows(columns.size());
+        }
+        for (List<Object> row : dataframe.getRows()) {
+            if (rowLimit > 0 && rows.size() >= rowLimit) {
+                truncated = true;
+                return false;
+            }
+            rows.add(row);
+        }
+        if (rowLimit > 0 && rows.size() >= rowLimit) {
+            truncated = true;
+            return false;
+        }
+        return true;
+    }
+
+    private HttpDataFetcher.Page await(Future<HttpDataFetcher.Page> future) throws IOException, URISyntaxException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BaseException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof URISyntaxException) {
+                throw (URISyntaxException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new BaseException(cause);
+        }
+    }
+
+    static boolean sameOrigin(URI origin, URI uri) {
+        return StringUtils.equalsIgnoreCase(origin.getScheme(), uri.getScheme())
+                && StringUtils.equalsIgnoreCase(origin.getHost(), uri.getHost())
+                && port(origin) == port(uri);
+    }
+
+    private static int port(URI uri) {
+        if (uri.getPort() >= 0) {
+            return uri.getPort();
+        }
+        if ("https".equalsIgnoreCase(uri.getScheme())) {
+            return 443;
+        }
+        return "http".equalsIgnoreCase(uri.getScheme()) ? 80 : -1;
+    }
+
+    private static Long toLong(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        if (value != null) {
+            try {
+                return Long.parseLong(value.toString().trim());
+            } catch (NumberFormatException ignored) {
+            }
+        }
+        return null;
+    }
+
+}
@@ -0,0 +1,78 @@
+/*
+ * Datart
+ * <p>
+ * Copyright 2021
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package datart.data.provider;
+
+import lombok.Data;
+
+/**
+ * Http数据源的分页方式
+ */
+@Data
+public class HttpPagination {
+
+    public enum Type {
+        /**
+         * 按偏移量分页，如 offset/limit
+         */
+        OFFSET,
+        /**
+         * 按页码分页，如 page/size
+         */
+        PAGE,
+        /**
+         * 响应中返回下一页的游标
+         */
+        CURSOR,
+        /**
+         * 响应头 Link 中返回下一页的地址
+         */
+        LINK
+    }
+
+    private Type type;
+
+    /**
+     * 偏移量、页码或游标对应的请求参数名
+     */
+    private String pageParam;
+
+    /**
+     * 每页条数对应的请求参数名
+     */
+    private String pageSizeParam;
+
+    private int pageSize;
+
+    /**
+     * 起始偏移量或起始页码，为空时偏移量从0开始，页码从1开始
+     */
+    private Long start;
+
+    /**
+     * 响应中总条数的属性名，嵌套结构使用 . 分隔
+     */
+    private String totalProperty;
+
+    /**
+     * 响应中下一页游标的属性名，嵌套结构使用 . 分隔
+     */
+    private String cursorProperty;
+
+    private int maxPages;
+
+}
@@ -54,10 +54,32 @@ public class HttpRequestParam {
 
     private List<Column> columns;
 
+    private HttpPagination pagination;
+
     public String toCacheKey() {
         return new StringJoiner(":").add(url)
                 .add(headers.toString())
                 .add(queryParam.toString())
-                .add(body).toString();
+                .add(body)
+                .add(String.valueOf(pagination)).toString();
+    }
+
+    public HttpRequestParam copy() {
+        HttpRequestParam param = new HttpRequestParam();
+        param.setName(name);
+        param.setUrl(url);
+        param.setMethod(method);
+        param.setTargetPropertyName(targetPropertyName);
+        param.setUsername(username);
+        param.setPassword(password);
+        param.setTimeout(timeout);
+        param.setResponseParser(responseParser);
+        param.setHeaders(headers == null ? null : new TreeMap<>(headers));
+        param.setQueryParam(queryParam == null ? new TreeMap<>() : new TreeMap<>(queryParam));
+        param.setBody(body);
+        param.setContentType(contentType);
+        param.setColumns(columns);
+        param.setPagination(pagination);
+        return param;
     }
 }
@@ -6,9 +6,17 @@ import org.apache.http.HttpResponse;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 
 public interface HttpResponseParser {
 
     Dataframe parseResponse(String targetPropertyName, HttpResponse response, List<Column> columns) throws IOException;
 
+    /**
+     * 解析数据的同时读取响应中的其他属性（如分页的总条数、游标），attributes 的 key 为属性名，解析后填入对应的值
+     */
+    default Dataframe parseResponse(String targetPropertyName, HttpResponse response, List<Column> columns, Map<String, Object> attributes) throws IOException {
+        return parseResponse(targetPropertyName, response, columns);
+    }
+
 }
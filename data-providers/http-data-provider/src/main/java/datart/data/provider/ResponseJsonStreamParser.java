@@ -0,0 +1,332 @@
+/*
+ * Datart
+ * <p>
+ * Copyright 2021
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package datart.data.provider;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import datart.core.base.consts.ValueType;
+import datart.core.base.exception.BaseException;
+import datart.core.base.exception.Exceptions;
+import datart.core.common.Application;
+import datart.core.data.provider.Column;
+import datart.core.data.provider.Dataframe;
+import datart.core.data.provider.columnar.ColumnarRows;
+import datart.data.provider.jdbc.DataTypeUtils;
+import org.apache.commons.io.input.CountingInputStream;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.entity.ContentType;
+import org.springframework.util.CollectionUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.*;
+
+/**
+ * 流式解析 JSON 响应：使用 pull parser 定位到目标属性的数组，逐个元素读取并直接写入列式存储，
+ * 不在内存中保留完整的响应字符串和 JSON 对象树。响应大小和行数超出配置的上限时终止解析。
+ */
+public class ResponseJsonStreamParser implements HttpResponseParser {
+
+    private static final String PROPERTY_SPLIT = "\\.";
+
+    private static final long DEFAULT_MAX_BYTES = 1024L * 1024 * 1024;
+
+    /**
+     * 小数按 BigDecimal 读取并保留原始精度，与原有 fastjson 解析的结果一致
+     */
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS)
+            .setNodeFactory(JsonNodeFactory.withExactBigDecimals(true));
+
+    private static final JsonFactory FACTORY = MAPPER.getFactory();
+
+    @Override
+    public Dataframe parseResponse(String targetPropertyName, HttpResponse response, List<Column> columns) throws IOException {
+        return parseResponse(targetPropertyName, response, columns, null);
+    }
+
+    @Override
+    public Dataframe parseResponse(String targetPropertyName, HttpResponse response, List<Column> columns, Map<String, Object> attributes) throws IOException {
+        HttpEntity entity = response.getEntity();
+        if (entity == null) {
+            return new Dataframe();
+        }
+        long maxBytes = Application.getLongProperty("datart.http-provider.max-response-bytes", DEFAULT_MAX_BYTES);
+        long maxRows = Application.getLongProperty("datart.http-provider.max-rows", 0);
+        try (CountingInputStream in = new CountingInputStream(entity.getContent());
+             JsonParser parser = createParser(in, entity)) {
+            ParseContext context = new ParseContext(targetPropertyName, columns, attributes, in, maxBytes, maxRows);
+            JsonToken token = parser.nextToken();
+            if (token == null) {
+                return context.toDataframe();
+            }
+            if (StringUtils.isEmpty(targetPropertyName)) {
+                if (token != JsonToken.START_ARRAY) {
+                    Exceptions.tr(BaseException.class, "message.provider.http.property.miss", "[]");
+                }
+                context.readArray(parser);
+            } else {
+                if (token == JsonToken.START_OBJECT) {
+                    walkObject(parser, "", context);
+                }
+                if (!context.found) {
+                    Exceptions.tr(BaseException.class, "message.provider.http.property.miss", targetPropertyName);
+                }
+            }
+            return context.toDataframe();
+        }
+    }
+
+    /**
+     * 遍历对象，读取目标数组和需要的属性，与目标路径无关的字段直接跳过
+     */
+    private void walkObject(JsonParser parser, String prefix, ParseContext context) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String path = prefix.isEmpty() ? parser.getCurrentName() : prefix + "." + parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            if (path.equals(context.target)) {
+                if (token == JsonToken.START_ARRAY) {
+                    context.readArray(parser);
+                    context.found = true;
+                } else {
+                    parser.skipChildren();
+                }
+            } else if (context.attributes != null && context.attributes.containsKey(path)) {
+                context.attributes.put(path, RowReader.tokenValue(parser, token));
+                context.captured++;
+            } else if (token == JsonToken.START_OBJECT && context.onPath(path)) {
+                walkObject(parser, path, context);
+            } else {
+                parser.skipChildren();
+            }
+            if (context.complete()) {
+                return;
+            }
+        }
+    }
+
+    private JsonParser createParser(InputStream in, HttpEntity entity) throws IOException {
+        Charset charset = null;
+        try {
+            ContentType contentType = ContentType.get(entity);
+            charset = contentType == null ? null : contentType.getCharset();
+        } catch (Exception ignored) {
+        }
+        if (charset == null || charset.name().toUpperCase().startsWith("UTF")) {
+            // UTF 编码交给 Jackson 自动识别，直接按字节解析
+            return FACTORY.createParser(in);
+        }
+        return FACTORY.createParser(new InputStreamReader(in, charset));
+    }
+
+    private List<Column> inferColumns(JsonNode node) {
+        List<Column> columns = new ArrayList<>();
+        Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            Column column = new Column();
+            column.setName(field.getKey());
+            Object val = RowReader.nodeValue(field.getValue());
+            column.setType(val == null ? ValueType.STRING : DataTypeUtils.javaType2DataType(val));
+            columns.add(column);
+        }
+        return columns;
+    }
+
+    private class ParseContext {
+
+        private final String target;
+
+        private final Map<String, Object> attributes;
+
+        private final CountingInputStream in;
+
+        private final long maxBytes;
+
+        private final long maxRows;
+
+        private List<Column> columns;
+
+        private ColumnarRows rows;
+
+        private boolean found;
+
+        private int captured;
+
+        private ParseContext(String target, List<Column> columns, Map<String, Object> attributes, CountingInputStream in, long maxBytes, long maxRows) {
+            this.target = target;
+            this.columns = columns;
+            this.attributes = attributes;
+            this.in = in;
+            this.maxBytes = maxBytes;
+            this.maxRows = maxRows;
+        }
+
+        private boolean onPath(String path) {
+            String prefix = path + ".";
+            if (target != null && target.startsWith(prefix)) {
+                return true;
+            }
+            return attributes != null && attributes.keySet().stream().anyMatch(key -> key.startsWith(prefix));
+        }
+
+        private boolean complete() {
+            return found && (attributes == null || captured >= attributes.size());
+        }
+
+        /**
+         * 当前位于数组的起始位置，读取到数组结束
+         */
+        private void readArray(JsonParser parser) throws IOException {
+            RowReader reader = null;
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == null) {
+                    break;
+                }
+                if (token != JsonToken.START_OBJECT) {
+                    parser.skipChildren();
+                    continue;
+                }
+                if (reader == null) {
+                    // 未指定列时，根据第一个元素推断列信息
+                    JsonNode first = parser.readValueAsTree();
+                    if (CollectionUtils.isEmpty(columns)) {
+                        columns = inferColumns(first);
+                    }
+                    reader = new RowReader(columns);
+                    rows = new ColumnarRows(columns.size());
+                    rows.addRow(reader.readNode(first));
+                } else {
+                    rows.addRow(reader.readObject(parser));
+                }
+                if (maxBytes > 0 && in.getByteCount() > maxBytes) {
+                    Exceptions.tr(BaseException.class, "message.provider.http.response.limit", maxBytes + " bytes");
+                }
+                if (maxRows > 0 && rows.size() > maxRows) {
+                    Exceptions.tr(BaseException.class, "message.provider.http.response.limit", maxRows + " rows");
+                }
+            }
+        }
+
+        private Dataframe toDataframe() {
+            Dataframe dataframe = new Dataframe();
+            if (rows == null) {
+                return dataframe;
+            }
+            dataframe.setColumns(columns);
+            dataframe.setRows(rows.trim());
+            return dataframe;
+        }
+    }
+
+    private static class RowReader {
+
+        private final Map<String, Integer> indexes = new HashMap<>();
+
+        private final int width;
+
+        private RowReader(List<Column> columns) {
+            this.width = columns.size();
+            for (int i = 0; i < columns.size(); i++) {
+                indexes.putIfAbsent(columns.get(i).columnName(), i);
+            }
+        }
+
+        private Object[] readNode(JsonNode node) {
+            Object[] values = new Object[width];
+            Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                Integer index = indexes.get(field.getKey());
+                if (index != null) {
+                    values[index] = nodeValue(field.getValue());
+                }
+            }
+            return values;
+        }
+
+        /**
+         * 当前位于对象的起始位置，读取到对象结束
+         */
+        private Object[] readObject(JsonParser parser) throws IOException {
+            Object[] values = new Object[width];
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                Integer index = indexes.get(parser.getCurrentName());
+                JsonToken token = parser.nextToken();
+                if (index == null) {
+                    parser.skipChildren();
+                    continue;
+                }
+                values[index] = tokenValue(parser, token);
+            }
+            return values;
+        }
+
+        private static Object tokenValue(JsonParser parser, JsonToken token) throws IOException {
+            switch (token) {
+                case VALUE_STRING:
+                    return parser.getText();
+                case VALUE_NUMBER_INT:
+                    return parser.getNumberType() == JsonParser.NumberType.BIG_INTEGER ? parser.getDecimalValue() : parser.getLongValue();
+                case VALUE_NUMBER_FLOAT:
+                    return parser.getDecimalValue();
+                case VALUE_TRUE:
+                    return Boolean.TRUE;
+                case VALUE_FALSE:
+                    return Boolean.FALSE;
+                case START_OBJECT:
+                case START_ARRAY:
+                    // 嵌套结构保留为 JSON 字符串
+                    JsonNode node = parser.readValueAsTree();
+                    return node.toString();
+                default:
+                    return null;
+            }
+        }
+
+        private static Object nodeValue(JsonNode node) {
+            if (node == null || node.isNull() || node.isMissingNode()) {
+                return null;
+            }
+            if (node.isContainerNode()) {
+                return node.toString();
+            }
+            if (node.isBoolean()) {
+                return node.booleanValue();
+            }
+            if (node.isIntegralNumber()) {
+                return node.isBigInteger() ? node.decimalValue() : node.longValue();
+            }
+            if (node.isNumber()) {
+                return node.decimalValue();
+            }
+            return node.asText();
+        }
+    }
+
+}
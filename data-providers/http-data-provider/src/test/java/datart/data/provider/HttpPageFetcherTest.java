@@ -0,0 +1,306 @@
+/*
+ * Datart
+ * <p>
+ * Copyright 2021
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package datart.data.provider;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HttpPageFetcherTest {
+
+    private HttpServer server;
+
+    private ExecutorService serverExecutor;
+
+    private String url;
+
+    /**
+     * 服务端的数据条数
+     */
+    private volatile int total;
+
+    /**
+     * Link 头中下一页地址的前缀，可以是相对地址
+     */
+    private volatile String linkBase;
+
+    private final Queue<Map<String, String>> requests = new ConcurrentLinkedQueue<>();
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/items", this::handle);
+        serverExecutor = Executors.newFixedThreadPool(4);
+        server.setExecutor(serverExecutor);
+        server.start();
+        url = "http://localhost:" + server.getAddress().getPort() + "/items";
+        linkBase = url;
+    }
+
+    @AfterEach
+    public void stopServer() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    public void testOffsetStopsAtShortPage() throws Exception {
+        total = 25;
+        HttpPageFetcher fetcher = new HttpPageFetcher(param(HttpPagination.Type.OFFSET, 10), 2, 0);
+        List<List<Object>> rows = fetcher.fetch().getRows();
+
+        assertIds(rows, 25);
+        assertFalse(fetcher.isTruncated());
+        // 后续页并行请求，到达服务端的顺序不确定
+        List<String> offsets = requested("offset");
+        Collections.sort(offsets);
+        assertEquals(Arrays.asList("0", "10", "20"), offsets);
+    }
+
+    @Test
+    public void testOffsetKeepsOrderWithPrefetch() throws Exception {
+        total = 95;
+        HttpPageFetcher fetcher = new HttpPageFetcher(param(HttpPagination.Type.OFFSET, 10), 4, 0);
+        assertIds(fetcher.fetch().getRows(), 95);
+    }
+
+    @Test
+    public void testOffsetStopsAtTotal() throws Exception {
+        total = 20;
+        HttpRequestParam param = param(HttpPagination.Type.OFFSET, 10);
+        param.getPagination().setTotalProperty("data.total");
+        List<List<Object>> rows = new HttpPageFetcher(param, 4, 0).fetch().getRows();
+
+        assertIds(rows, 20);
+        // 已知总数时不再请求空的下一页
+        assertEquals(Arrays.asList("0", "10"), requested("offset"));
+    }
+
+    @Test
+    public void testPageNumberStartsAtOne() throws Exception {
+        total = 25;
+        List<List<Object>> rows = new HttpPageFetcher(param(HttpPagination.Type.PAGE, 10), 1, 0).fetch().getRows();
+
+        assertIds(rows, 25);
+        assertEquals(Arrays.asList("1", "2", "3"), requested("page"));
+    }
+
+    @Test
+    public void testRowLimit() throws Exception {
+        total = 100;
+        HttpPageFetcher fetcher = new HttpPageFetcher(param(HttpPagination.Type.OFFSET, 10), 4, 15);
+        List<List<Object>> rows = fetcher.fetch().getRows();
+
+        assertIds(rows, 15);
+        assertTrue(fetcher.isTruncated());
+        assertEquals(Arrays.asList("0", "10"), requested("offset"));
+    }
+
+    @Test
+    public void testMaxPages() throws Exception {
+        total = 100;
+        HttpRequestParam param = param(HttpPagination.Type.OFFSET, 10);
+        param.getPagination().setMaxPages(2);
+        HttpPageFetcher fetcher = new HttpPageFetcher(param, 4, 0);
+
+        assertIds(fetcher.fetch().getRows(), 20);
+        assertFalse(fetcher.isTruncated());
+        assertEquals(2, requests.size());
+    }
+
+    @Test
+    public void testCursor() throws Exception {
+        total = 25;
+        HttpRequestParam param = param(HttpPagination.Type.CURSOR, 10);
+        param.getPagination().setPageParam("cursor");
+        param.getPagination().setCursorProperty("data.next");
+        List<List<Object>> rows = new HttpPageFetcher(param, 4, 0).fetch().getRows();
+
+        assertIds(rows, 25);
+        assertEquals(Arrays.asList(null, "c10", "c20"), requested("cursor"));
+    }
+
+    @Test
+    public void testCursorRowLimit() throws Exception {
+        total = 100;
+        HttpRequestParam param = param(HttpPagination.Type.CURSOR, 10);
+        param.getPagination().setPageParam("cursor");
+        param.getPagination().setCursorProperty("data.next");
+        HttpPageFetcher fetcher = new HttpPageFetcher(param, 4, 25);
+
+        assertIds(fetcher.fetch().getRows(), 25);
+        assertTrue(fetcher.isTruncated());
+        assertEquals(3, requests.size());
+    }
+
+    @Test
+    public void testLink() throws Exception {
+        total = 25;
+        HttpRequestParam param = param(HttpPagination.Type.LINK, 10);
+        param.getPagination().setPageParam(null);
+        List<List<Object>> rows = new HttpPageFetcher(param, 4, 0).fetch().getRows();
+
+        assertIds(rows, 25);
+        assertEquals(Arrays.asList(null, "2", "3"), requested("page"));
+    }
+
+    @Test
+    public void testRelativeLinkKeepsHeaders() throws Exception {
+        total = 25;
+        linkBase = "/items";
+        HttpRequestParam param = param(HttpPagination.Type.LINK, 10);
+        param.getPagination().setPageParam(null);
+        param.setHeaders(new TreeMap<>(Collections.singletonMap("X-Token", "secret")));
+        List<List<Object>> rows = new HttpPageFetcher(param, 4, 0).fetch().getRows();
+
+        assertIds(rows, 25);
+        assertEquals(Arrays.asList(null, "2", "3"), requested("page"));
+        assertEquals(Arrays.asList("secret", "secret", "secret"), requested("_token"));
+    }
+
+    @Test
+    public void testCrossOriginLinkDropsHeaders() throws Exception {
+        total = 25;
+        // 同一个服务，但主机名不同，视为其他站点
+        linkBase = "http://127.0.0.1:" + server.getAddress().getPort() + "/items";
+        HttpRequestParam param = param(HttpPagination.Type.LINK, 10);
+        param.getPagination().setPageParam(null);
+        param.setHeaders(new TreeMap<>(Collections.singletonMap("X-Token", "secret")));
+        List<List<Object>> rows = new HttpPageFetcher(param, 4, 0).fetch().getRows();
+
+        assertIds(rows, 25);
+        assertEquals(Arrays.asList("secret", null, null), requested("_token"));
+    }
+
+    @Test
+    public void testSameOrigin() throws Exception {
+        assertTrue(HttpPageFetcher.sameOrigin(new URI("https://a.com/x"), new URI("https://A.com:443/y?p=2")));
+        assertTrue(HttpPageFetcher.sameOrigin(new URI("http://a.com:80/x"), new URI("http://a.com/y")));
+        assertFalse(HttpPageFetcher.sameOrigin(new URI("https://a.com/x"), new URI("http://a.com/x")));
+        assertFalse(HttpPageFetcher.sameOrigin(new URI("https://a.com/x"), new URI("https://b.com/x")));
+        assertFalse(HttpPageFetcher.sameOrigin(new URI("https://a.com/x"), new URI("https://a.com:8443/x")));
+    }
+
+    @Test
+    public void testEmptyFirstPage() throws Exception {
+        total = 0;
+        HttpPageFetcher fetcher = new HttpPageFetcher(param(HttpPagination.Type.OFFSET, 10), 4, 0);
+        assertNull(fetcher.fetch().getRows());
+        assertEquals(1, requests.size());
+    }
+
+    private HttpRequestParam param(HttpPagination.Type type, int pageSize) {
+        HttpPagination pagination = new HttpPagination();
+        pagination.setType(type);
+        pagination.setPageParam(type == HttpPagination.Type.OFFSET ? "offset" : "page");
+        pagination.setPageSizeParam("size");
+        pagination.setPageSize(pageSize);
+
+        HttpRequestParam param = new HttpRequestParam();
+        param.setUrl(url);
+        param.setMethod(HttpMethod.GET);
+        param.setTargetPropertyName("data.items");
+        param.setResponseParser(ResponseJsonStreamParser.class);
+        param.setQueryParam(new TreeMap<>());
+        param.setPagination(pagination);
+        return param;
+    }
+
+    private List<String> requested(String name) {
+        List<String> values = new ArrayList<>();
+        for (Map<String, String> request : requests) {
+            values.add(request.get(name));
+        }
+        return values;
+    }
+
+    private void assertIds(List<List<Object>> rows, int count) {
+        assertEquals(count, rows.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals((long) i, rows.get(i).get(0));
+            assertEquals("n" + i, rows.get(i).get(1));
+        }
+    }
+
+    /**
+     * 同时支持 offset、page、cursor 和 Link 头四种分页方式
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        Map<String, String> query = new HashMap<>();
+        String rawQuery = exchange.getRequestURI().getRawQuery();
+        if (rawQuery != null) {
+            for (String pair : rawQuery.split("&")) {
+                String[] kv = pair.split("=", 2);
+                query.put(kv[0], kv.length > 1 ? kv[1] : "");
+            }
+        }
+        String token = exchange.getRequestHeaders().getFirst("X-Token");
+        if (token != null) {
+            query.put("_token", token);
+        }
+        requests.add(query);
+
+        int size = Integer.parseInt(query.getOrDefault("size", "10"));
+        int start;
+        if (query.containsKey("offset")) {
+            start = Integer.parseInt(query.get("offset"));
+        } else if (query.containsKey("cursor")) {
+            start = Integer.parseInt(query.get("cursor").substring(1));
+        } else {
+            start = (Integer.parseInt(query.getOrDefault("page", "1")) - 1) * size;
+        }
+        int end = Math.min(total, start + size);
+
+        StringBuilder json = new StringBuilder("{\"data\":{\"total\":").append(total).append(",\"items\":[");
+        for (int i = start; i < end; i++) {
+            json.append(i == start ? "" : ",").append("{\"id\":").append(i).append(",\"name\":\"n").append(i).append("\"}");
+        }
+        json.append("]");
+        if (end < total) {
+            json.append(",\"next\":\"c").append(end).append("\"");
+            int nextPage = end / size + 1;
+            exchange.getResponseHeaders().add("Link", "<" + linkBase + "?page=" + nextPage + "&size=" + size + ">; rel=\"next\"");
+        }
+        json.append("}}");
+
+        byte[] bytes = json.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+
+}
@@ -0,0 +1,161 @@
+/*
+ * Datart
+ * <p>
+ * Copyright 2021
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package datart.data.provider;
+
+import datart.core.base.consts.ValueType;
+import datart.core.base.exception.BaseException;
+import datart.core.common.Application;
+import datart.core.data.provider.Column;
+import datart.core.data.provider.Dataframe;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResponseJsonStreamParserTest {
+
+    private final ResponseJsonStreamParser parser = new ResponseJsonStreamParser();
+
+    private ApplicationContext previous;
+
+    @AfterEach
+    public void restoreContext() {
+        if (previous != null) {
+            new Application().setApplicationContext(previous);
+            previous = null;
+        }
+    }
+
+    @Test
+    public void testRootArray() throws Exception {
+        String json = "[{\"id\":1,\"price\":1.10,\"name\":\"a\",\"nested\":{\"x\":1},\"flag\":true,\"big\":12345678901234567890123},"
+                + "{\"id\":2,\"price\":2.5,\"name\":\"b\",\"nested\":[1,2],\"flag\":false,\"big\":1,\"extra\":\"skip\"},"
+                + "{\"id\":3}]";
+        Dataframe dataframe = parser.parseResponse(null, response(json), null);
+
+        List<Column> columns = dataframe.getColumns();
+        assertEquals(6, columns.size());
+        assertEquals("id", columns.get(0).columnName());
+        assertEquals(ValueType.NUMERIC, columns.get(0).getType());
+        assertEquals(ValueType.NUMERIC, columns.get(1).getType());
+        assertEquals(ValueType.STRING, columns.get(2).getType());
+        assertEquals(ValueType.STRING, columns.get(3).getType());
+        assertEquals(ValueType.BOOLEAN, columns.get(4).getType());
+
+        List<List<Object>> rows = dataframe.getRows();
+        assertEquals(3, rows.size());
+        assertEquals(Arrays.asList(1L, new BigDecimal("1.10"), "a", "{\"x\":1}", true, new BigDecimal("12345678901234567890123")), rows.get(0));
+        assertEquals(Arrays.asList(2L, new BigDecimal("2.5"), "b", "[1,2]", false, 1L), rows.get(1));
+        assertEquals(Arrays.asList(3L, null, null, null, null, null), rows.get(2));
+    }
+
+    @Test
+    public void testNestedPathAndAttributes() throws Exception {
+        String json = "{\"code\":0,\"skip\":{\"list\":[{\"id\":9}]},"
+                + "\"data\":{\"list\":[{\"id\":1,\"name\":\"a\"},{\"id\":2,\"name\":\"b\"}],\"page\":{\"total\":20}}}";
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("code", null);
+        attributes.put("data.page.total", null);
+        Dataframe dataframe = parser.parseResponse("data.list", response(json), null, attributes);
+
+        assertEquals(2, dataframe.getRows().size());
+        assertEquals(Arrays.asList(1L, "a"), dataframe.getRows().get(0));
+        assertEquals(0L, attributes.get("code"));
+        assertEquals(20L, attributes.get("data.page.total"));
+    }
+
+    @Test
+    public void testGivenColumns() throws Exception {
+        String json = "{\"data\":[{\"a\":1,\"b\":\"x\",\"c\":true},{\"b\":\"y\"}]}";
+        List<Column> columns = Arrays.asList(Column.of(ValueType.STRING, "b"), Column.of(ValueType.NUMERIC, "a"));
+        Dataframe dataframe = parser.parseResponse("data", response(json), columns);
+
+        assertSame(columns, dataframe.getColumns());
+        assertEquals(Arrays.asList("x", 1L), dataframe.getRows().get(0));
+        assertEquals(Arrays.asList("y", null), dataframe.getRows().get(1));
+    }
+
+    @Test
+    public void testMissingProperty() {
+        assertThrows(BaseException.class, () -> parser.parseResponse("data.list", response("{\"data\":{\"items\":[]}}"), null));
+        assertThrows(BaseException.class, () -> parser.parseResponse("data", response("{\"data\":{}}"), null));
+        assertThrows(BaseException.class, () -> parser.parseResponse(null, response("{\"data\":[]}"), null));
+    }
+
+    @Test
+    public void testEmptyResponse() throws Exception {
+        Dataframe dataframe = parser.parseResponse(null, response(""), null);
+        assertNull(dataframe.getRows());
+
+        dataframe = parser.parseResponse("data", response("{\"data\":[]}"), null);
+        assertNull(dataframe.getRows());
+    }
+
+    @Test
+    public void testCharset() throws Exception {
+        BasicHttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+        response.setEntity(new StringEntity("[{\"name\":\"数据\"}]", ContentType.create("application/json", Charset.forName("GBK"))));
+        Dataframe dataframe = parser.parseResponse(null, response, null);
+        assertEquals("数据", dataframe.getRows().get(0).get(0));
+    }
+
+    @Test
+    public void testRowLimit() throws Exception {
+        withProperty("datart.http-provider.max-rows", "2");
+        assertEquals(2, parser.parseResponse(null, response("[{\"id\":1},{\"id\":2}]"), null).getRows().size());
+        assertThrows(BaseException.class, () -> parser.parseResponse(null, response("[{\"id\":1},{\"id\":2},{\"id\":3}]"), null));
+    }
+
+    @Test
+    public void testByteLimit() {
+        withProperty("datart.http-provider.max-response-bytes", "1024");
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 10000; i++) {
+            json.append(i == 0 ? "" : ",").append("{\"id\":").append(i).append(",\"name\":\"name-").append(i).append("\"}");
+        }
+        json.append("]");
+        assertThrows(BaseException.class, () -> parser.parseResponse(null, response(json.toString()), null));
+    }
+
+    private void withProperty(String key, String value) {
+        StaticApplicationContext context = new StaticApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("test", Collections.singletonMap(key, value)));
+        previous = Application.getContext() == null ? new StaticApplicationContext() : Application.getContext();
+        new Application().setApplicationContext(context);
+    }
+
+    private HttpResponse response(String json) {
+        BasicHttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+        response.setEntity(new StringEntity(json, ContentType.APPLICATION_JSON));
+        return response;
+    }
+
+}
@@ -4,8 +4,10 @@ import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.PropertyNamingStrategy;
 import datart.core.base.exception.Exceptions;
+import datart.core.common.Application;
 import datart.core.common.FileUtils;
 import datart.core.common.MessageResolver;
+import datart.core.common.ThreadPoolFactory;
 import datart.core.data.provider.*;
 import datart.data.provider.base.DataProviderException;
 import datart.data.provider.calcite.SqlParserUtils;
@@ -14,6 +16,8 @@ import datart.data.provider.jdbc.DataSourceFactory;
 import datart.data.provider.jdbc.DataSourceFactoryDruidImpl;
 import datart.data.provider.jdbc.JdbcDriverInfo;
 import datart.data.provider.jdbc.JdbcProperties;
+import datart.data.provider.jdbc.PoolMetrics;
+import datart.data.provider.jdbc.adapters.FetchMetrics;
 import datart.data.provider.jdbc.adapters.JdbcDataProviderAdapter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.calcite.sql.SqlDialect;
@@ -29,6 +33,8 @@ import java.io.InputStream;
 import java.sql.SQLException;
 import java.util.*;
 import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -52,6 +58,33 @@ public class JdbcDataProvider extends DataProvider {
 
     public static final String ENABLE_SPECIAL_SQL = "enableSpecialSQL";
 
+    public static final String FETCH_SIZE = "fetchSize";
+
+    public static final String COUNT_STRATEGY = "countStrategy";
+
+    public static final String COUNT_CACHE_TIMEOUT = "countCacheTimeout";
+
+    public static final String POOL_MAX_ACTIVE = "poolMaxActive";
+
+    public static final String POOL_MIN_IDLE = "poolMinIdle";
+
+    public static final String POOL_IDLE_TIMEOUT = "poolIdleTimeout";
+
+    public static final String POOL_MAX_WAIT = "poolMaxWait";
+
+    public static final String VALIDATION_QUERY = "validationQuery";
+
+    public static final String QUERY_TIMEOUT = "queryTimeout";
+
+    public static final String MAX_QUERY_TIMEOUT = "maxQueryTimeout";
+
+    private static final String POOL_TYPE = "datart.jdbc.pool-type";
+
+    /**
+     * 连接池状态输出到日志的间隔（秒），小于等于0时不输出
+     */
+    private static final String POOL_STATS_INTERVAL = "datart.jdbc.pool-stats-interval";
+
     private static final String I18N_PREFIX = "config.template.jdbc.";
 
     /**
@@ -59,8 +92,12 @@ public class JdbcDataProvider extends DataProvider {
      */
     public static final Integer DEFAULT_MAX_WAIT = 5000;
 
+    private static volatile DataSourceFactory<? extends DataSource> dataSourceFactory;
+
     private final Map<String, JdbcDataProviderAdapter> cachedProviders = new ConcurrentSkipListMap<>();
 
+    private ScheduledExecutorService poolStatsReporter;
+
     @Override
     public Object test(DataProviderSource source) {
         JdbcProperties jdbcProperties = conv2JdbcProperties(source);
@@ -85,6 +122,12 @@ public class JdbcDataProvider extends DataProvider {
         return adapter.readTableColumn(database, table);
     }
 
+    @Override
+    public Map<String, Set<Column>> readAllTableColumns(DataProviderSource source, String database) throws SQLException {
+        JdbcDataProviderAdapter adapter = matchProviderAdapter(source);
+        return adapter.readAllTableColumns(database);
+    }
+
     @Override
     public Dataframe execute(DataProviderSource source, QueryScript script, ExecuteParam executeParam) throws Exception {
         JdbcDataProviderAdapter adapter = matchProviderAdapter(source);
@@ -96,6 +139,14 @@ public class JdbcDataProvider extends DataProvider {
         }
     }
 
+    @Override
+    public DataCursor executeCursor(DataProviderSource source, QueryScript script, ExecuteParam executeParam, int fetchSize) throws Exception {
+        if (executeParam.isServerAggregate() && !script.isTest()) {
+            return super.executeCursor(source, script, executeParam, fetchSize);
+        }
+        return matchProviderAdapter(source).executeCursor(script, executeParam, fetchSize);
+    }
+
     @Override
     public String getType() {
         try {
@@ -129,6 +180,50 @@ public class JdbcDataProvider extends DataProvider {
             jdbcProperties.setEnableSpecialSql(true);
         }
 
+        Object fetchSize = config.getProperties().get(FETCH_SIZE);
+        if (fetchSize != null && StringUtils.isNumeric(fetchSize.toString())) {
+            jdbcProperties.setFetchSize(Integer.parseInt(fetchSize.toString()));
+        }
+
+        Object countStrategy = config.getProperties().get(COUNT_STRATEGY);
+        if (countStrategy != null && StringUtils.isNotBlank(countStrategy.toString())) {
+            jdbcProperties.setCountStrategy(countStrategy.toString());
+        }
+
+        Object countCacheTimeout = config.getProperties().get(COUNT_CACHE_TIMEOUT);
+        if (countCacheTimeout != null && StringUtils.isNumeric(countCacheTimeout.toString())) {
+            jdbcProperties.setCountCacheTimeout(Integer.parseInt(countCacheTimeout.toString()));
+        }
+
+        Integer maxActive = parseInt(config, POOL_MAX_ACTIVE);
+        if (maxActive != null) {
+            jdbcProperties.setMaxActive(maxActive);
+        }
+        Integer minIdle = parseInt(config, POOL_MIN_IDLE);
+        if (minIdle != null) {
+            jdbcProperties.setMinIdle(minIdle);
+        }
+        Integer idleTimeout = parseInt(config, POOL_IDLE_TIMEOUT);
+        if (idleTimeout != null) {
+            jdbcProperties.setIdleTimeout(idleTimeout);
+        }
+        Integer maxWait = parseInt(config, POOL_MAX_WAIT);
+        if (maxWait != null) {
+            jdbcProperties.setMaxWait(maxWait);
+        }
+        Object validationQuery = config.getProperties().get(VALIDATION_QUERY);
+        if (validationQuery != null && StringUtils.isNotBlank(validationQuery.toString())) {
+            jdbcProperties.setValidationQuery(validationQuery.toString());
+        }
+        Integer queryTimeout = parseInt(config, QUERY_TIMEOUT);
+        if (queryTimeout != null) {
+            jdbcProperties.setQueryTimeout(queryTimeout);
+        }
+        Integer maxQueryTimeout = parseInt(config, MAX_QUERY_TIMEOUT);
+        if (maxQueryTimeout != null) {
+            jdbcProperties.setMaxQueryTimeout(maxQueryTimeout);
+        }
+
         Object properties = config.getProperties().get("properties");
         if (properties != null) {
             if (properties instanceof Map) {
@@ -140,6 +235,14 @@ public class JdbcDataProvider extends DataProvider {
         return jdbcProperties;
     }
 
+    private Integer parseInt(DataProviderSource config, String key) {
+        Object value = config.getProperties().get(key);
+        if (value == null || !StringUtils.isNumeric(value.toString())) {
+            return null;
+        }
+        return Integer.parseInt(value.toString());
+    }
+
     private JdbcDataProviderAdapter matchProviderAdapter(DataProviderSource source) {
         JdbcDataProviderAdapter adapter;
         adapter = cachedProviders.get(source.getSourceId());
@@ -148,9 +251,51 @@ public class JdbcDataProvider extends DataProvider {
         }
         adapter = ProviderFactory.createDataProvider(conv2JdbcProperties(source), true);
         cachedProviders.put(source.getSourceId(), adapter);
+        startPoolStatsReporter();
         return adapter;
     }
 
+    /**
+     * 创建第一个数据源连接池后，定时将各数据源的连接池状态和结果集读取指标输出到日志
+     */
+    private synchronized void startPoolStatsReporter() {
+        if (poolStatsReporter != null) {
+            return;
+        }
+        long interval = Application.getLongProperty(POOL_STATS_INTERVAL, 300);
+        if (interval <= 0) {
+            return;
+        }
+        poolStatsReporter = ThreadPoolFactory.newScheduledPool("jdbc-pool-stats");
+        poolStatsReporter.scheduleWithFixedDelay(this::reportPoolStats, interval, interval, TimeUnit.SECONDS);
+    }
+
+    private void reportPoolStats() {
+        try {
+            Map<String, FetchMetrics.FetchStats> fetchStats = getFetchStats();
+            getPoolStats().forEach((sourceId, metrics) -> {
+                FetchMetrics.FetchStats fetch = fetchStats.get(sourceId);
+                // 有连接占用或等待时输出 info，空闲的数据源只在 debug 级别输出
+                if (metrics.getActive() > 0 || metrics.getPending() > 0) {
+                    log.info("jdbc pool {} {} {}", sourceId, metrics, fetch);
+                } else {
+                    log.debug("jdbc pool {} {} {}", sourceId, metrics, fetch);
+                }
+            });
+        } catch (Exception e) {
+            log.warn("jdbc pool stats report error", e);
+        }
+    }
+
+    /**
+     * 各数据源结果集读取的累计指标，key 为数据源ID
+     */
+    public Map<String, FetchMetrics.FetchStats> getFetchStats() {
+        Map<String, FetchMetrics.FetchStats> stats = new HashMap<>();
+        cachedProviders.forEach((sourceId, adapter) -> stats.put(sourceId, adapter.getFetchMetrics().getStats()));
+        return stats;
+    }
+
     @Override
     public Set<StdSqlOperator> supportedStdFunctions(DataProviderSource source) {
 
@@ -218,10 +363,52 @@ public class JdbcDataProvider extends DataProvider {
 
     }
 
+    /**
+     * 按配置 datart.jdbc.pool-type 从 ServiceLoader 加载的实现中选择连接池，默认使用 Druid
+     */
     public static DataSourceFactory<? extends DataSource> getDataSourceFactory() {
+        if (dataSourceFactory == null) {
+            synchronized (JdbcDataProvider.class) {
+                if (dataSourceFactory == null) {
+                    dataSourceFactory = loadDataSourceFactory();
+                }
+            }
+        }
+        return dataSourceFactory;
+    }
+
+    private static DataSourceFactory<? extends DataSource> loadDataSourceFactory() {
+        String type = DataSourceFactoryDruidImpl.TYPE;
+        try {
+            type = Application.getProperty(POOL_TYPE, type);
+        } catch (Exception ignored) {
+        }
+        for (DataSourceFactory<?> factory : ServiceLoader.load(DataSourceFactory.class)) {
+            if (type.equalsIgnoreCase(factory.getType())) {
+                log.info("jdbc data source pool: {}", factory.getType());
+                return factory;
+            }
+        }
+        log.warn("data source factory {} not found, use druid", type);
         return new DataSourceFactoryDruidImpl();
     }
 
+    /**
+     * 各数据源连接池的当前状态，key 为数据源ID
+     */
+    public Map<String, PoolMetrics> getPoolStats() {
+        Map<String, PoolMetrics> stats = new HashMap<>();
+        cachedProviders.forEach((sourceId, adapter) -> {
+            if (adapter.getDataSource() != null) {
+                PoolMetrics metrics = getDataSourceFactory().getPoolMetrics(adapter.getDataSource());
+                if (metrics != null) {
+                    stats.put(sourceId, metrics);
+                }
+            }
+        });
+        return stats;
+    }
+
 
     public static class ProviderFactory {
 
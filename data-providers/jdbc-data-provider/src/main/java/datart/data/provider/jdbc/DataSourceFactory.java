@@ -2,10 +2,24 @@ package datart.data.provider.jdbc;
 
 import javax.sql.DataSource;
 
+/**
+ * 连接池实现。通过 ServiceLoader 加载，由配置项 datart.jdbc.pool-type 按 {@link #getType()} 选择
+ */
 public interface DataSourceFactory<T extends DataSource> {
 
     T createDataSource(JdbcProperties jdbcProperties) throws Exception;
 
     void destroy(DataSource dataSource);
 
-}
\ No newline at end of file
+    default String getType() {
+        return getClass().getName();
+    }
+
+    /**
+     * 连接池当前状态，不支持时返回 null
+     */
+    default PoolMetrics getPoolMetrics(DataSource dataSource) {
+        return null;
+    }
+
+}
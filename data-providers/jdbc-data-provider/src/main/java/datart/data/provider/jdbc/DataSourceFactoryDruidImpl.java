@@ -20,8 +20,8 @@ package datart.data.provider.jdbc;
 
 import com.alibaba.druid.pool.DruidDataSource;
 import com.alibaba.druid.pool.DruidDataSourceFactory;
-import datart.data.provider.JdbcDataProvider;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
 
 import javax.sql.DataSource;
 import java.util.Properties;
@@ -29,6 +29,13 @@ import java.util.Properties;
 @Slf4j
 public class DataSourceFactoryDruidImpl implements DataSourceFactory<DruidDataSource> {
 
+    public static final String TYPE = "druid";
+
+    @Override
+    public String getType() {
+        return TYPE;
+    }
+
     @Override
     public DruidDataSource createDataSource(JdbcProperties jdbcProperties) throws Exception {
         Properties properties = configDataSource(jdbcProperties);
@@ -44,6 +51,21 @@ public class DataSourceFactoryDruidImpl implements DataSourceFactory<DruidDataSo
         ((DruidDataSource) dataSource).close();
     }
 
+    @Override
+    public PoolMetrics getPoolMetrics(DataSource dataSource) {
+        DruidDataSource druidDataSource = (DruidDataSource) dataSource;
+        PoolMetrics metrics = new PoolMetrics();
+        metrics.setType(TYPE);
+        metrics.setActive(druidDataSource.getActiveCount());
+        metrics.setIdle(druidDataSource.getPoolingCount());
+        metrics.setTotal(druidDataSource.getActiveCount() + druidDataSource.getPoolingCount());
+        metrics.setMaxActive(druidDataSource.getMaxActive());
+        metrics.setPending(druidDataSource.getWaitThreadCount());
+        metrics.setWaitCount(druidDataSource.getNotEmptyWaitCount());
+        metrics.setWaitMillis(druidDataSource.getNotEmptyWaitMillis());
+        return metrics;
+    }
+
     private Properties configDataSource(JdbcProperties properties) {
         Properties pro = new Properties();
         //connect params
@@ -55,12 +77,22 @@ public class DataSourceFactoryDruidImpl implements DataSourceFactory<DruidDataSo
         if (properties.getPassword() != null) {
             pro.setProperty(DruidDataSourceFactory.PROP_PASSWORD, properties.getPassword());
         }
-        pro.setProperty(DruidDataSourceFactory.PROP_MAXWAIT, JdbcDataProvider.DEFAULT_MAX_WAIT.toString());
+        pro.setProperty(DruidDataSourceFactory.PROP_MAXWAIT, String.valueOf(properties.getMaxWait()));
+        // pool config
+        pro.setProperty(DruidDataSourceFactory.PROP_MAXACTIVE, String.valueOf(properties.getMaxActive()));
+        pro.setProperty(DruidDataSourceFactory.PROP_MINIDLE, String.valueOf(Math.min(properties.getMinIdle(), properties.getMaxActive())));
+        pro.setProperty(DruidDataSourceFactory.PROP_MINEVICTABLEIDLETIMEMILLIS, String.valueOf(properties.getIdleTimeout() * 1000L));
+        if (StringUtils.isNotBlank(properties.getValidationQuery())) {
+            pro.setProperty(DruidDataSourceFactory.PROP_VALIDATIONQUERY, properties.getValidationQuery());
+            pro.setProperty(DruidDataSourceFactory.PROP_TESTWHILEIDLE, "true");
+        }
 
         System.setProperty("druid.mysql.usePingMethod", "false");
 
         //opt config
-        pro.putAll(properties.getProperties());
+        if (properties.getProperties() != null) {
+            pro.putAll(properties.getProperties());
+        }
         return pro;
     }
 }
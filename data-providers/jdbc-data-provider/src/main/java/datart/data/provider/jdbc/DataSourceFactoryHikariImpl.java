@@ -0,0 +1,149 @@
+/*
+ * Datart
+ * <p>
+ * Copyright 2021
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package datart.data.provider.jdbc;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import com.zaxxer.hikari.util.PropertyElf;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+
+import javax.sql.DataSource;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+@Slf4j
+public class DataSourceFactoryHikariImpl implements DataSourceFactory<HikariDataSource> {
+
+    public static final String TYPE = "hikari";
+
+    /**
+     * Hikari 允许的最小空闲回收时间（毫秒）
+     */
+    private static final long MIN_IDLE_TIMEOUT = 10_000;
+
+    private static final Set<String> CONFIG_PROPERTIES = PropertyElf.getPropertyNames(HikariConfig.class);
+
+    @Override
+    public String getType() {
+        return TYPE;
+    }
+
+    @Override
+    public HikariDataSource createDataSource(JdbcProperties jdbcProperties) throws Exception {
+        HikariDataSource dataSource = new HikariDataSource(configDataSource(jdbcProperties));
+        log.info("hikari data source created ({})", dataSource.getPoolName());
+        return dataSource;
+    }
+
+    @Override
+    public void destroy(DataSource dataSource) {
+        ((HikariDataSource) dataSource).close();
+    }
+
+    @Override
+    public PoolMetrics getPoolMetrics(DataSource dataSource) {
+        HikariDataSource hikariDataSource = (HikariDataSource) dataSource;
+        PoolMetrics metrics = new PoolMetrics();
+        metrics.setType(TYPE);
+        metrics.setMaxActive(hikariDataSource.getMaximumPoolSize());
+        HikariPoolMXBean pool = hikariDataSource.getHikariPoolMXBean();
+        if (pool != null) {
+            metrics.setActive(pool.getActiveConnections());
+            metrics.setIdle(pool.getIdleConnections());
+            metrics.setTotal(pool.getTotalConnections());
+            metrics.setPending(pool.getThreadsAwaitingConnection());
+        }
+        if (hikariDataSource.getMetricsTrackerFactory() instanceof WaitTracker) {
+            WaitTracker tracker = (WaitTracker) hikariDataSource.getMetricsTrackerFactory();
+            metrics.setWaitCount(tracker.waitCount.sum());
+            metrics.setWaitMillis(TimeUnit.NANOSECONDS.toMillis(tracker.waitNanos.sum()));
+            metrics.setTimeouts(tracker.timeouts.sum());
+        }
+        return metrics;
+    }
+
+    private HikariConfig configDataSource(JdbcProperties properties) {
+        HikariConfig config = new HikariConfig();
+        //connect params
+        config.setDriverClassName(properties.getDriverClass());
+        config.setJdbcUrl(properties.getUrl());
+        config.setUsername(properties.getUser());
+        config.setPassword(properties.getPassword());
+        // pool config
+        config.setMaximumPoolSize(Math.max(properties.getMaxActive(), 1));
+        config.setMinimumIdle(Math.min(Math.max(properties.getMinIdle(), 0), config.getMaximumPoolSize()));
+        config.setIdleTimeout(Math.max(properties.getIdleTimeout() * 1000L, MIN_IDLE_TIMEOUT));
+        config.setConnectionTimeout(properties.getMaxWait());
+        if (StringUtils.isNotBlank(properties.getValidationQuery())) {
+            config.setConnectionTestQuery(properties.getValidationQuery());
+        }
+        // 与 Druid 一致，创建连接池时不建立连接，数据源不可用时在获取连接时报错
+        config.setInitializationFailTimeout(-1);
+        config.setMetricsTrackerFactory(new WaitTracker());
+
+        //opt config: Hikari 自身的配置项设置到连接池，其余作为驱动参数
+        if (properties.getProperties() != null) {
+            Properties poolProperties = new Properties();
+            for (String key : properties.getProperties().stringPropertyNames()) {
+                if (CONFIG_PROPERTIES.contains(key)) {
+                    poolProperties.setProperty(key, properties.getProperties().getProperty(key));
+                } else {
+                    config.addDataSourceProperty(key, properties.getProperties().getProperty(key));
+                }
+            }
+            PropertyElf.setTargetFromProperties(config, poolProperties);
+        }
+        return config;
+    }
+
+    /**
+     * 统计获取连接的等待时间和超时次数，每个连接池一个实例
+     */
+    private static class WaitTracker implements MetricsTrackerFactory, IMetricsTracker {
+
+        private final LongAdder waitCount = new LongAdder();
+
+        private final LongAdder waitNanos = new LongAdder();
+
+        private final LongAdder timeouts = new LongAdder();
+
+        @Override
+        public IMetricsTracker create(String poolName, PoolStats poolStats) {
+            return this;
+        }
+
+        @Override
+        public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+            waitCount.increment();
+            waitNanos.add(elapsedAcquiredNanos);
+        }
+
+        @Override
+        public void recordConnectionTimeout() {
+            timeouts.increment();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Datart
+ * <p>
+ * Copyright 2021
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package datart.data.provider.jdbc;
+
+import lombok.Data;
+
+/**
+ * 连接池状态，用于观察各数据源的连接占用和等待情况
+ */
+@Data
+public class PoolMetrics {
+
+    private String type;
+
+    private int active;
+
+    private int idle;
+
+    private int total;
+
+    private int maxActive;
+
+    /**
+     * 正在等待获取连接的线程数
+     */
+    private int pending;
+
+    /**
+     * 累计等待获取连接的次数和时间
+     */
+    private long waitCount;
+
+    private long waitMillis;
+
+    /**
+     * 累计获取连接超时的次数，连接池不支持时为 -1
+     */
+    private long timeouts = -1;
+
+}
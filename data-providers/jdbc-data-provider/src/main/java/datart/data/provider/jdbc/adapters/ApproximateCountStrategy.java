@@ -0,0 +1,33 @@
+/*
+ * Datart
+ * <p>
+ * Copyright 2021
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package datart.data.provider.jdbc.adapters;
+
+/**
+ * 使用数据库执行计划中的预估行数作为总记录数，数据库不支持预估时执行精确的 COUNT 查询
+ */
+public class ApproximateCountStrategy implements CountStrategy {
+
+    @Override
+    public long count(JdbcDataProviderAdapter adapter, String sql) throws Exception {
+        Long estimate = adapter.estimateCount(sql);
+        if (estimate != null) {
+            return estimate;
+        }
+        return adapter.executeCountSql(sql);
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Datart
+ * <p>
+ * Copyright 2021
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package datart.data.provider.jdbc.adapters;
+
+import lombok.AllArgsConstructor;
+import org.apache.commons.codec.digest.DigestUtils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 按查询缓存总记录数，在有效期内翻页或刷新时不再重复执行 COUNT 查询
+ */
+public class CachedCountStrategy implements CountStrategy {
+
+    private static final int MAX_ENTRIES = 1024;
+
+    private final CountStrategy delegate;
+
+    private final long timeoutMillis;
+
+    private final Map<String, Entry> cache = new LinkedHashMap<String, Entry>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    public CachedCountStrategy(CountStrategy delegate, int timeoutSeconds) {
+        this.delegate = delegate;
+        this.timeoutMillis = timeoutSeconds * 1000L;
+    }
+
+    @Override
+    public long count(JdbcDataProviderAdapter adapter, String sql) throws Exception {
+        String key = DigestUtils.md5Hex(sql);
+        long now = System.currentTimeMillis();
+        synchronized (cache) {
+            Entry entry = cache.get(key);
+            if (entry != null && entry.expireAt > now) {
+                return entry.count;
+            }
+        }
+        long count = delegate.count(adapter, sql);
+        synchronized (cache) {
+            cache.put(key, new Entry(count, now + timeoutMillis));
+        }
+        return count;
+    }
+
+    @AllArgsConstructor
+    private static class Entry {
+
+        private final long count;
+
+        private final long expireAt;
+    }
+}
@@ -37,4 +37,12 @@ public class ClickHouseDataProviderAdapter extends JdbcDataProviderAdapter {
         }
         return super.readCurrDatabase(conn, isCatalog);
     }
+
+    /**
+     * ClickHouse 按数据块返回结果，批次过小时驱动需要频繁拆分数据块
+     */
+    @Override
+    protected int getBatchFetchSize() {
+        return Math.max(super.getBatchFetchSize(), LARGE_FETCH_SIZE);
+    }
 }
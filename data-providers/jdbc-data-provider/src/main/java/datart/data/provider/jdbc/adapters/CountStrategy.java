@@ -0,0 +1,51 @@
+/*
+ * Datart
+ * <p>
+ * Copyright 2021
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package datart.data.provider.jdbc.adapters;
+
+import datart.data.provider.jdbc.JdbcProperties;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * 分页查询时获取总记录数的策略
+ */
+public interface CountStrategy {
+
+    String EXACT = "EXACT";
+
+    String APPROXIMATE = "APPROXIMATE";
+
+    String CACHED = "CACHED";
+
+    /**
+     * @param adapter 数据源适配器
+     * @param sql     不包含分页的SQL
+     * @return 总记录数
+     */
+    long count(JdbcDataProviderAdapter adapter, String sql) throws Exception;
+
+    static CountStrategy of(JdbcProperties jdbcProperties) {
+        String strategy = StringUtils.upperCase(jdbcProperties.getCountStrategy());
+        if (APPROXIMATE.equals(strategy)) {
+            return new ApproximateCountStrategy();
+        }
+        if (CACHED.equals(strategy)) {
+            return new CachedCountStrategy(new ExactCountStrategy(), jdbcProperties.getCountCacheTimeout());
+        }
+        return new ExactCountStrategy();
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Datart
+ * <p>
+ * Copyright 2021
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package datart.data.provider.jdbc.adapters;
+
+import lombok.Data;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 数据源结果集读取指标，每个数据源一份，用于观察结果集拉取与解码的吞吐
+ */
+public class FetchMetrics {
+
+    private final LongAdder queries = new LongAdder();
+
+    private final LongAdder rows = new LongAdder();
+
+    private final LongAdder nanos = new LongAdder();
+
+    public void record(long rowCount, long elapsedNanos) {
+        queries.increment();
+        rows.add(rowCount);
+        nanos.add(elapsedNanos);
+    }
+
+    public FetchStats getStats() {
+        FetchStats stats = new FetchStats();
+        stats.setQueries(queries.sum());
+        stats.setRows(rows.sum());
+        stats.setMillis(TimeUnit.NANOSECONDS.toMillis(nanos.sum()));
+        stats.setRowsPerSecond(rowsPerSecond(rows.sum(), nanos.sum()));
+        return stats;
+    }
+
+    static long rowsPerSecond(long rows, long nanos) {
+        return nanos <= 0 ? rows : rows * TimeUnit.SECONDS.toNanos(1) / nanos;
+    }
+
+    @Data
+    public static class FetchStats {
+
+        private long queries;
+
+        private long rows;
+
+        private long millis;
+
+        private long rowsPerSecond;
+    }
+
+}
@@ -5,9 +5,12 @@ import org.apache.commons.lang3.StringUtils;
 import java.net.URI;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 public class HiveDataProviderAdapter extends JdbcDataProviderAdapter {
 
+    private static final Pattern NUM_ROWS = Pattern.compile("Num rows: (\\d+)");
 
     @Override
     protected String readCurrDatabase(Connection conn, boolean isCatalog) throws SQLException {
@@ -20,4 +23,25 @@ public class HiveDataProviderAdapter extends JdbcDataProviderAdapter {
         }
         return super.readCurrDatabase(conn, isCatalog);
     }
+
+    /**
+     * HiveServer2 每次 FetchResults 都是一次 Thrift 往返，默认批次过小时全量读取主要耗在往返上
+     */
+    @Override
+    protected int getBatchFetchSize() {
+        return Math.max(super.getBatchFetchSize(), LARGE_FETCH_SIZE);
+    }
+
+    /**
+     * 执行计划中最后一个算子的统计信息即为输出行数的预估值
+     */
+    @Override
+    protected Long estimateCount(String sql) throws SQLException {
+        Matcher matcher = NUM_ROWS.matcher(readExplainPlan("EXPLAIN " + sql));
+        Long rows = null;
+        while (matcher.find()) {
+            rows = Long.parseLong(matcher.group(1));
+        }
+        return rows;
+    }
 }
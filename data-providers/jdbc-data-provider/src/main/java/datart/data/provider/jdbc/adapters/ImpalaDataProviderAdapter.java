@@ -24,12 +24,17 @@ import datart.core.data.provider.QueryScript;
 import datart.core.data.provider.sql.OrderOperator;
 import org.apache.commons.collections4.CollectionUtils;
 
+import java.math.BigDecimal;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.Collections;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 public class ImpalaDataProviderAdapter extends JdbcDataProviderAdapter {
 
+    private static final Pattern CARDINALITY = Pattern.compile("cardinality=([\\d.]+)([KMBT]?)");
+
     @Override
     protected boolean isReadFromCatalog(Connection conn) throws SQLException {
         return false;
@@ -42,4 +47,32 @@ public class ImpalaDataProviderAdapter extends JdbcDataProviderAdapter {
         }
         return super.executeOnSource(script, executeParam);
     }
+
+    /**
+     * 执行计划中第一个 cardinality 属于最顶层的算子，即查询结果的预估行数
+     */
+    @Override
+    protected Long estimateCount(String sql) throws SQLException {
+        Matcher matcher = CARDINALITY.matcher(readExplainPlan("EXPLAIN " + sql));
+        if (!matcher.find()) {
+            return null;
+        }
+        BigDecimal rows = new BigDecimal(matcher.group(1));
+        switch (matcher.group(2)) {
+            case "K":
+                rows = rows.movePointRight(3);
+                break;
+            case "M":
+                rows = rows.movePointRight(6);
+                break;
+            case "B":
+                rows = rows.movePointRight(9);
+                break;
+            case "T":
+                rows = rows.movePointRight(12);
+                break;
+            default:
+        }
+        return rows.longValue();
+    }
 }
@@ -0,0 +1,152 @@
+/*
+ * Datart
+ * <p>
+ * Copyright 2021
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package datart.data.provider.jdbc.adapters;
+
+import datart.core.data.provider.Column;
+import datart.core.data.provider.DataCursor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * JDBC 结果集游标。每次只从驱动读取一个批次的数据，调用方处理完当前批次后才会继续读取，
+ * 游标关闭时释放 ResultSet、Statement 并将连接归还连接池。
+ */
+@Slf4j
+public class JdbcDataCursor implements DataCursor {
+
+    private final JdbcDataProviderAdapter adapter;
+
+    private final Connection connection;
+
+    private final Statement statement;
+
+    private final ResultSet resultSet;
+
+    private final ResultSetDecoder decoder;
+
+    private final int batchSize;
+
+    private final long maxRows;
+
+    private List<Column> columns;
+
+    private long rowCount;
+
+    private boolean finished;
+
+    /**
+     * 结果集是否已经读取到末尾
+     */
+    private boolean exhausted;
+
+    private boolean closed;
+
+    private long fetchNanos;
+
+    JdbcDataCursor(JdbcDataProviderAdapter adapter, Connection connection, Statement statement, ResultSet resultSet, int batchSize, long maxRows) throws SQLException {
+        this.adapter = adapter;
+        this.connection = connection;
+        this.statement = statement;
+        this.resultSet = resultSet;
+        this.batchSize = Math.max(batchSize, 1);
+        this.maxRows = maxRows <= 0 ? Long.MAX_VALUE : maxRows;
+        this.decoder = adapter.createDecoder(resultSet, 0);
+        this.columns = decoder.getColumns();
+    }
+
+    @Override
+    public List<Column> getColumns() {
+        return columns;
+    }
+
+    public void setColumns(List<Column> columns) {
+        this.columns = columns;
+    }
+
+    @Override
+    public List<List<Object>> nextBatch() throws SQLException {
+        if (finished || closed) {
+            return Collections.emptyList();
+        }
+        long start = System.nanoTime();
+        List<List<Object>> rows = new ArrayList<>((int) Math.min(batchSize, maxRows - rowCount));
+        while (rows.size() < batchSize && rowCount < maxRows) {
+            if (!resultSet.next()) {
+                finished = true;
+                exhausted = true;
+                break;
+            }
+            rows.add(decoder.readRow(resultSet));
+            rowCount++;
+        }
+        fetchNanos += System.nanoTime() - start;
+        if (rowCount >= maxRows) {
+            finished = true;
+        }
+        if (finished) {
+            // 数据读取完毕后尽早归还连接
+            close();
+        }
+        return rows;
+    }
+
+    @Override
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        adapter.recordFetch(rowCount, fetchNanos);
+        if (!exhausted) {
+            // 流式结果集关闭时会读完剩余数据，提前结束时先取消查询
+            try {
+                statement.cancel();
+            } catch (SQLException e) {
+                log.warn("statement cancel error", e);
+            }
+        }
+        try {
+            resultSet.close();
+        } catch (SQLException e) {
+            log.warn("result set close error", e);
+        }
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            log.warn("statement close error", e);
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            log.error("connection close error", e);
+        }
+    }
+}
@@ -24,7 +24,9 @@ import datart.core.base.consts.ValueType;
 import datart.core.base.exception.Exceptions;
 import datart.core.common.BeanUtils;
 import datart.core.common.ReflectUtils;
+import datart.core.common.ThreadPoolFactory;
 import datart.core.data.provider.*;
+import datart.core.data.provider.columnar.ColumnarRows;
 import datart.data.provider.JdbcDataProvider;
 import datart.data.provider.calcite.dialect.CustomSqlDialect;
 import datart.data.provider.calcite.dialect.FetchAndOffsetSupport;
@@ -52,6 +54,7 @@ import java.lang.reflect.Constructor;
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -71,6 +74,22 @@ public class JdbcDataProviderAdapter implements Closeable {
 
     protected static final String FKCOLUMN_NAME = "FKCOLUMN_NAME";
 
+    /**
+     * 单次往返开销较大的数据源在全量读取时使用的批次行数
+     */
+    protected static final int LARGE_FETCH_SIZE = 20_000;
+
+    /**
+     * 分页查询时，总数查询与数据查询并行执行。线程数与队列长度有限，队列已满时在当前线程顺序执行
+     */
+    private static final ThreadPoolExecutor COUNT_EXECUTOR;
+
+    static {
+        int max = Runtime.getRuntime().availableProcessors() * 2;
+        COUNT_EXECUTOR = ThreadPoolFactory.newFixedPool("jdbc-count", max, 30
+                , new ArrayBlockingQueue<>(max * 16), new ThreadPoolExecutor.AbortPolicy());
+    }
+
     protected DataSource dataSource;
 
     protected JdbcProperties jdbcProperties;
@@ -81,10 +100,17 @@ public class JdbcDataProviderAdapter implements Closeable {
 
     protected SqlDialect sqlDialect;
 
+    protected CountStrategy countStrategy;
+
+    private volatile boolean importedKeysUnsupported;
+
+    protected final FetchMetrics fetchMetrics = new FetchMetrics();
+
     public final void init(JdbcProperties jdbcProperties, JdbcDriverInfo driverInfo) {
         try {
             this.jdbcProperties = jdbcProperties;
             this.driverInfo = driverInfo;
+            this.countStrategy = CountStrategy.of(jdbcProperties);
             this.dataSource = JdbcDataProvider.getDataSourceFactory().createDataSource(jdbcProperties);
         } catch (Exception e) {
             log.error("data provider init error", e);
@@ -144,15 +170,8 @@ public class JdbcDataProviderAdapter implements Closeable {
         try (Connection conn = getConn()) {
             Set<String> tables = new HashSet<>();
             DatabaseMetaData metadata = conn.getMetaData();
-            String catalog = null;
-            String schema = null;
-            if (isReadFromCatalog(conn)) {
-                catalog = database;
-                schema = conn.getSchema();
-            } else {
-                schema = database;
-            }
-            try (ResultSet rs = metadata.getTables(catalog, schema, "%", new String[]{"TABLE", "VIEW"})) {
+            String[] catalogAndSchema = getCatalogAndSchema(conn, database);
+            try (ResultSet rs = metadata.getTables(catalogAndSchema[0], catalogAndSchema[1], "%", new String[]{"TABLE", "VIEW"})) {
                 while (rs.next()) {
                     String tableName = rs.getString(3);
                     tables.add(tableName);
@@ -166,11 +185,18 @@ public class JdbcDataProviderAdapter implements Closeable {
         return conn.getMetaData().getCatalogs().next();
     }
 
+    private String[] getCatalogAndSchema(Connection conn, String database) throws SQLException {
+        if (isReadFromCatalog(conn)) {
+            return new String[]{database, conn.getSchema()};
+        }
+        return new String[]{null, database};
+    }
+
     public Set<Column> readTableColumn(String database, String table) throws SQLException {
         try (Connection conn = getConn()) {
             Set<Column> columnSet = new HashSet<>();
             DatabaseMetaData metadata = conn.getMetaData();
-            Map<String, List<ForeignKey>> importedKeys = getImportedKeys(metadata, database, table);
+            Map<String, List<ForeignKey>> importedKeys = importedKeysUnsupported ? Collections.emptyMap() : getImportedKeys(metadata, database, table);
             try (ResultSet columns = metadata.getColumns(database, null, table, null)) {
                 while (columns.next()) {
                     Column column = readTableColumn(columns);
@@ -182,6 +208,42 @@ public class JdbcDataProviderAdapter implements Closeable {
         }
     }
 
+    /**
+     * 通过一次 getColumns 调用读取库中所有表的列，表较多时避免逐表往返。
+     * 驱动不支持按通配符读取时返回 null，由调用方逐表读取
+     */
+    public Map<String, Set<Column>> readAllTableColumns(String database) throws SQLException {
+        try (Connection conn = getConn()) {
+            Map<String, Set<Column>> tableColumns = new HashMap<>();
+            DatabaseMetaData metadata = conn.getMetaData();
+            String[] catalogAndSchema = getCatalogAndSchema(conn, database);
+            try (ResultSet columns = metadata.getColumns(catalogAndSchema[0], catalogAndSchema[1], "%", null)) {
+                while (columns.next()) {
+                    tableColumns.computeIfAbsent(columns.getString(3), key -> new HashSet<>())
+                            .add(readTableColumn(columns));
+                }
+            } catch (SQLFeatureNotSupportedException e) {
+                log.warn("read all table columns is not supported, read table by table. {}", e.getMessage());
+                return null;
+            }
+            if (!importedKeysUnsupported) {
+                for (Map.Entry<String, Set<Column>> entry : tableColumns.entrySet()) {
+                    Map<String, List<ForeignKey>> importedKeys = getImportedKeys(metadata, database, entry.getKey());
+                    if (importedKeys.isEmpty()) {
+                        if (importedKeysUnsupported) {
+                            break;
+                        }
+                        continue;
+                    }
+                    for (Column column : entry.getValue()) {
+                        column.setForeignKeys(importedKeys.get(column.columnKey()));
+                    }
+                }
+            }
+            return tableColumns;
+        }
+    }
+
     public String getQueryKey(QueryScript script, ExecuteParam executeParam) throws SqlParseException {
         SqlScriptRender render = new SqlScriptRender(script, executeParam, getSqlDialect(), jdbcProperties.isEnableSpecialSql(), driverInfo.getQuoteIdentifiers());
         return "Q" + DigestUtils.md5Hex(render.render(true, supportPaging(), true) + ";includeColumns:" + JSON.toJSONString(executeParam.getIncludeColumns()) + ";viewId:" + script.getViewId() + ";pageInfo:" + JSON.toJSONString(executeParam.getPageInfo()));
@@ -208,7 +270,11 @@ public class JdbcDataProviderAdapter implements Closeable {
                 keyMap.computeIfAbsent(importedKeys.getString(FKCOLUMN_NAME), key -> new ArrayList<>()).add(foreignKey);
             }
         } catch (SQLFeatureNotSupportedException e) {
-            log.warn(e.getMessage());
+            // 不支持外键的数据源（如 Hive）只提示一次，之后不再查询
+            if (!importedKeysUnsupported) {
+                log.warn(e.getMessage());
+            }
+            importedKeysUnsupported = true;
         }
         return keyMap;
     }
@@ -221,8 +287,16 @@ public class JdbcDataProviderAdapter implements Closeable {
      * @throws SQLException SQL执行异常
      */
     protected Dataframe execute(String sql) throws SQLException {
+        return execute(sql, 0);
+    }
+
+    /**
+     * @param expectedRows 预期返回的行数，用于确定 fetchSize，小于等于0表示未知
+     */
+    protected Dataframe execute(String sql, long expectedRows) throws SQLException {
         try (Connection conn = getConn()) {
-            try (Statement statement = conn.createStatement()) {
+            try (Statement statement = createStatement(conn)) {
+                statement.setFetchSize(resolveFetchSize(expectedRows));
                 try (ResultSet rs = statement.executeQuery(sql)) {
                     return parseResultSet(rs);
                 }
@@ -230,6 +304,93 @@ public class JdbcDataProviderAdapter implements Closeable {
         }
     }
 
+    /**
+     * 以游标方式执行查询，调用方按批次拉取数据，游标关闭时释放连接。
+     *
+     * @param fetchSize 每批次读取的行数，小于等于0时使用数据源配置
+     * @return 查询游标
+     */
+    public DataCursor executeCursor(QueryScript script, ExecuteParam executeParam, int fetchSize) throws Exception {
+        SqlScriptRender render = new SqlScriptRender(script
+                , executeParam
+                , getSqlDialect()
+                , jdbcProperties.isEnableSpecialSql()
+                , driverInfo.getQuoteIdentifiers());
+        PageInfo pageInfo = executeParam.getPageInfo();
+        if (pageInfo == null || supportPaging()) {
+            String sql = render.render(true, pageInfo != null, false);
+            log.debug(sql);
+            return openCursor(sql, fetchSize, 0, 0);
+        }
+        String sql = render.render(true, false, false);
+        log.debug(sql);
+        return openCursor(sql, fetchSize, (pageInfo.getPageNo() - 1) * pageInfo.getPageSize(), pageInfo.getPageSize());
+    }
+
+    /**
+     * 打开结果集游标，连接的所有权转移给游标。
+     *
+     * @param sql       提交至数据源执行的SQL
+     * @param fetchSize 每批次读取的行数，小于等于0时使用数据源配置
+     * @param skip      跳过的行数，用于未支持SQL分页的数据库
+     * @param maxRows   最多读取的行数，小于等于0时不限制
+     * @return 查询游标
+     * @throws SQLException SQL执行异常
+     */
+    protected JdbcDataCursor openCursor(String sql, int fetchSize, long skip, long maxRows) throws SQLException {
+        fetchSize = fetchSize > 0 ? fetchSize : jdbcProperties.getFetchSize();
+        Connection conn = getConn();
+        Statement statement = null;
+        boolean opened = false;
+        try {
+            statement = createStatement(conn);
+            statement.setFetchSize(resolveFetchSize(maxRows > 0 ? skip + maxRows : 0));
+            ResultSet rs = statement.executeQuery(sql);
+            long count = 0;
+            while (count < skip && rs.next()) {
+                count++;
+            }
+            JdbcDataCursor cursor = new JdbcDataCursor(this, conn, statement, rs, fetchSize, maxRows);
+            opened = true;
+            return cursor;
+        } finally {
+            // 游标未创建成功时（包括运行时异常），连接不会再被使用，在此处归还
+            if (!opened) {
+                closeQuietly(statement);
+                closeQuietly(conn);
+            }
+        }
+    }
+
+    private static void closeQuietly(AutoCloseable closeable) {
+        if (closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        } catch (Exception e) {
+            log.warn("Jdbc resource close error", e);
+        }
+    }
+
+    /**
+     * 直接执行并以列式结构保存结果，用于服务端聚合时拉取全量数据。
+     *
+     * @param sql 直接提交至数据源执行的SQL
+     * @return 全量数据
+     * @throws SQLException SQL执行异常
+     */
+    protected Dataframe executeColumnar(String sql) throws SQLException {
+        try (Connection conn = getConn()) {
+            try (Statement statement = createStatement(conn)) {
+                statement.setFetchSize(resolveFetchSize(0));
+                try (ResultSet rs = statement.executeQuery(sql)) {
+                    return parseResultSetColumnar(rs);
+                }
+            }
+        }
+    }
+
     /**
      * 用于未支持SQL分页的数据库，使用通用的分页方案进行分页。
      *
@@ -241,8 +402,8 @@ public class JdbcDataProviderAdapter implements Closeable {
     protected Dataframe execute(String selectSql, PageInfo pageInfo) throws SQLException {
         Dataframe dataframe;
         try (Connection conn = getConn()) {
-            try (Statement statement = conn.createStatement()) {
-                statement.setFetchSize((int) Math.min(pageInfo.getPageSize(), 10_000));
+            try (Statement statement = createStatement(conn)) {
+                statement.setFetchSize(resolveFetchSize(pageInfo.getPageSize()));
                 try (ResultSet resultSet = statement.executeQuery(selectSql)) {
                     try {
                         resultSet.absolute((int) Math.min(pageInfo.getTotal(), (pageInfo.getPageNo() - 1) * pageInfo.getPageSize()));
@@ -267,17 +428,116 @@ public class JdbcDataProviderAdapter implements Closeable {
      */
     public int executeCountSql(String sql) throws SQLException {
         try (Connection connection = getConn()) {
-            PreparedStatement preparedStatement = connection.prepareStatement(String.format(COUNT_SQL, sql));
-            ResultSet resultSet = preparedStatement.executeQuery();
-            resultSet.next();
-            return resultSet.getInt(1);
+            try (Statement statement = createStatement(connection)) {
+                ResultSet resultSet = statement.executeQuery(String.format(COUNT_SQL, sql));
+                resultSet.next();
+                return resultSet.getInt(1);
+            }
         }
     }
 
+    /**
+     * 使用数据库执行计划预估总记录数，用于 APPROXIMATE 总数策略
+     *
+     * @param sql 不包含分页的SQL
+     * @return 预估的总记录数，数据库不支持时返回null
+     */
+    protected Long estimateCount(String sql) throws SQLException {
+        return null;
+    }
+
+    /**
+     * 执行 EXPLAIN 类语句，返回第一列所有行拼接后的执行计划文本
+     */
+    protected String readExplainPlan(String explainSql) throws SQLException {
+        try (Connection connection = getConn()) {
+            try (Statement statement = createStatement(connection)) {
+                try (ResultSet resultSet = statement.executeQuery(explainSql)) {
+                    StringBuilder plan = new StringBuilder();
+                    while (resultSet.next()) {
+                        plan.append(resultSet.getString(1)).append('\n');
+                    }
+                    return plan.toString();
+                }
+            }
+        }
+    }
+
+    /**
+     * 根据预期读取的行数确定 fetchSize：行数较少时一次取完，全量读取时按批次读取。
+     *
+     * @param expectedRows 预期读取的行数，小于等于0表示全量读取
+     */
+    protected int resolveFetchSize(long expectedRows) {
+        int batchSize = Math.max(getBatchFetchSize(), 1);
+        if (expectedRows > 0) {
+            return (int) Math.min(expectedRows, batchSize);
+        }
+        return batchSize;
+    }
+
+    /**
+     * 全量读取时每批次的行数，默认使用数据源配置
+     */
+    protected int getBatchFetchSize() {
+        return jdbcProperties.getFetchSize();
+    }
+
     protected Connection getConn() throws SQLException {
         return dataSource.getConnection();
     }
 
+    protected Statement createStatement(Connection conn) throws SQLException {
+        return register(conn.createStatement());
+    }
+
+    protected Statement createStatement(Connection conn, int resultSetType, int resultSetConcurrency) throws SQLException {
+        return register(conn.createStatement(resultSetType, resultSetConcurrency));
+    }
+
+    /**
+     * 设置查询超时，当前线程绑定了取消信号时登记 Statement，使其可以被取消
+     */
+    private Statement register(Statement statement) throws SQLException {
+        QueryCanceller canceller = QueryCanceller.current();
+        applyQueryTimeout(statement, canceller == null ? 0 : canceller.getQueryTimeout());
+        if (canceller != null) {
+            try {
+                canceller.register(statement);
+            } catch (SQLException e) {
+                statement.close();
+                throw e;
+            }
+        }
+        return statement;
+    }
+
+    /**
+     * 查询超时(秒)：优先使用请求指定的超时，否则使用数据源默认值，且不超过数据源配置的最大值
+     */
+    protected int resolveQueryTimeout(int requested) {
+        int timeout = requested > 0 ? requested : jdbcProperties.getQueryTimeout();
+        int max = jdbcProperties.getMaxQueryTimeout();
+        if (max > 0 && (timeout <= 0 || timeout > max)) {
+            timeout = max;
+        }
+        return Math.max(timeout, 0);
+    }
+
+    private void applyQueryTimeout(Statement statement, int requested) {
+        int timeout = resolveQueryTimeout(requested);
+        if (timeout <= 0) {
+            return;
+        }
+        try {
+            statement.setQueryTimeout(timeout);
+        } catch (SQLFeatureNotSupportedException e) {
+            log.debug("Query timeout is not supported by driver " + jdbcProperties.getDriverClass());
+        } catch (SQLException e) {
+            log.warn("Set query timeout error", e);
+        }
+    }
+
     @Override
     public void close() {
         if (dataSource == null) {
@@ -372,33 +632,63 @@ public class JdbcDataProviderAdapter implements Closeable {
     }
 
     protected Dataframe parseResultSet(ResultSet rs, long count) throws SQLException {
+        return parseResultSet(rs, count, createDecoder(rs, 0));
+    }
+
+    protected Dataframe parseResultSet(ResultSet rs, long count, ResultSetDecoder decoder) throws SQLException {
+        long start = System.nanoTime();
         Dataframe dataframe = new Dataframe();
-        List<Column> columns = getColumns(rs);
         ArrayList<List<Object>> rows = new ArrayList<>();
-        int c = 0;
-        while (rs.next()) {
-            ArrayList<Object> row = new ArrayList<>();
-            rows.add(row);
-            for (int i = 1; i < columns.size() + 1; i++) {
-                row.add(getObjFromResultSet(rs, i));
-            }
+        long c = 0;
+        while (c < count && rs.next()) {
+            rows.add(decoder.readRow(rs));
             c++;
-            if (c >= count) {
-                break;
-            }
         }
-        dataframe.setColumns(columns);
+        recordFetch(rows.size(), System.nanoTime() - start);
+        dataframe.setColumns(decoder.getColumns());
         dataframe.setRows(rows);
         return dataframe;
     }
 
+    protected Dataframe parseResultSetColumnar(ResultSet rs) throws SQLException {
+        long start = System.nanoTime();
+        Dataframe dataframe = new Dataframe();
+        ResultSetDecoder decoder = createDecoder(rs, 0);
+        ColumnarRows rows = new ColumnarRows(decoder.getColumnCount());
+        Object[] values = new Object[decoder.getColumnCount()];
+        while (rs.next()) {
+            decoder.read(rs, values);
+            rows.addRow(values);
+        }
+        recordFetch(rows.size(), System.nanoTime() - start);
+        dataframe.setColumns(decoder.getColumns());
+        dataframe.setRows(rows.trim());
+        return dataframe;
+    }
+
+    /**
+     * 创建结果集解码器，子类可以覆盖以调整特定类型的读取方式
+     *
+     * @param skipColumns 跳过的前置列数，如分页包装产生的行号列
+     */
+    protected ResultSetDecoder createDecoder(ResultSet rs, int skipColumns) throws SQLException {
+        return new ResultSetDecoder(this, rs, skipColumns);
+    }
+
+    void recordFetch(long rows, long nanos) {
+        fetchMetrics.record(rows, nanos);
+        if (log.isDebugEnabled()) {
+            log.debug("Fetch {} rows in {}ms, {} rows/s", rows, TimeUnit.NANOSECONDS.toMillis(nanos), FetchMetrics.rowsPerSecond(rows, nanos));
+        }
+    }
+
     protected List<Column> getColumns(ResultSet rs) throws SQLException {
         ArrayList<Column> columns = new ArrayList<>();
-        for (int i = 1; i <= rs.getMetaData().getColumnCount(); i++) {
-            int columnType = rs.getMetaData().getColumnType(i);
-            String columnName = rs.getMetaData().getColumnLabel(i);
-            ValueType valueType = DataTypeUtils.jdbcType2DataType(columnType);
-            columns.add(Column.of(valueType, columnName));
+        ResultSetMetaData metaData = rs.getMetaData();
+        int columnCount = metaData.getColumnCount();
+        for (int i = 1; i <= columnCount; i++) {
+            ValueType valueType = DataTypeUtils.jdbcType2DataType(metaData.getColumnType(i));
+            columns.add(Column.of(valueType, metaData.getColumnLabel(i)));
         }
         return columns;
     }
@@ -432,7 +722,28 @@ public class JdbcDataProviderAdapter implements Closeable {
                 , jdbcProperties.isEnableSpecialSql()
                 , driverInfo.getQuoteIdentifiers());
         String sql = render.render(true, false, false);
-        Dataframe data = execute(sql);
+
+        // 只涉及一张表时，直接将结果集流式写入本地数据库，不在内存中保存全量数据
+        if (isSingleTable(script.getSchema())) {
+            JdbcDataCursor cursor = openCursor(sql, 0, 0, 0);
+            String tableName = null;
+            if (!CollectionUtils.isEmpty(script.getSchema())) {
+                List<Column> columns = new ArrayList<>();
+                for (Column column : cursor.getColumns()) {
+                    Column schemaColumn = script.getSchema().get(column.columnKey());
+                    if (schemaColumn == null) {
+                        columns.add(column);
+                        continue;
+                    }
+                    tableName = schemaColumn.tableName();
+                    columns.add(Column.of(schemaColumn.getType(), schemaColumn.columnName()));
+                }
+                cursor.setColumns(columns);
+            }
+            return LocalDB.executeLocalQuery(script, executeParam, tableName, cursor);
+        }
+
+        Dataframe data = executeColumnar(sql);
 
         if (!CollectionUtils.isEmpty(script.getSchema())) {
             for (Column column : data.getColumns()) {
@@ -443,43 +754,128 @@ public class JdbcDataProviderAdapter implements Closeable {
         return LocalDB.executeLocalQuery(script, executeParam, data.splitByTable(script.getSchema()));
     }
 
+    private boolean isSingleTable(Map<String, Column> schema) {
+        if (CollectionUtils.isEmpty(schema)) {
+            return true;
+        }
+        return schema.values()
+                .stream()
+                .map(Column::tableName)
+                .distinct()
+                .count() == 1;
+    }
+
     /**
      * 在数据源执行，组装完整SQL，提交至数据源执行
      */
     public Dataframe executeOnSource(QueryScript script, ExecuteParam executeParam) throws Exception {
 
-        Dataframe dataframe;
-        String sql;
-
         SqlScriptRender render = new SqlScriptRender(script
                 , executeParam
                 , getSqlDialect()
                 , jdbcProperties.isEnableSpecialSql()
                 , driverInfo.getQuoteIdentifiers());
 
-        if (supportPaging()) {
-            sql = render.render(true, true, false);
-            log.debug(sql);
-            dataframe = execute(sql);
-        } else {
-            sql = render.render(true, false, false);
-            log.debug(sql);
-            dataframe = execute(sql, executeParam.getPageInfo());
+        return executeWithCount(render, executeParam.getPageInfo(), () -> {
+            Dataframe dataframe;
+            String sql;
+            if (supportPaging()) {
+                sql = render.render(true, true, false);
+                log.debug(sql);
+                dataframe = execute(sql, executeParam.getPageInfo() == null ? 0 : executeParam.getPageInfo().getPageSize());
+            } else {
+                sql = render.render(true, false, false);
+                log.debug(sql);
+                dataframe = execute(sql, executeParam.getPageInfo());
+            }
+            dataframe.setScript(sql);
+            return dataframe;
+        });
+    }
+
+    /**
+     * 执行分页数据查询。需要总记录数时，总数查询与数据查询并行执行，共享取消信号：任一查询失败时取消另一查询。
+     *
+     * @param render   用于生成总数查询SQL
+     * @param pageInfo 分页信息
+     * @param query    数据查询，返回的 Dataframe 需要设置执行的SQL
+     * @return 查询结果
+     */
+    protected Dataframe executeWithCount(SqlScriptRender render, PageInfo pageInfo, Callable<Dataframe> query) throws Exception {
+        if (pageInfo == null || !pageInfo.isCountTotal()) {
+            return query.call();
         }
-        // fix page info
-        if (executeParam.getPageInfo().isCountTotal()) {
-            int total = executeCountSql(render.render(true, false, true));
-            executeParam.getPageInfo().setTotal(total);
-            dataframe.setPageInfo(executeParam.getPageInfo());
+        String countSql = render.render(true, false, true);
+        // 外部绑定了取消信号时从中派生，外部取消可以同时中止数据查询和总数查询
+        QueryCanceller parent = QueryCanceller.current();
+        QueryCanceller canceller = parent == null ? new QueryCanceller() : parent.fork();
+        Future<Long> countFuture = submitCount(countSql, canceller);
+        Dataframe dataframe;
+        QueryCanceller previous = canceller.bind();
+        try {
+            dataframe = query.call();
+        } catch (Exception e) {
+            if (countFuture != null && countFuture.isDone()) {
+                // 总数查询先失败并取消了数据查询时，抛出总数查询的异常
+                awaitCount(countFuture);
+            }
+            canceller.cancel();
+            if (countFuture != null) {
+                countFuture.cancel(true);
+            }
+            throw e;
+        } finally {
+            QueryCanceller.restore(previous);
         }
-        dataframe.setScript(sql);
+        long total;
+        if (countFuture == null) {
+            total = countStrategy.count(this, countSql);
+        } else {
+            try {
+                total = awaitCount(countFuture);
+            } catch (InterruptedException e) {
+                canceller.cancel();
+                countFuture.cancel(true);
+                throw e;
+            }
+        }
+        pageInfo.setTotal(total);
+        dataframe.setPageInfo(pageInfo);
         return dataframe;
     }
 
+    private long awaitCount(Future<Long> countFuture) throws Exception {
+        try {
+            return countFuture.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+    }
+
+    private Future<Long> submitCount(String countSql, QueryCanceller canceller) {
+        try {
+            return COUNT_EXECUTOR.submit(() -> {
+                QueryCanceller previous = canceller.bind();
+                try {
+                    return countStrategy.count(this, countSql);
+                } catch (Exception e) {
+                    // 总数查询失败时，数据查询也没有继续执行的必要
+                    canceller.cancel();
+                    throw e;
+                } finally {
+                    QueryCanceller.restore(previous);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("Too many pending count queries, execute count after data query");
+            return null;
+        }
+    }
+
     protected Object getObjFromResultSet(ResultSet rs, int columnIndex) throws SQLException {
         Object obj = rs.getObject(columnIndex);
         if (obj instanceof Boolean) {
-            obj = rs.getObject(columnIndex).toString();
+            obj = obj.toString();
         } else if (obj instanceof LocalDateTime) {
             obj = rs.getTimestamp(columnIndex);
         }
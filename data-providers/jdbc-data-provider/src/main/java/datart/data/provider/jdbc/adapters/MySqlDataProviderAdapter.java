@@ -0,0 +1,39 @@
+/*
+ * Datart
+ * <p>
+ * Copyright 2021
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package datart.data.provider.jdbc.adapters;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * MySQL 驱动默认一次读取全部结果，未开启 useCursorFetch 时设置正数 fetchSize 无效。
+ * 读取大量数据时使用流式读取，避免结果集全部加载到内存；分页查询结果较小，仍然一次读取。
+ */
+public class MySqlDataProviderAdapter extends JdbcDataProviderAdapter {
+
+    private static final String CURSOR_FETCH = "useCursorFetch=true";
+
+    @Override
+    protected int resolveFetchSize(long expectedRows) {
+        if ((expectedRows > 0 && expectedRows <= jdbcProperties.getFetchSize())
+                || StringUtils.containsIgnoreCase(jdbcProperties.getUrl(), CURSOR_FETCH)) {
+            return super.resolveFetchSize(expectedRows);
+        }
+        return Integer.MIN_VALUE;
+    }
+}
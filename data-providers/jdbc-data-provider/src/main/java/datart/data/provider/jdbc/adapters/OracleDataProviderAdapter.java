@@ -20,7 +20,6 @@ package datart.data.provider.jdbc.adapters;
 
 
 import datart.core.base.PageInfo;
-import datart.core.data.provider.Column;
 import datart.core.data.provider.Dataframe;
 import datart.core.data.provider.ExecuteParam;
 import datart.core.data.provider.QueryScript;
@@ -31,7 +30,6 @@ import org.apache.commons.lang3.StringUtils;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.*;
 
 @Slf4j
 public class OracleDataProviderAdapter extends JdbcDataProviderAdapter {
@@ -50,29 +48,9 @@ public class OracleDataProviderAdapter extends JdbcDataProviderAdapter {
 
     @Override
     protected Dataframe parseResultSet(ResultSet rs, long count) throws SQLException {
-        Dataframe dataframe = new Dataframe();
-        List<Column> columns = getColumns(rs);
-        int start = 1;
-        if ("V_R_N".equals(columns.get(0).columnKey())) {
-            start = 2;
-            columns.remove(0);
-        }
-        ArrayList<List<Object>> rows = new ArrayList<>();
-        int c = 0;
-        while (rs.next()) {
-            ArrayList<Object> row = new ArrayList<>();
-            rows.add(row);
-            for (int i = start; i < columns.size() + start; i++) {
-                row.add(getObjFromResultSet(rs, i));
-            }
-            c++;
-            if (c >= count) {
-                break;
-            }
-        }
-        dataframe.setColumns(columns);
-        dataframe.setRows(rows);
-        return dataframe;
+        // 跳过分页包装产生的行号列
+        int skipColumns = "V_R_N".equals(rs.getMetaData().getColumnLabel(1)) ? 1 : 0;
+        return parseResultSet(rs, count, createDecoder(rs, skipColumns));
     }
 
     @Override
@@ -88,15 +66,11 @@ public class OracleDataProviderAdapter extends JdbcDataProviderAdapter {
 
         log.debug(wrappedSql);
 
-        Dataframe dataframe = execute(wrappedSql);
-        // fix page info
-        if (executeParam.getPageInfo().isCountTotal()) {
-            int total = executeCountSql(render.render(true, false, true));
-            executeParam.getPageInfo().setTotal(total);
-            dataframe.setPageInfo(executeParam.getPageInfo());
-        }
-        dataframe.setScript(wrappedSql);
-        return dataframe;
+        return executeWithCount(render, executeParam.getPageInfo(), () -> {
+            Dataframe dataframe = execute(wrappedSql, executeParam.getPageInfo().getPageSize());
+            dataframe.setScript(wrappedSql);
+            return dataframe;
+        });
     }
 
     private String pageWrapper(String sql, PageInfo pageInfo) {
@@ -20,16 +20,30 @@ package datart.data.provider.jdbc.adapters;
 
 import datart.core.data.provider.ForeignKey;
 
+import java.math.BigDecimal;
 import java.sql.DatabaseMetaData;
 import java.sql.SQLException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 public class PrestoDataProviderAdapter extends JdbcDataProviderAdapter {
 
+    private static final Pattern ESTIMATE_ROWS = Pattern.compile("Estimates: \\{rows: ([\\d.]+)");
+
     @Override
     protected Map<String, List<ForeignKey>> getImportedKeys(DatabaseMetaData metadata, String database, String table) throws SQLException {
         return new HashMap<>();
     }
+
+    /**
+     * 分布式执行计划中第一个预估值属于输出节点，即查询结果的预估行数
+     */
+    @Override
+    protected Long estimateCount(String sql) throws SQLException {
+        Matcher matcher = ESTIMATE_ROWS.matcher(readExplainPlan("EXPLAIN (TYPE DISTRIBUTED) " + sql));
+        return matcher.find() ? new BigDecimal(matcher.group(1)).longValue() : null;
+    }
 }
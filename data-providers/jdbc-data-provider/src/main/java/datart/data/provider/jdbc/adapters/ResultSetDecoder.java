@@ -0,0 +1,180 @@
+/*
+ * Datart
+ * <p>
+ * Copyright 2021
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package datart.data.provider.jdbc.adapters;
+
+import datart.core.data.provider.Column;
+import datart.data.provider.jdbc.DataTypeUtils;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 结果集解码器。创建时读取一次结果集元数据并为每一列确定读取方法，数值、时间、字符串等常见类型使用对应的
+ * getXxx 方法读取，其余类型交给适配器的 getObjFromResultSet 处理，避免逐个单元格调用 getObject 并判断类型。
+ */
+public class ResultSetDecoder {
+
+    private final List<Column> columns;
+
+    private final ColumnReader[] readers;
+
+    private final int[] indexes;
+
+    ResultSetDecoder(JdbcDataProviderAdapter adapter, ResultSet rs, int skipColumns) throws SQLException {
+        ResultSetMetaData metaData = rs.getMetaData();
+        int columnCount = metaData.getColumnCount();
+        int size = Math.max(columnCount - skipColumns, 0);
+        this.columns = new ArrayList<>(size);
+        this.readers = new ColumnReader[size];
+        this.indexes = new int[size];
+        for (int i = 0; i < size; i++) {
+            int index = i + skipColumns + 1;
+            int columnType = metaData.getColumnType(index);
+            columns.add(Column.of(DataTypeUtils.jdbcType2DataType(columnType), metaData.getColumnLabel(index)));
+            readers[i] = createReader(adapter, metaData, index, columnType);
+            indexes[i] = index;
+        }
+    }
+
+    public List<Column> getColumns() {
+        return columns;
+    }
+
+    public int getColumnCount() {
+        return readers.length;
+    }
+
+    /**
+     * 读取当前行到 values 中，values 的长度不小于列数
+     */
+    public void read(ResultSet rs, Object[] values) throws SQLException {
+        for (int i = 0; i < readers.length; i++) {
+            values[i] = readers[i].read(rs, indexes[i]);
+        }
+    }
+
+    public List<Object> readRow(ResultSet rs) throws SQLException {
+        List<Object> row = new ArrayList<>(readers.length);
+        for (int i = 0; i < readers.length; i++) {
+            row.add(readers[i].read(rs, indexes[i]));
+        }
+        return row;
+    }
+
+    private static ColumnReader createReader(JdbcDataProviderAdapter adapter, ResultSetMetaData metaData, int index, int columnType) {
+        switch (columnType) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+                if (!isSigned(metaData, index)) {
+                    return ResultSetDecoder::readLong;
+                }
+                return ResultSetDecoder::readInt;
+            case Types.BIGINT:
+                // 无符号 BIGINT 可能超出 long 的范围
+                if (!isSigned(metaData, index)) {
+                    break;
+                }
+                return ResultSetDecoder::readLong;
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                return ResultSetDecoder::readDouble;
+            case Types.REAL:
+                return ResultSetDecoder::readFloat;
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+                return ResultSet::getBigDecimal;
+            case Types.CHAR:
+            case Types.VARCHAR:
+            case Types.LONGVARCHAR:
+            case Types.NCHAR:
+            case Types.NVARCHAR:
+            case Types.LONGNVARCHAR:
+                return ResultSet::getString;
+            case Types.TIMESTAMP:
+                return ResultSet::getTimestamp;
+            case Types.BIT:
+                // 多位的 BIT 类型以字节数组返回
+                if (getPrecision(metaData, index) > 1) {
+                    break;
+                }
+                return ResultSetDecoder::readBoolean;
+            case Types.BOOLEAN:
+                return ResultSetDecoder::readBoolean;
+            default:
+                break;
+        }
+        return adapter::getObjFromResultSet;
+    }
+
+    private static Object readInt(ResultSet rs, int index) throws SQLException {
+        int value = rs.getInt(index);
+        return rs.wasNull() ? null : value;
+    }
+
+    private static Object readLong(ResultSet rs, int index) throws SQLException {
+        long value = rs.getLong(index);
+        return rs.wasNull() ? null : value;
+    }
+
+    private static Object readDouble(ResultSet rs, int index) throws SQLException {
+        double value = rs.getDouble(index);
+        return rs.wasNull() ? null : value;
+    }
+
+    private static Object readFloat(ResultSet rs, int index) throws SQLException {
+        float value = rs.getFloat(index);
+        return rs.wasNull() ? null : value;
+    }
+
+    /**
+     * 与 getObjFromResultSet 一致，布尔值以字符串返回
+     */
+    private static Object readBoolean(ResultSet rs, int index) throws SQLException {
+        boolean value = rs.getBoolean(index);
+        return rs.wasNull() ? null : String.valueOf(value);
+    }
+
+    private static boolean isSigned(ResultSetMetaData metaData, int index) {
+        try {
+            return metaData.isSigned(index);
+        } catch (Exception e) {
+            // 部分驱动（如 Hive）不支持，按有符号处理
+            return true;
+        }
+    }
+
+    private static int getPrecision(ResultSetMetaData metaData, int index) {
+        try {
+            return metaData.getPrecision(index);
+        } catch (Exception e) {
+            return 1;
+        }
+    }
+
+    @FunctionalInterface
+    private interface ColumnReader {
+        Object read(ResultSet rs, int index) throws SQLException;
+    }
+
+}
@@ -0,0 +1,67 @@
+/*
+ * Datart
+ * <p>
+ * Copyright 2021
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package datart.server.base.dto;
+
+import datart.core.data.provider.Dataframe;
+import datart.server.base.params.ViewExecuteParam;
+import lombok.Data;
+
+/**
+ * 批量执行中单个查询的结果，index 为查询在请求中的序号
+ */
+@Data
+public class BatchExecuteResult {
+
+    private int index;
+
+    private String vizId;
+
+    private String queryId;
+
+    private boolean success;
+
+    private String message;
+
+    private Dataframe data;
+
+    public static BatchExecuteResult success(int index, ViewExecuteParam param, Dataframe dataframe) {
+        BatchExecuteResult result = of(index, param);
+        result.setSuccess(true);
+        result.setData(dataframe);
+        return result;
+    }
+
+    public static BatchExecuteResult failure(int index, ViewExecuteParam param, Exception e) {
+        BatchExecuteResult result = of(index, param);
+        String msg = e.getMessage();
+        if (msg == null && e.getCause() != null) {
+            msg = e.getCause().getMessage();
+        }
+        result.setMessage(msg);
+        return result;
+    }
+
+    private static BatchExecuteResult of(int index, ViewExecuteParam param) {
+        BatchExecuteResult result = new BatchExecuteResult();
+        result.setIndex(index);
+        result.setVizId(param.getVizId());
+        result.setQueryId(param.getQueryId());
+        return result;
+    }
+}
@@ -70,6 +70,16 @@ public class ViewExecuteParam {
 
     private boolean analytics;
 
+    /**
+     * 客户端生成的查询ID，用于取消执行中的查询
+     */
+    private String queryId;
+
+    /**
+     * 请求的查询超时时间（秒），不超过数据源配置的最大值，0 表示使用数据源默认值
+     */
+    private int queryTimeout;
+
     public boolean isEmpty() {
         return CollectionUtils.isEmpty(columns)
                 && CollectionUtils.isEmpty(aggregators)
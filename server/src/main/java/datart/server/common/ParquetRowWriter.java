@@ -0,0 +1,410 @@
+/*
+ * Datart
+ * <p>
+ * Copyright 2021
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package datart.server.common;
+
+import datart.core.base.consts.ValueType;
+import datart.core.data.provider.Column;
+import lombok.Data;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.api.WriteSupport;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.io.OutputFile;
+import org.apache.parquet.io.PositionOutputStream;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.io.api.RecordConsumer;
+import org.apache.parquet.schema.LogicalTypeAnnotation;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.PrimitiveType;
+import org.apache.parquet.schema.Type;
+import org.apache.parquet.schema.Types;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+
+/**
+ * 将行数据写入 Parquet。列类型按 ValueType 映射：NUMERIC 按第一批数据的 java 类型映射为 INT64、DOUBLE 或 DECIMAL，
+ * DATE 为毫秒时间戳，BOOLEAN 为 BOOLEAN，其余为 UTF8 字符串。数据顺序写入输出流，不需要随机访问，可以直接写入 zip 包。
+ */
+public class ParquetRowWriter implements Closeable {
+
+    private static final String SCHEMA_NAME = "datart";
+
+    private static final int DECIMAL_PRECISION = 38;
+
+    private final ParquetWriter<List<Object>> writer;
+
+    /**
+     * @param sample 第一批数据，用于确定 NUMERIC 列的存储类型，可以为空
+     */
+    public ParquetRowWriter(List<Column> columns, List<List<Object>> sample, OutputStream out) throws IOException {
+        FieldType[] fieldTypes = new FieldType[columns.size()];
+        for (int i = 0; i < columns.size(); i++) {
+            fieldTypes[i] = fieldType(columns.get(i).getType(), i, sample);
+        }
+        MessageType schema = buildSchema(columns, fieldTypes);
+        writer = new Builder(new StreamOutputFile(out), schema, fieldTypes)
+                .withCompressionCodec(CompressionCodecName.SNAPPY)
+                .build();
+    }
+
+    public void write(List<Object> row) throws IOException {
+        writer.write(row);
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    /**
+     * 数值列按第一个非空值的类型确定：整数类型写为 INT64，BigDecimal/BigInteger 写为 DECIMAL（小数位取样本中的最大值），
+     * 其余写为 DOUBLE
+     */
+    private static FieldType fieldType(ValueType type, int index, List<List<Object>> sample) {
+        if (type == null) {
+            return new FieldType(FieldKind.STRING, 0);
+        }
+        switch (type) {
+            case NUMERIC:
+                break;
+            case DATE:
+                return new FieldType(FieldKind.TIMESTAMP, 0);
+            case BOOLEAN:
+                return new FieldType(FieldKind.BOOLEAN, 0);
+            default:
+                return new FieldType(FieldKind.STRING, 0);
+        }
+        FieldKind kind = null;
+        int scale = 0;
+        if (sample != null) {
+            for (List<Object> row : sample) {
+                Object val = row == null || index >= row.size() ? null : row.get(index);
+                if (val instanceof BigDecimal) {
+                    kind = FieldKind.DECIMAL;
+                    scale = Math.max(scale, ((BigDecimal) val).scale());
+                } else if (kind == null && val instanceof BigInteger) {
+                    kind = FieldKind.DECIMAL;
+                } else if (kind == null && isIntegral(val)) {
+                    return new FieldType(FieldKind.INT64, 0);
+                } else if (kind == null && val instanceof Number) {
+                    return new FieldType(FieldKind.DOUBLE, 0);
+                }
+            }
+        }
+        return kind == null
+                ? new FieldType(FieldKind.DOUBLE, 0)
+                : new FieldType(kind, Math.min(scale, DECIMAL_PRECISION));
+    }
+
+    private static boolean isIntegral(Object val) {
+        return val instanceof Long || val instanceof Integer || val instanceof Short || val instanceof Byte;
+    }
+
+    private static MessageType buildSchema(List<Column> columns, FieldType[] fieldTypes) {
+        Types.MessageTypeBuilder builder = Types.buildMessage();
+        Set<String> names = new HashSet<>();
+        for (int i = 0; i < columns.size(); i++) {
+            Column column = columns.get(i);
+            String name = column.columnKey();
+            // 字段名不能重复
+            if (name == null || !names.add(name)) {
+                name = name + "_" + i;
+                names.add(name);
+            }
+            switch (fieldTypes[i].getKind()) {
+                case INT64:
+                    builder.optional(PrimitiveType.PrimitiveTypeName.INT64).named(name);
+                    break;
+                case DOUBLE:
+                    builder.optional(PrimitiveType.PrimitiveTypeName.DOUBLE).named(name);
+                    break;
+                case DECIMAL:
+                    builder.optional(PrimitiveType.PrimitiveTypeName.BINARY)
+                            .as(LogicalTypeAnnotation.decimalType(fieldTypes[i].getScale(), DECIMAL_PRECISION))
+                            .named(name);
+                    break;
+                case TIMESTAMP:
+                    builder.optional(PrimitiveType.PrimitiveTypeName.INT64)
+                            .as(LogicalTypeAnnotation.timestampType(true, LogicalTypeAnnotation.TimeUnit.MILLIS))
+                            .named(name);
+                    break;
+                case BOOLEAN:
+                    builder.optional(PrimitiveType.PrimitiveTypeName.BOOLEAN).named(name);
+                    break;
+                default:
+                    builder.optional(PrimitiveType.PrimitiveTypeName.BINARY)
+                            .as(LogicalTypeAnnotation.stringType())
+                            .named(name);
+            }
+        }
+        return builder.named(SCHEMA_NAME);
+    }
+
+    private enum FieldKind {
+        INT64,
+        DOUBLE,
+        DECIMAL,
+        TIMESTAMP,
+        BOOLEAN,
+        STRING
+    }
+
+    @Data
+    private static class FieldType {
+
+        private final FieldKind kind;
+
+        private final int scale;
+    }
+
+    private static class Builder extends ParquetWriter.Builder<List<Object>, Builder> {
+
+        private final MessageType schema;
+
+        private final FieldType[] fieldTypes;
+
+        private Builder(OutputFile file, MessageType schema, FieldType[] fieldTypes) {
+            super(file);
+            this.schema = schema;
+            this.fieldTypes = fieldTypes;
+        }
+
+        @Override
+        protected Builder self() {
+            return this;
+        }
+
+        @Override
+        protected WriteSupport<List<Object>> getWriteSupport(Configuration conf) {
+            return new RowWriteSupport(schema, fieldTypes);
+        }
+    }
+
+    private static class RowWriteSupport extends WriteSupport<List<Object>> {
+
+        private final MessageType schema;
+
+        private final FieldType[] fieldTypes;
+
+        private RecordConsumer consumer;
+
+        private RowWriteSupport(MessageType schema, FieldType[] fieldTypes) {
+            this.schema = schema;
+            this.fieldTypes = fieldTypes;
+        }
+
+        @Override
+        public WriteContext init(Configuration configuration) {
+            return new WriteContext(schema, new HashMap<>());
+        }
+
+        @Override
+        public void prepareForWrite(RecordConsumer recordConsumer) {
+            this.consumer = recordConsumer;
+        }
+
+        @Override
+        public void write(List<Object> row) {
+            consumer.startMessage();
+            List<Type> fields = schema.getFields();
+            for (int i = 0; i < fields.size() && i < row.size(); i++) {
+                Object val = row.get(i);
+                if (val == null) {
+                    continue;
+                }
+                String name = fields.get(i).getName();
+                switch (fieldTypes[i].getKind()) {
+                    case INT64:
+                        Long integral = toLong(val);
+                        if (integral != null) {
+                            consumer.startField(name, i);
+                            consumer.addLong(integral);
+                            consumer.endField(name, i);
+                        }
+                        break;
+                    case DOUBLE:
+                        Double number = toDouble(val);
+                        if (number != null) {
+                            consumer.startField(name, i);
+                            consumer.addDouble(number);
+                            consumer.endField(name, i);
+                        }
+                        break;
+                    case DECIMAL:
+                        BigDecimal decimal = toDecimal(val, fieldTypes[i].getScale());
+                        if (decimal != null) {
+                            consumer.startField(name, i);
+                            consumer.addBinary(Binary.fromConstantByteArray(decimal.unscaledValue().toByteArray()));
+                            consumer.endField(name, i);
+                        }
+                        break;
+                    case TIMESTAMP:
+                        Long millis = toMillis(val);
+                        if (millis != null) {
+                            consumer.startField(name, i);
+                            consumer.addLong(millis);
+                            consumer.endField(name, i);
+                        }
+                        break;
+                    case BOOLEAN:
+                        consumer.startField(name, i);
+                        consumer.addBoolean(val instanceof Boolean ? (Boolean) val : Boolean.parseBoolean(val.toString()));
+                        consumer.endField(name, i);
+                        break;
+                    default:
+                        consumer.startField(name, i);
+                        consumer.addBinary(Binary.fromString(val.toString()));
+                        consumer.endField(name, i);
+                }
+            }
+            consumer.endMessage();
+        }
+
+        /**
+         * 非整数值无法无损写入 INT64 时按 null 处理
+         */
+        private static Long toLong(Object val) {
+            if (isIntegral(val)) {
+                return ((Number) val).longValue();
+            }
+            try {
+                return new BigDecimal(val.toString()).longValueExact();
+            } catch (ArithmeticException | NumberFormatException e) {
+                return null;
+            }
+        }
+
+        /**
+         * 小数位多于第一批数据时按四舍五入对齐到列的小数位
+         */
+        private static BigDecimal toDecimal(Object val, int scale) {
+            BigDecimal decimal;
+            if (val instanceof BigDecimal) {
+                decimal = (BigDecimal) val;
+            } else if (val instanceof BigInteger) {
+                decimal = new BigDecimal((BigInteger) val);
+            } else {
+                try {
+                    decimal = new BigDecimal(val.toString());
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+            return decimal.setScale(scale, RoundingMode.HALF_UP);
+        }
+
+        private static Double toDouble(Object val) {
+            if (val instanceof Number) {
+                return ((Number) val).doubleValue();
+            }
+            try {
+                return Double.parseDouble(val.toString());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        private static Long toMillis(Object val) {
+            if (val instanceof Date) {
+                return ((Date) val).getTime();
+            }
+            if (val instanceof LocalDateTime) {
+                return ((LocalDateTime) val).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            }
+            if (val instanceof LocalDate) {
+                return ((LocalDate) val).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            }
+            if (val instanceof Number) {
+                return ((Number) val).longValue();
+            }
+            return null;
+        }
+    }
+
+    /**
+     * 基于输出流的 OutputFile，Parquet 写入只需要顺序写和当前位置
+     */
+    private static class StreamOutputFile implements OutputFile {
+
+        private final OutputStream out;
+
+        private StreamOutputFile(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public PositionOutputStream create(long blockSizeHint) {
+            return new PositionOutputStream() {
+
+                private long pos;
+
+                @Override
+                public long getPos() {
+                    return pos;
+                }
+
+                @Override
+                public void write(int b) throws IOException {
+                    out.write(b);
+                    pos++;
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    out.write(b, off, len);
+                    pos += len;
+                }
+
+                @Override
+                public void flush() throws IOException {
+                    out.flush();
+                }
+
+                @Override
+                public void close() throws IOException {
+                    out.close();
+                }
+            };
+        }
+
+        @Override
+        public PositionOutputStream createOrOverwrite(long blockSizeHint) {
+            return create(blockSizeHint);
+        }
+
+        @Override
+        public boolean supportsBlockSize() {
+            return false;
+        }
+
+        @Override
+        public long defaultBlockSize() {
+            return 0;
+        }
+    }
+}
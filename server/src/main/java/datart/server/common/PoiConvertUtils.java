@@ -25,15 +25,22 @@ import java.util.stream.Collectors;
 public class PoiConvertUtils {
 
     public static POISettings covertToPoiSetting(String chartConfigStr, Dataframe dataframe) {
+        return covertToPoiSetting(chartConfigStr, dataframe.getColumns());
+    }
+
+    /**
+     * 根据图表配置和结果集的列生成导出设置，不依赖结果集数据，可用于游标方式导出
+     */
+    public static POISettings covertToPoiSetting(String chartConfigStr, List<Column> columns) {
         ChartConfigDTO chartConfigDTO = JSONValidator.from(chartConfigStr).validate() ?
                 JSON.parseObject(chartConfigStr, ChartConfigDTO.class) : new ChartConfigDTO();
         boolean isNormalTable = "mingxi-table".equals(chartConfigDTO.getChartGraphId());
         List<ChartColumn> chartColumns = getColumnsFromConfig(chartConfigDTO.getChartConfig().getDatas()); //获取列信息
 
         //支持钻取的图表，数据集列数量少于图表配置列数量
-        if (chartColumns.size() != dataframe.getColumns().size()) {
+        if (chartColumns.size() != columns.size()) {
             Map<String, Void> nameMap = new CaseInsensitiveMap<>();
-            for (Column column : dataframe.getColumns()) {
+            for (Column column : columns) {
                 nameMap.put(column.columnKey(), null);
             }
             chartColumns = chartColumns
@@ -45,18 +52,18 @@ public class PoiConvertUtils {
         Map<Integer, ColumnSetting> columnSetting = new HashMap<>();
         if (isNormalTable) { // 若为普通表格，获取表头分组信息
             groupColumns = getTableGroupList(chartConfigDTO, chartColumns);
-            columnSetting = queryColumnSetting(groupColumns, dataframe);
+            columnSetting = queryColumnSetting(groupColumns, columns);
         }
         if (columnSetting.size() != chartColumns.size()) {
             groupColumns.clear();
-            columnSetting = queryColumnSetting(chartColumns, dataframe);
+            columnSetting = queryColumnSetting(chartColumns, columns);
         }
         POISettings poiSettings = buildTableHeaderInfo(chartColumns, groupColumns); //构造表头
         poiSettings.setColumnSetting(columnSetting);
         if (columnSetting.size() != chartColumns.size() || CollectionUtils.isEmpty(chartColumns)) {
             log.warn("column setting parse failed, download with no style.");
             Map<Integer, List<Column>> map = new HashMap<>();
-            map.put(0, dataframe.getColumns());
+            map.put(0, columns);
             poiSettings.setHeaderRows(map);
             poiSettings.getMergeCells().clear();
             poiSettings.getColumnSetting().clear();
@@ -85,7 +92,7 @@ public class PoiConvertUtils {
     /**
      * 获取列序及配置信息
      */
-    private static Map<Integer, ColumnSetting> queryColumnSetting(List<ChartColumn> viewColumns, Dataframe dataframe) {
+    private static Map<Integer, ColumnSetting> queryColumnSetting(List<ChartColumn> viewColumns, List<Column> columns) {
         Map<Integer, ColumnSetting> settingMap = new HashMap<>();
         List<ChartColumn> leafViewColumns = new ArrayList<>(); // 展示顺序
         for (ChartColumn viewColumn : viewColumns) {
@@ -96,8 +103,8 @@ public class PoiConvertUtils {
             ChartColumn chartColumn = leafViewColumns.get(i);
             viewColumnMap.put(chartColumn.getDisplayName(), i);
         }
-        for (int i = 0; i < dataframe.getColumns().size(); i++) {
-            Column column = dataframe.getColumns().get(i);
+        for (int i = 0; i < columns.size(); i++) {
+            Column column = columns.get(i);
             ColumnSetting columnSetting = new ColumnSetting();
             columnSetting.setLength(0);
             int index = viewColumnMap.getOrDefault(column.columnKey(), -1);
@@ -20,19 +20,27 @@ package datart.server.controller;
 
 
 import datart.core.data.provider.*;
+import datart.server.base.dto.BatchExecuteResult;
 import datart.server.base.dto.ResponseData;
 import datart.server.base.params.ViewExecuteParam;
 import datart.server.base.params.TestExecuteParam;
 import datart.server.service.DataProviderService;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 
 import java.io.IOException;
 import java.sql.SQLException;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
 
+@Slf4j
 @Api
 @RestController
 @RequestMapping(value = "/data-provider")
@@ -40,8 +48,15 @@ public class DataProviderController extends BaseController {
 
     private final DataProviderService dataProviderService;
 
-    public DataProviderController(DataProviderService dataProviderService) {
+    /**
+     * 流式批量执行的超时时间(毫秒)
+     */
+    private final long batchStreamTimeout;
+
+    public DataProviderController(DataProviderService dataProviderService,
+                                  @Value("${datart.batch-execute.stream-timeout:300000}") long batchStreamTimeout) {
         this.dataProviderService = dataProviderService;
+        this.batchStreamTimeout = batchStreamTimeout;
     }
 
     @ApiOperation(value = "get supported data providers")
@@ -101,6 +116,65 @@ public class DataProviderController extends BaseController {
         return ResponseData.success(dataProviderService.execute(viewExecuteParam));
     }
 
+    @ApiOperation(value = "Execute multiple queries in one request")
+    @PostMapping(value = "/execute/batch")
+    public ResponseData<List<BatchExecuteResult>> batchExecute(@RequestBody List<ViewExecuteParam> viewExecuteParams) {
+        List<CompletableFuture<BatchExecuteResult>> futures = dataProviderService.batchExecute(viewExecuteParams);
+        return ResponseData.success(futures.stream()
+                .map(CompletableFuture::join)
+                .collect(Collectors.toList()));
+    }
+
+    @ApiOperation(value = "Execute multiple queries, results are streamed as ndjson in completion order")
+    @PostMapping(value = "/execute/batch/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseBodyEmitter batchExecuteStream(@RequestBody List<ViewExecuteParam> viewExecuteParams) {
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(batchStreamTimeout);
+        // 超时、客户端断开或响应结束时取消批次中未完成的查询
+        QueryCanceller canceller = new QueryCanceller();
+        emitter.onTimeout(() -> {
+            log.warn("Batch execute stream timeout after {}ms", batchStreamTimeout);
+            canceller.cancel();
+            emitter.complete();
+        });
+        emitter.onError(e -> canceller.cancel());
+        emitter.onCompletion(canceller::cancel);
+        List<CompletableFuture<BatchExecuteResult>> futures = dataProviderService.batchExecute(viewExecuteParams, canceller);
+        for (CompletableFuture<BatchExecuteResult> future : futures) {
+            future.thenAccept(result -> {
+                synchronized (emitter) {
+                    if (canceller.isCancelled()) {
+                        return;
+                    }
+                    try {
+                        emitter.send(result, MediaType.APPLICATION_JSON);
+                        emitter.send("\n", MediaType.TEXT_PLAIN);
+                    } catch (Exception e) {
+                        // 写入失败通常是客户端已断开
+                        log.warn("Batch execute result send error: {}", e.getMessage());
+                        canceller.cancel();
+                        emitter.completeWithError(e);
+                    }
+                }
+            });
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .whenComplete((v, e) -> {
+                    synchronized (emitter) {
+                        // 已取消时响应已经由超时或错误处理结束
+                        if (!canceller.isCancelled()) {
+                            emitter.complete();
+                        }
+                    }
+                });
+        return emitter;
+    }
+
+    @ApiOperation(value = "Cancel Execution")
+    @PostMapping(value = "/execute/{queryId}/cancel")
+    public ResponseData<Boolean> cancelExecute(@PathVariable String queryId) {
+        return ResponseData.success(dataProviderService.cancelQuery(queryId));
+    }
+
     @ApiOperation(value = "get all supported functions for this data source type")
     @PostMapping(value = "/function/support/{sourceId}")
     public ResponseData<Set<StdSqlOperator>> supportedStdFunctions(@PathVariable String sourceId) {
@@ -8,6 +8,8 @@ import datart.core.base.consts.AttachmentType;
 import datart.core.base.consts.FileOwner;
 import datart.core.common.Application;
 import datart.core.common.FileUtils;
+import datart.core.common.RequestContext;
+import datart.core.common.ThreadPoolFactory;
 import datart.core.common.UUIDGenerator;
 import datart.core.entity.Folder;
 import datart.core.entity.Schedule;
@@ -29,6 +31,8 @@ import datart.server.service.AttachmentService;
 import datart.server.service.FolderService;
 import datart.server.service.ShareService;
 import datart.server.service.VizService;
+import datart.server.service.impl.AttachmentImageServiceImpl;
+import datart.server.service.impl.AttachmentPdfServiceImpl;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.quartz.Job;
@@ -39,9 +43,8 @@ import org.springframework.util.CollectionUtils;
 import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
-import java.util.Date;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.*;
 
 @Slf4j
 public abstract class ScheduleJob implements Job, Closeable {
@@ -54,6 +57,24 @@ public abstract class ScheduleJob implements Job, Closeable {
         OBJECT_MAPPER.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
     }
 
+    /**
+     * 附件生成线程池，所有定时任务共享，限制同时打开的浏览器截图和数据导出数量。
+     * 任务需要在工作线程中登录，不能由调用线程执行，因此使用无界队列，由单任务并发数限制排队数量
+     */
+    private static final ThreadPoolExecutor ATTACHMENT_EXECUTOR;
+
+    /**
+     * 单个定时任务同时生成的附件数量
+     */
+    private static final int ATTACHMENT_PARALLELISM_PER_JOB;
+
+    static {
+        int max = Math.max(Application.getIntProperty("datart.schedule.attachment-parallelism", 4), 1);
+        ATTACHMENT_EXECUTOR = ThreadPoolFactory.newFixedPool("schedule-attachment", max, 60
+                , new LinkedBlockingQueue<>(), new ThreadPoolExecutor.AbortPolicy());
+        ATTACHMENT_PARALLELISM_PER_JOB = Math.max(Application.getIntProperty("datart.schedule.attachment-parallelism-per-job", 2), 1);
+    }
+
     protected Schedule schedule;
 
     protected ScheduleJobConfig jobConfig;
@@ -68,6 +89,8 @@ public abstract class ScheduleJob implements Job, Closeable {
 
     protected final VizService vizService;
 
+    private String username;
+
     public ScheduleJob() {
 
         scheduleLogMapper = Application.getBean(ScheduleLogMapperExt.class);
@@ -124,6 +147,8 @@ public abstract class ScheduleJob implements Job, Closeable {
 
         FolderService folderService = Application.getBean(FolderService.class);
 
+        // js解析共用同一个脚本引擎，在当前线程依次解析，附件生成交给线程池
+        List<Callable<List<JobFile>>> tasks = new ArrayList<>();
         for (ScheduleJobConfig.VizContent vizContent : config.getVizContents()) {
             Folder folder = folderService.retrieve(vizContent.getVizId());
             DownloadCreateParam downloadCreateParam;
@@ -139,27 +164,116 @@ public abstract class ScheduleJob implements Job, Closeable {
                 downloadCreateParam.setImageWidth(config.getImageWidth());
             }
 
+            String fileName = downloadCreateParam.getFileName();
+            // 同时需要图片和pdf时只截图一次，pdf由截图生成
+            boolean shareScreenshot = config.getAttachments().contains(AttachmentType.IMAGE)
+                    && config.getAttachments().contains(AttachmentType.PDF);
             for (AttachmentType type : config.getAttachments()) {
+                if (shareScreenshot && AttachmentType.PDF.equals(type)) {
+                    continue;
+                }
                 DownloadCreateParam param = setVizId(downloadCreateParam, folder, type);
-                AttachmentService attachmentService = AttachmentService.matchAttachmentService(type);
-                JobFile jobFile = new JobFile();
-                File file = attachmentService.getFile(param, path, downloadCreateParam.getFileName());
-                jobFile.setFile(file);
-                jobFile.setType(type);
-                attachments.add(jobFile);
+                if (shareScreenshot && AttachmentType.IMAGE.equals(type)) {
+                    tasks.add(() -> getImageAndPdf(param, path, fileName));
+                } else {
+                    tasks.add(() -> Lists.newArrayList(getJobFile(type, param, path, fileName)));
+                }
+            }
+        }
+
+        runAttachmentTasks(tasks);
+    }
+
+    private void runAttachmentTasks(List<Callable<List<JobFile>>> tasks) throws Exception {
+        List<List<JobFile>> results = new ArrayList<>(Collections.nCopies(tasks.size(), null));
+        CompletionService<Integer> completionService = new ExecutorCompletionService<>(ATTACHMENT_EXECUTOR);
+        int submitted = 0;
+        int running = 0;
+        Exception error = null;
+        try {
+            while (running > 0 || (error == null && submitted < tasks.size())) {
+                if (error == null && submitted < tasks.size() && running < ATTACHMENT_PARALLELISM_PER_JOB) {
+                    int index = submitted++;
+                    Callable<List<JobFile>> task = tasks.get(index);
+                    completionService.submit(() -> {
+                        results.set(index, runAsCreator(task));
+                        return index;
+                    });
+                    running++;
+                    continue;
+                }
+                Future<Integer> future = completionService.take();
+                running--;
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    // 出错后不再提交新任务，等待执行中的任务结束，保证已生成的文件能被清理
+                    if (error == null) {
+                        error = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                    }
+                }
+            }
+        } finally {
+            for (List<JobFile> files : results) {
+                if (files != null) {
+                    attachments.addAll(files);
+                }
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    private List<JobFile> runAsCreator(Callable<List<JobFile>> task) throws Exception {
+        securityManager.runAs(username);
+        try {
+            return task.call();
+        } finally {
+            try {
+                securityManager.logoutCurrent();
+            } catch (Exception e) {
+                log.error("schedule attachment logout error", e);
             }
+            RequestContext.clean();
+        }
+    }
+
+    private JobFile getJobFile(AttachmentType type, DownloadCreateParam param, String path, String fileName) throws Exception {
+        AttachmentService attachmentService = AttachmentService.matchAttachmentService(type);
+        return createJobFile(attachmentService.getFile(param, path, fileName), type);
+    }
+
+    private List<JobFile> getImageAndPdf(DownloadCreateParam param, String path, String fileName) throws Exception {
+        File image = Application.getBean(AttachmentImageServiceImpl.class).getFile(param, path, fileName);
+        try {
+            File pdf = Application.getBean(AttachmentPdfServiceImpl.class).getFileFromImage(image, path, fileName);
+            return Lists.newArrayList(createJobFile(image, AttachmentType.IMAGE), createJobFile(pdf, AttachmentType.PDF));
+        } catch (Exception e) {
+            FileUtils.delete(image);
+            throw e;
         }
+    }
 
+    private JobFile createJobFile(File file, AttachmentType type) {
+        JobFile jobFile = new JobFile();
+        jobFile.setFile(file);
+        jobFile.setType(type);
+        return jobFile;
     }
 
     private DownloadCreateParam setVizId(DownloadCreateParam downloadCreateParam, Folder folder, AttachmentType attachmentType) {
         DownloadCreateParam result = new DownloadCreateParam();
         BeanUtils.copyProperties(downloadCreateParam, result);
+        result.setDownloadType(attachmentType);
 
         if (ResourceType.DATACHART.name().equals(folder.getRelType())
                 && !CollectionUtils.isEmpty(result.getDownloadParams())
                 && result.getDownloadParams().size() == 1) {
-            ViewExecuteParam viewExecuteParam = result.getDownloadParams().get(0);
+            // 各附件的参数会同时使用，不能共用同一个查询参数对象
+            ViewExecuteParam viewExecuteParam = new ViewExecuteParam();
+            BeanUtils.copyProperties(result.getDownloadParams().get(0), viewExecuteParam);
+            result.setDownloadParams(Lists.newArrayList(viewExecuteParam));
             if (attachmentType.equals(AttachmentType.EXCEL)) {
                 viewExecuteParam.setVizId(folder.getRelId());
                 viewExecuteParam.setVizType(ResourceType.DATACHART);
@@ -211,7 +325,8 @@ public abstract class ScheduleJob implements Job, Closeable {
 
     private void login(String userId) {
         User user = Application.getBean(UserMapperExt.class).selectByPrimaryKey(userId);
-        securityManager.runAs(user.getUsername());
+        username = user.getUsername();
+        securityManager.runAs(username);
     }
 
 }
@@ -20,10 +20,10 @@ package datart.server.job;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import datart.core.common.Application;
+import datart.core.common.ThreadPoolFactory;
 import datart.core.common.TransactionHelper;
 import datart.core.common.UUIDGenerator;
-import datart.core.data.provider.SchemaItem;
-import datart.core.data.provider.TableInfo;
+import datart.core.data.provider.*;
 import datart.core.entity.Source;
 import datart.core.entity.SourceSchemas;
 import datart.core.mappers.ext.SourceSchemasMapperExt;
@@ -31,16 +31,15 @@ import datart.server.service.DataProviderService;
 import datart.server.service.SourceService;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.quartz.*;
 import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.TransactionStatus;
 
 import java.io.Closeable;
 import java.io.IOException;
-import java.util.Date;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.*;
 
 @Slf4j
 public class SchemaSyncJob implements Job, Closeable {
@@ -49,6 +48,17 @@ public class SchemaSyncJob implements Job, Closeable {
 
     public static final String SOURCE_ID = "SOURCE_ID";
 
+    /**
+     * 元数据同步线程池，所有数据源的同步任务共享，限制同时发往数据源的元数据请求数
+     */
+    private static final ThreadPoolExecutor SYNC_EXECUTOR;
+
+    static {
+        int max = Math.max(Application.getIntProperty("datart.schema-sync.parallelism", 4), 1);
+        SYNC_EXECUTOR = ThreadPoolFactory.newFixedPool("schema-sync", max, 60
+                , new ArrayBlockingQueue<>(max * 4), new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
     @Override
     public void close() throws IOException {
     }
@@ -75,31 +85,160 @@ public class SchemaSyncJob implements Job, Closeable {
         }
     }
 
+    /**
+     * 按库并行读取表和列，与已保存的元数据比较后只在有变化时写入。
+     * 某个库或表读取失败时保留上一次同步的结果，不会因为部分失败丢失已有的元数据。
+     */
     public boolean execute(String sourceId) throws Exception {
-        List<SchemaItem> schemaItems = new LinkedList<>();
-        DataProviderService dataProviderService = Application.getBean(DataProviderService.class);
-        Set<String> databases = dataProviderService.readAllDatabases(sourceId);
+        Source source = Application.getBean(SourceService.class).retrieve(sourceId, false);
+        DataProviderSource providerSource = Application.getBean(DataProviderService.class).parseDataProviderConfig(source);
+        DataProviderManager providerManager = Application.getBean(DataProviderManager.class);
+        providerManager.evictMetadata(sourceId);
+
+        Map<String, Map<String, TableInfo>> stored = readStoredSchemas(sourceId);
+        Map<String, Map<String, TableInfo>> current = new ConcurrentSkipListMap<>();
+        List<String[]> pendingTables = Collections.synchronizedList(new LinkedList<>());
+
+        Set<String> databases = providerManager.readAllDatabases(providerSource);
         if (CollectionUtils.isNotEmpty(databases)) {
+            List<Future<?>> futures = new LinkedList<>();
             for (String database : databases) {
-                SchemaItem schemaItem = new SchemaItem();
-                schemaItems.add(schemaItem);
-                schemaItem.setDbName(database);
-                schemaItem.setTables(new LinkedList<>());
-                Set<String> tables = dataProviderService.readTables(sourceId, database);
-                if (CollectionUtils.isNotEmpty(tables)) {
-                    for (String table : tables) {
-                        TableInfo tableInfo = new TableInfo();
-                        schemaItem.getTables().add(tableInfo);
-                        tableInfo.setTableName(table);
-                        tableInfo.setColumns(dataProviderService.readTableColumns(sourceId, database, table));
+                futures.add(SYNC_EXECUTOR.submit(() -> {
+                    try {
+                        Map<String, TableInfo> tables = new ConcurrentSkipListMap<>();
+                        Set<String> tableNames = providerManager.readTables(providerSource, database);
+                        if (CollectionUtils.isNotEmpty(tableNames)) {
+                            Map<String, Set<Column>> tableColumns = providerManager.readAllTableColumns(providerSource, database);
+                            for (String table : tableNames) {
+                                Set<Column> columns = tableColumns == null ? null : tableColumns.get(table);
+                                if (columns == null) {
+                                    pendingTables.add(new String[]{database, table});
+                                } else {
+                                    tables.put(table, createTableInfo(table, columns));
+                                }
+                            }
+                        }
+                        current.put(database, tables);
+                    } catch (Exception e) {
+                        log.warn("read schema of database {} error, keep the last synced schema", database, e);
+                        current.put(database, stored.getOrDefault(database, new ConcurrentSkipListMap<>()));
+                    }
+                }));
+            }
+            waitAll(futures);
+        }
+
+        // 不支持批量读取的数据源，逐表并行读取
+        if (!pendingTables.isEmpty()) {
+            List<Future<?>> futures = new LinkedList<>();
+            for (String[] pending : pendingTables) {
+                String database = pending[0];
+                String table = pending[1];
+                futures.add(SYNC_EXECUTOR.submit(() -> {
+                    Map<String, TableInfo> tables = current.get(database);
+                    try {
+                        tables.put(table, createTableInfo(table, providerManager.readTableColumns(providerSource, database, table)));
+                    } catch (Exception e) {
+                        log.warn("read columns of table {}.{} error, keep the last synced schema", database, table, e);
+                        TableInfo storedTable = stored.getOrDefault(database, Collections.emptyMap()).get(table);
+                        if (storedTable != null) {
+                            tables.put(table, storedTable);
+                        }
+                    }
+                }));
+            }
+            waitAll(futures);
+        }
+
+        return upsertSchemaInfo(sourceId, stored, current);
+    }
+
+    private TableInfo createTableInfo(String table, Set<Column> columns) {
+        TableInfo tableInfo = new TableInfo();
+        tableInfo.setTableName(table);
+        tableInfo.setColumns(columns);
+        return tableInfo;
+    }
+
+    private void waitAll(List<Future<?>> futures) throws Exception {
+        for (Future<?> future : futures) {
+            future.get();
+        }
+    }
+
+    private Map<String, Map<String, TableInfo>> readStoredSchemas(String sourceId) {
+        Map<String, Map<String, TableInfo>> stored = new HashMap<>();
+        try {
+            SourceSchemas sourceSchemas = Application.getBean(SourceSchemasMapperExt.class).selectBySource(sourceId);
+            if (sourceSchemas == null || StringUtils.isBlank(sourceSchemas.getSchemas())) {
+                return stored;
+            }
+            List<SchemaItem> schemaItems = OBJECT_MAPPER.readerForListOf(SchemaItem.class).readValue(sourceSchemas.getSchemas());
+            for (SchemaItem schemaItem : schemaItems) {
+                Map<String, TableInfo> tables = new ConcurrentSkipListMap<>();
+                if (schemaItem.getTables() != null) {
+                    for (TableInfo table : schemaItem.getTables()) {
+                        tables.put(table.getTableName(), table);
                     }
                 }
+                stored.put(schemaItem.getDbName(), tables);
             }
+        } catch (Exception e) {
+            log.warn("stored source schema parse error, full sync will be performed", e);
         }
-        return upsertSchemaInfo(sourceId, schemaItems);
+        return stored;
+    }
+
+    private List<SchemaItem> toSchemaItems(Map<String, Map<String, TableInfo>> schemas) {
+        List<SchemaItem> schemaItems = new LinkedList<>();
+        schemas.forEach((database, tables) -> {
+            SchemaItem schemaItem = new SchemaItem();
+            schemaItem.setDbName(database);
+            schemaItem.setTables(new LinkedList<>(tables.values()));
+            schemaItems.add(schemaItem);
+        });
+        return schemaItems;
     }
 
-    private boolean upsertSchemaInfo(String sourceId, List<SchemaItem> schemaItems) {
+    /**
+     * 统计新增、删除、变更的表，用于判断是否需要写入
+     */
+    private int[] diff(Map<String, Map<String, TableInfo>> stored, Map<String, Map<String, TableInfo>> current) {
+        int added = 0, removed = 0, changed = 0;
+        Set<String> databases = new HashSet<>(stored.keySet());
+        databases.addAll(current.keySet());
+        for (String database : databases) {
+            Map<String, TableInfo> oldTables = stored.getOrDefault(database, Collections.emptyMap());
+            Map<String, TableInfo> newTables = current.getOrDefault(database, Collections.emptyMap());
+            for (Map.Entry<String, TableInfo> entry : newTables.entrySet()) {
+                TableInfo old = oldTables.get(entry.getKey());
+                if (old == null) {
+                    added++;
+                } else if (!Objects.equals(columnSet(old), columnSet(entry.getValue()))) {
+                    changed++;
+                }
+            }
+            for (String table : oldTables.keySet()) {
+                if (!newTables.containsKey(table)) {
+                    removed++;
+                }
+            }
+        }
+        if (!stored.keySet().equals(current.keySet()) && added + removed + changed == 0) {
+            // 只有空库的增减
+            changed++;
+        }
+        return new int[]{added, removed, changed};
+    }
+
+    private Set<Column> columnSet(TableInfo tableInfo) {
+        return tableInfo.getColumns() == null ? Collections.emptySet() : new HashSet<>(tableInfo.getColumns());
+    }
+
+    private boolean upsertSchemaInfo(String sourceId, Map<String, Map<String, TableInfo>> stored, Map<String, Map<String, TableInfo>> current) {
+        int[] diff = diff(stored, current);
+        boolean changed = diff[0] + diff[1] + diff[2] > 0;
+        log.info("source {} schema synced, {} tables added, {} removed, {} changed", sourceId, diff[0], diff[1], diff[2]);
         TransactionStatus transaction = TransactionHelper.getTransaction(TransactionDefinition.PROPAGATION_REQUIRES_NEW, TransactionDefinition.ISOLATION_REPEATABLE_READ);
         try {
             SourceSchemasMapperExt mapper = Application.getBean(SourceSchemasMapperExt.class);
@@ -109,12 +248,18 @@ public class SchemaSyncJob implements Job, Closeable {
                 sourceSchemas.setId(UUIDGenerator.generate());
                 sourceSchemas.setSourceId(sourceId);
                 sourceSchemas.setUpdateTime(new Date());
-                sourceSchemas.setSchemas(OBJECT_MAPPER.writeValueAsString(schemaItems));
+                sourceSchemas.setSchemas(OBJECT_MAPPER.writeValueAsString(toSchemaItems(current)));
                 mapper.insert(sourceSchemas);
-            } else {
+            } else if (changed) {
                 sourceSchemas.setUpdateTime(new Date());
-                sourceSchemas.setSchemas(OBJECT_MAPPER.writeValueAsString(schemaItems));
+                sourceSchemas.setSchemas(OBJECT_MAPPER.writeValueAsString(toSchemaItems(current)));
                 mapper.updateByPrimaryKey(sourceSchemas);
+            } else {
+                // 元数据没有变化时只更新同步时间
+                SourceSchemas update = new SourceSchemas();
+                update.setId(sourceSchemas.getId());
+                update.setUpdateTime(new Date());
+                mapper.updateByPrimaryKeySelective(update);
             }
             TransactionHelper.commit(transaction);
             return true;
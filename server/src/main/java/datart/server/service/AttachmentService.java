@@ -6,8 +6,10 @@ import datart.core.base.exception.Exceptions;
 import datart.core.common.Application;
 import datart.core.common.FileUtils;
 import datart.server.base.params.DownloadCreateParam;
+import datart.server.service.impl.AttachmentCsvServiceImpl;
 import datart.server.service.impl.AttachmentExcelServiceImpl;
 import datart.server.service.impl.AttachmentImageServiceImpl;
+import datart.server.service.impl.AttachmentParquetServiceImpl;
 import datart.server.service.impl.AttachmentPdfServiceImpl;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.apache.commons.lang3.time.DateFormatUtils;
@@ -21,6 +23,13 @@ public interface AttachmentService {
 
     File getFile(DownloadCreateParam downloadCreateParam, String path, String fileName) throws Exception;
 
+    /**
+     * 生成文件并通过 listener 报告进度，不支持进度的实现只在完成后返回文件
+     */
+    default File getFile(DownloadCreateParam downloadCreateParam, String path, String fileName, ProgressListener listener) throws Exception {
+        return getFile(downloadCreateParam, path, fileName);
+    }
+
     default String generateFileName(String path, String fileName, AttachmentType attachmentType) {
         path = FileUtils.withBasePath(path);
         String timeStr = DateFormatUtils.format(Calendar.getInstance(), Const.FILE_SUFFIX_DATE_FORMAT);
@@ -37,10 +46,30 @@ public interface AttachmentService {
                 return Application.getBean(AttachmentImageServiceImpl.class);
             case PDF:
                 return Application.getBean(AttachmentPdfServiceImpl.class);
+            case CSV:
+            case CSV_GZIP:
+                return Application.getBean(AttachmentCsvServiceImpl.class);
+            case PARQUET:
+                return Application.getBean(AttachmentParquetServiceImpl.class);
             default:
                 Exceptions.msg("unsupported download type." + type);
                 return null;
         }
     }
 
+    /**
+     * 导出进度回调
+     */
+    interface ProgressListener {
+
+        ProgressListener NONE = (rows, bytes) -> {
+        };
+
+        /**
+         * @param rows  已写入的行数
+         * @param bytes 已写入文件的字节数
+         */
+        void onProgress(long rows, long bytes);
+    }
+
 }
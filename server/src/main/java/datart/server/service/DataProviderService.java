@@ -3,6 +3,7 @@ package datart.server.service;
 
 import datart.core.data.provider.*;
 import datart.core.entity.Source;
+import datart.server.base.dto.BatchExecuteResult;
 import datart.server.base.params.ViewExecuteParam;
 import datart.server.base.params.TestExecuteParam;
 
@@ -10,6 +11,7 @@ import java.io.IOException;
 import java.sql.SQLException;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 public interface DataProviderService {
 
@@ -32,6 +34,29 @@ public interface DataProviderService {
 
     Dataframe execute(ViewExecuteParam viewExecuteParam, boolean checkViewPermission) throws Exception;
 
+    /**
+     * 以游标方式执行查询，按批次拉取结果。调用方负责关闭游标
+     */
+    DataCursor executeCursor(ViewExecuteParam viewExecuteParam, boolean checkViewPermission, int fetchSize) throws Exception;
+
+    /**
+     * 批量执行查询：同一视图、数据源和组织变量只解析一次，查询在受限的线程池中并发执行。
+     * 返回的结果与参数顺序一致，单个查询失败时返回失败结果，不影响其他查询
+     */
+    default List<CompletableFuture<BatchExecuteResult>> batchExecute(List<ViewExecuteParam> viewExecuteParams) {
+        return batchExecute(viewExecuteParams, null);
+    }
+
+    /**
+     * 批量执行查询，batchCanceller 取消时，所有未完成的查询都会被取消
+     */
+    List<CompletableFuture<BatchExecuteResult>> batchExecute(List<ViewExecuteParam> viewExecuteParams, QueryCanceller batchCanceller);
+
+    /**
+     * 取消当前用户指定ID的执行中查询，查询不存在或已结束时返回 false
+     */
+    boolean cancelQuery(String queryId);
+
     Set<StdSqlOperator> supportedStdFunctions(String sourceId);
 
     boolean validateFunction(String sourceId, String snippet);
@@ -0,0 +1,193 @@
+/*
+ * Datart
+ * <p>
+ * Copyright 2021
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package datart.server.service.impl;
+
+import datart.core.base.PageInfo;
+import datart.core.base.consts.AttachmentType;
+import datart.core.common.Application;
+import datart.core.data.provider.DataCursor;
+import datart.core.entity.View;
+import datart.server.base.params.DownloadCreateParam;
+import datart.server.base.params.ViewExecuteParam;
+import datart.server.service.AttachmentService;
+import datart.server.service.DataProviderService;
+import datart.server.service.OrgSettingService;
+import datart.server.service.ViewService;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.*;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * 以游标方式导出明细数据的附件：数据按批次从数据源读取后直接写入文件，不在内存中保留完整结果集。
+ * 只有一个查询时生成单个文件，多个查询时每个查询写入 zip 包中的一个文件。
+ */
+@Slf4j
+public abstract class AbstractDataAttachmentService implements AttachmentService {
+
+    /**
+     * 每批次从数据源读取的行数
+     */
+    protected static final int FETCH_SIZE = 5000;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    protected final AttachmentType attachmentType;
+
+    protected AbstractDataAttachmentService(AttachmentType attachmentType) {
+        this.attachmentType = attachmentType;
+    }
+
+    @Override
+    public File getFile(DownloadCreateParam downloadCreateParam, String path, String fileName) throws Exception {
+        return getFile(downloadCreateParam, path, fileName, ProgressListener.NONE);
+    }
+
+    @Override
+    public File getFile(DownloadCreateParam downloadParams, String path, String fileName, ProgressListener listener) throws Exception {
+        AttachmentType type = downloadParams.getDownloadType() == null ? attachmentType : downloadParams.getDownloadType();
+        List<ViewExecuteParam> params = downloadParams.getDownloadParams();
+        String filePath = generateFileName(path, fileName, type);
+        if (params.size() > 1) {
+            filePath = StringUtils.removeEnd(filePath, type.getSuffix()) + ".zip";
+        }
+        File file = new File(filePath);
+        file.getParentFile().mkdirs();
+        Progress progress = new Progress(listener);
+        try (CountingOutputStream out = new CountingOutputStream(new FileOutputStream(file), progress)) {
+            if (params.size() == 1) {
+                writeData(params.get(0), type, out, progress);
+            } else {
+                try (ZipOutputStream zip = new ZipOutputStream(out)) {
+                    for (int i = 0; i < params.size(); i++) {
+                        ViewExecuteParam param = params.get(i);
+                        String name = StringUtils.isNotBlank(param.getVizName()) ? param.getVizName() : "data" + i;
+                        zip.putNextEntry(new ZipEntry(i + "_" + name + type.getSuffix()));
+                        // 写入器关闭时不能关闭 zip 流
+                        writeData(param, type, new NonClosingOutputStream(zip), progress);
+                        zip.closeEntry();
+                    }
+                }
+            }
+        } catch (Exception e) {
+            file.delete();
+            throw e;
+        }
+        progress.report();
+        log.info("create {} file complete, {} rows, {} bytes.", type, progress.rows, progress.bytes);
+        return file;
+    }
+
+    private void writeData(ViewExecuteParam param, AttachmentType type, OutputStream out, Progress progress) throws Exception {
+        DataProviderService dataProviderService = Application.getBean(DataProviderService.class);
+        OrgSettingService orgSettingService = Application.getBean(OrgSettingService.class);
+        ViewService viewService = Application.getBean(ViewService.class);
+
+        View view = viewService.retrieve(param.getViewId(), false);
+        int rowLimit = orgSettingService.getDownloadRecordLimit(view.getOrgId());
+        param.setPageInfo(PageInfo.builder().pageNo(1).pageSize(rowLimit).countTotal(false).build());
+        try (DataCursor cursor = dataProviderService.executeCursor(param, true, FETCH_SIZE)) {
+            write(cursor, type, new BufferedOutputStream(out, BUFFER_SIZE), rowLimit, progress);
+        }
+    }
+
+    /**
+     * 将游标中的数据写入输出流，写入完成后需要关闭输出流
+     *
+     * @param rowLimit 最多写入的行数，小于等于0时不限制
+     */
+    protected abstract void write(DataCursor cursor, AttachmentType type, OutputStream out, long rowLimit, Progress progress) throws Exception;
+
+    /**
+     * 写入进度，行数由写入器累加，字节数由底层文件流累加
+     */
+    protected static class Progress {
+
+        /**
+         * 两次进度回调的最小行数间隔
+         */
+        private static final long REPORT_ROWS = 10000;
+
+        private final ProgressListener listener;
+
+        private long rows;
+
+        private long bytes;
+
+        private long reported;
+
+        Progress(ProgressListener listener) {
+            this.listener = listener == null ? ProgressListener.NONE : listener;
+        }
+
+        public void addRows(long count) {
+            rows += count;
+            if (rows - reported >= REPORT_ROWS) {
+                report();
+            }
+        }
+
+        void report() {
+            reported = rows;
+            listener.onProgress(rows, bytes);
+        }
+    }
+
+    private static class CountingOutputStream extends FilterOutputStream {
+
+        private final Progress progress;
+
+        CountingOutputStream(OutputStream out, Progress progress) {
+            super(out);
+            this.progress = progress;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            progress.bytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            progress.bytes += len;
+        }
+    }
+
+    private static class NonClosingOutputStream extends FilterOutputStream {
+
+        NonClosingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
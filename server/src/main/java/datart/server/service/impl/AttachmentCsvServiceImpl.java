@@ -0,0 +1,85 @@
+/*
+ * Datart
+ * <p>
+ * Copyright 2021
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package datart.server.service.impl;
+
+import datart.core.base.consts.AttachmentType;
+import datart.core.data.provider.Column;
+import datart.core.data.provider.DataCursor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.springframework.stereotype.Service;
+
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * CSV 格式导出，CSV_GZIP 类型额外进行 gzip 压缩
+ */
+@Slf4j
+@Service("csvAttachmentService")
+public class AttachmentCsvServiceImpl extends AbstractDataAttachmentService {
+
+    /**
+     * UTF-8 BOM，使 Excel 打开时能正确识别编码
+     */
+    private static final char BOM = '\uFEFF';
+
+    public AttachmentCsvServiceImpl() {
+        super(AttachmentType.CSV);
+    }
+
+    @Override
+    protected void write(DataCursor cursor, AttachmentType type, OutputStream out, long rowLimit, Progress progress) throws Exception {
+        if (AttachmentType.CSV_GZIP.equals(type)) {
+            out = new GZIPOutputStream(out, 8192);
+        }
+        try (CSVPrinter printer = new CSVPrinter(new OutputStreamWriter(out, StandardCharsets.UTF_8), CSVFormat.DEFAULT)) {
+            if (AttachmentType.CSV.equals(type)) {
+                printer.getOut().append(BOM);
+            }
+            List<Column> columns = cursor.getColumns();
+            for (Column column : columns) {
+                printer.print(column.columnKey());
+            }
+            printer.println();
+            long written = 0;
+            List<List<Object>> batch;
+            while ((rowLimit <= 0 || written < rowLimit) && !(batch = cursor.nextBatch()).isEmpty()) {
+                int count = 0;
+                for (List<Object> row : batch) {
+                    if (rowLimit > 0 && written + count >= rowLimit) {
+                        break;
+                    }
+                    for (Object val : row) {
+                        printer.print(val instanceof BigDecimal ? ((BigDecimal) val).toPlainString() : val);
+                    }
+                    printer.println();
+                    count++;
+                }
+                written += count;
+                progress.addRows(count);
+            }
+        }
+    }
+}
@@ -4,7 +4,7 @@ import datart.core.base.PageInfo;
 import datart.core.base.consts.AttachmentType;
 import datart.core.common.Application;
 import datart.core.common.POIUtils;
-import datart.core.data.provider.Dataframe;
+import datart.core.data.provider.DataCursor;
 import datart.core.entity.View;
 import datart.core.entity.poi.POISettings;
 import datart.server.base.params.DownloadCreateParam;
@@ -24,6 +24,11 @@ public class AttachmentExcelServiceImpl implements AttachmentService {
 
     protected final AttachmentType attachmentType = AttachmentType.EXCEL;
 
+    /**
+     * 导出时每批次从数据源读取的行数
+     */
+    private static final int FETCH_SIZE = 5000;
+
     private final VizService vizService;
 
     public AttachmentExcelServiceImpl(VizService vizService) {
@@ -37,20 +42,28 @@ public class AttachmentExcelServiceImpl implements AttachmentService {
         ViewService viewService = Application.getBean(ViewService.class);
 
         Workbook workbook = POIUtils.createEmpty();
-        for (int i = 0; i < downloadParams.getDownloadParams().size(); i++) {
-            ViewExecuteParam viewExecuteParam = downloadParams.getDownloadParams().get(i);
-            View view = viewService.retrieve(viewExecuteParam.getViewId(), false);
-            viewExecuteParam.setPageInfo(PageInfo.builder().pageNo(1).pageSize(orgSettingService.getDownloadRecordLimit(view.getOrgId())).build());
-            Dataframe dataframe = dataProviderService.execute(downloadParams.getDownloadParams().get(i));
-            String chartConfigStr = vizService.getChartConfigByVizId(viewExecuteParam.getVizType(), viewExecuteParam.getVizId());
-            POISettings poiSettings = PoiConvertUtils.covertToPoiSetting(chartConfigStr, dataframe);
-            String sheetName = StringUtils.isNotBlank(viewExecuteParam.getVizName()) ? viewExecuteParam.getVizName() : "Sheet"+i;
-            POIUtils.withSheet(workbook, sheetName, dataframe, poiSettings);
+        try {
+            for (int i = 0; i < downloadParams.getDownloadParams().size(); i++) {
+                ViewExecuteParam viewExecuteParam = downloadParams.getDownloadParams().get(i);
+                View view = viewService.retrieve(viewExecuteParam.getViewId(), false);
+                int rowLimit = orgSettingService.getDownloadRecordLimit(view.getOrgId());
+                viewExecuteParam.setPageInfo(PageInfo.builder().pageNo(1).pageSize(rowLimit).countTotal(false).build());
+                String chartConfigStr = vizService.getChartConfigByVizId(viewExecuteParam.getVizType(), viewExecuteParam.getVizId());
+                String sheetName = StringUtils.isNotBlank(viewExecuteParam.getVizName()) ? viewExecuteParam.getVizName() : "Sheet"+i;
+                // 以游标方式按批次写入，不在内存中保留完整结果集
+                try (DataCursor cursor = dataProviderService.executeCursor(viewExecuteParam, true, FETCH_SIZE)) {
+                    POISettings poiSettings = PoiConvertUtils.covertToPoiSetting(chartConfigStr, cursor.getColumns());
+                    long rows = POIUtils.withSheet(workbook, sheetName, cursor, poiSettings, rowLimit);
+                    log.debug("write {} rows into sheet {}", rows, sheetName);
+                }
+            }
+            path = generateFileName(path,fileName,attachmentType);
+            File file = new File(path);
+            POIUtils.save(workbook, file.getPath(), true);
+            log.info("create excel file complete.");
+            return file;
+        } finally {
+            POIUtils.dispose(workbook);
         }
-        path = generateFileName(path,fileName,attachmentType);
-        File file = new File(path);
-        POIUtils.save(workbook, file.getPath(), true);
-        log.info("create excel file complete.");
-        return file;
     }
 }
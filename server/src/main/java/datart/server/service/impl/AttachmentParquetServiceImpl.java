@@ -0,0 +1,64 @@
+/*
+ * Datart
+ * <p>
+ * Copyright 2021
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package datart.server.service.impl;
+
+import datart.core.base.consts.AttachmentType;
+import datart.core.data.provider.DataCursor;
+import datart.server.common.ParquetRowWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Parquet 格式导出，列式存储并使用 snappy 压缩，适合大数据量的明细导出
+ */
+@Slf4j
+@Service("parquetAttachmentService")
+public class AttachmentParquetServiceImpl extends AbstractDataAttachmentService {
+
+    public AttachmentParquetServiceImpl() {
+        super(AttachmentType.PARQUET);
+    }
+
+    @Override
+    protected void write(DataCursor cursor, AttachmentType type, OutputStream out, long rowLimit, Progress progress) throws Exception {
+        // 第一批数据用于确定数值列的存储类型
+        List<List<Object>> batch = cursor.nextBatch();
+        try (ParquetRowWriter writer = new ParquetRowWriter(cursor.getColumns(), batch, out)) {
+            long written = 0;
+            while ((rowLimit <= 0 || written < rowLimit) && !batch.isEmpty()) {
+                int count = 0;
+                for (List<Object> row : batch) {
+                    if (rowLimit > 0 && written + count >= rowLimit) {
+                        break;
+                    }
+                    writer.write(row);
+                    count++;
+                }
+                written += count;
+                progress.addRows(count);
+                if (rowLimit <= 0 || written < rowLimit) {
+                    batch = cursor.nextBatch();
+                }
+            }
+        }
+    }
+}
@@ -63,12 +63,19 @@ public class AttachmentPdfServiceImpl implements AttachmentService {
         log.info("share url {} ", url);
 
         File imageFile = WebUtils.screenShot2File(url, FileUtils.withBasePath(path), downloadCreateParam.getImageWidth());
+        File file = getFileFromImage(imageFile, path, fileName);
+        imageFile.delete();
+        shareService.delete(share.getId(), false);
+        return file;
+    }
+
+    /**
+     * 使用已有的截图生成pdf，截图文件保留由调用方处理
+     */
+    public File getFileFromImage(File imageFile, String path, String fileName) throws Exception {
         File file = new File(generateFileName(path, fileName, attachmentType));
         createPDFFromImage(file.getPath(), imageFile.getPath());
-
         log.info("create pdf file complete.");
-        imageFile.delete();
-        shareService.delete(share.getId(), false);
         return file;
     }
 
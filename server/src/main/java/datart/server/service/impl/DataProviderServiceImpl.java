@@ -33,12 +33,14 @@ import datart.core.base.consts.VariableTypeEnum;
 import datart.core.base.exception.BaseException;
 import datart.core.base.exception.Exceptions;
 import datart.core.common.RequestContext;
+import datart.core.common.ThreadPoolFactory;
 import datart.core.data.provider.*;
 import datart.core.entity.RelSubjectColumns;
 import datart.core.entity.Source;
 import datart.core.entity.View;
 import datart.core.mappers.ext.RelSubjectColumnsMapperExt;
 import datart.security.util.AESUtil;
+import datart.server.base.dto.BatchExecuteResult;
 import datart.server.base.dto.VariableValue;
 import datart.server.base.params.TestExecuteParam;
 import datart.server.base.params.ViewExecuteParam;
@@ -46,15 +48,22 @@ import datart.server.service.BaseService;
 import datart.server.service.DataProviderService;
 import datart.server.service.VariableService;
 import datart.server.service.ViewService;
+import lombok.AllArgsConstructor;
+import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.i18n.LocaleContext;
+import org.springframework.context.i18n.LocaleContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.io.IOException;
 import java.sql.SQLException;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -82,14 +91,33 @@ public class DataProviderServiceImpl extends BaseService implements DataProvider
 
     private final ViewService viewService;
 
+    /**
+     * 执行中且指定了查询ID的查询，key 为 用户ID + 查询ID
+     */
+    private final Map<String, QueryCanceller> runningQueries = new ConcurrentHashMap<>();
+
+    /**
+     * 批量执行查询的线程池，限制同时发往数据源的批量查询数，队列已满时由请求线程执行
+     */
+    private final ThreadPoolExecutor batchExecutor;
+
     public DataProviderServiceImpl(DataProviderManager dataProviderManager,
                                    RelSubjectColumnsMapperExt rscMapper,
                                    VariableService variableService,
-                                   ViewService viewService) {
+                                   ViewService viewService,
+                                   @Value("${datart.batch-execute.parallelism:8}") int batchParallelism) {
         this.dataProviderManager = dataProviderManager;
         this.rscMapper = rscMapper;
         this.variableService = variableService;
         this.viewService = viewService;
+        int max = Math.max(batchParallelism, 1);
+        this.batchExecutor = ThreadPoolFactory.newFixedPool("batch-execute", max, 60
+                , new ArrayBlockingQueue<>(max * 4), new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        ThreadPoolFactory.shutdown(batchExecutor);
     }
 
     @PostConstruct
@@ -207,7 +235,8 @@ public class DataProviderServiceImpl extends BaseService implements DataProvider
                 .serverAggregate((boolean) providerSource.getProperties().getOrDefault(SERVER_AGGREGATE, false))
                 .cacheEnable(false)
                 .build();
-        return dataProviderManager.execute(providerSource, queryScript, executeParam);
+        return executeCancellable(runningQueryKey(testExecuteParam.getQueryId()), testExecuteParam.getQueryTimeout(),
+                () -> dataProviderManager.execute(providerSource, queryScript, executeParam));
     }
 
     @Override
@@ -220,11 +249,156 @@ public class DataProviderServiceImpl extends BaseService implements DataProvider
         if (viewExecuteParam.isEmpty()) {
             return Dataframe.empty();
         }
+        ViewQuery viewQuery = buildViewQuery(viewExecuteParam, checkViewPermission);
+
+        Dataframe dataframe = executeCancellable(runningQueryKey(viewExecuteParam.getQueryId()), viewExecuteParam.getQueryTimeout(),
+                () -> dataProviderManager.execute(viewQuery.getProviderSource(), viewQuery.getQueryScript(), viewQuery.getQueryParam()));
 
+        if (!viewExecuteParam.isScript() || !viewQuery.isScriptPermission()) {
+            dataframe.setScript(null);
+        }
+        return dataframe;
+    }
+
+    @Override
+    public DataCursor executeCursor(ViewExecuteParam viewExecuteParam, boolean checkViewPermission, int fetchSize) throws Exception {
+        if (viewExecuteParam.isEmpty()) {
+            return new DataframeCursor(Dataframe.empty(), fetchSize);
+        }
+        ViewQuery viewQuery = buildViewQuery(viewExecuteParam, checkViewPermission);
+        return dataProviderManager.executeCursor(viewQuery.getProviderSource(), viewQuery.getQueryScript(), viewQuery.getQueryParam(), fetchSize);
+    }
+
+    @Override
+    public List<CompletableFuture<BatchExecuteResult>> batchExecute(List<ViewExecuteParam> viewExecuteParams, QueryCanceller batchCanceller) {
+        List<CompletableFuture<BatchExecuteResult>> results = new ArrayList<>();
+        if (CollectionUtils.isEmpty(viewExecuteParams)) {
+            return results;
+        }
+        // 权限校验和视图解析依赖当前用户，在请求线程中完成，线程池只负责执行查询
+        ResolveCache cache = new ResolveCache();
+        LocaleContext localeContext = LocaleContextHolder.getLocaleContext();
+        Thread caller = Thread.currentThread();
+        for (int i = 0; i < viewExecuteParams.size(); i++) {
+            int index = i;
+            ViewExecuteParam param = viewExecuteParams.get(i);
+            ViewQuery viewQuery;
+            try {
+                viewQuery = param.isEmpty() ? null : buildViewQuery(param, resolveViewContext(param.getViewId(), true, cache));
+            } catch (Exception e) {
+                results.add(CompletableFuture.completedFuture(BatchExecuteResult.failure(index, param, e)));
+                continue;
+            }
+            String key = runningQueryKey(param.getQueryId());
+            results.add(CompletableFuture.supplyAsync(() -> {
+                boolean pooled = Thread.currentThread() != caller;
+                if (pooled) {
+                    LocaleContextHolder.setLocaleContext(localeContext);
+                    RequestContext.clean();
+                }
+                try {
+                    if (batchCanceller != null && batchCanceller.isCancelled()) {
+                        // 整个批次已取消，排队中的查询不再执行
+                        Exceptions.msg("message.provider.execute.cancelled");
+                    }
+                    Dataframe dataframe = viewQuery == null ? Dataframe.empty() : executeCancellable(key, param.getQueryTimeout(), batchCanceller,
+                            () -> dataProviderManager.execute(viewQuery.getProviderSource(), viewQuery.getQueryScript(), viewQuery.getQueryParam()));
+                    if (!param.isScript() || viewQuery == null || !viewQuery.isScriptPermission()) {
+                        dataframe.setScript(null);
+                    }
+                    return BatchExecuteResult.success(index, param, dataframe);
+                } catch (Exception e) {
+                    log.error("Batch execute error, viz " + param.getVizId(), e);
+                    return BatchExecuteResult.failure(index, param, e);
+                } finally {
+                    if (pooled) {
+                        LocaleContextHolder.resetLocaleContext();
+                        RequestContext.clean();
+                    }
+                }
+            }, batchExecutor));
+        }
+        return results;
+    }
+
+    @Override
+    public boolean cancelQuery(String queryId) {
+        if (StringUtils.isBlank(queryId)) {
+            return false;
+        }
+        QueryCanceller canceller = runningQueries.get(runningQueryKey(queryId));
+        if (canceller == null) {
+            return false;
+        }
+        canceller.cancel();
+        return true;
+    }
+
+    /**
+     * 绑定取消信号后执行查询：指定了查询ID时登记到执行中的查询，可通过 cancelQuery 取消；
+     * 请求的超时时间由数据源按其默认值和最大值约束后应用到 Statement
+     *
+     * @param key 执行中查询的登记key，由 runningQueryKey 生成，为空时不登记
+     */
+    private <T> T executeCancellable(String key, int queryTimeout, Callable<T> query) throws Exception {
+        return executeCancellable(key, queryTimeout, null, query);
+    }
+
+    /**
+     * @param parent 上级取消信号，不为空时查询的取消信号从中派生，上级取消时一同取消
+     */
+    private <T> T executeCancellable(String key, int queryTimeout, QueryCanceller parent, Callable<T> query) throws Exception {
+        QueryCanceller canceller = parent == null ? new QueryCanceller(queryTimeout) : parent.fork(queryTimeout);
+        if (key != null) {
+            runningQueries.put(key, canceller);
+        }
+        QueryCanceller previous = canceller.bind();
+        try {
+            return query.call();
+        } catch (Exception e) {
+            if (canceller.isCancelled()) {
+                log.info("Query {} cancelled", key);
+                Exceptions.msg("message.provider.execute.cancelled");
+            }
+            throw e;
+        } finally {
+            QueryCanceller.restore(previous);
+            if (key != null) {
+                runningQueries.remove(key, canceller);
+            }
+        }
+    }
+
+    private String runningQueryKey(String queryId) {
+        if (StringUtils.isBlank(queryId)) {
+            return null;
+        }
+        return getCurrentUser().getId() + ":" + queryId;
+    }
+
+    private ViewQuery buildViewQuery(ViewExecuteParam viewExecuteParam, boolean checkViewPermission) {
+        ViewContext context = resolveViewContext(viewExecuteParam.getViewId(), checkViewPermission, new ResolveCache());
+        RequestContext.setScriptPermission(context.isScriptPermission());
+        return buildViewQuery(viewExecuteParam, context);
+    }
+
+    /**
+     * 解析视图相关的数据源、权限和变量，批量执行时同一视图、数据源和组织只解析一次
+     */
+    private ViewContext resolveViewContext(String viewId, boolean checkViewPermission, ResolveCache cache) {
+        String key = viewId + ":" + checkViewPermission;
+        ViewContext context = cache.views.get(key);
+        if (context != null) {
+            return context;
+        }
         //datasource and view
-        View view = retrieve(viewExecuteParam.getViewId(), View.class, checkViewPermission);
-        Source source = retrieve(view.getSourceId(), Source.class, false);
-        DataProviderSource providerSource = parseDataProviderConfig(source);
+        View view = retrieve(viewId, View.class, checkViewPermission);
+        DataProviderSource providerSource = cache.sources.get(view.getSourceId());
+        if (providerSource == null) {
+            Source source = retrieve(view.getSourceId(), Source.class, false);
+            providerSource = parseDataProviderConfig(source);
+            cache.sources.put(view.getSourceId(), providerSource);
+        }
 
         boolean scriptPermission = true;
         try {
@@ -232,23 +406,40 @@ public class DataProviderServiceImpl extends BaseService implements DataProvider
         } catch (Exception e) {
             scriptPermission = false;
         }
-        RequestContext.setScriptPermission(scriptPermission);
 
         //permission and variables
         Set<SelectColumn> columns = parseColumnPermission(view);
-        List<ScriptVariable> variables = parseVariables(view, viewExecuteParam);
+        List<ScriptVariable> orgVariables = cache.orgVariables.get(view.getOrgId());
+        if (orgVariables == null) {
+            orgVariables = getOrgVariables(view.getOrgId());
+            cache.orgVariables.put(view.getOrgId(), orgVariables);
+        }
+        List<ScriptVariable> variables = new LinkedList<>(orgVariables);
+        // view自定义变量
+        variables.addAll(getViewVariables(view.getId()));
 
-        if (securityManager.isOrgOwner(view.getOrgId())) {
+        context = new ViewContext(view, providerSource, scriptPermission, columns, variables,
+                securityManager.isOrgOwner(view.getOrgId()), parseSchema(view.getModel()));
+        cache.views.put(key, context);
+        return context;
+    }
+
+    private ViewQuery buildViewQuery(ViewExecuteParam viewExecuteParam, ViewContext context) {
+        View view = context.getView();
+        DataProviderSource providerSource = context.getProviderSource();
+        List<ScriptVariable> variables = parseVariables(context.getVariables(), viewExecuteParam);
+
+        if (context.isOrgOwner()) {
             disablePermissionVariables(variables);
         }
 
         QueryScript queryScript = QueryScript.builder()
                 .test(false)
-                .sourceId(source.getId())
+                .sourceId(view.getSourceId())
                 .script(view.getScript())
                 .scriptType(view.getType() == null ? ScriptType.SQL : ScriptType.valueOf(view.getType()))
                 .variables(variables)
-                .schema(parseSchema(view.getModel()))
+                .schema(context.getSchema())
                 .build();
 
         if (viewExecuteParam.getPageInfo().getPageNo() < 1) {
@@ -266,19 +457,14 @@ public class DataProviderServiceImpl extends BaseService implements DataProvider
                 .groups(viewExecuteParam.getGroups())
                 .orders(viewExecuteParam.getOrders())
                 .pageInfo(viewExecuteParam.getPageInfo())
-                .includeColumns(columns)
+                .includeColumns(context.getColumns())
                 .concurrencyOptimize(viewExecuteParam.isConcurrencyControl())
                 .serverAggregate((boolean) providerSource.getProperties().getOrDefault(SERVER_AGGREGATE, false))
                 .cacheEnable(viewExecuteParam.isCache())
                 .cacheExpires(viewExecuteParam.getCacheExpires())
                 .build();
 
-        Dataframe dataframe = dataProviderManager.execute(providerSource, queryScript, queryParam);
-
-        if (!viewExecuteParam.isScript() || !scriptPermission) {
-            dataframe.setScript(null);
-        }
-        return dataframe;
+        return new ViewQuery(providerSource, queryScript, queryParam, context.isScriptPermission());
     }
 
     @Override
@@ -326,12 +512,17 @@ public class DataProviderServiceImpl extends BaseService implements DataProvider
         }
     }
 
-    private List<ScriptVariable> parseVariables(View view, ViewExecuteParam param) {
-        //通用变量
+    /**
+     * 复制视图变量后按请求参数赋值，视图变量在批量执行的多个查询间共享，不能直接修改
+     */
+    private List<ScriptVariable> parseVariables(List<ScriptVariable> viewVariables, ViewExecuteParam param) {
         List<ScriptVariable> variables = new LinkedList<>();
-        variables.addAll(getOrgVariables(view.getOrgId()));
-        // view自定义变量
-        variables.addAll(getViewVariables(view.getId()));
+        for (ScriptVariable v : viewVariables) {
+            ScriptVariable copy = new ScriptVariable(v.getName(), v.getType(), v.getValueType(), v.getValues(), v.isExpression());
+            copy.setDisabled(v.isDisabled());
+            copy.setFormat(v.getFormat());
+            variables.add(copy);
+        }
         variables.stream()
                 .filter(v -> v.getType().equals(VariableTypeEnum.QUERY))
                 .forEach(v -> {
@@ -487,4 +678,45 @@ public class DataProviderServiceImpl extends BaseService implements DataProvider
         return schema;
     }
 
+    @Data
+    @AllArgsConstructor
+    private static class ViewQuery {
+
+        private DataProviderSource providerSource;
+
+        private QueryScript queryScript;
+
+        private ExecuteParam queryParam;
+
+        private boolean scriptPermission;
+    }
+
+    @Data
+    @AllArgsConstructor
+    private static class ViewContext {
+
+        private View view;
+
+        private DataProviderSource providerSource;
+
+        private boolean scriptPermission;
+
+        private Set<SelectColumn> columns;
+
+        private List<ScriptVariable> variables;
+
+        private boolean orgOwner;
+
+        private Map<String, Column> schema;
+    }
+
+    private static class ResolveCache {
+
+        private final Map<String, ViewContext> views = new HashMap<>();
+
+        private final Map<String, DataProviderSource> sources = new HashMap<>();
+
+        private final Map<String, List<ScriptVariable>> orgVariables = new HashMap<>();
+    }
+
 }
@@ -0,0 +1,265 @@
+/*
+ * Datart
+ * <p>
+ * Copyright 2021
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package datart.server.service.impl;
+
+import datart.core.base.exception.Exceptions;
+import datart.core.common.ThreadPoolFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * 下载任务调度：使用独立的线程池执行导出，限制全局、每个组织和每个用户同时执行的任务数。
+ * 排队任务按预估开销优先执行小任务，等待时间越长优先级越高，避免大任务一直得不到执行。
+ */
+@Slf4j
+@Component
+public class DownloadScheduler {
+
+    /**
+     * 队列已满时的处理策略
+     */
+    public enum RejectPolicy {
+
+        /**
+         * 拒绝新提交的任务
+         */
+        ABORT,
+
+        /**
+         * 丢弃队列中预估开销最大的任务，新任务开销更大时拒绝新任务
+         */
+        DISCARD_LARGEST
+    }
+
+    /**
+     * 每等待该时长，任务的优先级提升一个开销单位
+     */
+    private static final long AGING_MILLIS = 60_000;
+
+    @Value("${datart.download.parallelism:4}")
+    private int parallelism;
+
+    @Value("${datart.download.max-per-org:2}")
+    private int maxPerOrg;
+
+    @Value("${datart.download.max-per-user:1}")
+    private int maxPerUser;
+
+    @Value("${datart.download.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${datart.download.max-queued-per-user:10}")
+    private int maxQueuedPerUser;
+
+    @Value("${datart.download.reject-policy:ABORT}")
+    private RejectPolicy rejectPolicy;
+
+    private final List<DownloadTask> queue = new LinkedList<>();
+
+    private final Map<String, Integer> runningByOrg = new HashMap<>();
+
+    private final Map<String, Integer> runningByUser = new HashMap<>();
+
+    private int running;
+
+    private long sequence;
+
+    private volatile ThreadPoolExecutor executor;
+
+    /**
+     * 提交下载任务，队列已满或用户排队任务过多时抛出异常
+     *
+     * @param cost     预估开销，越小越优先执行
+     * @param onReject 任务在排队中被丢弃时的回调
+     */
+    public synchronized void submit(String downloadId, String orgId, String userId, long cost, Runnable task, Runnable onReject) {
+        long queuedByUser = queue.stream().filter(t -> Objects.equals(t.userId, userId)).count();
+        if (queuedByUser >= Math.max(maxQueuedPerUser, 1)) {
+            Exceptions.msg("message.download.queue.user.limit", String.valueOf(maxQueuedPerUser));
+        }
+        DownloadTask downloadTask = new DownloadTask(downloadId, orgId, userId, Math.max(cost, 1), task, onReject, sequence++);
+        if (queue.size() >= Math.max(queueCapacity, 1)) {
+            reject(downloadTask);
+        }
+        queue.add(downloadTask);
+        dispatch();
+    }
+
+    /**
+     * 任务在队列中的位置，从1开始。任务已开始执行或不存在时返回0。
+     * 按 dispatch 相同的优先级和组织、用户并发限制模拟出队顺序，没有可执行的任务时假设执行中的任务全部结束。
+     * 实际顺序还取决于任务完成的先后，结果为估计值
+     */
+    public synchronized int queuePosition(String downloadId) {
+        long now = System.currentTimeMillis();
+        List<DownloadTask> pending = new ArrayList<>(queue);
+        Map<String, Integer> byOrg = new HashMap<>(runningByOrg);
+        Map<String, Integer> byUser = new HashMap<>(runningByUser);
+        int slots = running;
+        int position = 0;
+        while (!pending.isEmpty()) {
+            DownloadTask next = slots < Math.max(parallelism, 1) ? selectNext(pending, byOrg, byUser, now) : null;
+            if (next == null) {
+                if (slots == 0) {
+                    break;
+                }
+                byOrg.clear();
+                byUser.clear();
+                slots = 0;
+                continue;
+            }
+            position++;
+            if (next.downloadId.equals(downloadId)) {
+                return position;
+            }
+            pending.remove(next);
+            slots++;
+            byOrg.merge(next.orgId, 1, Integer::sum);
+            byUser.merge(next.userId, 1, Integer::sum);
+        }
+        return 0;
+    }
+
+    private void reject(DownloadTask task) {
+        if (rejectPolicy == RejectPolicy.DISCARD_LARGEST) {
+            DownloadTask largest = queue.stream()
+                    .max(Comparator.comparingLong((DownloadTask t) -> t.cost).thenComparingLong(t -> t.sequence))
+                    .orElse(null);
+            if (largest != null && largest.cost > task.cost) {
+                queue.remove(largest);
+                log.warn("Download queue is full, discard download task {}", largest.downloadId);
+                try {
+                    largest.onReject.run();
+                } catch (Exception e) {
+                    log.error("Download task reject callback error", e);
+                }
+                return;
+            }
+        }
+        log.warn("Download queue is full, reject download task {}", task.downloadId);
+        Exceptions.msg("message.download.queue.full");
+    }
+
+    /**
+     * 在并发限制内，按优先级启动可以执行的排队任务
+     */
+    private void dispatch() {
+        long now = System.currentTimeMillis();
+        while (running < Math.max(parallelism, 1) && !queue.isEmpty()) {
+            DownloadTask next = selectNext(queue, runningByOrg, runningByUser, now);
+            if (next == null) {
+                return;
+            }
+            queue.remove(next);
+            running++;
+            runningByOrg.merge(next.orgId, 1, Integer::sum);
+            runningByUser.merge(next.userId, 1, Integer::sum);
+            DownloadTask task = next;
+            getExecutor().execute(() -> {
+                try {
+                    task.task.run();
+                } catch (Exception e) {
+                    log.error("Download task execute error", e);
+                } finally {
+                    complete(task);
+                }
+            });
+        }
+    }
+
+    /**
+     * 选出未超过组织和用户并发限制、优先级最高的任务，没有可执行的任务时返回null
+     */
+    private DownloadTask selectNext(Collection<DownloadTask> tasks, Map<String, Integer> byOrg, Map<String, Integer> byUser, long now) {
+        DownloadTask next = null;
+        for (DownloadTask task : tasks) {
+            if (byOrg.getOrDefault(task.orgId, 0) >= Math.max(maxPerOrg, 1)
+                    || byUser.getOrDefault(task.userId, 0) >= Math.max(maxPerUser, 1)) {
+                continue;
+            }
+            if (next == null || task.score(now) < next.score(now)
+                    || (task.score(now) == next.score(now) && task.sequence < next.sequence)) {
+                next = task;
+            }
+        }
+        return next;
+    }
+
+    private synchronized void complete(DownloadTask task) {
+        running--;
+        runningByOrg.computeIfPresent(task.orgId, (k, v) -> v > 1 ? v - 1 : null);
+        runningByUser.computeIfPresent(task.userId, (k, v) -> v > 1 ? v - 1 : null);
+        dispatch();
+    }
+
+    private ThreadPoolExecutor getExecutor() {
+        if (executor == null) {
+            int max = Math.max(parallelism, 1);
+            // 并发数由调度控制，线程池队列不会积压任务
+            executor = ThreadPoolFactory.newFixedPool("download", max, 60
+                    , new LinkedBlockingQueue<>(), new ThreadPoolExecutor.AbortPolicy());
+        }
+        return executor;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            ThreadPoolFactory.shutdown(executor);
+        }
+    }
+
+    private static class DownloadTask {
+
+        private final String downloadId;
+
+        private final String orgId;
+
+        private final String userId;
+
+        private final long cost;
+
+        private final Runnable task;
+
+        private final Runnable onReject;
+
+        private final long sequence;
+
+        private final long submitTime = System.currentTimeMillis();
+
+        private DownloadTask(String downloadId, String orgId, String userId, long cost, Runnable task, Runnable onReject, long sequence) {
+            this.downloadId = downloadId;
+            this.orgId = orgId;
+            this.userId = userId;
+            this.cost = cost;
+            this.task = task;
+            this.onReject = onReject;
+            this.sequence = sequence;
+        }
+
+        private long score(long now) {
+            return cost * AGING_MILLIS - (now - submitTime);
+        }
+    }
+}
@@ -23,11 +23,12 @@ import datart.core.base.consts.FileOwner;
 import datart.core.base.exception.Exceptions;
 import datart.core.base.exception.NotAllowedException;
 import datart.core.common.FileUtils;
-import datart.core.common.TaskExecutor;
 import datart.core.common.UUIDGenerator;
 import datart.core.entity.Download;
+import datart.core.entity.View;
 import datart.core.mappers.ext.DownloadMapperExt;
 import datart.server.base.params.DownloadCreateParam;
+import datart.server.base.params.ViewExecuteParam;
 import datart.server.service.AttachmentService;
 import datart.server.service.BaseService;
 import datart.server.service.DownloadService;
@@ -36,6 +37,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.BeanUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.CollectionUtils;
 
 import java.io.File;
 import java.util.Date;
@@ -45,10 +47,19 @@ import java.util.List;
 @Service
 public class DownloadServiceImpl extends BaseService implements DownloadService {
 
+    /**
+     * 导出进度写回下载记录的最小间隔
+     */
+    private static final long PROGRESS_INTERVAL_MILLIS = 2000;
+
     private final DownloadMapperExt downloadMapper;
 
-    public DownloadServiceImpl(DownloadMapperExt downloadMapper) {
+    private final DownloadScheduler downloadScheduler;
+
+    public DownloadServiceImpl(DownloadMapperExt downloadMapper,
+                               DownloadScheduler downloadScheduler) {
         this.downloadMapper = downloadMapper;
+        this.downloadScheduler = downloadScheduler;
     }
 
     @Override
@@ -80,7 +91,7 @@ public class DownloadServiceImpl extends BaseService implements DownloadService
         requirePermission(download, Const.DOWNLOAD);
         final String downloadUser = getCurrentUser().getUsername();
 
-        TaskExecutor.submit(() -> {
+        downloadScheduler.submit(download.getId(), resolveOrgId(downloadParams), clientId, estimateCost(downloadParams), () -> {
 
             try {
                 securityManager.runAs(downloadUser);
@@ -92,8 +103,9 @@ public class DownloadServiceImpl extends BaseService implements DownloadService
                         downloadParams.setDownloadType(AttachmentType.EXCEL);
                     }
                     AttachmentService attachmentService = AttachmentService.matchAttachmentService(downloadParams.getDownloadType());
-                    File file = attachmentService.getFile(downloadParams, FileUtils.withBasePath(FileOwner.DOWNLOAD.getPath()), fileName);
+                    File file = attachmentService.getFile(downloadParams, FileUtils.withBasePath(FileOwner.DOWNLOAD.getPath()), fileName, new DownloadProgressListener(download));
                     download.setPath(FileUtils.concatPath(FileOwner.DOWNLOAD.getPath(), file.getName()));
+                    download.setFileSize(file.length());
                     download.setStatus((byte) 1);
                 } catch (Exception e) {
                     log.error("Download Task execute error", e);
@@ -103,18 +115,53 @@ public class DownloadServiceImpl extends BaseService implements DownloadService
             } finally {
                 securityManager.logoutCurrent();
             }
+        }, () -> {
+            download.setStatus((byte) -1);
+            downloadMapper.updateByPrimaryKey(download);
         });
+        download.setQueuePosition(downloadScheduler.queuePosition(download.getId()));
         return download;
     }
 
+    /**
+     * 预估导出开销：明细数据（无分组和聚合）的导出量通常远大于聚合结果
+     */
+    private long estimateCost(DownloadCreateParam downloadParams) {
+        long cost = 0;
+        for (ViewExecuteParam param : downloadParams.getDownloadParams()) {
+            boolean aggregated = !CollectionUtils.isEmpty(param.getGroups()) || !CollectionUtils.isEmpty(param.getAggregators());
+            cost += aggregated ? 1 : 10;
+        }
+        return Math.max(cost, 1);
+    }
+
+    private String resolveOrgId(DownloadCreateParam downloadParams) {
+        for (ViewExecuteParam param : downloadParams.getDownloadParams()) {
+            if (StringUtils.isNotBlank(param.getViewId())) {
+                try {
+                    return retrieve(param.getViewId(), View.class, false).getOrgId();
+                } catch (Exception e) {
+                    log.warn("Download org resolve error: {}", e.getMessage());
+                }
+            }
+        }
+        return "";
+    }
+
     @Override
     public List<Download> listDownloadTasks() {
-        return downloadMapper.selectByCreator(getCurrentUser().getId());
+        return listDownloadTasks(getCurrentUser().getId());
     }
 
     @Override
     public List<Download> listDownloadTasks(String clientId) {
-        return downloadMapper.selectByCreator(clientId);
+        List<Download> downloads = downloadMapper.selectByCreator(clientId);
+        for (Download download : downloads) {
+            if (download.getStatus() != null && download.getStatus() == 0) {
+                download.setQueuePosition(downloadScheduler.queuePosition(download.getId()));
+            }
+        }
+        return downloads;
     }
 
     @Override
@@ -129,4 +176,38 @@ public class DownloadServiceImpl extends BaseService implements DownloadService
         return download;
     }
 
+    /**
+     * 将导出进度定期写回下载记录，用于在下载列表中展示已写入的行数和文件大小
+     */
+    private class DownloadProgressListener implements AttachmentService.ProgressListener {
+
+        private final Download download;
+
+        private long lastUpdate;
+
+        private DownloadProgressListener(Download download) {
+            this.download = download;
+        }
+
+        @Override
+        public void onProgress(long rows, long bytes) {
+            download.setRowCount(rows);
+            download.setFileSize(bytes);
+            long now = System.currentTimeMillis();
+            if (now - lastUpdate < PROGRESS_INTERVAL_MILLIS) {
+                return;
+            }
+            lastUpdate = now;
+            Download progress = new Download();
+            progress.setId(download.getId());
+            progress.setRowCount(rows);
+            progress.setFileSize(bytes);
+            try {
+                downloadMapper.updateByPrimaryKeySelective(progress);
+            } catch (Exception e) {
+                log.warn("Download progress update error", e);
+            }
+        }
+    }
+
 }
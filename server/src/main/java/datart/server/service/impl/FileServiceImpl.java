@@ -72,6 +72,10 @@ public class FileServiceImpl extends BaseService implements FileService {
                     UserService userService = Application.getBean(UserService.class);
                     userService.updateAvatar("");
                     break;
+                case DATA_SOURCE:
+                    // 文件数据源的解析快照与源文件分开存放，一并删除
+                    FileSystemUtils.deleteRecursively(new File(getBasePath(FileOwner.FILE_SNAPSHOT, ownerId)));
+                    break;
                 default:
                     break;
             }
@@ -0,0 +1,371 @@
+/*
+ * Datart
+ * <p>
+ * Copyright 2021
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package datart.server.service.impl;
+
+import datart.core.common.Cache;
+import datart.core.common.UUIDGenerator;
+import datart.core.data.provider.Column;
+import datart.core.data.provider.Dataframe;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 两级缓存：进程内 L1（按字节数限制容量，按 TTL 过期）+ Redis L2。
+ * 通过配置 cacheImpl=datart.server.service.impl.NearCacheImpl 启用。
+ * 写入和删除时通过 Redis 频道通知其他节点清除各自的 L1；通知丢失时（如订阅断开），
+ * 其他节点的 L1 最多在 max-ttl-seconds 内返回旧数据。
+ */
+@Slf4j
+@Component
+public class NearCacheImpl implements Cache {
+
+    // 估算大小时最多采样的行数
+    private static final int SAMPLE_ROWS = 64;
+
+    private static final long OBJECT_OVERHEAD = 16;
+
+    private static final long REFERENCE_SIZE = 8;
+
+    private static final String INVALIDATE_CHANNEL = "datart:near-cache:invalidate";
+
+    private static final String MESSAGE_SEPARATOR = "|";
+
+    @Value("${datart.cache.near.max-bytes:67108864}")
+    private long maxBytes;
+
+    @Value("${datart.cache.near.max-ttl-seconds:60}")
+    private int maxTtlSeconds;
+
+    private final RedisCacheImpl remoteCache;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+
+    private long usedBytes;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder remoteHits = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    private final LongAdder expirations = new LongAdder();
+
+    // 用于忽略本节点发出的失效通知
+    private final String nodeId = UUIDGenerator.generate();
+
+    private volatile RedisMessageListenerContainer listenerContainer;
+
+    public NearCacheImpl(RedisCacheImpl remoteCache) {
+        this.remoteCache = remoteCache;
+    }
+
+    @Override
+    public void put(String key, Object object) {
+        subscribe();
+        remoteCache.put(key, object);
+        putLocal(key, object, maxTtlSeconds);
+        publishInvalidate(key);
+    }
+
+    @Override
+    public void put(String key, Object object, int ttl) {
+        subscribe();
+        remoteCache.put(key, object, ttl);
+        putLocal(key, object, Math.min(ttl, maxTtlSeconds));
+        publishInvalidate(key);
+    }
+
+    @Override
+    public boolean delete(String key) {
+        subscribe();
+        removeLocal(key);
+        boolean deleted = remoteCache.delete(key);
+        publishInvalidate(key);
+        return deleted;
+    }
+
+    @Override
+    public <T> T get(String key) {
+        subscribe();
+        Object value = getLocal(key);
+        if (value != null) {
+            hits.increment();
+            return (T) copyOf(value);
+        }
+        misses.increment();
+        value = remoteCache.get(key);
+        if (value != null) {
+            remoteHits.increment();
+            // 按 L2 中剩余的过期时间写入 L1，避免 L1 中的数据比 L2 更晚过期
+            long expire = remoteCache.getExpire(key);
+            if (expire != 0 && expire != -2) {
+                putLocal(key, value, expire < 0 ? maxTtlSeconds : (int) Math.min(expire, maxTtlSeconds));
+            }
+            // putLocal 保存的是深拷贝，此处返回的解码结果由调用方独占
+            return (T) value;
+        }
+        return null;
+    }
+
+    @PreDestroy
+    public void destroy() {
+        RedisMessageListenerContainer container = listenerContainer;
+        if (container != null) {
+            try {
+                container.destroy();
+            } catch (Exception e) {
+                log.warn("Near cache listener container destroy error", e);
+            }
+        }
+    }
+
+    public CacheStats getStats() {
+        CacheStats stats = new CacheStats();
+        synchronized (entries) {
+            stats.setEntries(entries.size());
+            stats.setUsedBytes(usedBytes);
+        }
+        stats.setMaxBytes(maxBytes);
+        stats.setHits(hits.sum());
+        stats.setMisses(misses.sum());
+        stats.setRemoteHits(remoteHits.sum());
+        stats.setEvictions(evictions.sum());
+        stats.setExpirations(expirations.sum());
+        return stats;
+    }
+
+    /**
+     * 首次使用时才订阅失效通知，未启用二级缓存时不会建立额外的 Redis 连接
+     */
+    private void subscribe() {
+        if (listenerContainer != null) {
+            return;
+        }
+        synchronized (this) {
+            if (listenerContainer != null) {
+                return;
+            }
+            RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+            container.setConnectionFactory(remoteCache.getConnectionFactory());
+            container.addMessageListener((message, pattern) -> onInvalidate(new String(message.getBody(), StandardCharsets.UTF_8)),
+                    new ChannelTopic(INVALIDATE_CHANNEL));
+            try {
+                container.afterPropertiesSet();
+                container.start();
+            } catch (Exception e) {
+                log.warn("Near cache invalidation subscribe error, stale entries expire in {} seconds", maxTtlSeconds, e);
+            }
+            listenerContainer = container;
+        }
+    }
+
+    private void publishInvalidate(String key) {
+        try {
+            remoteCache.publish(INVALIDATE_CHANNEL, nodeId + MESSAGE_SEPARATOR + key);
+        } catch (Exception e) {
+            log.warn("Near cache invalidation publish error, key: {}", key, e);
+        }
+    }
+
+    private void onInvalidate(String message) {
+        int index = message.indexOf(MESSAGE_SEPARATOR);
+        if (index < 0 || nodeId.equals(message.substring(0, index))) {
+            return;
+        }
+        removeLocal(message.substring(index + 1));
+    }
+
+    private Object getLocal(String key) {
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.isExpired(System.currentTimeMillis())) {
+                entries.remove(key);
+                usedBytes -= entry.getSize();
+                expirations.increment();
+                return null;
+            }
+            return entry.getValue();
+        }
+    }
+
+    private void putLocal(String key, Object value, int ttl) {
+        if (value == null || ttl <= 0) {
+            removeLocal(key);
+            return;
+        }
+        long size = estimateSize(value);
+        if (size > maxBytes) {
+            // 单个对象超过 L1 容量时只保存在 L2
+            removeLocal(key);
+            return;
+        }
+        long now = System.currentTimeMillis();
+        Entry entry = new Entry(value instanceof Dataframe ? ((Dataframe) value).deepCopy() : value, size, now + ttl * 1000L);
+        synchronized (entries) {
+            Entry old = entries.put(key, entry);
+            if (old != null) {
+                usedBytes -= old.getSize();
+            }
+            usedBytes += size;
+            if (usedBytes > maxBytes) {
+                evict(now);
+            }
+        }
+    }
+
+    private void removeLocal(String key) {
+        synchronized (entries) {
+            Entry old = entries.remove(key);
+            if (old != null) {
+                usedBytes -= old.getSize();
+            }
+        }
+    }
+
+    /**
+     * 先清理已过期的条目，空间仍不足时按最近最少使用顺序淘汰
+     */
+    private void evict(long now) {
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next().getValue();
+            if (entry.isExpired(now)) {
+                iterator.remove();
+                usedBytes -= entry.getSize();
+                expirations.increment();
+            }
+        }
+        iterator = entries.entrySet().iterator();
+        while (usedBytes > maxBytes && iterator.hasNext()) {
+            Entry entry = iterator.next().getValue();
+            iterator.remove();
+            usedBytes -= entry.getSize();
+            evictions.increment();
+        }
+    }
+
+    /**
+     * L1 中的对象会被多个请求共享，返回包含行数据的深拷贝，调用方（如 postProcessorQuery）可以任意修改
+     */
+    private Object copyOf(Object value) {
+        return value instanceof Dataframe ? ((Dataframe) value).deepCopy() : value;
+    }
+
+    private long estimateSize(Object value) {
+        if (!(value instanceof Dataframe)) {
+            return estimateValueSize(value);
+        }
+        Dataframe dataframe = (Dataframe) value;
+        long size = OBJECT_OVERHEAD * 4 + estimateValueSize(dataframe.getScript());
+        if (dataframe.getColumns() != null) {
+            for (Column column : dataframe.getColumns()) {
+                size += OBJECT_OVERHEAD;
+                if (column.getName() != null) {
+                    for (String name : column.getName()) {
+                        size += estimateValueSize(name);
+                    }
+                }
+            }
+        }
+        List<List<Object>> rows = dataframe.getRows();
+        if (rows == null || rows.isEmpty()) {
+            return size;
+        }
+        int sampleCount = Math.min(rows.size(), SAMPLE_ROWS);
+        long sampleSize = 0;
+        for (int i = 0; i < sampleCount; i++) {
+            List<Object> row = rows.get(i);
+            sampleSize += OBJECT_OVERHEAD + REFERENCE_SIZE;
+            if (row != null) {
+                for (Object cell : row) {
+                    sampleSize += REFERENCE_SIZE + estimateValueSize(cell);
+                }
+            }
+        }
+        return size + sampleSize * rows.size() / sampleCount;
+    }
+
+    private long estimateValueSize(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof String) {
+            return OBJECT_OVERHEAD * 2 + ((String) value).length() * 2L;
+        }
+        if (value instanceof Number || value instanceof Boolean || value instanceof Date) {
+            return OBJECT_OVERHEAD + 8;
+        }
+        if (value instanceof byte[]) {
+            return OBJECT_OVERHEAD + ((byte[]) value).length;
+        }
+        return OBJECT_OVERHEAD * 4;
+    }
+
+    @Data
+    private static class Entry {
+
+        private final Object value;
+
+        private final long size;
+
+        private final long expireAt;
+
+        boolean isExpired(long now) {
+            return now >= expireAt;
+        }
+    }
+
+    @Data
+    public static class CacheStats {
+
+        private int entries;
+
+        private long usedBytes;
+
+        private long maxBytes;
+
+        private long hits;
+
+        private long misses;
+
+        private long remoteHits;
+
+        private long evictions;
+
+        private long expirations;
+    }
+
+}
@@ -1,30 +1,48 @@
 package datart.server.service.impl;
 
 import datart.core.common.Cache;
-import org.springframework.beans.factory.annotation.Required;
+import datart.core.data.provider.Dataframe;
+import datart.core.data.provider.codec.ColumnarDataframeCodec;
+import datart.core.data.provider.codec.DataframeCodec;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.concurrent.TimeUnit;
 
 
+@Slf4j
 @Component
 public class RedisCacheImpl implements Cache {
 
     private final RedisTemplate redisTemplate;
 
-    public RedisCacheImpl(RedisTemplate redisTemplate) {
+    private final DataframeCodec codec;
+
+    private final boolean encodeEnabled;
+
+    public RedisCacheImpl(RedisTemplate redisTemplate,
+                          @Value("${datart.cache.codec:columnar}") String codecName,
+                          @Value("${datart.cache.compression:DEFLATE}") String compression) {
         this.redisTemplate = redisTemplate;
+        this.codec = new ColumnarDataframeCodec(ColumnarDataframeCodec.Compression.valueOf(compression.toUpperCase()));
+        // 关闭编码时仍然保留解码能力，以便读取已写入的列式缓存
+        this.encodeEnabled = "columnar".equalsIgnoreCase(codecName);
     }
 
     @Override
     public void put(String key, Object object) {
-        redisTemplate.opsForValue().set(key, object);
+        redisTemplate.opsForValue().set(key, encode(object));
     }
 
     @Override
     public void put(String key, Object object, int ttl) {
-        redisTemplate.opsForValue().set(key, object, ttl, TimeUnit.SECONDS);
+        redisTemplate.opsForValue().set(key, encode(object), ttl, TimeUnit.SECONDS);
     }
 
     @Override
@@ -34,6 +52,51 @@ public class RedisCacheImpl implements Cache {
 
     @Override
     public <T> T get(String key) {
-        return (T) redisTemplate.opsForValue().get(key);
+        return (T) decode(redisTemplate.opsForValue().get(key));
+    }
+
+    /**
+     * 剩余的过期时间(秒)，没有设置过期时间时返回 -1，key 不存在时返回 -2
+     */
+    public long getExpire(String key) {
+        Long expire = redisTemplate.getExpire(key, TimeUnit.SECONDS);
+        return expire == null ? -2 : expire;
+    }
+
+    /**
+     * 以 UTF-8 原文向指定频道发布消息，不经过 RedisTemplate 的序列化器
+     */
+    public void publish(String channel, String message) {
+        redisTemplate.execute((RedisCallback<Long>) connection -> connection.publish(
+                channel.getBytes(StandardCharsets.UTF_8), message.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    public RedisConnectionFactory getConnectionFactory() {
+        return redisTemplate.getConnectionFactory();
+    }
+
+    private Object encode(Object object) {
+        if (!encodeEnabled || !(object instanceof Dataframe)) {
+            return object;
+        }
+        try {
+            return codec.encode((Dataframe) object);
+        } catch (IOException e) {
+            log.warn("Dataframe encode error, fallback to java serialization", e);
+            return object;
+        }
+    }
+
+    private Object decode(Object value) {
+        // 旧格式的缓存直接以 java 序列化对象存储，原样返回
+        if (!(value instanceof byte[]) || !codec.accept((byte[]) value)) {
+            return value;
+        }
+        try {
+            return codec.decode((byte[]) value);
+        } catch (IOException e) {
+            log.warn("Dataframe decode error", e);
+            return null;
+        }
     }
 }
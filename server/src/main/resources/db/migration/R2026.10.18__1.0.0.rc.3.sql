@@ -0,0 +1,3 @@
+ALTER TABLE `download`
+    DROP COLUMN `row_count`,
+    DROP COLUMN `file_size`;
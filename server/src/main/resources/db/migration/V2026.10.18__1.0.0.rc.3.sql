@@ -0,0 +1,3 @@
+ALTER TABLE `download`
+    ADD COLUMN `row_count` bigint(20) NULL AFTER `status`,
+    ADD COLUMN `file_size` bigint(20) NULL AFTER `row_count`;
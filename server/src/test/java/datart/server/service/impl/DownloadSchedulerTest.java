@@ -0,0 +1,205 @@
+/*
+ * Datart
+ * <p>
+ * Copyright 2021
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package datart.server.service.impl;
+
+import datart.core.base.exception.BaseException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DownloadSchedulerTest {
+
+    private DownloadScheduler scheduler;
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private final List<String> started = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeEach
+    public void createScheduler() {
+        scheduler = new DownloadScheduler();
+        configure(4, 2, 1, 100, 10, DownloadScheduler.RejectPolicy.ABORT);
+    }
+
+    @AfterEach
+    public void shutdown() {
+        release.countDown();
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void testUserCap() throws Exception {
+        configure(2, 10, 1, 100, 10, DownloadScheduler.RejectPolicy.ABORT);
+        submitBlocking("t1", "o1", "u1", 1);
+        submitBlocking("t2", "o1", "u2", 1);
+        submitBlocking("t3", "o1", "u1", 1);
+        submitBlocking("t4", "o1", "u1", 1);
+        submitBlocking("t5", "o1", "u3", 2);
+        awaitTrue(() -> started.size() == 2);
+        assertEquals(new HashSet<>(Arrays.asList("t1", "t2")), new HashSet<>(started));
+
+        // u1 同时只能执行一个任务，t4 排在其它用户开销更大的 t5 之后
+        assertEquals(1, scheduler.queuePosition("t3"));
+        assertEquals(2, scheduler.queuePosition("t5"));
+        assertEquals(3, scheduler.queuePosition("t4"));
+        assertEquals(0, scheduler.queuePosition("t1"));
+        assertEquals(0, scheduler.queuePosition("missing"));
+    }
+
+    @Test
+    public void testOrgCap() throws Exception {
+        configure(4, 1, 5, 100, 10, DownloadScheduler.RejectPolicy.ABORT);
+        submitBlocking("t1", "o1", "u1", 1);
+        submitBlocking("t2", "o1", "u2", 1);
+        submitBlocking("t3", "o2", "u3", 1);
+        awaitTrue(() -> started.size() == 2);
+        assertEquals(new HashSet<>(Arrays.asList("t1", "t3")), new HashSet<>(started));
+        assertEquals(1, scheduler.queuePosition("t2"));
+
+        release.countDown();
+        awaitTrue(() -> started.size() == 3);
+        assertEquals("t2", started.get(2));
+    }
+
+    @Test
+    public void testSmallTasksFirst() throws Exception {
+        configure(1, 5, 5, 100, 10, DownloadScheduler.RejectPolicy.ABORT);
+        submitBlocking("t0", "o1", "u0", 1);
+        awaitTrue(() -> started.size() == 1);
+        submitBlocking("large", "o1", "u1", 5);
+        submitBlocking("small", "o1", "u2", 1);
+        submitBlocking("medium", "o1", "u3", 3);
+        assertEquals(1, scheduler.queuePosition("small"));
+        assertEquals(2, scheduler.queuePosition("medium"));
+        assertEquals(3, scheduler.queuePosition("large"));
+
+        release.countDown();
+        awaitTrue(() -> started.size() == 4);
+        assertEquals(Arrays.asList("t0", "small", "medium", "large"), started);
+    }
+
+    @Test
+    public void testAging() throws Exception {
+        configure(1, 5, 5, 100, 10, DownloadScheduler.RejectPolicy.ABORT);
+        submitBlocking("t0", "o1", "u0", 1);
+        awaitTrue(() -> started.size() == 1);
+        submitBlocking("large", "o1", "u1", 3);
+        submitBlocking("small", "o1", "u2", 1);
+        assertEquals(2, scheduler.queuePosition("large"));
+
+        // 等待三分钟后，开销为3的任务优先于刚提交的开销为1的任务
+        Object large = queued().get(0);
+        long submitTime = (long) ReflectionTestUtils.getField(large, "submitTime");
+        ReflectionTestUtils.setField(large, "submitTime", submitTime - TimeUnit.MINUTES.toMillis(3));
+        assertEquals(1, scheduler.queuePosition("large"));
+        assertEquals(2, scheduler.queuePosition("small"));
+    }
+
+    @Test
+    public void testQueueFullAbort() throws Exception {
+        configure(1, 5, 5, 2, 10, DownloadScheduler.RejectPolicy.ABORT);
+        submitBlocking("t0", "o1", "u0", 1);
+        awaitTrue(() -> started.size() == 1);
+        submitBlocking("t1", "o1", "u1", 1);
+        submitBlocking("t2", "o1", "u2", 1);
+        assertThrows(BaseException.class, () -> submitBlocking("t3", "o1", "u3", 1));
+        assertEquals(2, queued().size());
+        assertEquals(0, scheduler.queuePosition("t3"));
+    }
+
+    @Test
+    public void testQueueFullDiscardLargest() throws Exception {
+        configure(1, 5, 5, 2, 10, DownloadScheduler.RejectPolicy.DISCARD_LARGEST);
+        submitBlocking("t0", "o1", "u0", 1);
+        awaitTrue(() -> started.size() == 1);
+        AtomicBoolean discarded = new AtomicBoolean();
+        scheduler.submit("large", "o1", "u1", 5, () -> started.add("large"), () -> discarded.set(true));
+        submitBlocking("small", "o1", "u2", 1);
+
+        submitBlocking("medium", "o1", "u3", 2);
+        assertTrue(discarded.get());
+        assertEquals(0, scheduler.queuePosition("large"));
+        assertEquals(2, scheduler.queuePosition("medium"));
+
+        // 新任务的开销最大时拒绝新任务
+        assertThrows(BaseException.class, () -> submitBlocking("huge", "o1", "u4", 10));
+        assertEquals(2, queued().size());
+    }
+
+    @Test
+    public void testQueuedPerUserLimit() throws Exception {
+        configure(1, 5, 5, 100, 2, DownloadScheduler.RejectPolicy.ABORT);
+        submitBlocking("t0", "o1", "u0", 1);
+        awaitTrue(() -> started.size() == 1);
+        submitBlocking("t1", "o1", "u1", 1);
+        submitBlocking("t2", "o1", "u1", 1);
+        assertThrows(BaseException.class, () -> submitBlocking("t3", "o1", "u1", 1));
+        submitBlocking("t4", "o1", "u2", 1);
+        assertEquals(3, queued().size());
+    }
+
+    private void configure(int parallelism, int maxPerOrg, int maxPerUser, int queueCapacity, int maxQueuedPerUser
+            , DownloadScheduler.RejectPolicy rejectPolicy) {
+        ReflectionTestUtils.setField(scheduler, "parallelism", parallelism);
+        ReflectionTestUtils.setField(scheduler, "maxPerOrg", maxPerOrg);
+        ReflectionTestUtils.setField(scheduler, "maxPerUser", maxPerUser);
+        ReflectionTestUtils.setField(scheduler, "queueCapacity", queueCapacity);
+        ReflectionTestUtils.setField(scheduler, "maxQueuedPerUser", maxQueuedPerUser);
+        ReflectionTestUtils.setField(scheduler, "rejectPolicy", rejectPolicy);
+    }
+
+    private void submitBlocking(String downloadId, String orgId, String userId, long cost) {
+        scheduler.submit(downloadId, orgId, userId, cost, () -> {
+            started.add(downloadId);
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, () -> {
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object> queued() {
+        synchronized (scheduler) {
+            return new ArrayList<>((List<Object>) ReflectionTestUtils.getField(scheduler, "queue"));
+        }
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("condition not met in time");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+}